@@ -2,12 +2,18 @@ package com.system.chattalk_serverside;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ChatTalkServerSideApplication {
 
     public static void main( String[] args ) {
-        SpringApplication.run(ChatTalkServerSideApplication.class, args);
+        SpringApplication application = new SpringApplication(ChatTalkServerSideApplication.class);
+        // Startup steps are buffered for the report logged by StartupConfig when startup.report.enabled is set
+        application.setApplicationStartup(new BufferingApplicationStartup(4096));
+        application.run(args);
     }
 
 }
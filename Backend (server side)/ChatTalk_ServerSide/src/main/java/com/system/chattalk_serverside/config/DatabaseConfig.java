@@ -4,24 +4,29 @@ package com.system.chattalk_serverside.config;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 
 @Configuration
 @Slf4j
 public class DatabaseConfig {
 
     @Bean
+    @ConditionalOnProperty(name = "database.connection-test.enabled", havingValue = "true", matchIfMissing = true)
     public CommandLineRunner databaseConnectionTest(@Autowired DataSource dataSource, @Autowired JdbcTemplate jdbcTemplate) {
         return args -> {
-            try {
+            try (Connection connection = dataSource.getConnection()) {
                 log.info("Testing database connection...");
-                log.info("Database URL: {}", dataSource.getConnection().getMetaData().getURL());
-                log.info("Database Product: {}", dataSource.getConnection().getMetaData().getDatabaseProductName());
-                log.info("Database Version: {}", dataSource.getConnection().getMetaData().getDatabaseProductVersion());
+                DatabaseMetaData metaData = connection.getMetaData();
+                log.info("Database URL: {}", metaData.getURL());
+                log.info("Database Product: {}", metaData.getDatabaseProductName());
+                log.info("Database Version: {}", metaData.getDatabaseProductVersion());
 
                 // Test a simple query
                 String result = jdbcTemplate.queryForObject("SELECT 'Database connection successful!' as message", String.class);
@@ -33,4 +38,4 @@ public class DatabaseConfig {
             }
         };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,77 @@
+package com.system.chattalk_serverside.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second-level cache backed by an in-process JCache (Caffeine).
+ * Entities and collections use READ_WRITE regions, so updates made through the repositories replace or
+ * invalidate their entries; cached query results are invalidated whenever one of the queried tables is
+ * written. The TTL bounds staleness when several nodes run against the same database.
+ */
+@Slf4j
+@Configuration
+public class HibernateCacheConfig {
+    public static final String USERS = "users";
+    public static final String USERS_BY_EMAIL = "users-by-email";
+    public static final String USER_ROLES = "user-roles";
+    public static final String CHATS = "chats";
+    public static final String CHAT_PARTICIPATIONS = "chat-participations";
+    public static final String FRIEND_REQUESTS = "friend-requests";
+    public static final String MEMBERSHIP_QUERIES = "membership-queries";
+    public static final String FRIEND_QUERIES = "friend-queries";
+    private static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+    private static final String DEFAULT_QUERY_RESULTS = "default-query-results-region";
+
+    @Value("${cache.hibernate.enabled:true}")
+    private boolean enabled;
+    @Value("${cache.hibernate.max-entries:10000}")
+    private long maxEntries;
+    @Value("${cache.hibernate.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        // One manager per application context; tests start several contexts in one JVM
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("chattalk-hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : new String[]{USERS, USERS_BY_EMAIL, USER_ROLES, CHATS, CHAT_PARTICIPATIONS, FRIEND_REQUESTS,
+                MEMBERSHIP_QUERIES, FRIEND_QUERIES, DEFAULT_QUERY_RESULTS}) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+            cacheManager.createCache(region, configuration);
+        }
+        // Never evicted: a missing timestamp would let stale query results through
+        cacheManager.createCache(UPDATE_TIMESTAMPS, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer( CacheManager hibernateCacheManager ) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, enabled);
+            if (enabled) {
+                properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+                properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+                properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+                log.info("Hibernate second-level cache enabled ({} entries per region, {}s TTL)", maxEntries, ttlSeconds);
+            }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.system.chattalk_serverside.config;
+
+import com.system.chattalk_serverside.service.Message.MessageStore;
+import com.system.chattalk_serverside.service.Message.ShardedMessageStore;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Message sharding, active only when {@code messages.sharding.enabled=true}.
+ * Each URL in {@code messages.sharding.urls} is one shard; the order must never change once
+ * messages are stored, since it decides which shard a chat lives on.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "messages.sharding.enabled", havingValue = "true")
+public class MessageShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public MessageShards messageShards( @Value("${messages.sharding.urls}") List<String> urls,
+                                        @Value("${messages.sharding.username:${spring.datasource.username:}}") String username,
+                                        @Value("${messages.sharding.password:${spring.datasource.password:}}") String password,
+                                        @Value("${messages.sharding.maximum-pool-size:10}") int poolSize ) {
+        List<HikariDataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("message-shard-" + i);
+            shard.setJdbcUrl(urls.get(i).trim());
+            shard.setUsername(username);
+            shard.setPassword(password);
+            shard.setMaximumPoolSize(poolSize);
+            dataSources.add(shard);
+        }
+        log.info("Messages sharded by chat over {} databases", dataSources.size());
+        return new MessageShards(dataSources);
+    }
+
+    @Bean
+    public MessageStore messageStore( MessageShards messageShards,
+                                      @Value("${messages.sharding.node-id:0}") int nodeId ) {
+        return new ShardedMessageStore(messageShards, nodeId);
+    }
+}
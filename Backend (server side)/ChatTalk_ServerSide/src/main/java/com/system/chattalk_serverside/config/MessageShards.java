@@ -0,0 +1,98 @@
+package com.system.chattalk_serverside.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The message databases, one pool each. A chat always maps to the same shard by the hash of its id;
+ * work that has to see every shard runs on all of them in parallel and the results are concatenated.
+ */
+public class MessageShards implements AutoCloseable {
+    private final List<HikariDataSource> dataSources;
+    private final List<NamedParameterJdbcTemplate> shards = new ArrayList<>();
+    private final ExecutorService scatterExecutor;
+
+    public MessageShards( List<HikariDataSource> dataSources ) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("At least one message shard is required");
+        }
+        this.dataSources = dataSources;
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("db/message-shard-schema.sql"));
+        for (HikariDataSource dataSource : dataSources) {
+            schema.execute(dataSource);
+            shards.add(new NamedParameterJdbcTemplate(dataSource));
+        }
+        this.scatterExecutor = Executors.newFixedThreadPool(dataSources.size(), runnable -> {
+            Thread thread = new Thread(runnable, "message-shard-scatter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public int indexFor( Long chatId ) {
+        return Math.floorMod(Long.hashCode(chatId), shards.size());
+    }
+
+    public NamedParameterJdbcTemplate forChat( Long chatId ) {
+        return shards.get(indexFor(chatId));
+    }
+
+    public NamedParameterJdbcTemplate get( int index ) {
+        return shards.get(index);
+    }
+
+    /**
+     * Runs the query on every shard in parallel and concatenates the results in shard order
+     */
+    public <T> List<T> scatter( Function<NamedParameterJdbcTemplate, List<T>> query ) {
+        List<CompletableFuture<List<T>>> parts = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), scatterExecutor))
+                .toList();
+        List<T> results = new ArrayList<>();
+        parts.forEach(part -> results.addAll(part.join()));
+        return results;
+    }
+
+    /**
+     * Splits the chats by shard and runs the query once per shard that holds any of them
+     */
+    public <T> List<T> scatterByChat( Collection<Long> chatIds, BiFunction<NamedParameterJdbcTemplate, List<Long>, List<T>> query ) {
+        Map<Integer, List<Long>> chatsByShard = new TreeMap<>();
+        for (Long chatId : chatIds) {
+            chatsByShard.computeIfAbsent(indexFor(chatId), index -> new ArrayList<>()).add(chatId);
+        }
+        if (chatsByShard.size() == 1) {
+            Map.Entry<Integer, List<Long>> only = chatsByShard.entrySet().iterator().next();
+            return query.apply(shards.get(only.getKey()), only.getValue());
+        }
+        List<CompletableFuture<List<T>>> parts = chatsByShard.entrySet().stream()
+                .map(entry -> CompletableFuture.supplyAsync(() -> query.apply(shards.get(entry.getKey()), entry.getValue()), scatterExecutor))
+                .toList();
+        List<T> results = new ArrayList<>();
+        parts.forEach(part -> results.addAll(part.join()));
+        return results;
+    }
+
+    @Override
+    public void close() {
+        scatterExecutor.shutdownNow();
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
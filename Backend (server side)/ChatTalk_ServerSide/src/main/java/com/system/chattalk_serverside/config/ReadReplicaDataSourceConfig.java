@@ -0,0 +1,54 @@
+package com.system.chattalk_serverside.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Read/write split, active only when {@code datasource.replica.url} is set.
+ * The primary pool is built from the regular {@code spring.datasource.*} settings,
+ * the replica pool from {@code datasource.replica.*}.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.url")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource( DataSourceProperties primaryProperties,
+                                  @Value("${datasource.replica.url}") String replicaUrl,
+                                  @Value("${datasource.replica.username:${spring.datasource.username:}}") String replicaUsername,
+                                  @Value("${datasource.replica.password:${spring.datasource.password:}}") String replicaPassword,
+                                  @Value("${datasource.replica.maximum-pool-size:10}") int replicaPoolSize,
+                                  @Value("${datasource.replica.read-your-writes-ms:5000}") long readYourWritesMillis ) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setJdbcUrl(replicaUrl);
+        replica.setUsername(replicaUsername);
+        replica.setPassword(replicaPassword);
+        replica.setDriverClassName(primaryProperties.determineDriverClassName());
+        replica.setMaximumPoolSize(replicaPoolSize);
+        replica.setReadOnly(true);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(readYourWritesMillis);
+        routing.setTargetDataSources(Map.of(ReplicaRoutingDataSource.PRIMARY, primary, ReplicaRoutingDataSource.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+
+        log.info("Read-only transactions routed to replica {}", replicaUrl);
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -1,8 +1,10 @@
 package com.system.chattalk_serverside.config;
 
-
+import com.system.chattalk_serverside.enums.Role;
 import com.system.chattalk_serverside.security.CustomUserDetailsService;
 import com.system.chattalk_serverside.security.JwtAuthenticationFilter;
+import com.system.chattalk_serverside.security.RateLimitFilter;
+import com.system.chattalk_serverside.security.RateLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -33,11 +35,13 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final CustomUserDetailsService customUserDetailsService;
+    private final RateLimiter rateLimiter;
 
     @Autowired
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, CustomUserDetailsService customUserDetailsService) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, CustomUserDetailsService customUserDetailsService, RateLimiter rateLimiter) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
         this.customUserDetailsService = customUserDetailsService;
+        this.rateLimiter = rateLimiter;
     }
 
     @Bean
@@ -55,14 +59,15 @@ public class SecurityConfig {
                                 "/error",
                                 "/ws/**"  // Allow WebSocket connections
                         ).permitAll()
-                        .requestMatchers("/api/v1/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/api/v1/admin/**").hasAuthority(Role.ADMIN.getAuthority()) // authorities carry no ROLE_ prefix
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .authenticationProvider(authenticationProvider())
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(new RateLimitFilter(rateLimiter), JwtAuthenticationFilter.class); // per-user limits need the authenticated user
 
         return http.build();
     }
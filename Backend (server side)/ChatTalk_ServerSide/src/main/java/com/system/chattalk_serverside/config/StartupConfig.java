@@ -0,0 +1,84 @@
+package com.system.chattalk_serverside.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.sql.init.AbstractScriptDatabaseInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Startup tuning used by the {@code prod} profile: which beans stay eager when
+ * {@code spring.main.lazy-initialization} is on, and a report of the slowest startup steps.
+ */
+@Slf4j
+@Configuration
+public class StartupConfig {
+
+    @Value("${startup.report.enabled:false}")
+    private boolean reportEnabled;
+    @Value("${startup.report.top-steps:15}")
+    private int topSteps;
+
+    /**
+     * The connection pool and persistence unit are created at startup so the first request doesn't pay for them,
+     * the schema script runs before Hibernate validates the schema, and beans with {@code @Scheduled} methods would never be scheduled if nothing else pulled them in.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (DataSource.class.isAssignableFrom(beanType)
+                || EntityManagerFactoryInfo.class.isAssignableFrom(beanType)
+                || AbstractScriptDatabaseInitializer.class.isAssignableFrom(beanType)
+                || hasScheduledMethod(beanType));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportStartup( ApplicationReadyEvent event ) {
+        if (!reportEnabled) {
+            return;
+        }
+        log.info("Ready in {} ms (JVM uptime {} ms)", event.getTimeTaken().toMillis(), ManagementFactory.getRuntimeMXBean().getUptime());
+        if (event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup) {
+            StartupTimeline timeline = startup.getBufferedTimeline();
+            String slowest = timeline.getEvents().stream()
+                    .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                    .limit(topSteps)
+                    .map(step -> String.format("%n  %6d ms  %s%s", step.getDuration().toMillis(), step.getStartupStep().getName(), describe(step.getStartupStep())))
+                    .collect(Collectors.joining());
+            log.info("Slowest startup steps:{}", slowest);
+        }
+    }
+
+    private static String describe( StartupStep step ) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return " [" + tag.getValue() + "]";
+            }
+        }
+        return "";
+    }
+
+    private static boolean hasScheduledMethod( Class<?> beanType ) {
+        AtomicBoolean found = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(beanType,
+                method -> found.set(true),
+                method -> !found.get() && AnnotationUtils.findAnnotation(method, Scheduled.class) != null);
+        return found.get();
+    }
+}
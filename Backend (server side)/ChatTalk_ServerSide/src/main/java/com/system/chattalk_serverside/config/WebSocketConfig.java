@@ -1,7 +1,15 @@
 package com.system.chattalk_serverside.config;
 
+import com.system.chattalk_serverside.security.RateLimitChannelInterceptor;
+import com.system.chattalk_serverside.websocket.BinaryFrameDecoratorFactory;
+import com.system.chattalk_serverside.websocket.CompressionHandshakeHandler;
+import com.system.chattalk_serverside.websocket.CompressionMetricsDecoratorFactory;
+import com.system.chattalk_serverside.websocket.OutboundBatchingDecoratorFactory;
+import com.system.chattalk_serverside.websocket.PayloadEncodingInterceptor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -16,6 +24,27 @@ import org.springframework.web.socket.config.annotation.WebSocketTransportRegist
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private final PayloadEncodingInterceptor payloadEncodingInterceptor;
+    private final CompressionHandshakeHandler compressionHandshakeHandler;
+    private final CompressionMetricsDecoratorFactory compressionMetricsDecoratorFactory;
+    private final BinaryFrameDecoratorFactory binaryFrameDecoratorFactory;
+    private final OutboundBatchingDecoratorFactory outboundBatchingDecoratorFactory;
+    private final RateLimitChannelInterceptor rateLimitChannelInterceptor;
+    private final int sendTimeLimitMillis;
+    private final int sendBufferSizeLimit;
+
+    public WebSocketConfig( PayloadEncodingInterceptor payloadEncodingInterceptor, CompressionHandshakeHandler compressionHandshakeHandler, CompressionMetricsDecoratorFactory compressionMetricsDecoratorFactory, BinaryFrameDecoratorFactory binaryFrameDecoratorFactory, OutboundBatchingDecoratorFactory outboundBatchingDecoratorFactory, RateLimitChannelInterceptor rateLimitChannelInterceptor,
+                            @Value("${websocket.send-time-limit-ms:20000}") int sendTimeLimitMillis,
+                            @Value("${websocket.send-buffer-size-limit:524288}") int sendBufferSizeLimit ) {
+        this.payloadEncodingInterceptor = payloadEncodingInterceptor;
+        this.compressionHandshakeHandler = compressionHandshakeHandler;
+        this.compressionMetricsDecoratorFactory = compressionMetricsDecoratorFactory;
+        this.binaryFrameDecoratorFactory = binaryFrameDecoratorFactory;
+        this.outboundBatchingDecoratorFactory = outboundBatchingDecoratorFactory;
+        this.rateLimitChannelInterceptor = rateLimitChannelInterceptor;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+    }
 
     @Override
     public void configureMessageBroker( MessageBrokerRegistry config) {
@@ -35,11 +64,13 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void registerStompEndpoints( StompEndpointRegistry registry) {
         // Register STOMP endpoints
         registry.addEndpoint("/ws")
+                .setHandshakeHandler(compressionHandshakeHandler) // permessage-deflate negotiation
                 .setAllowedOriginPatterns("*") // Configure CORS for WebSocket
                 .withSockJS(); // Enable SockJS fallback
 
         // Register WebSocket endpoint without SockJS
         registry.addEndpoint("/ws")
+                .setHandshakeHandler(compressionHandshakeHandler)
                 .setAllowedOriginPatterns("*");
 
         log.info("WebSocket endpoints registered: /ws");
@@ -49,9 +80,19 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void configureWebSocketTransport( WebSocketTransportRegistration registration) {
         // Configure transport settings
         registration.setMessageSizeLimit(64 * 1024) // 64KB message size limit
-                .setSendBufferSizeLimit(512 * 1024) // 512KB send buffer
-                .setSendTimeLimit(20000); // 20 second send time limit
+                .setSendBufferSizeLimit(sendBufferSizeLimit) // 512KB send buffer by default
+                .setSendTimeLimit(sendTimeLimitMillis) // 20 second send time limit by default
+                .addDecoratorFactory(compressionMetricsDecoratorFactory) // outbound frame size / deflate metrics
+                .addDecoratorFactory(binaryFrameDecoratorFactory) // binary frames for CBOR sessions
+                .addDecoratorFactory(outboundBatchingDecoratorFactory); // last factory wraps closest to the socket: coalesces frames into one write
 
         log.info("WebSocket transport configured");
     }
+
+    @Override
+    public void configureClientInboundChannel( ChannelRegistration registration ) {
+        // Record per-session payload encoding requested on CONNECT (JSON unless the client opts in),
+        // then reject SENDs over the per-user rate limit with an ERROR frame
+        registration.interceptors(payloadEncodingInterceptor, rateLimitChannelInterceptor);
+    }
 }
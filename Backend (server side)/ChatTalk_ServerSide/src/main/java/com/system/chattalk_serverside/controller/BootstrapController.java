@@ -0,0 +1,59 @@
+package com.system.chattalk_serverside.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.chattalk_serverside.dto.BootstrapDto.BootstrapResponse;
+import com.system.chattalk_serverside.service.Bootstrap.BootstrapService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/bootstrap")
+@Tag(name = "Bootstrap", description = "Initial client state in a single request")
+public class BootstrapController {
+    private final BootstrapService bootstrapService;
+    private final ObjectMapper objectMapper;
+
+    public BootstrapController( BootstrapService bootstrapService, ObjectMapper objectMapper ) {
+        this.bootstrapService = bootstrapService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping
+    @Operation(
+            summary = "Get initial client state",
+            description = "Profile, friends with the summary of their private chat (id, last message, unread count), pending requests and notifications",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    public ResponseEntity<BootstrapResponse> getBootstrap() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return ResponseEntity.ok(bootstrapService.getBootstrap(email));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Stream initial client state",
+            description = "Same data as GET /api/bootstrap as newline-delimited JSON, one {\"section\", \"data\"} object per line, "
+                    + "in the order profile, friends, pendingRequests, notifications. Each line is flushed as soon as it is loaded.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    public ResponseEntity<StreamingResponseBody> streamBootstrap() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        StreamingResponseBody body = out -> bootstrapService.streamBootstrap(email, ( section, data ) -> {
+            out.write(objectMapper.writeValueAsBytes(new Section(section, data)));
+            out.write('\n');
+            out.flush();
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private record Section(String section, Object data) {
+    }
+}
@@ -1,7 +1,12 @@
 package com.system.chattalk_serverside.controller.ChatController;
 
 import com.system.chattalk_serverside.dto.Entity.ChatDto;
+import com.system.chattalk_serverside.dto.StatsDto.ChatStatsDTO;
+import com.system.chattalk_serverside.dto.StatsDto.DailyStatsDTO;
+import com.system.chattalk_serverside.enums.MessageExpiryMode;
+import com.system.chattalk_serverside.enums.VersionedResource;
 import com.system.chattalk_serverside.service.Chat.ChatService;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,10 +18,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,10 +33,12 @@ import java.util.Optional;
 @Tag(name = "Chat Management", description = "Chat creation and management APIs")
 public class ChatController {
     private final ChatService chatService;
+    private final ResourceVersions resourceVersions;
 
     @Autowired
-    public ChatController(ChatService chatService) {
+    public ChatController(ChatService chatService, ResourceVersions resourceVersions) {
         this.chatService = chatService;
+        this.resourceVersions = resourceVersions;
     }
 
     @PostMapping("/private")
@@ -87,9 +97,13 @@ public class ChatController {
             description = "Retrieves all chats (private and group) for the authenticated user",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
-    public ResponseEntity<List<ChatDto>> getUserAllChats() {
+    public ResponseEntity<List<ChatDto>> getUserAllChats(WebRequest webRequest) {
+        String etag = resourceVersions.etag(SecurityContextHolder.getContext().getAuthentication().getName(), VersionedResource.CHATS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         List<ChatDto> chats = chatService.getUserAllChats();
-        return ResponseEntity.ok(chats);
+        return ResponseEntity.ok().cacheControl(ResourceVersions.REVALIDATE).eTag(etag).body(chats);
     }
 
     @GetMapping("/{chatId}")
@@ -128,6 +142,25 @@ public class ChatController {
         return ResponseEntity.ok(updatedChat);
     }
 
+    @PutMapping("/{chatId}/ttl")
+    @Operation(
+            summary = "Set message time-to-live",
+            description = "Makes messages of a chat disappear a set time after they are sent or read (only for participants); no or 0 seconds turns it off",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            parameters = {
+                @Parameter(name = "chatId", description = "ID of the chat", required = true, example = "123"),
+                @Parameter(name = "seconds", description = "Time-to-live in seconds", required = false, example = "86400"),
+                @Parameter(name = "mode", description = "AFTER_SENT or AFTER_READ", required = false, example = "AFTER_SENT")
+            }
+    )
+    public ResponseEntity<ChatDto> updateMessageTtl(
+            @PathVariable Long chatId,
+            @RequestParam(required = false) Long seconds,
+            @RequestParam(defaultValue = "AFTER_SENT") MessageExpiryMode mode) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        return ResponseEntity.ok(chatService.updateMessageTtl(chatId, seconds, mode, userEmail));
+    }
+
     @DeleteMapping("/{chatId}")
     @Operation(
             summary = "Delete private chat",
@@ -237,6 +270,32 @@ public class ChatController {
         return ResponseEntity.ok().build();
     }
 
+    @PutMapping("/{chatId}/mute")
+    @Operation(
+            summary = "Mute chat",
+            description = "Stops notifications for new messages in a chat; messages are still delivered",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            parameters = @Parameter(name = "chatId", description = "ID of the chat to mute", required = true, example = "123")
+    )
+    public ResponseEntity<Void> muteChat(@PathVariable Long chatId) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        chatService.setMuted(chatId, true, userEmail);
+        return ResponseEntity.ok().build();
+    }
+
+    @DeleteMapping("/{chatId}/mute")
+    @Operation(
+            summary = "Unmute chat",
+            description = "Turns notifications for new messages in a chat back on",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            parameters = @Parameter(name = "chatId", description = "ID of the chat to unmute", required = true, example = "123")
+    )
+    public ResponseEntity<Void> unmuteChat(@PathVariable Long chatId) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        chatService.setMuted(chatId, false, userEmail);
+        return ResponseEntity.ok().build();
+    }
+
     @GetMapping("/{chatId}/message-count")
     @Operation(
             summary = "Get chat message count",
@@ -254,6 +313,36 @@ public class ChatController {
         return ResponseEntity.ok(messageCount);
     }
 
+    @GetMapping("/{chatId}/stats")
+    @Operation(
+            summary = "Get chat statistics",
+            description = "Retrieves the message count, last activity and messages per sender of a chat",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            parameters = @Parameter(
+                    name = "chatId",
+                    description = "ID of the chat",
+                    required = true,
+                    example = "123"
+            )
+    )
+    public ResponseEntity<ChatStatsDTO> getChatStats(@PathVariable Long chatId) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        return ResponseEntity.ok(chatService.getChatStats(chatId, userEmail));
+    }
+
+    @GetMapping("/stats/daily")
+    @Operation(
+            summary = "Get daily message statistics",
+            description = "Messages the authenticated user sent per day between two dates (default: the last 30 days)",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    public ResponseEntity<List<DailyStatsDTO>> getDailyStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        return ResponseEntity.ok(chatService.getDailyStats(userEmail, from, to));
+    }
+
     @GetMapping("/count")
     @Operation(
             summary = "Get user's chat count",
@@ -2,10 +2,26 @@ package com.system.chattalk_serverside.controller.ChatController;
 
 import com.system.chattalk_serverside.dto.ChatDto.SendMessageRequest;
 import com.system.chattalk_serverside.dto.Entity.MessageDTO;
+import com.system.chattalk_serverside.dto.ScheduledDto.ScheduleMessageRequest;
+import com.system.chattalk_serverside.dto.ScheduledDto.ScheduledMessageDTO;
+import com.system.chattalk_serverside.enums.ExportFormat;
+import com.system.chattalk_serverside.service.Message.MessageExportService;
 import com.system.chattalk_serverside.service.Message.MessageService;
+import com.system.chattalk_serverside.service.Scheduled.ScheduledMessageService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 import java.util.List;
 
@@ -34,6 +50,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
  * DELETE /api/chats/{chatId}/messages/{messageId} → delete message
  * <p>
  * POST /api/chats/{chatId}/read → mark chat as read
+ * <p>
+ * GET /api/chats/{chatId}/export → full history as NDJSON or CSV, streamed
+ * <p>
+ * POST /api/chats/{chatId}/messages/scheduled → schedule a message for later
+ * <p>
+ * GET /api/chats/{chatId}/messages/scheduled → own pending scheduled messages
+ * <p>
+ * DELETE /api/chats/{chatId}/messages/scheduled/{scheduledId} → cancel a scheduled message
  */
 @RestController
 @RequestMapping("/api/chats")
@@ -42,6 +66,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class MessageController {
 
     private final MessageService messageService;
+    private final MessageExportService messageExportService;
+    private final ScheduledMessageService scheduledMessageService;
 
     @GetMapping("/{chatId}/messages")
     @Operation(summary = "Get paginated messages", description = "Retrieves paginated messages for a chat (newest first)", security = @SecurityRequirement(name = "Bearer Authentication"), parameters = {@Parameter(name = "chatId", description = "ID of the chat", required = true, example = "123"), @Parameter(name = "page", description = "Page number (0-based)", required = false, example = "0"), @Parameter(name = "size", description = "Page size", required = false, example = "20")})
@@ -57,6 +83,26 @@ public class MessageController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    @PostMapping("/{chatId}/messages/scheduled")
+    @Operation(summary = "Schedule a message", description = "Stores a message to be sent in the specified chat at sendAt (server-local time), through the normal send path", security = @SecurityRequirement(name = "Bearer Authentication"), parameters = @Parameter(name = "chatId", description = "ID of the chat", required = true, example = "123"))
+    public ResponseEntity<ScheduledMessageDTO> scheduleMessage( @PathVariable Long chatId, @Valid @RequestBody ScheduleMessageRequest request ) {
+        ScheduledMessageDTO scheduled = scheduledMessageService.schedule(chatId, request, getCurrentUserId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(scheduled);
+    }
+
+    @GetMapping("/{chatId}/messages/scheduled")
+    @Operation(summary = "List scheduled messages", description = "Returns the current user's pending scheduled messages in the specified chat, earliest first", security = @SecurityRequirement(name = "Bearer Authentication"), parameters = @Parameter(name = "chatId", description = "ID of the chat", required = true, example = "123"))
+    public ResponseEntity<List<ScheduledMessageDTO>> scheduledMessages( @PathVariable Long chatId ) {
+        return ResponseEntity.ok(scheduledMessageService.pending(chatId, getCurrentUserId()));
+    }
+
+    @DeleteMapping("/{chatId}/messages/scheduled/{scheduledId}")
+    @Operation(summary = "Cancel a scheduled message", description = "Cancels one of the current user's scheduled messages that has not been sent yet", security = @SecurityRequirement(name = "Bearer Authentication"), parameters = {@Parameter(name = "chatId", description = "ID of the chat", required = true, example = "123"), @Parameter(name = "scheduledId", description = "ID of the scheduled message", required = true, example = "42")})
+    public ResponseEntity<Void> cancelScheduledMessage( @PathVariable Long chatId, @PathVariable Long scheduledId ) {
+        scheduledMessageService.cancel(chatId, scheduledId, getCurrentUserId());
+        return ResponseEntity.noContent().build();
+    }
+
     @PatchMapping("/{chatId}/read")
     @Operation(summary = "Mark chat as read", description = "Marks all messages as read for the current user in the specified chat", security = @SecurityRequirement(name = "Bearer Authentication"), parameters = @Parameter(name = "chatId", description = "ID of the chat", required = true, example = "123"))
     public ResponseEntity<Void> markRead( @PathVariable Long chatId ) {
@@ -73,10 +119,10 @@ public class MessageController {
     }
 
     @PatchMapping("/{chatId}/messages/{messageId}")
-    @Operation(summary = "Edit a message", description = "Edits a message sent by the current user", security = @SecurityRequirement(name = "Bearer Authentication"), parameters = {@Parameter(name = "chatId", description = "ID of the chat", required = true, example = "123"), @Parameter(name = "messageId", description = "ID of the message", required = true, example = "456"), @Parameter(name = "content", description = "New message content", required = true, example = "Updated text")})
-    public ResponseEntity<MessageDTO> edit( @PathVariable Long chatId, @PathVariable Long messageId, @RequestParam String content ) {
+    @Operation(summary = "Edit a message", description = "Edits a message sent by the current user", security = @SecurityRequirement(name = "Bearer Authentication"), parameters = {@Parameter(name = "chatId", description = "ID of the chat", required = true, example = "123"), @Parameter(name = "messageId", description = "ID of the message", required = true, example = "456"), @Parameter(name = "content", description = "New message content", required = true, example = "Updated text"), @Parameter(name = "version", description = "Version of the message being edited; 409 if it has changed since", required = false, example = "2")})
+    public ResponseEntity<MessageDTO> edit( @PathVariable Long chatId, @PathVariable Long messageId, @RequestParam String content, @RequestParam(required = false) Long version ) {
         Long userId = getCurrentUserId();
-        return ResponseEntity.ok(messageService.editMessage(chatId, messageId, content, userId));
+        return ResponseEntity.ok(messageService.editMessage(chatId, messageId, content, userId, version));
     }
 
     @DeleteMapping("/{chatId}/messages/{messageId}")
@@ -87,6 +133,37 @@ public class MessageController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/{chatId}/export")
+    @Operation(summary = "Export chat history", description = "Streams the messages of a chat, oldest first, as NDJSON (one message per line) or CSV. Optional from/to (ISO date-time) limit the export to messages created in [from, to). Gzip-compressed when the client accepts it.", security = @SecurityRequirement(name = "Bearer Authentication"), parameters = {@Parameter(name = "chatId", description = "ID of the chat", required = true, example = "123"), @Parameter(name = "format", description = "ndjson or csv", required = false, example = "ndjson"), @Parameter(name = "from", description = "Earliest creation time, inclusive", required = false, example = "2024-01-01T00:00:00"), @Parameter(name = "to", description = "Latest creation time, exclusive", required = false, example = "2024-02-01T00:00:00")})
+    public ResponseEntity<StreamingResponseBody> export( @PathVariable Long chatId,
+                                                         @RequestParam(defaultValue = "ndjson") String format,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                         @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding ) {
+        ExportFormat exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        MessageExportService.Export export = messageExportService.prepare(chatId, getCurrentUserId(), from, to);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192, true) : out;
+            messageExportService.export(export, exportFormat, target);
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish();
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("chat-" + chatId + "." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     private Long getCurrentUserId() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         Object principal = auth.getPrincipal();
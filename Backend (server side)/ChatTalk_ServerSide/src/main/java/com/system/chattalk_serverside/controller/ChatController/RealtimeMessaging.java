@@ -1,20 +1,32 @@
 package com.system.chattalk_serverside.controller.ChatController;
 
+import com.system.chattalk_serverside.dto.ChatDto.ChatFocusRequest;
 import com.system.chattalk_serverside.dto.ChatDto.SendMessageRequest;
 import com.system.chattalk_serverside.dto.Entity.MessageDTO;
+import com.system.chattalk_serverside.dto.EventDto.EventReplayRequest;
+import com.system.chattalk_serverside.dto.EventDto.EventReplayResponse;
+import com.system.chattalk_serverside.service.Events.UserEventLog;
 import com.system.chattalk_serverside.service.Message.MessageServiceImpl;
+import com.system.chattalk_serverside.websocket.ChatFocusRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
+
 @Slf4j
 @Controller
 public class RealtimeMessaging {
     private final MessageServiceImpl messageServiceImpl;
+    private final UserEventLog userEventLog;
+    private final ChatFocusRegistry chatFocusRegistry;
 
-    public RealtimeMessaging( MessageServiceImpl messageServiceImpl ) {
+    public RealtimeMessaging( MessageServiceImpl messageServiceImpl, UserEventLog userEventLog, ChatFocusRegistry chatFocusRegistry ) {
         this.messageServiceImpl = messageServiceImpl;
+        this.userEventLog = userEventLog;
+        this.chatFocusRegistry = chatFocusRegistry;
     }
 
     /**
@@ -32,4 +44,22 @@ public class RealtimeMessaging {
         log.info("Message sent to Messaging service {}", request.getSenderId());
         return messageServiceImpl.sendMessage(request);
     }
+
+    /**
+     * Resume after a reconnect: events after the client's last applied sequence number
+     */
+    @MessageMapping("/events.replay")
+    @SendToUser("/queue/replay")
+    public EventReplayResponse replayEvents( EventReplayRequest request, Principal principal ) {
+        log.debug("Replay requested by {} from seq {}", principal.getName(), request.getSince());
+        return userEventLog.replay(principal.getName(), request.getSince(), request.getLimit());
+    }
+
+    /**
+     * The client opened (or left) a chat; new messages there skip the notification for this user
+     */
+    @MessageMapping("/chat.focus")
+    public void focusChat( ChatFocusRequest request, Principal principal, @Header("simpSessionId") String sessionId ) {
+        chatFocusRegistry.focus(sessionId, principal.getName(), request.getChatId());
+    }
 }
@@ -0,0 +1,33 @@
+package com.system.chattalk_serverside.controller;
+
+import com.system.chattalk_serverside.dto.EventDto.EventReplayResponse;
+import com.system.chattalk_serverside.service.Events.UserEventLog;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/events")
+@Tag(name = "Event Replay", description = "Realtime events missed while disconnected")
+public class EventController {
+    private final UserEventLog userEventLog;
+
+    public EventController( UserEventLog userEventLog ) {
+        this.userEventLog = userEventLog;
+    }
+
+    @GetMapping
+    @Operation(summary = "Replay missed realtime events",
+            description = "Returns the authenticated user's events with a sequence number greater than 'since', oldest first. "
+                    + "complete=false means the gap is older than the retained log and the client should reload; hasMore=true means ask again from the last returned seq.",
+            security = @SecurityRequirement(name = "Bearer Authentication"))
+    public ResponseEntity<EventReplayResponse> replay( @Parameter(description = "Last sequence number the client applied", example = "42") @RequestParam(defaultValue = "0") long since,
+                                                       @RequestParam(required = false) Integer limit ) {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return ResponseEntity.ok(userEventLog.replay(email, since, limit));
+    }
+}
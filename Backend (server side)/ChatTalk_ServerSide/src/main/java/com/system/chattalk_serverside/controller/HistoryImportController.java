@@ -0,0 +1,42 @@
+package com.system.chattalk_serverside.controller;
+
+import com.system.chattalk_serverside.dto.ImportDto.ImportRequest;
+import com.system.chattalk_serverside.dto.ImportDto.ImportStatusDTO;
+import com.system.chattalk_serverside.service.Import.HistoryImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * History import (admins only) → /api/v1/admin/imports
+ * <p>
+ * POST /api/v1/admin/imports → start or resume an import
+ * <p>
+ * GET /api/v1/admin/imports/{source} → progress and throughput
+ */
+@RestController
+@RequestMapping("/api/v1/admin/imports")
+@Tag(name = "History Import", description = "Bulk import of chat history from a previous system")
+public class HistoryImportController {
+    private final HistoryImportService historyImportService;
+
+    public HistoryImportController( HistoryImportService historyImportService ) {
+        this.historyImportService = historyImportService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Start an import", description = "Imports an NDJSON file of chats, participants and messages from the import directory in the background. Starting a source again resumes it after its last committed line.", security = @SecurityRequirement(name = "Bearer Authentication"))
+    public ResponseEntity<ImportStatusDTO> start( @Valid @RequestBody ImportRequest request ) {
+        return ResponseEntity.accepted().body(historyImportService.start(request));
+    }
+
+    @GetMapping("/{source}")
+    @Operation(summary = "Import progress", description = "Lines, records and messages per second of an import", security = @SecurityRequirement(name = "Bearer Authentication"), parameters = @Parameter(name = "source", description = "Name the import was started with", required = true, example = "legacy-2019"))
+    public ResponseEntity<ImportStatusDTO> status( @PathVariable String source ) {
+        return ResponseEntity.ok(historyImportService.status(source));
+    }
+}
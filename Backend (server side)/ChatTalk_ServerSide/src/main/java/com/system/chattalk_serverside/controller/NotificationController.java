@@ -1,11 +1,17 @@
 package com.system.chattalk_serverside.controller;
 
 import com.system.chattalk_serverside.dto.Entity.NotificationDTO;
+import com.system.chattalk_serverside.dto.NotificationDto.NotificationPageDTO;
+import com.system.chattalk_serverside.enums.VersionedResource;
 import com.system.chattalk_serverside.service.Notification.NotificationService;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -14,17 +20,51 @@ import java.util.List;
 @Tag(name = "Notification Management", description = "Handles user notifications including retrieval and status updates")
 public class NotificationController {
     private final NotificationService notificationService;
+    private final ResourceVersions resourceVersions;
 
-    public NotificationController( NotificationService notificationService) {
+    public NotificationController( NotificationService notificationService, ResourceVersions resourceVersions) {
         this.notificationService = notificationService;
+        this.resourceVersions = resourceVersions;
     }
 
     @GetMapping
     @Operation(summary = "Get all notifications for the authenticated user")
     public
-    ResponseEntity<List<NotificationDTO>> getNotifications() {
+    ResponseEntity<List<NotificationDTO>> getNotifications( WebRequest webRequest ) {
+        String etag = resourceVersions.etag(SecurityContextHolder.getContext().getAuthentication().getName(), VersionedResource.NOTIFICATIONS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         List<NotificationDTO> notifications = notificationService.getNotification();
-        return ResponseEntity.ok(notifications);
+        return ResponseEntity.ok().cacheControl(ResourceVersions.REVALIDATE).eTag(etag).body(notifications);
+    }
+
+    @GetMapping("/page")
+    @Operation(summary = "Get a page of notifications, most recent activity first",
+            description = "Pass the returned nextCursor to get the next (older) page, and latestCursor to /changes to poll for updates.")
+    public ResponseEntity<NotificationPageDTO> getPage( @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit ) {
+        return ResponseEntity.ok(notificationService.getPage(cursor, limit));
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "Get notifications created or updated since a cursor, oldest change first",
+            description = "hasMore=true means ask again with since = the returned latestCursor.")
+    public ResponseEntity<NotificationPageDTO> getChanges( @Parameter(description = "latestCursor of the previous response") @RequestParam(required = false) String since,
+                                                           @RequestParam(required = false) Integer limit ) {
+        return ResponseEntity.ok(notificationService.getChangesSince(since, limit));
+    }
+
+    @GetMapping("/unread-count")
+    @Operation(summary = "Get the number of unread notifications")
+    public ResponseEntity<Long> getUnreadCount() {
+        return ResponseEntity.ok(notificationService.getUnreadCount());
+    }
+
+    @PatchMapping("/read")
+    @Operation(summary = "Mark all notifications of the authenticated user as read")
+    public ResponseEntity<Integer> markAllAsRead() {
+        return ResponseEntity.ok(notificationService.markAllAsRead());
     }
 
     @DeleteMapping
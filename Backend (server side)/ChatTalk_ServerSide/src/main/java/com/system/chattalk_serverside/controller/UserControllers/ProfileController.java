@@ -3,7 +3,9 @@ package com.system.chattalk_serverside.controller.UserControllers;
 import com.system.chattalk_serverside.dto.ApiResponse;
 import com.system.chattalk_serverside.dto.AuthDto.UpdateProfileRequest;
 import com.system.chattalk_serverside.dto.Entity.UserDTO;
+import com.system.chattalk_serverside.enums.VersionedResource;
 import com.system.chattalk_serverside.service.ProfileService;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -19,6 +21,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
@@ -30,21 +33,27 @@ import java.util.Map;
 @Tag(name = "User Profile", description = "User profile management and updates")
 public class ProfileController {
     private final ProfileService profileService;
+    private final ResourceVersions resourceVersions;
 
     @Autowired
-    public ProfileController( ProfileService profileService ) {
+    public ProfileController( ProfileService profileService, ResourceVersions resourceVersions ) {
         this.profileService = profileService;
+        this.resourceVersions = resourceVersions;
     }
 
     @GetMapping
     @Operation(summary = "Get user profile", description = "Retrieves the complete profile information of the currently authenticated user.", security = @SecurityRequirement(name = "Bearer Authentication"))
     @ApiResponses(value = {@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Profile retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.system.chattalk_serverside.dto.ApiResponse.class), examples = @ExampleObject(name = "Profile Response", value = "{\n" + "  \"timeStamp\": \"2024-01-15T10:30:00\",\n" + "  \"statusCode\": 200,\n" + "  \"status\": \"OK\",\n" + "  \"message\": \"Fetch User Data\",\n" + "  \"data\": {\n" + "    \"user\": {\n" + "      \"id\": 1,\n" + "      \"email\": \"john.doe@example.com\",\n" + "      \"firstName\": \"John\",\n" + "      \"lastName\": \"Doe\",\n" + "      \"profilePictureUrl\": \"https://example.com/profile.jpg\",\n" + "      \"phoneNumber\": \"+1234567890\",\n" + "      \"bio\": \"Software Developer\",\n" + "      \"gender\": \"MALE\",\n" + "      \"dateOfBirth\": \"1990-01-01\"\n" + "    }\n" + "  }\n" + "}"))), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing authentication token"), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "User profile not found")})
-    public ResponseEntity<ApiResponse> GetUserProfile() {
+    public ResponseEntity<ApiResponse> GetUserProfile( WebRequest webRequest ) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        String etag = resourceVersions.etag(email, VersionedResource.PROFILE);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         UserDTO userDTO = profileService.GetProfile(email);
         ApiResponse apiResponse = ApiResponse.builder().timeStamp(LocalDateTime.now()).status(HttpStatus.OK).statusCode(HttpStatus.OK.value()).message("Fetch User Data").path("/api/profile/me").data(Map.of("user", userDTO)).build();
 
-        return ResponseEntity.ok(apiResponse);
+        return ResponseEntity.ok().cacheControl(ResourceVersions.REVALIDATE).eTag(etag).body(apiResponse);
     }
 
     @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -4,7 +4,9 @@ import com.system.chattalk_serverside.dto.ApiResponse;
 import com.system.chattalk_serverside.dto.ContactDto.FriendRequestResponse;
 import com.system.chattalk_serverside.dto.ContactDto.PendingFriendRequestDto;
 import com.system.chattalk_serverside.dto.Entity.UserDTO;
+import com.system.chattalk_serverside.enums.VersionedResource;
 import com.system.chattalk_serverside.service.Connections.ContactService;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -16,7 +18,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -27,10 +31,12 @@ import java.util.Map;
 @Tag(name = "Contact & Friend Management", description = "Handles friend requests, contact list, and user relationships")
 public class ContactController {
     private final ContactService contactsService;
+    private final ResourceVersions resourceVersions;
 
     @Autowired
-    public ContactController( ContactService contactsService ) {
+    public ContactController( ContactService contactsService, ResourceVersions resourceVersions ) {
         this.contactsService = contactsService;
+        this.resourceVersions = resourceVersions;
     }
 
     @Operation(summary = "Send a friend request", description = "Sends a friend request to another user. The receiver will be notified and can accept or reject the request.", security = @SecurityRequirement(name = "Bearer Authentication"), parameters = @Parameter(name = "receiverEmail", description = "Email address of the user to send friend request to", required = true, example = "jane.doe@example.com"))
@@ -45,20 +51,28 @@ public class ContactController {
     @Operation(summary = "Get pending friend requests", description = "Retrieves all pending friend requests received by the currently authenticated user.", security = @SecurityRequirement(name = "Bearer Authentication"))
     @ApiResponses(value = {@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Pending requests retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.system.chattalk_serverside.dto.ApiResponse.class))), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing authentication token")})
     @GetMapping("/requests/pending")
-    public ResponseEntity<ApiResponse> getPendingRequests() {
+    public ResponseEntity<ApiResponse> getPendingRequests( WebRequest webRequest ) {
+        String etag = resourceVersions.etag(SecurityContextHolder.getContext().getAuthentication().getName(), VersionedResource.PENDING_REQUESTS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         List<PendingFriendRequestDto> pendingRequests = contactsService.getPendingRequests();
         ApiResponse response = ApiResponse.builder().timeStamp(LocalDateTime.now()).statusCode(HttpStatus.OK.value()).status(HttpStatus.OK).message("Pending friend requests fetched successfully").path("/api/contacts/requests/pending").data(Map.of("pendingRequests", pendingRequests)).build();
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().cacheControl(ResourceVersions.REVALIDATE).eTag(etag).body(response);
     }
 
     @Operation(summary = "Get accepted friends", description = "Retrieves the list of all accepted friends for the currently authenticated user.", security = @SecurityRequirement(name = "Bearer Authentication"))
     @ApiResponses(value = {@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Friends list retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.system.chattalk_serverside.dto.ApiResponse.class))), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing authentication token")})
     @GetMapping("/friends")
-    public ResponseEntity<ApiResponse> getAcceptedFriends() {
+    public ResponseEntity<ApiResponse> getAcceptedFriends( WebRequest webRequest ) {
+        String etag = resourceVersions.etag(SecurityContextHolder.getContext().getAuthentication().getName(), VersionedResource.FRIENDS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         List<UserDTO> users = contactsService.getFriends();
         ApiResponse response = ApiResponse.builder().timeStamp(LocalDateTime.now()).statusCode(HttpStatus.OK.value()).status(HttpStatus.OK).message("Friends list retrieved successfully").path("/api/contacts/friends").data(Map.of("friendList", users)).build();
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().cacheControl(ResourceVersions.REVALIDATE).eTag(etag).body(response);
     }
 
     @Operation(summary = "Accept a friend request", description = "Accepts a pending friend request from another user. Both users become friends after acceptance.", security = @SecurityRequirement(name = "Bearer Authentication"), parameters = @Parameter(name = "requestId", description = "ID of the friend request to accept", required = true, example = "1"))
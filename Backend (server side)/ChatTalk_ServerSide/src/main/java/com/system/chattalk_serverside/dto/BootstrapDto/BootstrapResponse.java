@@ -0,0 +1,18 @@
+package com.system.chattalk_serverside.dto.BootstrapDto;
+
+import com.system.chattalk_serverside.dto.ContactDto.PendingFriendRequestDto;
+import com.system.chattalk_serverside.dto.Entity.NotificationDTO;
+import com.system.chattalk_serverside.dto.Entity.UserDTO;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Builder
+@Data
+public class BootstrapResponse {
+    private UserDTO profile;
+    private List<FriendChatDTO> friends;
+    private List<PendingFriendRequestDto> pendingRequests;
+    private List<NotificationDTO> notifications;
+}
@@ -0,0 +1,20 @@
+package com.system.chattalk_serverside.dto.BootstrapDto;
+
+import com.system.chattalk_serverside.dto.Entity.UserDTO;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A friend together with the summary of the private chat with them; chat fields are null until a chat exists
+ */
+@Builder
+@Data
+public class FriendChatDTO {
+    private UserDTO friend;
+    private Long chatId;
+    private String lastMessage;
+    private LocalDateTime lastMessageAt;
+    private long unreadCount;
+}
@@ -0,0 +1,12 @@
+package com.system.chattalk_serverside.dto.ChatDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatFocusRequest {
+    private Long chatId;    // chat now on screen, or null when none is
+}
@@ -0,0 +1,21 @@
+package com.system.chattalk_serverside.dto.ChatDto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Change to an already delivered message: the new content of an edit, or a tombstone for a deletion.
+ * Clients apply it only when {@code version} is newer than the copy they show.
+ */
+@Builder
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MessageDeltaDTO {
+    private Long messageId;
+    private Long chatId;
+    private Long version;
+    // Null for a deletion
+    private String content;
+    private Boolean deleted;
+}
@@ -13,4 +13,6 @@ public class SendMessageRequest {
     private Long senderId;
     private String MessageType;
     private String timestamp;
+    // Optional, generated by the client once per message and reused on retries
+    private String clientMessageId;
 }
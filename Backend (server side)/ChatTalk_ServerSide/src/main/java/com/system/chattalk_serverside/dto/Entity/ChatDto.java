@@ -15,4 +15,7 @@ public class ChatDto {
     private List<String> participationEmail;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // Disappearing messages; null when off
+    private Long messageTtlSeconds;
+    private String messageExpiryMode;
 }
@@ -16,4 +16,7 @@ public class MessageDTO {
     private Long senderId;
     private String content;
     private Boolean isRead;
+    private String clientMessageId;
+    private Boolean isEdited;
+    private Long version;
 }
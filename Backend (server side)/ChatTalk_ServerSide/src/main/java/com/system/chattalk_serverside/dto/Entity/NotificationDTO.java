@@ -17,5 +17,8 @@ public class NotificationDTO {
     private String senderEmail;
     private Long chatId;
     private Long senderId;
+    // Messages coalesced into a chat's entry
+    private Integer messageCount;
+    private String updatedAt;
 
 }
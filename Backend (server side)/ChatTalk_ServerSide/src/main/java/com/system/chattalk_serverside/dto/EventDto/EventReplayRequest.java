@@ -0,0 +1,13 @@
+package com.system.chattalk_serverside.dto.EventDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventReplayRequest {
+    private long since;     // last sequence number the client has applied
+    private Integer limit;
+}
@@ -0,0 +1,15 @@
+package com.system.chattalk_serverside.dto.EventDto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Builder
+@Data
+public class EventReplayResponse {
+    private List<UserEventDTO> events;
+    private long latestSeq;
+    private boolean complete;   // false: the gap is older than the retained log, client must reload
+    private boolean hasMore;    // true: ask again with since = last returned seq
+}
@@ -0,0 +1,18 @@
+package com.system.chattalk_serverside.dto.EventDto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Builder
+@Data
+public class UserEventDTO {
+    private Long seq;
+    private String type;
+    private String destination;
+    @JsonRawValue
+    private String payload;
+    private LocalDateTime createdAt;
+}
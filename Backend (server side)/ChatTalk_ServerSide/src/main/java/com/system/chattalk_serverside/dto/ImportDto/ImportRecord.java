@@ -0,0 +1,46 @@
+package com.system.chattalk_serverside.dto.ImportDto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of an import file. {@code type} is "chat", "participant" or "message"; chats are referred to
+ * by their id in the source system and users by email. A chat line must come before the lines that use it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ImportRecord {
+    private String type;
+
+    // chat
+    private String id;
+    private String name;
+    private String chatType;
+    private String createdBy;
+
+    // participant and message
+    private String chat;
+
+    // participant
+    private String user;
+    private String role;
+    private LocalDateTime joinedAt;
+
+    // message
+    private String sender;
+    private String content;
+    private String messageType;
+    private String attachmentUrl;
+    private Boolean read;       // defaults to true, so imported history does not show as unread
+    private Boolean edited;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package com.system.chattalk_serverside.dto.ImportDto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRequest {
+    // Names the import and its checkpoint; starting the same source again resumes it
+    @NotBlank
+    @Pattern(regexp = "[A-Za-z0-9_.-]{1,64}", message = "source may only contain letters, digits, '.', '_' and '-'")
+    private String source;
+
+    // NDJSON file, relative to imports.dir
+    @NotBlank
+    private String file;
+}
@@ -0,0 +1,25 @@
+package com.system.chattalk_serverside.dto.ImportDto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Builder
+@Data
+public class ImportStatusDTO {
+    private String source;
+    private String file;
+    private String status;
+    private long lines;
+    private long chats;
+    private long participants;
+    private long messages;
+    private long skipped;
+    private long bytesRead;
+    private double messagesPerSecond;   // since the current run started; 0 when not running
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,17 @@
+package com.system.chattalk_serverside.dto.NotificationDto;
+
+import com.system.chattalk_serverside.dto.Entity.NotificationDTO;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Builder
+@Data
+public class NotificationPageDTO {
+    private List<NotificationDTO> notifications;
+    private String nextCursor;      // older entries: pass as cursor; null when there are none
+    private String latestCursor;    // pass as since to fetch entries changed after this response
+    private boolean hasMore;        // changes only: more changes than fit, ask again from latestCursor
+    private long unreadCount;
+}
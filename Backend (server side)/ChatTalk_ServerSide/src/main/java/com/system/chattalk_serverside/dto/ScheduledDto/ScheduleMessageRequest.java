@@ -0,0 +1,23 @@
+package com.system.chattalk_serverside.dto.ScheduledDto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleMessageRequest {
+    @NotBlank
+    private String content;
+
+    // Server-local time, like every other timestamp of the API
+    @NotNull
+    private LocalDateTime sendAt;
+}
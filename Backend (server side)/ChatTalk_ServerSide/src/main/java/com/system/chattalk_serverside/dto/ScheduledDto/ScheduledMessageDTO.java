@@ -0,0 +1,20 @@
+package com.system.chattalk_serverside.dto.ScheduledDto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Builder
+@Data
+public class ScheduledMessageDTO {
+    private Long id;
+    private Long chatId;
+    private String content;
+    private LocalDateTime sendAt;
+    private String status;
+    private Long messageId;     // once sent
+    private String error;       // once failed
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,17 @@
+package com.system.chattalk_serverside.dto.StatsDto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Builder
+@Data
+public class ChatStatsDTO {
+    private Long chatId;
+    private long messageCount;
+    private LocalDateTime lastActivityAt;
+    // Sender id to message count
+    private Map<Long, Long> messagesBySender;
+}
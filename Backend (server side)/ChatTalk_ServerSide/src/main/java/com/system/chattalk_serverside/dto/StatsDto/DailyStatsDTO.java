@@ -0,0 +1,13 @@
+package com.system.chattalk_serverside.dto.StatsDto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Builder
+@Data
+public class DailyStatsDTO {
+    private LocalDate date;
+    private long messagesSent;
+}
@@ -0,0 +1,11 @@
+package com.system.chattalk_serverside.enums;
+
+/**
+ * State of a history import
+ */
+public enum ImportStatus {
+    RUNNING,
+    REBUILDING,   // all lines loaded, derived chat state being recomputed
+    COMPLETED,
+    FAILED
+}
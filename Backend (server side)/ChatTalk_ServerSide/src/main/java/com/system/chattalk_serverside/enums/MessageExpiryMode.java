@@ -0,0 +1,9 @@
+package com.system.chattalk_serverside.enums;
+
+/**
+ * When the time-to-live of a chat's messages starts counting
+ */
+public enum MessageExpiryMode {
+    AFTER_SENT,
+    AFTER_READ    // once a recipient has read the message
+}
@@ -0,0 +1,10 @@
+package com.system.chattalk_serverside.enums;
+
+/**
+ * Endpoint classes with their own per-user request budget
+ */
+public enum RateLimitCategory {
+    MESSAGE_SEND,
+    SEARCH,
+    AUTH
+}
@@ -0,0 +1,12 @@
+package com.system.chattalk_serverside.enums;
+
+/**
+ * State of a message scheduled for later delivery
+ */
+public enum ScheduledMessageStatus {
+    PENDING,
+    FIRING,       // claimed by the scheduler, being sent
+    SENT,
+    CANCELLED,
+    FAILED
+}
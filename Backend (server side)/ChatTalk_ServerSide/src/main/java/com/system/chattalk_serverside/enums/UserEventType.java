@@ -0,0 +1,10 @@
+package com.system.chattalk_serverside.enums;
+
+public enum UserEventType {
+    MESSAGE_CREATED,
+    MESSAGE_UPDATED,
+    MESSAGE_DELETED,
+    NOTIFICATION,
+    NOTIFICATION_UPSERTED,    // a coalesced entry was created or changed in place
+    FRIEND_EVENT
+}
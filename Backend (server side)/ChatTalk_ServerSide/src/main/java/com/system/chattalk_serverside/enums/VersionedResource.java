@@ -0,0 +1,12 @@
+package com.system.chattalk_serverside.enums;
+
+/**
+ * Per-user REST resources served with version-based ETags
+ */
+public enum VersionedResource {
+    FRIENDS,
+    PENDING_REQUESTS,
+    CHATS,
+    PROFILE,
+    NOTIFICATIONS
+}
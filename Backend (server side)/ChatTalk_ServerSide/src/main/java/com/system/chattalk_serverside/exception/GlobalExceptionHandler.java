@@ -3,6 +3,7 @@ package com.system.chattalk_serverside.exception;
 
 import com.system.chattalk_serverside.dto.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
@@ -139,6 +140,19 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error("Invalid input: " + ex.getMessage()));
     }
 
+    /**
+     * Handle edits based on a version that has changed since
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse<String>> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex, WebRequest request) {
+
+        log.warn("Conflicting update: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(ex.getMessage()));
+    }
+
     /**
      * Handle runtime exceptions
      */
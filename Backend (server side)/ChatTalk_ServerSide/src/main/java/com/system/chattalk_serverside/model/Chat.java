@@ -1,8 +1,12 @@
 package com.system.chattalk_serverside.model;
 
 
+import com.system.chattalk_serverside.config.HibernateCacheConfig;
+import com.system.chattalk_serverside.enums.MessageExpiryMode;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -27,6 +31,8 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.CHATS)
 public class Chat {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -48,6 +54,14 @@ public class Chat {
 
     private String lastMessage;
 
+    // Disappearing messages: none when null
+    @Column(name = "message_ttl_seconds")
+    private Long messageTtlSeconds;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "message_expiry_mode", length = 16)
+    private MessageExpiryMode messageExpiryMode;
+
     @OneToMany(mappedBy = "chat", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @Builder.Default
     private List<Message> messages = new ArrayList<>();
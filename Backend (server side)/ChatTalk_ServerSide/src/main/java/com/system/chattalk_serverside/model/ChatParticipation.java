@@ -1,8 +1,11 @@
 package com.system.chattalk_serverside.model;
 
 
+import com.system.chattalk_serverside.config.HibernateCacheConfig;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -22,6 +25,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.CHAT_PARTICIPATIONS)
 public class ChatParticipation {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,31 @@
+package com.system.chattalk_serverside.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Messages one user has in a chat, rolled up next to {@link ChatStats}
+ */
+@Entity
+@Table(name = "chat_sender_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_chat_sender_stats_chat_user", columnNames = {"chat_id", "user_id"}),
+        indexes = @Index(name = "idx_chat_sender_stats_user", columnList = "user_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatSenderStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "chat_id", nullable = false)
+    private Long chatId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "message_count", nullable = false)
+    private long messageCount;
+}
@@ -0,0 +1,28 @@
+package com.system.chattalk_serverside.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Rolled-up message count and last activity of a chat, kept current by the send and delete paths
+ */
+@Entity
+@Table(name = "chat_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatStats {
+    @Id
+    @Column(name = "chat_id")
+    private Long chatId;
+
+    @Column(name = "message_count", nullable = false)
+    private long messageCount;
+
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+}
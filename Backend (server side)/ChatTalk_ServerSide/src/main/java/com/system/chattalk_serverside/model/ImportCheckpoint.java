@@ -0,0 +1,66 @@
+package com.system.chattalk_serverside.model;
+
+import com.system.chattalk_serverside.enums.ImportStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one history import. Saved in the transaction of every batch, so an interrupted import
+ * resumes at the first line that was not committed.
+ */
+@Entity
+@Table(name = "import_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportCheckpoint {
+    @Id
+    @Column(length = 64)
+    private String source;
+
+    @Column(nullable = false)
+    private String file;
+
+    // Position just after the last committed line
+    @Builder.Default
+    @Column(nullable = false)
+    private Long byteOffset = 0L;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Long lines = 0L;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Long chats = 0L;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Long participants = 0L;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Long messages = 0L;
+
+    // Malformed lines and records referring to unknown users or chats
+    @Builder.Default
+    @Column(nullable = false)
+    private Long skipped = 0L;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImportStatus status;
+
+    @Column(length = 1000)
+    private String error;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,32 @@
+package com.system.chattalk_serverside.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Chat created by a history import, keyed by its id in the source system so later lines
+ * (and resumed runs) can attach participants and messages to it
+ */
+@Entity
+@Table(name = "imported_chats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_imported_chats_source_legacy", columnNames = {"source", "legacy_id"}),
+        indexes = @Index(name = "idx_imported_chats_source_chat", columnList = "source, chat_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportedChat {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String source;
+
+    @Column(name = "legacy_id", nullable = false, length = 128)
+    private String legacyId;
+
+    @Column(name = "chat_id", nullable = false)
+    private Long chatId;
+}
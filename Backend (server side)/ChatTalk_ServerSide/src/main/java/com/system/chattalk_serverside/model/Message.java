@@ -15,6 +15,8 @@ import java.time.LocalDateTime;
         @Index(name = "idx_messages_unread", columnList = "chat_id, is_read, sender_id"),
         @Index(name = "idx_messages_type", columnList = "message_type"),
         @Index(name = "idx_messages_created_at", columnList = "created_at")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_messages_sender_client_id", columnNames = {"sender_id", "client_message_id"})
 })
 @Getter
 @Setter
@@ -42,11 +44,20 @@ public class Message {
     private MessageType messageType = MessageType.TEXT;
 
     private String attachmentUrl;
+
+    @Column(name = "client_message_id", length = 64)
+    private String clientMessageId;
+
     @Builder.Default
     private Boolean isRead = false;
     @Builder.Default
     private Boolean isEdited = false;
 
+    // Bumped on every edit and on deletion, so clients can drop realtime deltas older than what they show
+    @Builder.Default
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version = 0L;
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,36 @@
+package com.system.chattalk_serverside.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Expiry index entry of a message in a chat with a time-to-live. The reaper reads these in expiry order,
+ * so finding what is due never touches {@code messages}. Entries of read-triggered chats have no
+ * {@code expiresAt} until the message is read.
+ */
+@Entity
+@Table(name = "message_expiries", indexes = {
+        @Index(name = "idx_message_expiries_due", columnList = "expires_at, message_id"),
+        @Index(name = "idx_message_expiries_chat", columnList = "chat_id, expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageExpiry {
+    @Id
+    @Column(name = "message_id")
+    private Long messageId;
+
+    @Column(name = "chat_id", nullable = false)
+    private Long chatId;
+
+    @Column(name = "sender_id", nullable = false)
+    private Long senderId;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+}
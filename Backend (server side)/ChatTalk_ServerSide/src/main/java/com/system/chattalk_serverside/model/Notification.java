@@ -8,7 +8,15 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        // Inbox pages are keyset reads on (updated_at, id) within a user
+        @Index(name = "idx_notifications_user_updated", columnList = "user_id, updated_at, id"),
+        // Retention finds old read entries across all users
+        @Index(name = "idx_notifications_read_updated", columnList = "is_read, updated_at")
+}, uniqueConstraints = {
+        // One coalesced new-message entry per user and chat; other notifications have no chat
+        @UniqueConstraint(name = "uk_notifications_user_chat", columnNames = {"user_id", "chat_id"})
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -34,6 +42,14 @@ public class Notification {
 
     private String data; // JSON string for additional data
 
+    @Column(name = "chat_id")
+    private Long chatId;
+
+    // Messages coalesced into this entry since it was last read
+    @Builder.Default
+    @Column(name = "message_count", nullable = false, columnDefinition = "integer default 1")
+    private Integer messageCount = 1;
+
     @Builder.Default
     private Boolean isRead = false;
 
@@ -43,4 +59,14 @@ public class Notification {
 
     private LocalDateTime readAt;
 
+    // Last activity: set on creation and whenever a chat entry counts another message; reading does not move it
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (updatedAt == null) {
+            updatedAt = LocalDateTime.now();
+        }
+    }
 }
@@ -0,0 +1,23 @@
+package com.system.chattalk_serverside.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Unread notification count of a user, kept current by the paths that create, read and delete notifications
+ */
+@Entity
+@Table(name = "notification_counters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationCounter {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "unread", nullable = false)
+    private long unread;
+}
@@ -0,0 +1,57 @@
+package com.system.chattalk_serverside.model;
+
+import com.system.chattalk_serverside.enums.ScheduledMessageStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message to be sent at {@code sendAt}. Pending rows are the durable copy of the in-memory timing wheel
+ * and are loaded back into it on startup.
+ */
+@Entity
+@Table(name = "scheduled_messages", indexes = {
+        @Index(name = "idx_scheduled_messages_status_id", columnList = "status, id"),
+        @Index(name = "idx_scheduled_messages_sender_chat", columnList = "sender_id, chat_id, status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScheduledMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "chat_id", nullable = false)
+    private Long chatId;
+
+    @Column(name = "sender_id", nullable = false)
+    private Long senderId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    @Column(name = "send_at", nullable = false)
+    private LocalDateTime sendAt;
+
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    @Column(nullable = false, length = 16)
+    private ScheduledMessageStatus status = ScheduledMessageStatus.PENDING;
+
+    // Message created when it fired
+    @Column(name = "message_id")
+    private Long messageId;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
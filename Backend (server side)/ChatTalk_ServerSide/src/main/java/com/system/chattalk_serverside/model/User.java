@@ -2,8 +2,13 @@ package com.system.chattalk_serverside.model;
 
 import com.system.chattalk_serverside.enums.Role;
 import com.system.chattalk_serverside.enums.UserStatus;
+import com.system.chattalk_serverside.config.HibernateCacheConfig;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -28,11 +33,16 @@ import java.util.List;
                 @Index(name = "idx_users_last_name", columnList = "lastName")
         }
 )
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USERS)
+@NaturalIdCache(region = HibernateCacheConfig.USERS_BY_EMAIL)
 public class User implements UserDetails {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String username;
+    // Mutable: soft deletion rewrites the email
+    @NaturalId(mutable = true)
     @Column(unique = true, nullable = false)
     private String email;
     @Column(nullable = false)
@@ -57,6 +67,7 @@ public class User implements UserDetails {
 
     @ElementCollection(fetch = FetchType.EAGER)
     @Enumerated(EnumType.STRING)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USER_ROLES)
     @Builder.Default
     private List<Role> roles = List.of(Role.USER);
 
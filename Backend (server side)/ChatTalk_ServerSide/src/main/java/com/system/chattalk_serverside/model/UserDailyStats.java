@@ -0,0 +1,32 @@
+package com.system.chattalk_serverside.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Messages a user sent on one day (by message creation time), rolled up as they are sent and deleted
+ */
+@Entity
+@Table(name = "user_daily_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_daily_stats_user_date", columnNames = {"user_id", "activity_date"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserDailyStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "activity_date", nullable = false)
+    private LocalDate activityDate;
+
+    @Column(name = "messages_sent", nullable = false)
+    private long messagesSent;
+}
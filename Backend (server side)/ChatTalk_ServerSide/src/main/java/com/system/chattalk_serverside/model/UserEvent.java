@@ -0,0 +1,52 @@
+package com.system.chattalk_serverside.model;
+
+import com.system.chattalk_serverside.enums.UserEventType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One realtime push to one user, numbered by a per-user sequence so a reconnecting client
+ * can fetch exactly the events it missed. Written in the transaction that caused it, the table
+ * doubles as the delivery outbox: rows without {@code delivered_at} have not been pushed yet.
+ */
+@Entity
+@Table(name = "user_events",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_events_user_seq", columnNames = {"user_id", "seq"}),
+        indexes = @Index(name = "idx_user_events_created_at", columnList = "created_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private UserEventType type;
+
+    @Column(nullable = false)
+    private String destination;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload; // JSON exactly as pushed
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    // Set by the outbox dispatcher once the event has been pushed over STOMP
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+}
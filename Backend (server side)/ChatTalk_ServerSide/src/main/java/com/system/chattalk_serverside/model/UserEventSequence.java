@@ -0,0 +1,23 @@
+package com.system.chattalk_serverside.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Last event sequence number handed out to a user; the row is locked by each append until its transaction ends
+ */
+@Entity
+@Table(name = "user_event_sequences")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserEventSequence {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+}
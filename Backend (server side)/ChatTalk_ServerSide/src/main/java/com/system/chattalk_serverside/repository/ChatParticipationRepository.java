@@ -1,8 +1,12 @@
 package com.system.chattalk_serverside.repository;
 
+import com.system.chattalk_serverside.config.HibernateCacheConfig;
 import com.system.chattalk_serverside.model.ChatParticipation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -20,4 +24,21 @@ public interface ChatParticipationRepository extends JpaRepository<ChatParticipa
     long countByChatIdAndRole(Long chatId, ChatParticipation.ParticipationRole role);
     
     List<ChatParticipation> findByChatId(Long chatId);
+
+    /**
+     * Every participation of a chat, whatever its status, for fan-out. Cached with the other membership
+     * queries and invalidated whenever a participation changes; the users come from the entity cache.
+     * Ordered by user id, so the per-user rows a fan-out writes are locked in the same order by every sender.
+     */
+    @Query("""
+    select cp
+    from ChatParticipation cp
+    where cp.chat.id = :chatId
+    order by cp.user.id
+    """)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = HibernateCacheConfig.MEMBERSHIP_QUERIES)
+    })
+    List<ChatParticipation> findAudience(@Param("chatId") Long chatId);
 }
@@ -1,10 +1,14 @@
 package com.system.chattalk_serverside.repository;
 
+import com.system.chattalk_serverside.config.HibernateCacheConfig;
 import com.system.chattalk_serverside.model.Chat;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -107,6 +111,10 @@ public interface ChatRepository extends JpaRepository<Chat, Long> {
         SELECT COUNT(cp) > 0 FROM ChatParticipation cp
         WHERE cp.chat.id = :chatId AND cp.user.id = :userId
         """)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = HibernateCacheConfig.MEMBERSHIP_QUERIES)
+    })
     boolean isUserInChat(@Param("chatId") Long chatId, @Param("userId") Long userId);
 
     /**
@@ -116,6 +124,10 @@ public interface ChatRepository extends JpaRepository<Chat, Long> {
         SELECT cp.user.email FROM ChatParticipation cp
         WHERE cp.chat.id = :chatId
         """)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = HibernateCacheConfig.MEMBERSHIP_QUERIES)
+    })
     List<String> getChatParticipantEmails(@Param("chatId") Long chatId);
 
     /**
@@ -129,17 +141,35 @@ public interface ChatRepository extends JpaRepository<Chat, Long> {
     Long countChatsByUserId(@Param("userId") Long userId);
 
     /**
-     * Find chats with message count
+     * Find chats with message count, read from the rolled-up chat_stats (0 for chats not rolled up yet)
      */
-    @Query("""
-        SELECT c, COUNT(m) as messageCount FROM Chat c
-        LEFT JOIN c.messages m
+    @Query(value = """
+        SELECT c, COALESCE(s.messageCount, 0) FROM Chat c
         JOIN c.participants cp
+        LEFT JOIN ChatStats s ON s.chatId = c.id
         WHERE cp.user.id = :userId
-        GROUP BY c
         ORDER BY c.updatedAt DESC
+        """,
+        countQuery = """
+        SELECT COUNT(c) FROM Chat c
+        JOIN c.participants cp
+        WHERE cp.user.id = :userId
         """)
     Page<Object[]> findChatsWithMessageCount(@Param("userId") Long userId, Pageable pageable);
     
+    /**
+     * Private chats of a user as (chat id, other participant id), newest first
+     */
+    @Query("""
+        SELECT c.id, other.user.id FROM Chat c
+        JOIN c.participants me
+        JOIN c.participants other
+        WHERE me.user.id = :userId
+        AND other.user.id <> :userId
+        AND c.chatType = com.system.chattalk_serverside.enums.ChatType.PRIVATE
+        ORDER BY c.createdAt DESC
+        """)
+    List<Object[]> findPrivateChatPartners(@Param("userId") Long userId);
+
     List<Chat> findByCreatedById(Long createdById);
 }
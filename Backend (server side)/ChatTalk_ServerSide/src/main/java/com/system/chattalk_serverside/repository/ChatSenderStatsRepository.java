@@ -0,0 +1,12 @@
+package com.system.chattalk_serverside.repository;
+
+import com.system.chattalk_serverside.model.ChatSenderStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ChatSenderStatsRepository extends JpaRepository<ChatSenderStats, Long> {
+    List<ChatSenderStats> findByChatIdOrderByMessageCountDesc(Long chatId);
+}
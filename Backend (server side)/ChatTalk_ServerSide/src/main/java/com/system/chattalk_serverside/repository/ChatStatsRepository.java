@@ -0,0 +1,9 @@
+package com.system.chattalk_serverside.repository;
+
+import com.system.chattalk_serverside.model.ChatStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ChatStatsRepository extends JpaRepository<ChatStats, Long> {
+}
@@ -1,8 +1,14 @@
 package com.system.chattalk_serverside.repository;
 
+import com.system.chattalk_serverside.config.HibernateCacheConfig;
 import com.system.chattalk_serverside.model.FriendRequest;
 import com.system.chattalk_serverside.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,10 +16,22 @@ import java.util.Optional;
 
 @Repository
 public interface FriendRequestRepository extends JpaRepository<FriendRequest,Long> {
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = HibernateCacheConfig.FRIEND_QUERIES)
+    })
     List<FriendRequest> findByReceiverAndStatus( User currentUser, FriendRequest.RequestStatus requestStatus );
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = HibernateCacheConfig.FRIEND_QUERIES)
+    })
     List<FriendRequest> findBySenderAndStatus( User currentUser, FriendRequest.RequestStatus requestStatus );
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = HibernateCacheConfig.FRIEND_QUERIES)
+    })
     boolean existsBySenderAndReceiverAndStatus( User userSender, User userReceiver, FriendRequest.RequestStatus requestStatus );
     
     Optional<FriendRequest> findBySenderAndReceiverAndStatus( User userSender, User userReceiver, FriendRequest.RequestStatus requestStatus );
@@ -21,4 +39,43 @@ public interface FriendRequestRepository extends JpaRepository<FriendRequest,Lon
     List<FriendRequest> findBySenderId(Long senderId);
     
     List<FriendRequest> findByReceiverId(Long receiverId);
+
+    /**
+     * Users who see this user in their friend list or among their received pending requests
+     */
+    @Query("""
+        SELECT CASE WHEN fr.sender.id = :userId THEN fr.receiver.email ELSE fr.sender.email END
+        FROM FriendRequest fr
+        WHERE (fr.status = :accepted AND (fr.sender.id = :userId OR fr.receiver.id = :userId))
+        OR (fr.status = :pending AND fr.sender.id = :userId)
+        """)
+    List<String> findContactEmails( @Param("userId") Long userId,
+                                    @Param("accepted") FriendRequest.RequestStatus accepted,
+                                    @Param("pending") FriendRequest.RequestStatus pending );
+
+    /**
+     * Requests in the given status sent or received by the user, with both sides fetched
+     */
+    @Query("""
+        SELECT fr FROM FriendRequest fr
+        JOIN FETCH fr.sender
+        JOIN FETCH fr.receiver
+        WHERE fr.status = :status
+        AND (fr.sender.id = :userId OR fr.receiver.id = :userId)
+        """)
+    List<FriendRequest> findByUserIdAndStatusWithUsers( @Param("userId") Long userId,
+                                                        @Param("status") FriendRequest.RequestStatus status );
+
+    /**
+     * Requests in the given status received by the user with the sender fetched, newest first
+     */
+    @Query("""
+        SELECT fr FROM FriendRequest fr
+        JOIN FETCH fr.sender
+        WHERE fr.receiver.id = :receiverId
+        AND fr.status = :status
+        ORDER BY fr.createdAt DESC
+        """)
+    List<FriendRequest> findReceivedWithSender( @Param("receiverId") Long receiverId,
+                                                @Param("status") FriendRequest.RequestStatus status );
 }
@@ -0,0 +1,27 @@
+package com.system.chattalk_serverside.repository;
+
+import com.system.chattalk_serverside.model.ImportedChat;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImportedChatRepository extends JpaRepository<ImportedChat, Long> {
+    List<ImportedChat> findBySourceAndLegacyIdIn(String source, Collection<String> legacyIds);
+
+    /**
+     * Chats created by an import, in id order after {@code afterChatId}, for walking them page by page
+     */
+    @Query("""
+    select i.chatId
+    from ImportedChat i
+    where i.source = :source and i.chatId > :afterChatId
+    order by i.chatId
+    """)
+    List<Long> findChatIdsAfter(@Param("source") String source, @Param("afterChatId") Long afterChatId, Pageable pageable);
+}
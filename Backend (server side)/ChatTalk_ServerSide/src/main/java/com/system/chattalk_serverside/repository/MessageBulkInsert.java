@@ -0,0 +1,15 @@
+package com.system.chattalk_serverside.repository;
+
+import com.system.chattalk_serverside.model.Message;
+
+import java.util.List;
+
+/**
+ * Inserts many messages with multi-row statements, bypassing the persistence context
+ */
+public interface MessageBulkInsert {
+    /**
+     * Messages are written as they are, including their creation time; ids are generated by the database
+     */
+    int insertAll( List<Message> messages );
+}
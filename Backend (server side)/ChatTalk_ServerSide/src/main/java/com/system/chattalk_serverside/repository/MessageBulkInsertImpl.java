@@ -0,0 +1,52 @@
+package com.system.chattalk_serverside.repository;
+
+import com.system.chattalk_serverside.enums.MessageType;
+import com.system.chattalk_serverside.model.Message;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class MessageBulkInsertImpl implements MessageBulkInsert {
+    // 11 parameters per row keeps a statement well below driver parameter limits
+    private static final int ROWS_PER_STATEMENT = 500;
+    private static final String INSERT = """
+            INSERT INTO messages (chat_id, sender_id, content, message_type, attachment_url, client_message_id,
+                                  is_read, is_edited, version, created_at, updated_at)
+            VALUES\s""";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MessageBulkInsertImpl( JdbcTemplate jdbcTemplate ) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int insertAll( List<Message> messages ) {
+        int inserted = 0;
+        for (int from = 0; from < messages.size(); from += ROWS_PER_STATEMENT) {
+            List<Message> rows = messages.subList(from, Math.min(from + ROWS_PER_STATEMENT, messages.size()));
+            List<Object> args = new ArrayList<>(rows.size() * 11);
+            for (Message message : rows) {
+                LocalDateTime createdAt = message.getCreatedAt() != null ? message.getCreatedAt() : LocalDateTime.now();
+                args.add(message.getChat().getId());
+                args.add(message.getSender().getId());
+                args.add(message.getContent());
+                args.add(message.getMessageType() == null ? MessageType.TEXT.name() : message.getMessageType().name());
+                args.add(message.getAttachmentUrl());
+                args.add(message.getClientMessageId());
+                args.add(Boolean.TRUE.equals(message.getIsRead()));
+                args.add(Boolean.TRUE.equals(message.getIsEdited()));
+                args.add(message.getVersion() == null ? 0L : message.getVersion());
+                args.add(Timestamp.valueOf(createdAt));
+                args.add(Timestamp.valueOf(message.getUpdatedAt() != null ? message.getUpdatedAt() : createdAt));
+            }
+            inserted += jdbcTemplate.update(INSERT + String.join(", ", Collections.nCopies(rows.size(), ROW)), args.toArray());
+        }
+        return inserted;
+    }
+}
@@ -0,0 +1,50 @@
+package com.system.chattalk_serverside.repository;
+
+import com.system.chattalk_serverside.model.MessageExpiry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MessageExpiryRepository extends JpaRepository<MessageExpiry, Long> {
+
+    /**
+     * Entries due at {@code now}, earliest first
+     */
+    @Query("""
+    select e
+    from MessageExpiry e
+    where e.expiresAt <= :now
+    order by e.expiresAt, e.messageId
+    """)
+    List<MessageExpiry> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Starts the clock on a chat's messages from others that were waiting to be read
+     */
+    @Modifying
+    @Query("""
+    update MessageExpiry e
+    set e.expiresAt = :expiresAt
+    where e.chatId = :chatId and e.expiresAt is null and e.senderId <> :readerId
+    """)
+    int startOnRead(@Param("chatId") Long chatId, @Param("readerId") Long readerId, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Drops a chat's entries still waiting to be read
+     */
+    @Modifying
+    @Query("delete from MessageExpiry e where e.chatId = :chatId and e.expiresAt is null")
+    int deleteUnstarted(@Param("chatId") Long chatId);
+
+    @Modifying
+    @Query("delete from MessageExpiry e where e.messageId in :messageIds")
+    int deleteByMessageIds(@Param("messageIds") Collection<Long> messageIds);
+}
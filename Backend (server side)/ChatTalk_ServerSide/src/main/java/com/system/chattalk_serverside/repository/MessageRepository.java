@@ -1,18 +1,25 @@
 package com.system.chattalk_serverside.repository;
 
 import com.system.chattalk_serverside.model.Message;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface MessageRepository extends JpaRepository<Message,Long> {
+public interface MessageRepository extends JpaRepository<Message,Long>, MessageBulkInsert {
     List<Message> findByChat_Id( Long conversationId );
 
     Page<Message> findByChat_IdOrderByCreatedAtDesc(Long conversationId, Pageable pageable);
@@ -43,5 +50,88 @@ public interface MessageRepository extends JpaRepository<Message,Long> {
     """)
     int markConversationAsReadForUser(@Param("chatId") Long chatId, @Param("userId") Long userId);
 
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+    update Message m
+    set m.content = :content, m.isEdited = true, m.version = m.version + 1, m.updatedAt = :updatedAt
+    where m.id = :id and m.chat.id = :chatId and m.version = :expectedVersion
+    """)
+    int updateContent(@Param("id") Long id, @Param("chatId") Long chatId, @Param("content") String content,
+                      @Param("expectedVersion") long expectedVersion, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Query("""
+    select m.chat.id, COUNT(m)
+    from Message m
+    where m.chat.id in :chatIds and m.sender.id <> :userId and m.isRead = false
+    group by m.chat.id
+    """)
+    List<Object[]> countUnreadInChats(@Param("chatIds") Collection<Long> chatIds, @Param("userId") Long userId);
+
+    /**
+     * Latest message of each chat, as (chat id, content, created at)
+     */
+    @Query("""
+    select m.chat.id, m.content, m.createdAt
+    from Message m
+    where m.id in (
+        select max(m2.id)
+        from Message m2
+        where m2.chat.id in :chatIds
+        group by m2.chat.id
+    )
+    """)
+    List<Object[]> findLastMessagesInChats(@Param("chatIds") Collection<Long> chatIds);
+
     List<Message> findBySenderId(Long senderId);
+
+    @Modifying
+    @Query("delete from Message m where m.sender.id = :senderId")
+    int deleteBySenderId(@Param("senderId") Long senderId);
+
+    @Modifying
+    @Query("delete from Message m where m.chat.id = :chatId")
+    int deleteByChatId(@Param("chatId") Long chatId);
+
+    long countByChat_Id(Long chatId);
+
+    @Query("""
+    select m.sender.id, count(m)
+    from Message m
+    where m.chat.id = :chatId
+    group by m.sender.id
+    """)
+    List<Object[]> countBySenderInChat(@Param("chatId") Long chatId);
+
+    @Query("""
+    select m
+    from Message m
+    where m.createdAt < :cutoff
+    order by m.chat.id, m.id
+    """)
+    List<Message> findOlderThan(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Query("select m from Message m join fetch m.sender where m.chat.id = :chatId and m.id in :ids")
+    List<Message> findByChatIdAndIdIn(@Param("chatId") Long chatId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from Message m where m.chat.id = :chatId and m.id in :ids")
+    int deleteByChatIdAndIdIn(@Param("chatId") Long chatId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Messages of a chat created in [from, to), oldest first, fetched from the cursor in chunks.
+     * Needs a transaction and must be closed after use.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+    select m
+    from Message m
+    where m.chat.id = :chatId and m.createdAt >= :from and m.createdAt < :to
+    order by m.createdAt, m.id
+    """)
+    Stream<Message> streamByChatInRange(@Param("chatId") Long chatId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    Optional<Message> findBySender_IdAndClientMessageId(Long senderId, String clientMessageId);
 }
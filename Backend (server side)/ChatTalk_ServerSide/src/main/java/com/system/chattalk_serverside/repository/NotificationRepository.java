@@ -1,22 +1,88 @@
 package com.system.chattalk_serverside.repository;
 
 import com.system.chattalk_serverside.model.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
 
+    List<Notification> findByUserId(Long userId);
+
+    /**
+     * Newest activity first; chat entries that were seeded but never counted are skipped
+     */
     @Query("""
-        SELECT n from Notification n
-        where n.user.email=:userEmail
-        ORDER BY n.createdAt DESC
+        select n from Notification n
+        where n.user.id = :userId and n.messageCount > 0
+        order by n.updatedAt desc, n.id desc
     """)
-    List<Notification> findByUserEmail(@Param("userEmail") String email );
-    
-    List<Notification> findByUserId(Long userId);
+    List<Notification> findLatest( @Param("userId") Long userId, Pageable pageable );
+
+    /**
+     * The page after a cursor returned by {@link #findLatest} or by an earlier call
+     */
+    @Query("""
+        select n from Notification n
+        where n.user.id = :userId and n.messageCount > 0
+        and (n.updatedAt < :updatedAt or (n.updatedAt = :updatedAt and n.id < :id))
+        order by n.updatedAt desc, n.id desc
+    """)
+    List<Notification> findOlder( @Param("userId") Long userId, @Param("updatedAt") LocalDateTime updatedAt, @Param("id") Long id, Pageable pageable );
+
+    /**
+     * Entries created or changed after a cursor, oldest change first
+     */
+    @Query("""
+        select n from Notification n
+        where n.user.id = :userId and n.messageCount > 0
+        and (n.updatedAt > :updatedAt or (n.updatedAt = :updatedAt and n.id > :id))
+        order by n.updatedAt asc, n.id asc
+    """)
+    List<Notification> findChangedAfter( @Param("userId") Long userId, @Param("updatedAt") LocalDateTime updatedAt, @Param("id") Long id, Pageable pageable );
+
+    Optional<Notification> findByIdAndUserId( Long id, Long userId );
+
+    @Modifying
+    @Query("update Notification n set n.isRead = true, n.readAt = :readAt where n.id = :id and n.user.id = :userId and n.isRead = false")
+    int markRead( @Param("id") Long id, @Param("userId") Long userId, @Param("readAt") LocalDateTime readAt );
+
+    @Modifying
+    @Query("update Notification n set n.isRead = true, n.readAt = :readAt where n.user.id = :userId and n.isRead = false")
+    int markAllRead( @Param("userId") Long userId, @Param("readAt") LocalDateTime readAt );
+
+    @Modifying
+    @Query("delete from Notification n where n.id = :id and n.user.id = :userId and n.isRead = :isRead")
+    int deleteOwned( @Param("id") Long id, @Param("userId") Long userId, @Param("isRead") boolean isRead );
+
+    /**
+     * (id, user email) of read entries whose last activity is before the cutoff, oldest first
+     */
+    @Query("""
+        select n.id, u.email from Notification n join n.user u
+        where n.isRead = true and n.updatedAt < :cutoff
+        order by n.updatedAt asc
+    """)
+    List<Object[]> findReadBefore( @Param("cutoff") LocalDateTime cutoff, Pageable pageable );
+
+    @Modifying
+    @Query("delete from Notification n where n.id in :ids")
+    int deleteByIds( @Param("ids") Collection<Long> ids );
+
+    @Modifying
+    @Query("delete from Notification n where n.id in :ids and n.isRead = false")
+    int deleteUnreadByIds( @Param("ids") Collection<Long> ids );
+
+    @Modifying
+    @Query("delete from Notification n where n.user.id = :userId")
+    int deleteAllByUserId( @Param("userId") Long userId );
 }
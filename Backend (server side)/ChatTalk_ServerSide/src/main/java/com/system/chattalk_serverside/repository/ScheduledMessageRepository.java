@@ -0,0 +1,47 @@
+package com.system.chattalk_serverside.repository;
+
+import com.system.chattalk_serverside.enums.ScheduledMessageStatus;
+import com.system.chattalk_serverside.model.ScheduledMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ScheduledMessageRepository extends JpaRepository<ScheduledMessage, Long> {
+
+    /**
+     * (id, sendAt) of scheduled messages in the given states, in id order after {@code afterId}, for reloading the wheel
+     */
+    @Query("""
+    select s.id, s.sendAt
+    from ScheduledMessage s
+    where s.status in :statuses and s.id > :afterId
+    order by s.id
+    """)
+    List<Object[]> findDueTimesAfter(@Param("statuses") Collection<ScheduledMessageStatus> statuses, @Param("afterId") Long afterId, Pageable pageable);
+
+    List<ScheduledMessage> findBySenderIdAndChatIdAndStatusOrderBySendAtAsc(Long senderId, Long chatId, ScheduledMessageStatus status);
+
+    long countBySenderIdAndStatusIn(Long senderId, Collection<ScheduledMessageStatus> statuses);
+
+    /**
+     * Moves rows from one state to another; rows already moved by someone else are left alone
+     */
+    @Modifying
+    @Query("update ScheduledMessage s set s.status = :to where s.id in :ids and s.status = :from")
+    int transition(@Param("ids") Collection<Long> ids, @Param("from") ScheduledMessageStatus from, @Param("to") ScheduledMessageStatus to);
+
+    List<ScheduledMessage> findByIdInAndStatus(Collection<Long> ids, ScheduledMessageStatus status);
+
+    @Modifying
+    @Query("update ScheduledMessage s set s.status = :status, s.messageId = :messageId, s.error = :error, s.sentAt = :sentAt where s.id = :id")
+    int complete(@Param("id") Long id, @Param("status") ScheduledMessageStatus status, @Param("messageId") Long messageId,
+                 @Param("error") String error, @Param("sentAt") LocalDateTime sentAt);
+}
@@ -0,0 +1,13 @@
+package com.system.chattalk_serverside.repository;
+
+import com.system.chattalk_serverside.model.UserDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UserDailyStatsRepository extends JpaRepository<UserDailyStats, Long> {
+    List<UserDailyStats> findByUserIdAndActivityDateBetweenOrderByActivityDateAsc(Long userId, LocalDate from, LocalDate to);
+}
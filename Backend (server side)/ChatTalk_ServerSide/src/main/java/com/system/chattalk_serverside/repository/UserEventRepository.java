@@ -0,0 +1,45 @@
+package com.system.chattalk_serverside.repository;
+
+import com.system.chattalk_serverside.model.UserEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserEventRepository extends JpaRepository<UserEvent, Long> {
+
+    List<UserEvent> findByUserIdAndSeqGreaterThanOrderBySeqAsc( Long userId, Long seq, Pageable pageable );
+
+    @Query("SELECT MAX(e.seq) FROM UserEvent e WHERE e.userId = :userId")
+    Long findMaxSeq( @Param("userId") Long userId );
+
+    @Query("SELECT MIN(e.seq) FROM UserEvent e WHERE e.userId = :userId")
+    Long findMinSeq( @Param("userId") Long userId );
+
+    @Modifying
+    @Query("DELETE FROM UserEvent e WHERE e.createdAt < :cutoff")
+    int deleteOlderThan( @Param("cutoff") LocalDateTime cutoff );
+
+    @Query("""
+        SELECT e FROM UserEvent e
+        WHERE e.createdAt >= :from AND e.createdAt < :to
+        AND e.deliveredAt IS NULL
+        ORDER BY e.id
+        """)
+    List<UserEvent> findUndelivered( @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable );
+
+    @Modifying
+    @Query("UPDATE UserEvent e SET e.deliveredAt = :deliveredAt WHERE e.id IN :ids")
+    int markDelivered( @Param("ids") Collection<Long> ids, @Param("deliveredAt") LocalDateTime deliveredAt );
+
+    @Modifying
+    @Query("DELETE FROM UserEvent e WHERE e.userId = :userId")
+    void deleteByUserId( @Param("userId") Long userId );
+}
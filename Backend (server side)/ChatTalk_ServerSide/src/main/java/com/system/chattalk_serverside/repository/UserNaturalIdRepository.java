@@ -0,0 +1,12 @@
+package com.system.chattalk_serverside.repository;
+
+import com.system.chattalk_serverside.model.User;
+
+import java.util.Optional;
+
+/**
+ * Looks users up by their natural id (email), which is resolved from the second-level cache when possible
+ */
+public interface UserNaturalIdRepository {
+    Optional<User> findByEmail( String email );
+}
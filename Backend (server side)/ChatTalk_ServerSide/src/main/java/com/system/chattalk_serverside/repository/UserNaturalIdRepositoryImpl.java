@@ -0,0 +1,24 @@
+package com.system.chattalk_serverside.repository;
+
+import com.system.chattalk_serverside.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // The Session must outlive unwrap(), which needs a transaction to bind it to
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByEmail( String email ) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(email);
+    }
+}
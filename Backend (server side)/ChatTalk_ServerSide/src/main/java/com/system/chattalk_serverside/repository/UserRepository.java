@@ -11,11 +11,19 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User,Long> {
-    Optional<User> findByEmail( String username );
+public interface UserRepository extends JpaRepository<User,Long>, UserNaturalIdRepository {
+    // findByEmail(String) comes from UserNaturalIdRepository and uses the natural-id cache
+
+    /**
+     * (email, id) of the users with the given emails; unknown emails are left out
+     */
+    @Query("select u.email, u.id from User u where u.email in :emails")
+    List<Object[]> findIdsByEmailIn(@Param("emails") Collection<String> emails);
 
     boolean existsByEmail( @NotBlank(message = "Email is required") @Email(message = "Email should be valid") String email );
 
@@ -0,0 +1,42 @@
+package com.system.chattalk_serverside.security;
+
+import com.system.chattalk_serverside.enums.RateLimitCategory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Applies {@link RateLimiter} to STOMP sends; a rejected SEND is answered with an ERROR frame
+ */
+@Component
+public class RateLimitChannelInterceptor implements ChannelInterceptor {
+    public static final String SEND_MESSAGE_DESTINATION = "/app/chat.privateMessage";
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitChannelInterceptor( RateLimiter rateLimiter ) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Message<?> preSend( Message<?> message, MessageChannel channel ) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SEND || !SEND_MESSAGE_DESTINATION.equals(accessor.getDestination())) {
+            return message;
+        }
+        Principal user = accessor.getUser();
+        String key = user != null ? user.getName() : accessor.getSessionId();
+        long retryAfterMillis = rateLimiter.tryAcquire(RateLimitCategory.MESSAGE_SEND, key);
+        if (retryAfterMillis > 0) {
+            throw new MessageDeliveryException(message, "Rate limit exceeded, retry after " + retryAfterMillis + " ms");
+        }
+        return message;
+    }
+}
@@ -0,0 +1,76 @@
+package com.system.chattalk_serverside.security;
+
+import com.system.chattalk_serverside.enums.RateLimitCategory;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Applies {@link RateLimiter} to the expensive REST endpoints; runs after JWT authentication so
+ * signed-in users are limited per account and everyone else per client address.
+ * Not a bean on purpose: Spring Boot would also register it as a plain servlet filter ahead of security.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Set<String> AUTH_PATHS = Set.of(
+            "/api/auth/login", "/api/auth/register", "/api/auth/verify-email", "/api/auth/forget-password", "/api/auth/reset-password");
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter( RateLimiter rateLimiter ) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal( HttpServletRequest request, HttpServletResponse response, FilterChain filterChain ) throws ServletException, IOException {
+        RateLimitCategory category = classify(request);
+        if (category != null) {
+            long retryAfterMillis = rateLimiter.tryAcquire(category, callerKey(request, category));
+            if (retryAfterMillis > 0) {
+                log.debug("Rate limited {} {} for {}", category, request.getRequestURI(), callerKey(request, category));
+                // No body: rejecting must stay cheaper than serving the request
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMillis + 999) / 1000));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    static RateLimitCategory classify( HttpServletRequest request ) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        // Scheduling a message is a send too, only a delayed one
+        if (HttpMethod.POST.matches(method) && path.startsWith("/api/chats/") && (path.endsWith("/messages") || path.endsWith("/messages/scheduled"))) {
+            return RateLimitCategory.MESSAGE_SEND;
+        }
+        if (HttpMethod.GET.matches(method) && (path.equals("/api/users/search") || path.equals("/api/chats/search"))) {
+            return RateLimitCategory.SEARCH;
+        }
+        if (AUTH_PATHS.contains(path)) {
+            return RateLimitCategory.AUTH;
+        }
+        return null;
+    }
+
+    private static String callerKey( HttpServletRequest request, RateLimitCategory category ) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (category != RateLimitCategory.AUTH && authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return authentication.getName();
+        }
+        return request.getRemoteAddr();
+    }
+}
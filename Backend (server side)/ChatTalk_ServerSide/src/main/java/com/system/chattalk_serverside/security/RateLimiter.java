@@ -0,0 +1,103 @@
+package com.system.chattalk_serverside.security;
+
+import com.system.chattalk_serverside.enums.RateLimitCategory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory token buckets keyed by caller and {@link RateLimitCategory}.
+ * Each bucket is a single {@link AtomicLong} holding the time at which it will be full again
+ * (the GCRA form of a token bucket), so acquiring a permit is one CAS and never blocks.
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+    private final boolean enabled;
+    private final Map<RateLimitCategory, Limit> limits = new EnumMap<>(RateLimitCategory.class);
+    private final Map<RateLimitCategory, Counter> allowed = new EnumMap<>(RateLimitCategory.class);
+    private final Map<RateLimitCategory, Counter> rejected = new EnumMap<>(RateLimitCategory.class);
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter( MeterRegistry meterRegistry,
+                        @Value("${ratelimit.enabled:true}") boolean enabled,
+                        @Value("${ratelimit.message-send.burst:20}") int messageBurst,
+                        @Value("${ratelimit.message-send.per-second:5}") double messageRate,
+                        @Value("${ratelimit.search.burst:10}") int searchBurst,
+                        @Value("${ratelimit.search.per-second:2}") double searchRate,
+                        @Value("${ratelimit.auth.burst:5}") int authBurst,
+                        @Value("${ratelimit.auth.per-second:0.2}") double authRate ) {
+        this.enabled = enabled;
+        limits.put(RateLimitCategory.MESSAGE_SEND, new Limit(messageBurst, messageRate));
+        limits.put(RateLimitCategory.SEARCH, new Limit(searchBurst, searchRate));
+        limits.put(RateLimitCategory.AUTH, new Limit(authBurst, authRate));
+        for (RateLimitCategory category : RateLimitCategory.values()) {
+            allowed.put(category, requests(meterRegistry, category, "allowed"));
+            rejected.put(category, requests(meterRegistry, category, "rejected"));
+        }
+        meterRegistry.gauge("chattalk.ratelimit.buckets", buckets, Map::size);
+    }
+
+    /**
+     * Takes one permit for {@code key}.
+     *
+     * @return 0 if the request may proceed, otherwise the milliseconds until the next permit is available
+     */
+    public long tryAcquire( RateLimitCategory category, String key ) {
+        if (!enabled || key == null) {
+            return 0;
+        }
+        Limit limit = limits.get(category);
+        long now = System.nanoTime();
+        AtomicLong fullAt = buckets.computeIfAbsent(category.name() + ":" + key, k -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            // A timestamp in the past means a full bucket
+            long next = (current - now < 0 ? now : current) + limit.intervalNanos();
+            if (next - now > limit.burstNanos()) {
+                rejected.get(category).increment();
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(next - now - limit.burstNanos()));
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                allowed.get(category).increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Full buckets behave exactly like missing ones, so they can be dropped
+     */
+    @Scheduled(fixedDelayString = "${ratelimit.cleanup-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+        if (log.isDebugEnabled() && before != buckets.size()) {
+            log.debug("Evicted {} idle rate limit buckets", before - buckets.size());
+        }
+    }
+
+    private static Counter requests( MeterRegistry meterRegistry, RateLimitCategory category, String outcome ) {
+        return Counter.builder("chattalk.ratelimit.requests")
+                .description("Requests checked against the per-user rate limits")
+                .tag("category", category.name().toLowerCase())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Limit(long intervalNanos, long burstNanos) {
+        Limit( int burst, double permitsPerSecond ) {
+            this((long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond), (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) * burst);
+        }
+    }
+}
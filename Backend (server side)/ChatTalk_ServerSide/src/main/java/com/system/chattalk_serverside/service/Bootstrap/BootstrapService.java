@@ -0,0 +1,24 @@
+package com.system.chattalk_serverside.service.Bootstrap;
+
+import com.system.chattalk_serverside.dto.BootstrapDto.BootstrapResponse;
+
+import java.io.IOException;
+
+public interface BootstrapService {
+    String PROFILE = "profile";
+    String FRIENDS = "friends";
+    String PENDING_REQUESTS = "pendingRequests";
+    String NOTIFICATIONS = "notifications";
+
+    BootstrapResponse getBootstrap( String email );
+
+    /**
+     * Same data as {@link #getBootstrap(String)}, handed to the writer section by section as soon as each one is loaded
+     */
+    void streamBootstrap( String email, SectionWriter writer ) throws IOException;
+
+    @FunctionalInterface
+    interface SectionWriter {
+        void write( String section, Object data ) throws IOException;
+    }
+}
@@ -0,0 +1,124 @@
+package com.system.chattalk_serverside.service.Bootstrap;
+
+import com.system.chattalk_serverside.dto.BootstrapDto.BootstrapResponse;
+import com.system.chattalk_serverside.dto.BootstrapDto.FriendChatDTO;
+import com.system.chattalk_serverside.dto.ContactDto.PendingFriendRequestDto;
+import com.system.chattalk_serverside.dto.Entity.UserDTO;
+import com.system.chattalk_serverside.mapper.UserMapper;
+import com.system.chattalk_serverside.model.FriendRequest;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.FriendRequestRepository;
+import com.system.chattalk_serverside.service.Message.MessageStore;
+import com.system.chattalk_serverside.service.Notification.NotificationService;
+import com.system.chattalk_serverside.service.ProfileService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Initial desktop state after login. The number of queries is fixed: friends, their private chats,
+ * the last message and unread count of their chats are each loaded with one query (per message shard) and joined in memory.
+ */
+@Service
+public class BootstrapServiceImpl implements BootstrapService {
+    private final ProfileService profileService;
+    private final NotificationService notificationService;
+    private final FriendRequestRepository friendRequestRepository;
+    private final ChatRepository chatRepository;
+    private final MessageStore messageStore;
+
+    public BootstrapServiceImpl( ProfileService profileService,
+                                 NotificationService notificationService,
+                                 FriendRequestRepository friendRequestRepository,
+                                 ChatRepository chatRepository,
+                                 MessageStore messageStore ) {
+        this.profileService = profileService;
+        this.notificationService = notificationService;
+        this.friendRequestRepository = friendRequestRepository;
+        this.chatRepository = chatRepository;
+        this.messageStore = messageStore;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BootstrapResponse getBootstrap( String email ) {
+        UserDTO profile = profileService.GetProfile(email);
+        return BootstrapResponse.builder()
+                .profile(profile)
+                .friends(friends(profile.getId()))
+                .pendingRequests(pendingRequests(profile.getId()))
+                .notifications(notificationService.getNotification(email))
+                .build();
+    }
+
+    /**
+     * Not transactional on purpose: every section is read in its own short transaction,
+     * so a slow client never keeps a database connection while its sections are written.
+     */
+    @Override
+    public void streamBootstrap( String email, SectionWriter writer ) throws IOException {
+        UserDTO profile = profileService.GetProfile(email);
+        writer.write(PROFILE, profile);
+        writer.write(FRIENDS, friends(profile.getId()));
+        writer.write(PENDING_REQUESTS, pendingRequests(profile.getId()));
+        writer.write(NOTIFICATIONS, notificationService.getNotification(email));
+    }
+
+    private List<FriendChatDTO> friends( Long userId ) {
+        List<FriendRequest> accepted = friendRequestRepository.findByUserIdAndStatusWithUsers(userId, FriendRequest.RequestStatus.ACCEPTED);
+
+        // Newest chat wins when duplicates exist, the same one GetPrivateChat returns
+        Map<Long, Long> chatByFriend = new HashMap<>();
+        for (Object[] row : chatRepository.findPrivateChatPartners(userId)) {
+            chatByFriend.putIfAbsent((Long) row[1], (Long) row[0]);
+        }
+        Set<Long> chatIds = new HashSet<>(chatByFriend.values());
+        Map<Long, MessageStore.LastMessage> lastMessageByChat = messageStore.findLastMessages(chatIds);
+        Map<Long, Long> unreadByChat = messageStore.countUnreadByChat(chatIds, userId);
+
+        Map<Long, FriendChatDTO> friends = new LinkedHashMap<>();
+        for (FriendRequest request : accepted) {
+            User friend = userId.equals(request.getSender().getId()) ? request.getReceiver() : request.getSender();
+            friends.computeIfAbsent(friend.getId(), id -> {
+                Long chatId = chatByFriend.get(id);
+                MessageStore.LastMessage lastMessage = chatId != null ? lastMessageByChat.get(chatId) : null;
+                return FriendChatDTO.builder()
+                        .friend(UserMapper.toDto(friend))
+                        .chatId(chatId)
+                        .lastMessage(lastMessage != null ? lastMessage.content() : null)
+                        .lastMessageAt(lastMessage != null ? lastMessage.createdAt() : null)
+                        .unreadCount(chatId != null ? unreadByChat.getOrDefault(chatId, 0L) : 0L)
+                        .build();
+            });
+        }
+        // Most recent conversation first, friends without messages last
+        return friends.values().stream()
+                .sorted(Comparator.comparing(FriendChatDTO::getLastMessageAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                .toList();
+    }
+
+    private List<PendingFriendRequestDto> pendingRequests( Long userId ) {
+        return friendRequestRepository.findReceivedWithSender(userId, FriendRequest.RequestStatus.PENDING)
+                .stream()
+                .map(request -> PendingFriendRequestDto.builder()
+                        .requestId(request.getId())
+                        .email(request.getSender().getEmail())
+                        .firstName(request.getSender().getFirstName())
+                        .lastName(request.getSender().getLastName())
+                        .profilePictureUrl(request.getSender().getProfilePictureUrl())
+                        .bio(request.getSender().getBio())
+                        .isOnline(request.getSender().getIsOnline())
+                        .requestDate(request.getCreatedAt())
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,54 @@
+package com.system.chattalk_serverside.service.Chat;
+
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.model.ChatParticipation.ParticipationStatus;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Who hears about a chat's messages, from the cached participations of the chat. Participants who left or were
+ * banned get nothing; muted ones still get the realtime frames but no notification rows.
+ */
+@Component
+public class ChatAudience {
+    private final ChatParticipationRepository chatParticipationRepository;
+
+    public ChatAudience( ChatParticipationRepository chatParticipationRepository ) {
+        this.chatParticipationRepository = chatParticipationRepository;
+    }
+
+    /**
+     * Participants that get realtime pushes (messages, edits, tombstones) for the chat
+     */
+    public List<User> recipients( Long chatId ) {
+        return forMessage(chatId, null).recipients();
+    }
+
+    /**
+     * Recipients of a new message, and those of them that also get a notification: everyone but the sender
+     * and participants who muted the chat
+     */
+    public Audience forMessage( Long chatId, Long senderId ) {
+        List<User> recipients = new ArrayList<>();
+        List<User> notified = new ArrayList<>();
+        for (ChatParticipation participation : chatParticipationRepository.findAudience(chatId)) {
+            ParticipationStatus status = participation.getStatus() == null ? ParticipationStatus.ACTIVE : participation.getStatus();
+            if (status == ParticipationStatus.LEFT || status == ParticipationStatus.BANNED) {
+                continue;
+            }
+            User user = participation.getUser();
+            recipients.add(user);
+            if (status == ParticipationStatus.ACTIVE && !user.getId().equals(senderId)) {
+                notified.add(user);
+            }
+        }
+        return new Audience(recipients, notified);
+    }
+
+    public record Audience(List<User> recipients, List<User> notified) {
+    }
+}
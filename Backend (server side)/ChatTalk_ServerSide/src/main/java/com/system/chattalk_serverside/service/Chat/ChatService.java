@@ -1,9 +1,13 @@
 package com.system.chattalk_serverside.service.Chat;
 
 import com.system.chattalk_serverside.dto.Entity.ChatDto;
+import com.system.chattalk_serverside.dto.StatsDto.ChatStatsDTO;
+import com.system.chattalk_serverside.dto.StatsDto.DailyStatsDTO;
+import com.system.chattalk_serverside.enums.MessageExpiryMode;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +23,7 @@ public interface ChatService {
     public List<ChatDto> getUserAllChats();
     public Optional<ChatDto> getChatById(Long chatId);
     public ChatDto updateChatName(Long chatId, String newName, String userEmail);
+    public ChatDto updateMessageTtl(Long chatId, Long ttlSeconds, MessageExpiryMode mode, String userEmail);
     public void deletePrivateChat(Long chatId, String userEmail);
     public boolean privateChatExists(String email1, String email2);
     
@@ -31,8 +36,11 @@ public interface ChatService {
     public boolean isUserInChat(Long chatId, String userEmail);
     public List<String> getChatParticipants(Long chatId);
     public void leaveChat(Long chatId, String userEmail);
+    public void setMuted(Long chatId, boolean muted, String userEmail);
     
     // Chat statistics
     public Long getChatMessageCount(Long chatId);
     public Long getUserChatCount(String userEmail);
+    public ChatStatsDTO getChatStats(Long chatId, String userEmail);
+    public List<DailyStatsDTO> getDailyStats(String userEmail, LocalDate from, LocalDate to);
 }
@@ -1,7 +1,12 @@
 package com.system.chattalk_serverside.service.Chat;
 
 import com.system.chattalk_serverside.dto.Entity.ChatDto;
+import com.system.chattalk_serverside.dto.StatsDto.ChatStatsDTO;
+import com.system.chattalk_serverside.dto.StatsDto.DailyStatsDTO;
 import com.system.chattalk_serverside.enums.ChatType;
+import com.system.chattalk_serverside.enums.MessageExpiryMode;
+import com.system.chattalk_serverside.enums.VersionedResource;
+import com.system.chattalk_serverside.exception.ResourceNotFoundException;
 import com.system.chattalk_serverside.exception.UserNotFoundException;
 import com.system.chattalk_serverside.model.Chat;
 import com.system.chattalk_serverside.model.ChatParticipation;
@@ -10,7 +15,10 @@ import com.system.chattalk_serverside.model.User;
 import com.system.chattalk_serverside.repository.ChatRepository;
 import com.system.chattalk_serverside.repository.FriendRequestRepository;
 import com.system.chattalk_serverside.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import com.system.chattalk_serverside.service.Message.MessageArchive;
+import com.system.chattalk_serverside.service.Message.MessageExpiries;
+import com.system.chattalk_serverside.service.Stats.MessageRollups;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -18,7 +26,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -30,11 +40,19 @@ public class ChatServiceImpl implements ChatService{
     private final FriendRequestRepository friendRequestRepository;
     private final UserRepository userRepository;
     private final ChatRepository chatRepository;
+    private final ResourceVersions resourceVersions;
+    private final MessageRollups messageRollups;
+    private final MessageExpiries messageExpiries;
+    private final MessageArchive messageArchive;
 
-    public ChatServiceImpl( FriendRequestRepository friendRequestRepository, UserRepository userRepository, ChatRepository chatRepository ) {
+    public ChatServiceImpl( FriendRequestRepository friendRequestRepository, UserRepository userRepository, ChatRepository chatRepository, ResourceVersions resourceVersions, MessageRollups messageRollups, MessageExpiries messageExpiries, MessageArchive messageArchive ) {
         this.friendRequestRepository = friendRequestRepository;
         this.userRepository = userRepository;
         this.chatRepository = chatRepository;
+        this.resourceVersions = resourceVersions;
+        this.messageRollups = messageRollups;
+        this.messageExpiries = messageExpiries;
+        this.messageArchive = messageArchive;
     }
 
     @Transactional
@@ -97,6 +115,7 @@ public class ChatServiceImpl implements ChatService{
                 .toList();
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<ChatDto> getUserAllChats() {
         String currentUserEmail = getCurrentUserEmail();
@@ -134,11 +153,30 @@ public class ChatServiceImpl implements ChatService{
         chat.setName(newName.trim());
         chat.setUpdatedAt(LocalDateTime.now());
         Chat savedChat = chatRepository.save(chat);
+        chatsChanged(savedChat);
         
         log.info("Updated chat name: {} to '{}' by user: {}", chatId, newName, userEmail);
         return convertToChatDto(savedChat);
     }
 
+    @Transactional
+    @Override
+    public ChatDto updateMessageTtl(Long chatId, Long ttlSeconds, MessageExpiryMode mode, String userEmail) {
+        Chat chat = chatRepository.findById(chatId)
+                .orElseThrow(() -> new ResourceNotFoundException("Chat not found: " + chatId));
+        if (!isUserInChat(chatId, userEmail)) {
+            throw new IllegalArgumentException("User is not a participant in this chat");
+        }
+
+        messageExpiries.configure(chat, ttlSeconds, mode);
+        chat.setUpdatedAt(LocalDateTime.now());
+        Chat savedChat = chatRepository.save(chat);
+        chatsChanged(savedChat);
+
+        log.info("Set message time-to-live of chat {} to {}s ({}) by user: {}", chatId, savedChat.getMessageTtlSeconds(), savedChat.getMessageExpiryMode(), userEmail);
+        return convertToChatDto(savedChat);
+    }
+
     @Override
     public boolean privateChatExists(String email1, String email2) {
         try {
@@ -153,6 +191,7 @@ public class ChatServiceImpl implements ChatService{
         }
     }
 
+    @Transactional(readOnly = true)
     @Override
     public Page<ChatDto> searchChatsByName(String searchTerm, Pageable pageable) {
         String currentUserEmail = getCurrentUserEmail();
@@ -211,15 +250,38 @@ public class ChatServiceImpl implements ChatService{
         // Update participation status
         participation.setStatus(ChatParticipation.ParticipationStatus.LEFT);
         participation.setLeftAt(LocalDateTime.now());
+        chatsChanged(chat);
         
         log.info("User {} left chat: {}", userEmail, chatId);
     }
 
+    @Transactional
     @Override
-    public Long getChatMessageCount(Long chatId) {
+    public void setMuted(Long chatId, boolean muted, String userEmail) {
+        User user = getUserByEmail(userEmail);
         Chat chat = chatRepository.findById(chatId)
-                .orElseThrow(() -> new RuntimeException("Chat not found"));
-        return (long) chat.getMessages().size();
+                .orElseThrow(() -> new ResourceNotFoundException("Chat not found: " + chatId));
+
+        ChatParticipation participation = chat.getParticipants().stream()
+                .filter(p -> p.getUser().getId().equals(user.getId()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("User is not a participant in this chat"));
+        ChatParticipation.ParticipationStatus status = participation.getStatus();
+        if (status == ChatParticipation.ParticipationStatus.LEFT || status == ChatParticipation.ParticipationStatus.BANNED) {
+            throw new IllegalArgumentException("User is no longer a member of this chat");
+        }
+
+        // Muted participants still receive messages, but no notifications
+        participation.setStatus(muted ? ChatParticipation.ParticipationStatus.MUTED : ChatParticipation.ParticipationStatus.ACTIVE);
+        log.info("User {} {} chat: {}", userEmail, muted ? "muted" : "unmuted", chatId);
+    }
+
+    @Override
+    public Long getChatMessageCount(Long chatId) {
+        if (!chatRepository.existsById(chatId)) {
+            throw new RuntimeException("Chat not found");
+        }
+        return messageRollups.messageCount(chatId);
     }
 
     @Override
@@ -228,6 +290,25 @@ public class ChatServiceImpl implements ChatService{
         return chatRepository.countChatsByUserId(user.getId());
     }
 
+    @Override
+    public ChatStatsDTO getChatStats(Long chatId, String userEmail) {
+        if (!isUserInChat(chatId, userEmail)) {
+            throw new RuntimeException("User is not a participant in this chat");
+        }
+        return messageRollups.chatStats(chatId);
+    }
+
+    @Override
+    public List<DailyStatsDTO> getDailyStats(String userEmail, LocalDate from, LocalDate to) {
+        User user = getUserByEmail(userEmail);
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        return messageRollups.dailyStats(user.getId(), start, end);
+    }
+
     /**
      * Delete a private chat (for cleanup purposes)
      */
@@ -250,6 +331,9 @@ public class ChatServiceImpl implements ChatService{
             throw new RuntimeException("Can only delete private chats");
         }
         
+        chatsChanged(chat);
+        messageRollups.forgetChats(List.of(chat.getId()));
+        messageArchive.purgeChat(chat.getId());
         chatRepository.delete(chat);
         log.info("Deleted private chat: {} by user: {}", chatId, userEmail);
     }
@@ -295,6 +379,7 @@ public class ChatServiceImpl implements ChatService{
         chat.setParticipants(participation);
         
         Chat savedChat = chatRepository.save(chat);
+        resourceVersions.changed(List.of(user1.getEmail(), user2.getEmail()), VersionedResource.CHATS);
         
         log.info("Created new private chat: {} between users: {} and {}",
                 savedChat.getId(), user1.getEmail(), user2.getEmail());
@@ -317,6 +402,12 @@ public class ChatServiceImpl implements ChatService{
                 friendRequestRepository.existsBySenderAndReceiverAndStatus(user2, user1, FriendRequest.RequestStatus.ACCEPTED);
     }
 
+    private void chatsChanged( Chat chat ) {
+        resourceVersions.changed(chat.getParticipants().stream()
+                .map(participation -> participation.getUser().getEmail())
+                .toList(), VersionedResource.CHATS);
+    }
+
     /**
      * Convert Chat entity to DTO
      */
@@ -330,6 +421,8 @@ public class ChatServiceImpl implements ChatService{
                         .toList())
                 .createdAt(chat.getCreatedAt())
                 .updatedAt(chat.getUpdatedAt())
+                .messageTtlSeconds(chat.getMessageTtlSeconds())
+                .messageExpiryMode(chat.getMessageExpiryMode() == null ? null : chat.getMessageExpiryMode().name())
                 .build();
     }
 
@@ -350,6 +443,9 @@ public class ChatServiceImpl implements ChatService{
             Chat chatToDelete = duplicateChats.get(i);
             log.info("Deleting duplicate chat: {} (keeping chat: {})", 
                     chatToDelete.getId(), keepChat.getId());
+            chatsChanged(chatToDelete);
+            messageRollups.forgetChats(List.of(chatToDelete.getId()));
+            messageArchive.purgeChat(chatToDelete.getId());
             chatRepository.delete(chatToDelete);
         }
         
@@ -6,15 +6,17 @@ import com.system.chattalk_serverside.dto.ContactDto.FriendRequestResponse;
 import com.system.chattalk_serverside.dto.ContactDto.PendingFriendRequestDto;
 import com.system.chattalk_serverside.dto.Entity.NotificationDTO;
 import com.system.chattalk_serverside.dto.Entity.UserDTO;
+import com.system.chattalk_serverside.enums.VersionedResource;
 import com.system.chattalk_serverside.exception.UserNotFoundException;
 import com.system.chattalk_serverside.model.FriendRequest;
 import com.system.chattalk_serverside.model.User;
 import com.system.chattalk_serverside.repository.FriendRequestRepository;
 import com.system.chattalk_serverside.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.Comparator;
@@ -27,11 +29,13 @@ public class ContactServiceImpl  implements ContactService{
     private final UserRepository userRepository;
     private final FriendRequestRepository friendRequestRepository;
     private final RealtimeNotificationImpl realtimeNotificationImpl;
+    private final ResourceVersions resourceVersions;
 
-    public ContactServiceImpl( UserRepository userRepository, FriendRequestRepository friendRequestRepository, RealtimeNotificationImpl realtimeNotificationImpl ) {
+    public ContactServiceImpl( UserRepository userRepository, FriendRequestRepository friendRequestRepository, RealtimeNotificationImpl realtimeNotificationImpl, ResourceVersions resourceVersions ) {
         this.userRepository = userRepository;
         this.friendRequestRepository = friendRequestRepository;
         this.realtimeNotificationImpl = realtimeNotificationImpl;
+        this.resourceVersions = resourceVersions;
     }
 
     /**
@@ -63,6 +67,7 @@ public class ContactServiceImpl  implements ContactService{
 
         FriendRequest savedRequest = friendRequestRepository.save(friendRequest);
         log.info("Friend request sent from {} to {}", senderEmail, receiverEmail);
+        resourceVersions.changed(receiverEmail, VersionedResource.PENDING_REQUESTS);
 
         // Publish event
 
@@ -82,6 +87,7 @@ public class ContactServiceImpl  implements ContactService{
                 .build();
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<UserDTO> getFriends() {
         String email = getAuthenticatedEmail();
@@ -122,6 +128,8 @@ public class ContactServiceImpl  implements ContactService{
         friendRequestRepository.save(request);
 
         log.info("Friend request accepted: {}", requestId);
+        resourceVersions.changed(request.getReceiver().getEmail(), VersionedResource.PENDING_REQUESTS);
+        resourceVersions.changed(List.of(request.getSender().getEmail(), request.getReceiver().getEmail()), VersionedResource.FRIENDS);
         //event
         realtimeNotificationImpl.acceptedFriendRequestNotification(request.getSender(), NotificationDTO.builder()
                 .userId(request.getSender().getId())
@@ -140,6 +148,7 @@ public class ContactServiceImpl  implements ContactService{
         friendRequestRepository.save(request);
 
         log.info("Friend request rejected: {}", requestId);
+        resourceVersions.changed(request.getReceiver().getEmail(), VersionedResource.PENDING_REQUESTS);
         //event
         realtimeNotificationImpl.rejectedFriendRequestNotification(request.getSender(), NotificationDTO.builder()
                 .userId(request.getSender().getId())
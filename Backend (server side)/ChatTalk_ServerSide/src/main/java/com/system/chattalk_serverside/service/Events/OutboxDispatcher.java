@@ -0,0 +1,204 @@
+package com.system.chattalk_serverside.service.Events;
+
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.model.UserEvent;
+import com.system.chattalk_serverside.repository.UserEventRepository;
+import com.system.chattalk_serverside.repository.UserRepository;
+import com.system.chattalk_serverside.websocket.EncodedMessagingTemplate;
+import com.system.chattalk_serverside.websocket.PayloadEncoder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes committed user events over STOMP, off the thread that committed them.
+ * Events are spread over lanes by recipient, so each user's events keep their order while different users
+ * are delivered in parallel. Each lane delivers a batch and then marks it delivered with one update.
+ * Events lost before delivery (full lane, failed push, restart) are picked up again by the sweep;
+ * delivery is at-least-once and clients drop duplicates by sequence number.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher implements DisposableBean {
+    private final EncodedMessagingTemplate messagingTemplate;
+    private final UserEventRepository userEventRepository;
+    private final UserRepository userRepository;
+    private final PayloadEncoder payloadEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sweepGraceMillis;
+    private final long sweepMaxAgeMillis;
+    private final List<BlockingQueue<OutboxEvent>> lanes = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    // Ids handed to a lane and not yet marked delivered, so the sweep does not queue them twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Timer deliveryLag;
+    private final Counter delivered;
+    private final Counter failures;
+
+    public OutboxDispatcher( EncodedMessagingTemplate messagingTemplate,
+                             UserEventRepository userEventRepository,
+                             UserRepository userRepository,
+                             PayloadEncoder payloadEncoder,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${outbox.dispatcher.threads:4}") int threads,
+                             @Value("${outbox.dispatcher.batch-size:200}") int batchSize,
+                             @Value("${outbox.dispatcher.queue-capacity:10000}") int queueCapacity,
+                             @Value("${outbox.sweep.grace-ms:10000}") long sweepGraceMillis,
+                             @Value("${outbox.sweep.max-age-ms:600000}") long sweepMaxAgeMillis ) {
+        this.messagingTemplate = messagingTemplate;
+        this.userEventRepository = userEventRepository;
+        this.userRepository = userRepository;
+        this.payloadEncoder = payloadEncoder;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sweepGraceMillis = sweepGraceMillis;
+        this.sweepMaxAgeMillis = sweepMaxAgeMillis;
+        this.deliveryLag = Timer.builder("chattalk.outbox.delivery.lag")
+                .description("Time from an event being written to it being pushed to the broker")
+                .register(meterRegistry);
+        this.delivered = Counter.builder("chattalk.outbox.delivered")
+                .description("User events pushed to the broker")
+                .register(meterRegistry);
+        this.failures = Counter.builder("chattalk.outbox.failures")
+                .description("User event pushes that failed and were left for the sweep")
+                .register(meterRegistry);
+        Gauge.builder("chattalk.outbox.pending", inFlight, Set::size)
+                .description("User events queued for delivery")
+                .register(meterRegistry);
+
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            BlockingQueue<OutboxEvent> lane = new LinkedBlockingQueue<>(queueCapacity);
+            Thread worker = new Thread(() -> drain(lane), "outbox-dispatch-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            lanes.add(lane);
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Queues a committed event; never blocks the caller
+     */
+    public void dispatch( OutboxEvent event ) {
+        if (!inFlight.add(event.eventId())) {
+            return;
+        }
+        BlockingQueue<OutboxEvent> lane = lanes.get(Math.floorMod(event.userId().hashCode(), lanes.size()));
+        if (!lane.offer(event)) {
+            inFlight.remove(event.eventId());
+            log.debug("Outbox lane full, event {} is left for the sweep", event.eventId());
+        }
+    }
+
+    /**
+     * Pushes one event on its destination(s) with its sequence number
+     */
+    public void deliver( OutboxEvent event ) {
+        for (String destination : destinationsFor(event.destination())) {
+            messagingTemplate.sendToUser(event.userEmail(), destination, event.payload(), event.seq());
+        }
+        deliveryLag.record(Math.max(0, System.currentTimeMillis() - event.createdAtMillis()), TimeUnit.MILLISECONDS);
+        delivered.increment();
+    }
+
+    /**
+     * Message events are also sent on the older /queue/messages destination that some clients still subscribe to
+     */
+    static List<String> destinationsFor( String destination ) {
+        return "/queue/chat".equals(destination) ? List.of("/queue/messages", "/queue/chat") : List.of(destination);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.sweep.interval-ms:5000}", initialDelayString = "${outbox.sweep.interval-ms:5000}")
+    public void sweepUndelivered() {
+        LocalDateTime now = LocalDateTime.now();
+        // Older undelivered events are only served by replay; the window keeps the sweep on recent rows
+        List<UserEvent> pending = userEventRepository.findUndelivered(
+                        now.minus(sweepMaxAgeMillis, ChronoUnit.MILLIS), now.minus(sweepGraceMillis, ChronoUnit.MILLIS), PageRequest.of(0, batchSize))
+                .stream()
+                .filter(event -> !inFlight.contains(event.getId()))
+                .toList();
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, String> emails = userRepository.findAllById(pending.stream().map(UserEvent::getUserId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(User::getId, User::getEmail));
+        log.info("Re-dispatching {} undelivered user events", pending.size());
+        for (UserEvent event : pending) {
+            String email = emails.get(event.getUserId());
+            if (email != null) {
+                dispatch(new OutboxEvent(event.getId(), event.getUserId(), email, event.getSeq(), event.getDestination(),
+                        payloadEncoder.fromJson(event.getPayload()), event.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        workers.forEach(Thread::interrupt);
+    }
+
+    private void drain( BlockingQueue<OutboxEvent> lane ) {
+        List<OutboxEvent> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(lane.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            lane.drainTo(batch, batchSize - 1);
+            deliverBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void deliverBatch( List<OutboxEvent> batch ) {
+        List<Long> deliveredIds = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            try {
+                deliver(event);
+                deliveredIds.add(event.eventId());
+            } catch (RuntimeException e) {
+                failures.increment();
+                inFlight.remove(event.eventId());
+                log.warn("Failed to push user event {} to {}: {}", event.eventId(), event.userEmail(), e.getMessage());
+            }
+        }
+        if (deliveredIds.isEmpty()) {
+            return;
+        }
+        try {
+            LocalDateTime deliveredAt = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status -> userEventRepository.markDelivered(deliveredIds, deliveredAt));
+        } catch (RuntimeException e) {
+            // Pushed but not marked: the sweep pushes them again and clients drop the duplicates
+            log.warn("Failed to mark {} user events delivered: {}", deliveredIds.size(), e.getMessage());
+        } finally {
+            deliveredIds.forEach(inFlight::remove);
+        }
+    }
+}
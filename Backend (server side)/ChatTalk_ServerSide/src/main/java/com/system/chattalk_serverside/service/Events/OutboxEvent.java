@@ -0,0 +1,10 @@
+package com.system.chattalk_serverside.service.Events;
+
+import com.system.chattalk_serverside.websocket.EncodedPayload;
+
+/**
+ * A committed user event waiting to be pushed; {@code createdAtMillis} is used for the delivery lag metric
+ */
+public record OutboxEvent(Long eventId, Long userId, String userEmail, long seq, String destination,
+                          EncodedPayload payload, long createdAtMillis) {
+}
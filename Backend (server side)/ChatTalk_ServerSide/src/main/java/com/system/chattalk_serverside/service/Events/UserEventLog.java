@@ -0,0 +1,32 @@
+package com.system.chattalk_serverside.service.Events;
+
+import com.system.chattalk_serverside.dto.EventDto.EventReplayResponse;
+import com.system.chattalk_serverside.enums.UserEventType;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.websocket.EncodedPayload;
+
+import java.util.Comparator;
+import java.util.List;
+
+public interface UserEventLog {
+    /**
+     * Records a push to {@code recipient} and returns its sequence number (monotonic per user).
+     */
+    long append( User recipient, UserEventType type, String destination, EncodedPayload payload );
+
+    /**
+     * Records the same push to every recipient, taking their sequence numbers in user id order.
+     */
+    default void appendAll( List<User> recipients, UserEventType type, String destination, EncodedPayload payload ) {
+        recipients.stream()
+                .sorted(Comparator.comparing(User::getId))
+                .forEach(recipient -> append(recipient, type, destination, payload));
+    }
+
+    /**
+     * Events of the user with a sequence number greater than {@code since}, oldest first.
+     */
+    EventReplayResponse replay( Long userId, long since, Integer limit );
+
+    EventReplayResponse replay( String userEmail, long since, Integer limit );
+}
@@ -0,0 +1,190 @@
+package com.system.chattalk_serverside.service.Events;
+
+import com.system.chattalk_serverside.dto.EventDto.EventReplayResponse;
+import com.system.chattalk_serverside.dto.EventDto.UserEventDTO;
+import com.system.chattalk_serverside.enums.UserEventType;
+import com.system.chattalk_serverside.exception.UserNotFoundException;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.model.UserEvent;
+import com.system.chattalk_serverside.repository.UserEventRepository;
+import com.system.chattalk_serverside.repository.UserRepository;
+import com.system.chattalk_serverside.websocket.EncodedPayload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Per-user event log: every realtime push is stored with the next sequence number of its recipient,
+ * in the caller's transaction, and handed to the {@link OutboxDispatcher} once that transaction commits.
+ * Sequence numbers come from {@link UserEventSequences}, so appends for one user queue behind each other until commit;
+ * a push to several users goes through {@link #appendAll}, which takes all their numbers at once in user id order.
+ * Committed events are also kept in a bounded in-memory ring per user so most reconnects are answered
+ * without touching the {@code user_events} table.
+ */
+@Slf4j
+@Service
+public class UserEventLogImpl implements UserEventLog {
+    private final UserEventRepository userEventRepository;
+    private final UserEventSequences userEventSequences;
+    private final UserRepository userRepository;
+    private final OutboxDispatcher outboxDispatcher;
+    private final int ringCapacity;
+    private final int maxReplayBatch;
+    private final int retentionDays;
+    private final Map<Long, UserEventRing> rings;
+
+    public UserEventLogImpl( UserEventRepository userEventRepository,
+                             UserEventSequences userEventSequences,
+                             UserRepository userRepository,
+                             OutboxDispatcher outboxDispatcher,
+                             @Value("${events.ring.capacity:256}") int ringCapacity,
+                             @Value("${events.ring.max-users:10000}") int maxCachedUsers,
+                             @Value("${events.replay.max-batch:500}") int maxReplayBatch,
+                             @Value("${events.retention-days:7}") int retentionDays ) {
+        this.userEventRepository = userEventRepository;
+        this.userEventSequences = userEventSequences;
+        this.userRepository = userRepository;
+        this.outboxDispatcher = outboxDispatcher;
+        this.ringCapacity = ringCapacity;
+        this.maxReplayBatch = maxReplayBatch;
+        this.retentionDays = retentionDays;
+        // Least recently used users drop out; their events are read from the table until the ring fills again
+        this.rings = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<Long, UserEventRing> eldest ) {
+                return size() > maxCachedUsers;
+            }
+        });
+    }
+
+    @Override
+    public long append( User recipient, UserEventType type, String destination, EncodedPayload payload ) {
+        Long userId = recipient.getId();
+        UserEvent event = userEventRepository.save(newEvent(userId, userEventSequences.next(userId), type, destination, payload));
+        afterCommit(List.of(event), List.of(recipient), payload);
+        return event.getSeq();
+    }
+
+    @Override
+    public void appendAll( List<User> recipients, UserEventType type, String destination, EncodedPayload payload ) {
+        List<User> ordered = List.copyOf(recipients.stream()
+                .collect(Collectors.toMap(User::getId, recipient -> recipient, (first, duplicate) -> first, TreeMap::new))
+                .values());
+        if (ordered.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> seqs = userEventSequences.nextAll(ordered.stream().map(User::getId).toList());
+        List<UserEvent> events = userEventRepository.saveAll(ordered.stream()
+                .map(recipient -> newEvent(recipient.getId(), seqs.get(recipient.getId()), type, destination, payload))
+                .toList());
+        afterCommit(events, ordered, payload);
+    }
+
+    private void afterCommit( List<UserEvent> events, List<User> recipients, EncodedPayload payload ) {
+        // Cached and pushed only once the events are committed, and never pushed on the committing thread
+        long appendedAt = System.currentTimeMillis();
+        List<OutboxEvent> outboxEvents = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            UserEvent event = events.get(i);
+            outboxEvents.add(new OutboxEvent(event.getId(), event.getUserId(), recipients.get(i).getEmail(), event.getSeq(), event.getDestination(), payload, appendedAt));
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(events, outboxEvents);
+                }
+            });
+        } else {
+            publish(events, outboxEvents);
+        }
+    }
+
+    private void publish( List<UserEvent> events, List<OutboxEvent> outboxEvents ) {
+        events.forEach(event -> ringFor(event.getUserId()).add(event));
+        outboxEvents.forEach(outboxDispatcher::dispatch);
+    }
+
+    private static UserEvent newEvent( Long userId, long seq, UserEventType type, String destination, EncodedPayload payload ) {
+        return UserEvent.builder()
+                .userId(userId)
+                .seq(seq)
+                .type(type)
+                .destination(destination)
+                .payload(payload.getJsonText())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Not read-only, so it runs on the primary: a lagging replica would miss the newest events and report a stale latestSeq
+     */
+    @Override
+    @Transactional
+    public EventReplayResponse replay( Long userId, long since, Integer limit ) {
+        int batch = limit == null ? maxReplayBatch : Math.max(1, Math.min(limit, maxReplayBatch));
+        long latestSeq = userEventSequences.current(userId);
+        if (since >= latestSeq) {
+            return EventReplayResponse.builder().events(List.of()).latestSeq(latestSeq).complete(true).build();
+        }
+
+        List<UserEvent> events = ringFor(userId).since(since, latestSeq, batch + 1);
+        if (events == null) {
+            Long oldestSeq = userEventRepository.findMinSeq(userId);
+            if (oldestSeq == null || since + 1 < oldestSeq) {
+                log.debug("Replay for user {} from seq {} is older than the retained log (oldest {})", userId, since, oldestSeq);
+                return EventReplayResponse.builder().events(List.of()).latestSeq(latestSeq).complete(false).build();
+            }
+            events = userEventRepository.findByUserIdAndSeqGreaterThanOrderBySeqAsc(userId, since, PageRequest.of(0, batch + 1));
+        }
+
+        boolean hasMore = events.size() > batch;
+        List<UserEventDTO> dtos = events.stream().limit(batch).map(this::toDto).toList();
+        return EventReplayResponse.builder().events(dtos).latestSeq(latestSeq).complete(true).hasMore(hasMore).build();
+    }
+
+    @Override
+    @Transactional
+    public EventReplayResponse replay( String userEmail, long since, Integer limit ) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new UserNotFoundException("User not found: " + userEmail));
+        return replay(user.getId(), since, limit);
+    }
+
+    @Scheduled(fixedDelayString = "${events.prune-interval-ms:3600000}", initialDelayString = "${events.prune-interval-ms:3600000}")
+    @Transactional
+    public void pruneExpiredEvents() {
+        int removed = userEventRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+        if (removed > 0) {
+            log.info("Pruned {} user events older than {} days", removed, retentionDays);
+        }
+    }
+
+    private UserEventRing ringFor( Long userId ) {
+        return rings.computeIfAbsent(userId, id -> new UserEventRing(ringCapacity));
+    }
+
+    private UserEventDTO toDto( UserEvent event ) {
+        return UserEventDTO.builder()
+                .seq(event.getSeq())
+                .type(event.getType().name())
+                .destination(event.getDestination())
+                .payload(event.getPayload())
+                .createdAt(event.getCreatedAt())
+                .build();
+    }
+}
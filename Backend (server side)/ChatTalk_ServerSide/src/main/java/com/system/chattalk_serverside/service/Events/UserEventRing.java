@@ -0,0 +1,48 @@
+package com.system.chattalk_serverside.service.Events;
+
+import com.system.chattalk_serverside.model.UserEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Most recent committed events of one user, ordered by sequence number.
+ * Events arrive from commit callbacks, which may run out of order, and a ring may have been dropped and recreated,
+ * so a replay is answered from the ring only when it holds every event the client is missing.
+ */
+class UserEventRing {
+    private final int capacity;
+    private final TreeMap<Long, UserEvent> events = new TreeMap<>();
+
+    UserEventRing( int capacity ) {
+        this.capacity = capacity;
+    }
+
+    synchronized void add( UserEvent event ) {
+        events.put(event.getSeq(), event);
+        if (events.size() > capacity) {
+            events.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Up to {@code max} events after {@code since} without a gap, ending at {@code latestSeq} when fewer are wanted,
+     * or {@code null} when the ring is missing any of them.
+     */
+    synchronized List<UserEvent> since( long since, long latestSeq, int max ) {
+        List<UserEvent> result = new ArrayList<>();
+        long expected = since + 1;
+        for (UserEvent event : events.subMap(since, false, latestSeq, true).values()) {
+            if (event.getSeq() != expected) {
+                return null;
+            }
+            result.add(event);
+            if (result.size() == max) {
+                return result;
+            }
+            expected++;
+        }
+        return expected > latestSeq ? result : null;
+    }
+}
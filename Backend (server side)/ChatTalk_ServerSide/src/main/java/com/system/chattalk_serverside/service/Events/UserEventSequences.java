@@ -0,0 +1,90 @@
+package com.system.chattalk_serverside.service.Events;
+
+import com.system.chattalk_serverside.utils.SqlUpserts;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Per-user event sequence numbers, allocated in the database by the appending transaction.
+ * Taking a number updates the user's {@code user_event_sequences} row, which stays locked until that transaction ends:
+ * a concurrent append for the same user waits, so numbers are never reused and commit in the order they were taken.
+ * A rolled-back append gives its number back with the rest of its transaction.
+ * Numbers for several users are taken with {@link #nextAll}, which locks their rows in user id order so two
+ * transactions pushing to overlapping audiences queue behind each other instead of deadlocking.
+ * <p>
+ * A user without a row yet continues after their highest stored event.
+ */
+@Component
+public class UserEventSequences {
+    private static final String TABLE = "user_event_sequences";
+    private static final String INCREMENT = "UPDATE user_event_sequences SET last_seq = last_seq + 1 WHERE user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlUpserts sqlUpserts;
+
+    public UserEventSequences( JdbcTemplate jdbcTemplate, SqlUpserts sqlUpserts ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlUpserts = sqlUpserts;
+    }
+
+    /**
+     * Takes the user's next sequence number in the caller's transaction
+     */
+    public long next( Long userId ) {
+        if (jdbcTemplate.update(INCREMENT, userId) == 0) {
+            sqlUpserts.insertIfAbsent(TABLE, 1, List.of("user_id", "last_seq"), userId, storedMax(userId));
+            jdbcTemplate.update(INCREMENT, userId);
+        }
+        return jdbcTemplate.queryForObject("SELECT last_seq FROM user_event_sequences WHERE user_id = ?", Long.class, userId);
+    }
+
+    /**
+     * Takes the next sequence number of every user in the caller's transaction, keyed by user id
+     */
+    public Map<Long, Long> nextAll( Collection<Long> userIds ) {
+        List<Long> ids = userIds.stream().distinct().sorted().toList();
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        String in = ids.stream().map(id -> "?").collect(Collectors.joining(", ", "(", ")"));
+        Object[] args = ids.toArray();
+
+        // Each statement locks its user's row, so the increments run in user id order; a user without a row yet is
+        // seeded right before their own increment, so a seeding insert never locks a row out of that order
+        Set<Long> seeded = new HashSet<>(jdbcTemplate.queryForList("SELECT user_id FROM user_event_sequences WHERE user_id IN " + in, Long.class, args));
+        if (seeded.containsAll(ids)) {
+            jdbcTemplate.batchUpdate(INCREMENT, ids.stream().map(id -> new Object[]{id}).toList());
+        } else {
+            ids.forEach(this::next);
+        }
+
+        Map<Long, Long> seqs = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, last_seq FROM user_event_sequences WHERE user_id IN " + in,
+                rs -> { seqs.put(rs.getLong("user_id"), rs.getLong("last_seq")); }, args);
+        return seqs;
+    }
+
+    /**
+     * The last committed sequence number; never writes, so it is safe in read-only transactions
+     */
+    public long current( Long userId ) {
+        List<Long> lastSeq = jdbcTemplate.queryForList("SELECT last_seq FROM user_event_sequences WHERE user_id = ?", Long.class, userId);
+        return lastSeq.isEmpty() ? storedMax(userId) : lastSeq.get(0);
+    }
+
+    public void forget( Long userId ) {
+        jdbcTemplate.update("DELETE FROM user_event_sequences WHERE user_id = ?", userId);
+    }
+
+    private long storedMax( Long userId ) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM user_events WHERE user_id = ?", Long.class, userId);
+    }
+}
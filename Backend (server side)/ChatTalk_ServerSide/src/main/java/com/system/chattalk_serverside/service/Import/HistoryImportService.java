@@ -0,0 +1,570 @@
+package com.system.chattalk_serverside.service.Import;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.chattalk_serverside.dto.ImportDto.ImportRecord;
+import com.system.chattalk_serverside.dto.ImportDto.ImportRequest;
+import com.system.chattalk_serverside.dto.ImportDto.ImportStatusDTO;
+import com.system.chattalk_serverside.enums.ChatType;
+import com.system.chattalk_serverside.enums.ImportStatus;
+import com.system.chattalk_serverside.enums.MessageType;
+import com.system.chattalk_serverside.enums.VersionedResource;
+import com.system.chattalk_serverside.exception.ResourceNotFoundException;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.model.ImportCheckpoint;
+import com.system.chattalk_serverside.model.ImportedChat;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ImportCheckpointRepository;
+import com.system.chattalk_serverside.repository.ImportedChatRepository;
+import com.system.chattalk_serverside.repository.UserRepository;
+import com.system.chattalk_serverside.service.Message.MessageStore;
+import com.system.chattalk_serverside.service.Stats.MessageRollups;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads chat history from a previous system: NDJSON files of chats, participants and messages
+ * (see {@link ImportRecord}) are written with multi-row inserts in batches of {@code imports.batch-size} lines.
+ * Nothing goes through the message service, so there is no fan-out, notification or per-message chat update.
+ * Each batch commits together with the import's checkpoint, and a restarted import (or one started again after
+ * lines were appended) continues after the last committed line. With sharded message storage the messages
+ * commit on their shards before the checkpoint, so a crash between the two can repeat one batch of messages.
+ * Once all lines are in, the last message of every imported chat is recomputed and cached chat state is dropped.
+ */
+@Slf4j
+@Service
+public class HistoryImportService implements DisposableBean {
+    private static final int MAX_CACHED_KEYS = 100_000;
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    private final ImportCheckpointRepository checkpointRepository;
+    private final ImportedChatRepository importedChatRepository;
+    private final UserRepository userRepository;
+    private final MessageStore messageStore;
+    private final HistoryImportWriter writer;
+    private final ResourceVersions resourceVersions;
+    private final MessageRollups messageRollups;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Path importDir;
+    private final int batchSize;
+    private final long reportIntervalMillis;
+    private final ExecutorService executor;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    // Start of the current run per source, for the throughput in the status
+    private final Map<String, long[]> runStarts = new ConcurrentHashMap<>();
+    private final Map<String, Long> userIds = lruMap();
+    private final Map<String, Long> chatIds = lruMap();
+    private final Counter importedChats;
+    private final Counter importedParticipants;
+    private final Counter importedMessages;
+    private final Counter skippedRecords;
+
+    public HistoryImportService( ImportCheckpointRepository checkpointRepository,
+                                 ImportedChatRepository importedChatRepository,
+                                 UserRepository userRepository,
+                                 MessageStore messageStore,
+                                 HistoryImportWriter writer,
+                                 ResourceVersions resourceVersions,
+                                 MessageRollups messageRollups,
+                                 EntityManagerFactory entityManagerFactory,
+                                 TransactionTemplate transactionTemplate,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${imports.dir:data/imports}") String importDir,
+                                 @Value("${imports.batch-size:1000}") int batchSize,
+                                 @Value("${imports.report-interval-ms:10000}") long reportIntervalMillis ) {
+        this.checkpointRepository = checkpointRepository;
+        this.importedChatRepository = importedChatRepository;
+        this.userRepository = userRepository;
+        this.messageStore = messageStore;
+        this.writer = writer;
+        this.resourceVersions = resourceVersions;
+        this.messageRollups = messageRollups;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.importDir = Path.of(importDir).toAbsolutePath().normalize();
+        this.batchSize = Math.max(1, batchSize);
+        this.reportIntervalMillis = reportIntervalMillis;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "history-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.importedChats = importCounter(meterRegistry, "chat");
+        this.importedParticipants = importCounter(meterRegistry, "participant");
+        this.importedMessages = importCounter(meterRegistry, "message");
+        this.skippedRecords = importCounter(meterRegistry, "skipped");
+    }
+
+    /**
+     * Starts (or resumes) an import in the background; imports run one at a time
+     */
+    public ImportStatusDTO start( ImportRequest request ) {
+        String source = request.getSource();
+        Path file = resolve(request.getFile());
+        checkpointRepository.findById(source).ifPresent(existing -> {
+            if (!existing.getFile().equals(request.getFile())) {
+                throw new IllegalArgumentException("Import " + source + " reads " + existing.getFile() + "; use another source name for another file");
+            }
+        });
+        if (!running.add(source)) {
+            throw new IllegalArgumentException("Import " + source + " is already running");
+        }
+        ImportCheckpoint checkpoint;
+        try {
+            checkpoint = begin(source, request.getFile());
+        } catch (RuntimeException e) {
+            running.remove(source);
+            throw e;
+        }
+        executor.execute(() -> {
+            try {
+                run(checkpoint, file);
+            } finally {
+                running.remove(source);
+            }
+        });
+        return toDto(checkpoint);
+    }
+
+    public ImportStatusDTO status( String source ) {
+        return checkpointRepository.findById(source)
+                .map(this::toDto)
+                .orElseThrow(() -> new ResourceNotFoundException("No import named " + source));
+    }
+
+    /**
+     * Runs (or resumes) an import on the calling thread
+     */
+    public ImportStatusDTO importFile( String source, String file ) {
+        Path path = resolve(file);
+        if (!running.add(source)) {
+            throw new IllegalArgumentException("Import " + source + " is already running");
+        }
+        try {
+            return toDto(run(begin(source, file), path));
+        } finally {
+            running.remove(source);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private ImportCheckpoint begin( String source, String file ) {
+        ImportCheckpoint checkpoint = checkpointRepository.findById(source)
+                .orElseGet(() -> ImportCheckpoint.builder().source(source).file(file).build());
+        checkpoint.setStatus(ImportStatus.RUNNING);
+        checkpoint.setError(null);
+        checkpoint.setStartedAt(LocalDateTime.now());
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpoint.setCompletedAt(null);
+        return checkpointRepository.save(checkpoint);
+    }
+
+    private ImportCheckpoint run( ImportCheckpoint checkpoint, Path file ) {
+        String source = checkpoint.getSource();
+        runStarts.put(source, new long[]{System.nanoTime(), checkpoint.getMessages()});
+        // Users and chats may have changed since the last run, so lookups start empty
+        synchronized (userIds) {
+            userIds.clear();
+        }
+        synchronized (chatIds) {
+            chatIds.clear();
+        }
+        long lastReport = System.currentTimeMillis();
+        log.info("Import {} of {} starting at byte {}", source, file, checkpoint.getByteOffset());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(checkpoint.getByteOffset());
+            LineReader reader = new LineReader(Channels.newInputStream(channel), checkpoint.getByteOffset());
+            List<String> lines;
+            while (!(lines = reader.next(batchSize)).isEmpty()) {
+                checkpoint = applyBatch(checkpoint, lines, reader.offset());
+                if (System.currentTimeMillis() - lastReport >= reportIntervalMillis) {
+                    lastReport = System.currentTimeMillis();
+                    log.info("Import {}: {} lines, {} chats, {} participants, {} messages, {} skipped, {} messages/s",
+                            source, checkpoint.getLines(), checkpoint.getChats(), checkpoint.getParticipants(),
+                            checkpoint.getMessages(), checkpoint.getSkipped(), Math.round(messagesPerSecond(checkpoint)));
+                }
+            }
+
+            checkpoint.setStatus(ImportStatus.REBUILDING);
+            checkpoint = checkpointRepository.save(checkpoint);
+            rebuildDerivedState(source);
+
+            checkpoint.setStatus(ImportStatus.COMPLETED);
+            checkpoint.setCompletedAt(LocalDateTime.now());
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpoint = checkpointRepository.save(checkpoint);
+            log.info("Import {} completed: {} lines, {} chats, {} participants, {} messages, {} skipped, {} messages/s",
+                    source, checkpoint.getLines(), checkpoint.getChats(), checkpoint.getParticipants(),
+                    checkpoint.getMessages(), checkpoint.getSkipped(), Math.round(messagesPerSecond(checkpoint)));
+        } catch (Exception e) {
+            // The in-memory copy may hold counters of the batch that rolled back
+            checkpoint = checkpointRepository.findById(source).orElse(checkpoint);
+            log.error("Import {} failed after line {}; starting it again resumes there", source, checkpoint.getLines(), e);
+            checkpoint.setStatus(ImportStatus.FAILED);
+            checkpoint.setError(truncate(e.getMessage()));
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpoint = checkpointRepository.save(checkpoint);
+        } finally {
+            runStarts.remove(source);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Writes one batch of lines and the checkpoint after them in a single transaction
+     */
+    private ImportCheckpoint applyBatch( ImportCheckpoint checkpoint, List<String> lines, long endOffset ) {
+        String source = checkpoint.getSource();
+        List<ImportRecord> chatRecords = new ArrayList<>();
+        List<ImportRecord> participantRecords = new ArrayList<>();
+        List<ImportRecord> messageRecords = new ArrayList<>();
+        long[] skipped = {0};
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            ImportRecord record = parse(line);
+            String type = record == null || record.getType() == null ? "" : record.getType().toLowerCase(Locale.ROOT);
+            switch (type) {
+                case "chat" -> chatRecords.add(record);
+                case "participant" -> participantRecords.add(record);
+                case "message" -> messageRecords.add(record);
+                default -> skipped[0]++;
+            }
+        }
+
+        // Key lookups are cached only once the batch that created them has committed
+        Map<String, Long> newChatIds = new HashMap<>();
+        Map<String, Long> knownUserIds = new HashMap<>();
+        ImportCheckpoint saved = transactionTemplate.execute(status -> {
+            knownUserIds.putAll(resolveUsers(chatRecords, participantRecords, messageRecords));
+            Map<String, Long> knownChatIds = resolveChats(source, participantRecords, messageRecords, chatRecords);
+
+            Map<String, ImportRecord> freshById = new LinkedHashMap<>();
+            for (ImportRecord record : chatRecords) {
+                if (record.getId() != null && !knownChatIds.containsKey(record.getId())) {
+                    freshById.putIfAbsent(record.getId(), record);
+                }
+            }
+            List<ImportRecord> freshChats = List.copyOf(freshById.values());
+            skipped[0] += chatRecords.stream().filter(record -> record.getId() == null).count();
+            List<Chat> chats = freshChats.stream().map(record -> toChat(record, knownUserIds)).toList();
+            List<Long> ids = writer.insertChats(chats);
+            List<String> legacyIds = freshChats.stream().map(ImportRecord::getId).toList();
+            writer.insertMappings(source, legacyIds, ids);
+            for (int i = 0; i < legacyIds.size(); i++) {
+                newChatIds.put(legacyIds.get(i), ids.get(i));
+                knownChatIds.put(legacyIds.get(i), ids.get(i));
+            }
+
+            List<ChatParticipation> participations = new ArrayList<>();
+            for (ImportRecord record : participantRecords) {
+                Long chatId = knownChatIds.get(record.getChat());
+                Long userId = knownUserIds.get(record.getUser());
+                if (chatId == null || userId == null) {
+                    skipped[0]++;
+                    continue;
+                }
+                participations.add(ChatParticipation.builder()
+                        .chat(Chat.builder().id(chatId).build())
+                        .user(User.builder().id(userId).build())
+                        .role(parseEnum(ChatParticipation.ParticipationRole.class, record.getRole(), ChatParticipation.ParticipationRole.MEMBER))
+                        .joinedAt(record.getJoinedAt() != null ? record.getJoinedAt() : LocalDateTime.now())
+                        .build());
+            }
+            writer.insertParticipations(participations);
+
+            List<Message> messages = new ArrayList<>();
+            for (ImportRecord record : messageRecords) {
+                Long chatId = knownChatIds.get(record.getChat());
+                Long senderId = knownUserIds.get(record.getSender());
+                if (chatId == null || senderId == null || record.getContent() == null) {
+                    skipped[0]++;
+                    continue;
+                }
+                messages.add(Message.builder()
+                        .chat(Chat.builder().id(chatId).build())
+                        .sender(User.builder().id(senderId).build())
+                        .content(record.getContent())
+                        .messageType(parseEnum(MessageType.class, record.getMessageType(), MessageType.TEXT))
+                        .attachmentUrl(record.getAttachmentUrl())
+                        .isRead(!Boolean.FALSE.equals(record.getRead()))
+                        .isEdited(Boolean.TRUE.equals(record.getEdited()))
+                        .createdAt(record.getCreatedAt() != null ? record.getCreatedAt() : LocalDateTime.now())
+                        .build());
+            }
+            messageRollups.recordSent(messages);
+            messageStore.insertAll(messages);
+
+            checkpoint.setByteOffset(endOffset);
+            checkpoint.setLines(checkpoint.getLines() + lines.size());
+            checkpoint.setChats(checkpoint.getChats() + chats.size());
+            checkpoint.setParticipants(checkpoint.getParticipants() + participations.size());
+            checkpoint.setMessages(checkpoint.getMessages() + messages.size());
+            checkpoint.setSkipped(checkpoint.getSkipped() + skipped[0]);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            importedChats.increment(chats.size());
+            importedParticipants.increment(participations.size());
+            importedMessages.increment(messages.size());
+            skippedRecords.increment(skipped[0]);
+            return checkpointRepository.save(checkpoint);
+        });
+
+        synchronized (userIds) {
+            userIds.putAll(knownUserIds);
+        }
+        synchronized (chatIds) {
+            newChatIds.forEach(( legacyId, chatId ) -> chatIds.put(source + "/" + legacyId, chatId));
+        }
+        return saved;
+    }
+
+    /**
+     * Recomputes what the live send path keeps up to date per message: the chat's last message and
+     * activity time, and the chat list versions of the participants. Unread counts need nothing,
+     * they are counted from the imported read flags.
+     */
+    private void rebuildDerivedState( String source ) {
+        long afterChatId = 0;
+        List<Long> page;
+        while (!(page = importedChatRepository.findChatIdsAfter(source, afterChatId, PageRequest.of(0, REBUILD_PAGE_SIZE))).isEmpty()) {
+            List<Long> chatIdPage = page;
+            transactionTemplate.executeWithoutResult(status -> {
+                writer.updateLastMessages(messageStore.findLastMessages(chatIdPage).values());
+                resourceVersions.changed(writer.participantEmails(chatIdPage), VersionedResource.CHATS, VersionedResource.FRIENDS);
+            });
+            afterChatId = page.get(page.size() - 1);
+        }
+        // Rows were written past Hibernate: drop cached chats, participations and membership query results
+        entityManagerFactory.getCache().evict(Chat.class);
+        entityManagerFactory.getCache().evict(ChatParticipation.class);
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    private Map<String, Long> resolveUsers( List<ImportRecord> chats, List<ImportRecord> participants, List<ImportRecord> messages ) {
+        Map<String, Long> known = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        chats.forEach(record -> emails.add(record.getCreatedBy()));
+        participants.forEach(record -> emails.add(record.getUser()));
+        messages.forEach(record -> emails.add(record.getSender()));
+        synchronized (userIds) {
+            for (String email : emails) {
+                if (email == null || known.containsKey(email)) {
+                    continue;
+                }
+                Long id = userIds.get(email);
+                if (id != null) {
+                    known.put(email, id);
+                } else if (!missing.contains(email)) {
+                    missing.add(email);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Object[] row : userRepository.findIdsByEmailIn(missing)) {
+                known.put((String) row[0], (Long) row[1]);
+            }
+        }
+        return known;
+    }
+
+    private Map<String, Long> resolveChats( String source, List<ImportRecord> participants, List<ImportRecord> messages, List<ImportRecord> chats ) {
+        Map<String, Long> known = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        List<String> legacyIds = new ArrayList<>();
+        chats.forEach(record -> legacyIds.add(record.getId()));
+        participants.forEach(record -> legacyIds.add(record.getChat()));
+        messages.forEach(record -> legacyIds.add(record.getChat()));
+        synchronized (chatIds) {
+            for (String legacyId : legacyIds) {
+                if (legacyId == null || known.containsKey(legacyId)) {
+                    continue;
+                }
+                Long id = chatIds.get(source + "/" + legacyId);
+                if (id != null) {
+                    known.put(legacyId, id);
+                } else if (!missing.contains(legacyId)) {
+                    missing.add(legacyId);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (ImportedChat mapping : importedChatRepository.findBySourceAndLegacyIdIn(source, missing)) {
+                known.put(mapping.getLegacyId(), mapping.getChatId());
+            }
+        }
+        return known;
+    }
+
+    private static Chat toChat( ImportRecord record, Map<String, Long> userIds ) {
+        Long createdBy = record.getCreatedBy() == null ? null : userIds.get(record.getCreatedBy());
+        String name = record.getName() != null && !record.getName().isBlank() ? record.getName() : "Imported chat " + record.getId();
+        return Chat.builder()
+                .name(name)
+                .chatType(parseEnum(ChatType.class, record.getChatType(), ChatType.PRIVATE))
+                .createdBy(createdBy == null ? null : User.builder().id(createdBy).build())
+                .createdAt(record.getCreatedAt() != null ? record.getCreatedAt() : LocalDateTime.now())
+                .build();
+    }
+
+    private ImportRecord parse( String line ) {
+        try {
+            return objectMapper.readValue(line, ImportRecord.class);
+        } catch (JsonProcessingException e) {
+            log.debug("Skipping malformed import line: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    private Path resolve( String file ) {
+        Path path = importDir.resolve(file).normalize();
+        if (!path.startsWith(importDir)) {
+            throw new IllegalArgumentException("Import files must be inside the import directory");
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new ResourceNotFoundException("Import file not found: " + file);
+        }
+        return path;
+    }
+
+    private double messagesPerSecond( ImportCheckpoint checkpoint ) {
+        long[] start = runStarts.get(checkpoint.getSource());
+        if (start == null) {
+            return 0;
+        }
+        double seconds = (System.nanoTime() - start[0]) / 1e9;
+        return seconds <= 0 ? 0 : (checkpoint.getMessages() - start[1]) / seconds;
+    }
+
+    private ImportStatusDTO toDto( ImportCheckpoint checkpoint ) {
+        return ImportStatusDTO.builder()
+                .source(checkpoint.getSource())
+                .file(checkpoint.getFile())
+                .status(checkpoint.getStatus().name())
+                .lines(checkpoint.getLines())
+                .chats(checkpoint.getChats())
+                .participants(checkpoint.getParticipants())
+                .messages(checkpoint.getMessages())
+                .skipped(checkpoint.getSkipped())
+                .bytesRead(checkpoint.getByteOffset())
+                .messagesPerSecond(messagesPerSecond(checkpoint))
+                .error(checkpoint.getError())
+                .startedAt(checkpoint.getStartedAt())
+                .updatedAt(checkpoint.getUpdatedAt())
+                .completedAt(checkpoint.getCompletedAt())
+                .build();
+    }
+
+    private static <E extends Enum<E>> E parseEnum( Class<E> type, String value, E fallback ) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    private static String truncate( String message ) {
+        return message == null || message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+
+    private static Counter importCounter( MeterRegistry meterRegistry, String type ) {
+        return Counter.builder("chattalk.import.records")
+                .description("Records written (or skipped) by history imports")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private static <V> Map<String, V> lruMap() {
+        return new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, V> eldest ) {
+                return size() > MAX_CACHED_KEYS;
+            }
+        };
+    }
+
+    /**
+     * UTF-8 lines with the byte offset after the last one returned, so the checkpoint can seek straight back to it
+     */
+    private static final class LineReader {
+        private final InputStream in;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream(1024);
+        private long offset;
+
+        LineReader( InputStream in, long offset ) {
+            this.in = new BufferedInputStream(in, 256 * 1024);
+            this.offset = offset;
+        }
+
+        List<String> next( int max ) throws IOException {
+            List<String> lines = new ArrayList<>(max);
+            while (lines.size() < max) {
+                line.reset();
+                int read;
+                long consumed = 0;
+                while ((read = in.read()) >= 0) {
+                    consumed++;
+                    if (read == '\n') {
+                        break;
+                    }
+                    line.write(read);
+                }
+                if (consumed == 0) {
+                    break;
+                }
+                offset += consumed;
+                lines.add(line.toString(StandardCharsets.UTF_8).strip());
+            }
+            return lines;
+        }
+
+        long offset() {
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.system.chattalk_serverside.service.Import;
+
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.service.Message.MessageStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-row inserts of imported chats, their participants and the source-id mapping, in the caller's transaction.
+ * Rows are written with plain JDBC, past the persistence context and the second-level cache.
+ */
+@Component
+public class HistoryImportWriter {
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public HistoryImportWriter( JdbcTemplate jdbcTemplate ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * @return the generated chat ids, in the order of {@code chats}
+     */
+    public List<Long> insertChats( List<Chat> chats ) {
+        List<Long> ids = new ArrayList<>(chats.size());
+        for (List<Chat> rows : chunks(chats)) {
+            String sql = "INSERT INTO chats (name, chat_type, created_by, created_at, updated_at) VALUES "
+                    + String.join(", ", Collections.nCopies(rows.size(), "(?, ?, ?, ?, ?)"));
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql, new String[]{"id"});
+                int index = 1;
+                for (Chat chat : rows) {
+                    Timestamp createdAt = Timestamp.valueOf(chat.getCreatedAt());
+                    statement.setString(index++, chat.getName());
+                    statement.setString(index++, chat.getChatType().name());
+                    statement.setObject(index++, chat.getCreatedBy() == null ? null : chat.getCreatedBy().getId());
+                    statement.setTimestamp(index++, createdAt);
+                    statement.setTimestamp(index++, createdAt);
+                }
+                return statement;
+            }, keys);
+            for (Map<String, Object> key : keys.getKeyList()) {
+                ids.add(((Number) key.values().iterator().next()).longValue());
+            }
+        }
+        return ids;
+    }
+
+    public void insertMappings( String source, List<String> legacyIds, List<Long> chatIds ) {
+        for (int from = 0; from < legacyIds.size(); from += ROWS_PER_STATEMENT) {
+            int to = Math.min(from + ROWS_PER_STATEMENT, legacyIds.size());
+            List<Object> args = new ArrayList<>((to - from) * 3);
+            for (int i = from; i < to; i++) {
+                args.add(source);
+                args.add(legacyIds.get(i));
+                args.add(chatIds.get(i));
+            }
+            jdbcTemplate.update("INSERT INTO imported_chats (source, legacy_id, chat_id) VALUES "
+                    + String.join(", ", Collections.nCopies(to - from, "(?, ?, ?)")), args.toArray());
+        }
+    }
+
+    public int insertParticipations( List<ChatParticipation> participations ) {
+        int inserted = 0;
+        for (List<ChatParticipation> rows : chunks(participations)) {
+            List<Object> args = new ArrayList<>(rows.size() * 5);
+            for (ChatParticipation participation : rows) {
+                args.add(participation.getUser().getId());
+                args.add(participation.getChat().getId());
+                args.add(participation.getRole().name());
+                args.add(participation.getStatus().name());
+                args.add(Timestamp.valueOf(participation.getJoinedAt()));
+            }
+            inserted += jdbcTemplate.update("INSERT INTO chat_participations (user_id, chat_id, role, status, joined_at) VALUES "
+                    + String.join(", ", Collections.nCopies(rows.size(), "(?, ?, ?, ?, ?)")), args.toArray());
+        }
+        return inserted;
+    }
+
+    /**
+     * Sets the preview and activity time of each chat from its latest message
+     */
+    public void updateLastMessages( Collection<MessageStore.LastMessage> lastMessages ) {
+        List<Object[]> args = new ArrayList<>(lastMessages.size());
+        for (MessageStore.LastMessage last : lastMessages) {
+            LocalDateTime at = last.createdAt() != null ? last.createdAt() : LocalDateTime.now();
+            args.add(new Object[]{last.content(), Timestamp.valueOf(at), last.chatId()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE chats SET last_message = ?, updated_at = ? WHERE id = ?", args);
+    }
+
+    public List<String> participantEmails( Collection<Long> chatIds ) {
+        return namedJdbcTemplate.queryForList("""
+                SELECT DISTINCT u.email
+                FROM chat_participations cp
+                JOIN users u ON u.id = cp.user_id
+                WHERE cp.chat_id IN (:chatIds)
+                """, Map.of("chatIds", chatIds), String.class);
+    }
+
+    private static <T> List<List<T>> chunks( List<T> rows ) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            chunks.add(rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size())));
+        }
+        return chunks;
+    }
+}
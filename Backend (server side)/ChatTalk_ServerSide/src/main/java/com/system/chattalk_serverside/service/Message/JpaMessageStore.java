@@ -0,0 +1,174 @@
+package com.system.chattalk_serverside.service.Message;
+
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.repository.MessageRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Messages in the application database, next to their chats and senders (the default)
+ */
+@Component
+@ConditionalOnProperty(name = "messages.sharding.enabled", havingValue = "false", matchIfMissing = true)
+public class JpaMessageStore implements MessageStore {
+    // Matches the fetch size of MessageRepository.streamByChatInRange
+    private static final int CLEAR_EVERY = 500;
+
+    private final MessageRepository messageRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public JpaMessageStore( MessageRepository messageRepository ) {
+        this.messageRepository = messageRepository;
+    }
+
+    @Override
+    public Message save( Message message ) {
+        return messageRepository.save(message);
+    }
+
+    @Override
+    public Optional<Message> findById( Chat chat, Long messageId ) {
+        return messageRepository.findById(messageId);
+    }
+
+    @Override
+    public List<Message> findByIds( Chat chat, Collection<Long> messageIds ) {
+        return messageIds.isEmpty() ? List.of() : messageRepository.findByChatIdAndIdIn(chat.getId(), messageIds);
+    }
+
+    @Override
+    public void delete( Chat chat, Long messageId ) {
+        messageRepository.deleteById(messageId);
+    }
+
+    @Override
+    public boolean updateContent( Chat chat, Long messageId, String content, long expectedVersion ) {
+        return messageRepository.updateContent(messageId, chat.getId(), content, expectedVersion, LocalDateTime.now()) > 0;
+    }
+
+    @Override
+    public List<Message> findHistory( Chat chat, Pageable pageable ) {
+        return messageRepository.findByChat_IdOrderByCreatedAtDesc(chat.getId(), pageable).getContent();
+    }
+
+    @Override
+    public Message findLatest( Chat chat ) {
+        return messageRepository.findTopByChat_IdOrderByCreatedAtDesc(chat.getId());
+    }
+
+    @Override
+    public Optional<Message> findByClientMessageId( Chat chat, Long senderId, String clientMessageId ) {
+        return messageRepository.findBySender_IdAndClientMessageId(senderId, clientMessageId);
+    }
+
+    @Override
+    public long countUnread( Long chatId, Long userId ) {
+        Long count = messageRepository.countUnreadInChatForUser(chatId, userId);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public int markRead( Long chatId, Long userId ) {
+        return messageRepository.markConversationAsReadForUser(chatId, userId);
+    }
+
+    @Override
+    public Map<Long, Long> countUnreadByChat( Collection<Long> chatIds, Long userId ) {
+        Map<Long, Long> unread = new HashMap<>();
+        if (!chatIds.isEmpty()) {
+            for (Object[] row : messageRepository.countUnreadInChats(chatIds, userId)) {
+                unread.put((Long) row[0], (Long) row[1]);
+            }
+        }
+        return unread;
+    }
+
+    @Override
+    public Map<Long, LastMessage> findLastMessages( Collection<Long> chatIds ) {
+        Map<Long, LastMessage> last = new HashMap<>();
+        if (!chatIds.isEmpty()) {
+            for (Object[] row : messageRepository.findLastMessagesInChats(chatIds)) {
+                last.put((Long) row[0], new LastMessage((Long) row[0], (String) row[1], (LocalDateTime) row[2]));
+            }
+        }
+        return last;
+    }
+
+    @Override
+    public List<Message> findBySender( Long senderId ) {
+        return messageRepository.findBySenderId(senderId);
+    }
+
+    @Override
+    public int deleteBySender( Long senderId ) {
+        return messageRepository.deleteBySenderId(senderId);
+    }
+
+    @Override
+    public int deleteByChat( Long chatId ) {
+        return messageRepository.deleteByChatId(chatId);
+    }
+
+    @Override
+    public long countInChat( Long chatId ) {
+        return messageRepository.countByChat_Id(chatId);
+    }
+
+    @Override
+    public Map<Long, Long> countBySenderInChat( Long chatId ) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : messageRepository.countBySenderInChat(chatId)) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    @Override
+    public List<Message> findOlderThan( LocalDateTime cutoff, int limit ) {
+        return messageRepository.findOlderThan(cutoff, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public int deleteByIds( Long chatId, Collection<Long> messageIds ) {
+        return messageRepository.deleteByChatIdAndIdIn(chatId, messageIds);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachInRange( Chat chat, LocalDateTime from, LocalDateTime to, Consumer<Message> action ) {
+        try (Stream<Message> messages = messageRepository.streamByChatInRange(chat.getId(), from, to)) {
+            int sinceClear = 0;
+            for (Iterator<Message> it = messages.iterator(); it.hasNext(); ) {
+                action.accept(it.next());
+                // Streamed entities stay in the persistence context until it is cleared
+                if (++sinceClear == CLEAR_EVERY) {
+                    entityManager.clear();
+                    sinceClear = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int insertAll( List<Message> messages ) {
+        return messageRepository.insertAll(messages);
+    }
+}
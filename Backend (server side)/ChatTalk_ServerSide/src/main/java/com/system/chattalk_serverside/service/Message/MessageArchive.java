@@ -0,0 +1,520 @@
+package com.system.chattalk_serverside.service.Message;
+
+import com.system.chattalk_serverside.enums.MessageType;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold storage for messages moved out of the hot table, one directory per chat and one segment per month.
+ * A segment ({@code yyyy-MM.seg}) is an append-only run of gzip blocks of up to {@code block-size} messages;
+ * its sparse index ({@code yyyy-MM.idx}) holds one fixed-size record per block (offset, length, count, id and time range),
+ * so a page read skips whole blocks by count, a range read skips them by time, and both inflate only the blocks they return.
+ * A block becomes visible only once its index record is written, after the block itself is on disk.
+ * Deleting messages writes their blocks again without them and swaps the index, see {@link #delete}.
+ * Deleted chats and users are purged once the deleting transaction commits.
+ */
+@Slf4j
+@Component
+public class MessageArchive {
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final DateTimeFormatter BUCKET = DateTimeFormatter.ofPattern("yyyy-MM");
+    // offset, length, count, first id, last id, earliest created, latest created
+    private static final int INDEX_RECORD_BYTES = Long.BYTES + Integer.BYTES + Integer.BYTES + 4 * Long.BYTES;
+
+    private final Path root;
+    private final int blockSize;
+    // Readers must not see a block being overwritten by a delete
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public MessageArchive( @Value("${messages.archive.dir:data/message-archive}") String directory,
+                           @Value("${messages.archive.block-size:64}") int blockSize ) {
+        this.root = Path.of(directory);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /**
+     * Appends messages of one chat, oldest first. Messages at or below the highest id already archived
+     * in their segment are skipped, so re-running an interrupted batch does not duplicate them.
+     */
+    public void append( Long chatId, List<Message> messages ) {
+        Map<String, List<Message>> byBucket = new LinkedHashMap<>();
+        for (Message message : messages) {
+            byBucket.computeIfAbsent(message.getCreatedAt().format(BUCKET), bucket -> new ArrayList<>()).add(message);
+        }
+        lock.writeLock().lock();
+        try {
+            Path chatDir = Files.createDirectories(root.resolve(String.valueOf(chatId)));
+            for (Map.Entry<String, List<Message>> bucket : byBucket.entrySet()) {
+                appendToSegment(chatDir.resolve(bucket.getKey() + SEGMENT_SUFFIX), chatDir.resolve(bucket.getKey() + INDEX_SUFFIX), bucket.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive messages of chat " + chatId, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The archived messages of a chat among {@code messageIds}; only blocks whose id range covers one of them are inflated
+     */
+    public List<Message> findByIds( Chat chat, Collection<Long> messageIds ) {
+        Set<Long> ids = new HashSet<>(messageIds);
+        List<Message> found = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return found;
+        }
+        Path chatDir = root.resolve(String.valueOf(chat.getId()));
+        lock.readLock().lock();
+        try {
+            for (String bucket : buckets(chat.getId())) {
+                for (IndexRecord block : readIndex(chatDir.resolve(bucket + INDEX_SUFFIX))) {
+                    if (mayHold(block, ids)) {
+                        readBlock(chatDir.resolve(bucket + SEGMENT_SUFFIX), block, chat).stream()
+                                .filter(message -> ids.contains(message.getId()))
+                                .forEach(found::add);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archived messages of chat " + chat.getId(), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Removes messages from a chat's archive; returns how many it held. Every block holding one of them is
+     * written again without it at the end of its segment, the index is replaced by an atomic rename, and only
+     * then are the old block's bytes zeroed, so the deleted content does not stay on disk.
+     */
+    public int delete( Chat chat, Collection<Long> messageIds ) {
+        Set<Long> ids = new HashSet<>(messageIds);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return deleteWhere(chat, block -> mayHold(block, ids), message -> ids.contains(message.getId()));
+    }
+
+    /**
+     * Removes everything {@code senderId} wrote in the given chats once the caller's transaction commits.
+     * The archive has no sender index, so every block of those chats is inflated.
+     */
+    public void deleteBySender( Collection<Long> chatIds, Long senderId ) {
+        List<Long> chats = List.copyOf(chatIds);
+        afterCommit(() -> {
+            for (Long chatId : chats) {
+                int deleted = deleteWhere(Chat.builder().id(chatId).build(), block -> block.count() > 0,
+                        message -> senderId.equals(message.getSender().getId()));
+                if (deleted > 0) {
+                    log.debug("Deleted {} archived messages of user {} in chat {}", deleted, senderId, chatId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes the whole archive of a deleted chat once the caller's transaction commits
+     */
+    public void purgeChat( Long chatId ) {
+        afterCommit(() -> {
+            Path chatDir = root.resolve(String.valueOf(chatId));
+            lock.writeLock().lock();
+            try (Stream<Path> files = Files.exists(chatDir) ? Files.walk(chatDir) : Stream.empty()) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to purge the archive of chat " + chatId, e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Archived messages of a chat, newest first, after skipping the {@code skip} newest ones
+     */
+    public List<Message> readNewestFirst( Chat chat, long skip, int limit ) {
+        List<Message> page = new ArrayList<>(limit);
+        if (limit <= 0) {
+            return page;
+        }
+        lock.readLock().lock();
+        try {
+            for (String bucket : bucketsNewestFirst(chat.getId())) {
+                Path chatDir = root.resolve(String.valueOf(chat.getId()));
+                List<IndexRecord> blocks = readIndex(chatDir.resolve(bucket + INDEX_SUFFIX));
+                for (int i = blocks.size() - 1; i >= 0 && page.size() < limit; i--) {
+                    IndexRecord block = blocks.get(i);
+                    if (skip >= block.count()) {
+                        skip -= block.count();
+                        continue;
+                    }
+                    List<Message> messages = readBlock(chatDir.resolve(bucket + SEGMENT_SUFFIX), block, chat);
+                    for (int m = messages.size() - 1 - (int) skip; m >= 0 && page.size() < limit; m--) {
+                        page.add(messages.get(m));
+                    }
+                    skip = 0;
+                }
+                if (page.size() >= limit) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archived messages of chat " + chat.getId(), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return page;
+    }
+
+    /**
+     * Archived messages of a chat created in {@code [from, to)}, oldest first; blocks outside the range are not read
+     */
+    public void forEachInRange( Chat chat, LocalDateTime from, LocalDateTime to, Consumer<Message> action ) {
+        long fromMillis = toMillis(from);
+        long toMillis = toMillis(to);
+        Path chatDir = root.resolve(String.valueOf(chat.getId()));
+        lock.readLock().lock();
+        try {
+            for (String bucket : buckets(chat.getId())) {
+                if (bucket.compareTo(from.format(BUCKET)) < 0 || bucket.compareTo(to.format(BUCKET)) > 0) {
+                    continue;
+                }
+                for (IndexRecord block : readIndex(chatDir.resolve(bucket + INDEX_SUFFIX))) {
+                    if (block.maxCreatedMillis() < fromMillis || block.minCreatedMillis() >= toMillis) {
+                        continue;
+                    }
+                    for (Message message : readBlock(chatDir.resolve(bucket + SEGMENT_SUFFIX), block, chat)) {
+                        long created = toMillis(message.getCreatedAt());
+                        if (created >= fromMillis && created < toMillis) {
+                            action.accept(message);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archived messages of chat " + chat.getId(), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count( Long chatId ) {
+        long total = 0;
+        lock.readLock().lock();
+        try {
+            for (String bucket : bucketsNewestFirst(chatId)) {
+                for (IndexRecord block : readIndex(root.resolve(String.valueOf(chatId)).resolve(bucket + INDEX_SUFFIX))) {
+                    total += block.count();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to count archived messages of chat " + chatId, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return total;
+    }
+
+    private int deleteWhere( Chat chat, Predicate<IndexRecord> mayHold, Predicate<Message> doomed ) {
+        Path chatDir = root.resolve(String.valueOf(chat.getId()));
+        int deleted = 0;
+        lock.writeLock().lock();
+        try {
+            for (String bucket : buckets(chat.getId())) {
+                deleted += deleteFromSegment(chatDir.resolve(bucket + SEGMENT_SUFFIX), chatDir.resolve(bucket + INDEX_SUFFIX), chat, mayHold, doomed);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete archived messages of chat " + chat.getId(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return deleted;
+    }
+
+    /**
+     * Runs a purge after commit, so a rolled-back deletion keeps the archive; without a transaction it runs at once
+     */
+    private static void afterCommit( Runnable purge ) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            purge.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    purge.run();
+                } catch (UncheckedIOException e) {
+                    log.warn("Archive purge after commit failed: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void appendToSegment( Path segment, Path index, List<Message> messages ) throws IOException {
+        try (FileChannel segmentChannel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileChannel indexChannel = FileChannel.open(index, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // A record cut short by a crash is dropped; its block is simply never referenced
+            long completeRecords = indexChannel.size() / INDEX_RECORD_BYTES;
+            indexChannel.truncate(completeRecords * INDEX_RECORD_BYTES);
+            long lastArchivedId = completeRecords == 0 ? Long.MIN_VALUE : readRecord(indexChannel, completeRecords - 1).lastId();
+
+            List<Message> fresh = messages.stream().filter(message -> message.getId() > lastArchivedId).toList();
+            for (int from = 0; from < fresh.size(); from += blockSize) {
+                List<Message> block = fresh.subList(from, Math.min(from + blockSize, fresh.size()));
+                IndexRecord record = writeBlock(segmentChannel, block, block.get(0).getId(), block.get(block.size() - 1).getId());
+                segmentChannel.force(false);
+                writeFully(indexChannel, record.toBuffer(), indexChannel.size());
+                indexChannel.force(false);
+            }
+        }
+    }
+
+    private int deleteFromSegment( Path segment, Path index, Chat chat, Predicate<IndexRecord> mayHold, Predicate<Message> doomed ) throws IOException {
+        List<IndexRecord> blocks = readIndex(index);
+        List<IndexRecord> kept = new ArrayList<>(blocks.size());
+        List<IndexRecord> replaced = new ArrayList<>();
+        int deleted = 0;
+        try (FileChannel segmentChannel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (IndexRecord block : blocks) {
+                List<Message> messages = mayHold.test(block) ? readBlock(segment, block, chat) : List.of();
+                List<Message> remaining = messages.stream().filter(doomed.negate()).toList();
+                if (remaining.size() == messages.size()) {
+                    kept.add(block);
+                    continue;
+                }
+                deleted += messages.size() - remaining.size();
+                replaced.add(block);
+                // A block emptied out keeps a zero-count record, so the highest archived id that append relies on stays put
+                kept.add(remaining.isEmpty()
+                        ? new IndexRecord(0, 0, 0, block.firstId(), block.lastId(), block.minCreatedMillis(), block.maxCreatedMillis())
+                        : writeBlock(segmentChannel, remaining, block.firstId(), block.lastId()));
+            }
+            if (replaced.isEmpty()) {
+                return 0;
+            }
+            segmentChannel.force(false);
+
+            Path staged = index.resolveSibling(index.getFileName() + ".tmp");
+            try (FileChannel stagedChannel = FileChannel.open(staged, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (IndexRecord record : kept) {
+                    writeFully(stagedChannel, record.toBuffer(), stagedChannel.size());
+                }
+                stagedChannel.force(false);
+            }
+            Files.move(staged, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            for (IndexRecord block : replaced) {
+                writeFully(segmentChannel, ByteBuffer.allocate(block.length()), block.offset());
+            }
+            segmentChannel.force(false);
+        }
+        return deleted;
+    }
+
+    /**
+     * Appends one compressed block to the segment and returns its index record; the id range is passed in,
+     * since a block written again after a delete keeps the range it was archived with
+     */
+    private static IndexRecord writeBlock( FileChannel segmentChannel, List<Message> block, long firstId, long lastId ) throws IOException {
+        byte[] compressed = compress(block);
+        long offset = segmentChannel.size();
+        writeFully(segmentChannel, ByteBuffer.wrap(compressed), offset);
+        return new IndexRecord(offset, compressed.length, block.size(), firstId, lastId,
+                block.stream().mapToLong(message -> toMillis(message.getCreatedAt())).min().orElseThrow(),
+                block.stream().mapToLong(message -> toMillis(message.getCreatedAt())).max().orElseThrow());
+    }
+
+    private static boolean mayHold( IndexRecord block, Set<Long> ids ) {
+        return block.count() > 0 && ids.stream().anyMatch(id -> id >= block.firstId() && id <= block.lastId());
+    }
+
+    private List<String> bucketsNewestFirst( Long chatId ) throws IOException {
+        List<String> buckets = new ArrayList<>(buckets(chatId));
+        Collections.reverse(buckets);
+        return buckets;
+    }
+
+    private List<String> buckets( Long chatId ) throws IOException {
+        Path chatDir = root.resolve(String.valueOf(chatId));
+        if (!Files.isDirectory(chatDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(chatDir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(INDEX_SUFFIX))
+                    .map(name -> name.substring(0, name.length() - INDEX_SUFFIX.length()))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static List<IndexRecord> readIndex( Path index ) throws IOException {
+        if (!Files.exists(index)) {
+            return List.of();
+        }
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            long records = channel.size() / INDEX_RECORD_BYTES;
+            List<IndexRecord> blocks = new ArrayList<>((int) records);
+            for (long i = 0; i < records; i++) {
+                blocks.add(readRecord(channel, i));
+            }
+            return blocks;
+        }
+    }
+
+    private static IndexRecord readRecord( FileChannel channel, long record ) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(INDEX_RECORD_BYTES);
+        readFully(channel, buffer, record * INDEX_RECORD_BYTES);
+        buffer.flip();
+        return new IndexRecord(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+
+    private static List<Message> readBlock( Path segment, IndexRecord block, Chat chat ) throws IOException {
+        if (block.count() == 0) {
+            return List.of();
+        }
+        ByteBuffer compressed = ByteBuffer.allocate(block.length());
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            readFully(channel, compressed, block.offset());
+        }
+        List<Message> messages = new ArrayList<>(block.count());
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(compressed.array())))) {
+            for (int i = 0; i < block.count(); i++) {
+                messages.add(Message.builder()
+                        .id(in.readLong())
+                        .chat(chat)
+                        .sender(User.builder().id(in.readLong()).build())
+                        .content(readString(in))
+                        .messageType(MessageType.valueOf(readString(in)))
+                        .attachmentUrl(readString(in))
+                        .clientMessageId(readString(in))
+                        .isRead(in.readBoolean())
+                        .isEdited(in.readBoolean())
+                        .version(in.readLong())
+                        .createdAt(fromMillis(in.readLong()))
+                        .build());
+            }
+        }
+        return messages;
+    }
+
+    private static byte[] compress( List<Message> block ) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            for (Message message : block) {
+                out.writeLong(message.getId());
+                out.writeLong(message.getSender().getId());
+                writeString(out, message.getContent());
+                writeString(out, message.getMessageType() == null ? MessageType.TEXT.name() : message.getMessageType().name());
+                writeString(out, message.getAttachmentUrl());
+                writeString(out, message.getClientMessageId());
+                out.writeBoolean(Boolean.TRUE.equals(message.getIsRead()));
+                out.writeBoolean(Boolean.TRUE.equals(message.getIsEdited()));
+                out.writeLong(message.getVersion() == null ? 0 : message.getVersion());
+                out.writeLong(toMillis(message.getCreatedAt()));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    // Length-prefixed UTF-8; -1 for null (writeUTF is limited to 64 KB)
+    private static void writeString( DataOutputStream out, String value ) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString( DataInputStream in ) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully( FileChannel channel, ByteBuffer buffer, long position ) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully( FileChannel channel, ByteBuffer buffer, long position ) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of archive file");
+            }
+            position += read;
+        }
+    }
+
+    private static long toMillis( LocalDateTime time ) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis( long millis ) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    private record IndexRecord(long offset, int length, int count, long firstId, long lastId, long minCreatedMillis, long maxCreatedMillis) {
+        ByteBuffer toBuffer() {
+            return ByteBuffer.allocate(INDEX_RECORD_BYTES)
+                    .putLong(offset)
+                    .putInt(length)
+                    .putInt(count)
+                    .putLong(firstId)
+                    .putLong(lastId)
+                    .putLong(minCreatedMillis)
+                    .putLong(maxCreatedMillis)
+                    .flip();
+        }
+    }
+}
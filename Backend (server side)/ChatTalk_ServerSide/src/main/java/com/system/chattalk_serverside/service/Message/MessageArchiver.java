@@ -0,0 +1,89 @@
+package com.system.chattalk_serverside.service.Message;
+
+import com.system.chattalk_serverside.model.Message;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves messages older than {@code messages.archive.after-days} from the hot table into the {@link MessageArchive}.
+ * A batch is written to disk before it is deleted; if the delete is lost, the next run finds the same
+ * messages again and the archive skips the ones it already holds.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "messages.archive.enabled", havingValue = "true")
+public class MessageArchiver {
+    private final MessageStore messageStore;
+    private final MessageArchive messageArchive;
+    private final TransactionTemplate transactionTemplate;
+    private final int afterDays;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Counter archived;
+
+    public MessageArchiver( MessageStore messageStore,
+                            MessageArchive messageArchive,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${messages.archive.after-days:90}") int afterDays,
+                            @Value("${messages.archive.batch-size:1000}") int batchSize,
+                            @Value("${messages.archive.max-batches-per-run:50}") int maxBatchesPerRun ) {
+        this.messageStore = messageStore;
+        this.messageArchive = messageArchive;
+        this.transactionTemplate = transactionTemplate;
+        this.afterDays = afterDays;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.archived = Counter.builder("chattalk.messages.archived")
+                .description("Messages moved from the hot table to the archive")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${messages.archive.interval-ms:3600000}", initialDelayString = "${messages.archive.interval-ms:3600000}")
+    public void archiveOldMessages() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int moved = archiveBatch(cutoff);
+            total += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Archived {} messages older than {} days", total, afterDays);
+        }
+    }
+
+    /**
+     * Archives up to one batch of messages created before the cutoff; returns how many were moved
+     */
+    public int archiveBatch( LocalDateTime cutoff ) {
+        List<Message> older = transactionTemplate.execute(status -> messageStore.findOlderThan(cutoff, batchSize));
+        if (older == null || older.isEmpty()) {
+            return 0;
+        }
+        Map<Long, List<Message>> byChat = new LinkedHashMap<>();
+        for (Message message : older) {
+            byChat.computeIfAbsent(message.getChat().getId(), chatId -> new ArrayList<>()).add(message);
+        }
+        byChat.forEach(( chatId, messages ) -> {
+            messageArchive.append(chatId, messages);
+            transactionTemplate.executeWithoutResult(status -> messageStore.deleteByIds(chatId, messages.stream().map(Message::getId).toList()));
+        });
+        archived.increment(older.size());
+        return older.size();
+    }
+}
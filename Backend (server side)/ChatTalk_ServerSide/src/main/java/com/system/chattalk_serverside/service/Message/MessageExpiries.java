@@ -0,0 +1,75 @@
+package com.system.chattalk_serverside.service.Message;
+
+import com.system.chattalk_serverside.enums.MessageExpiryMode;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.MessageExpiry;
+import com.system.chattalk_serverside.repository.MessageExpiryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Disappearing messages: keeps the expiry index of chats with a message time-to-live. A message gets its entry
+ * when it is sent; in {@link MessageExpiryMode#AFTER_READ} chats the clock starts when a recipient reads it.
+ * {@link MessageExpiryReaper} deletes what is due.
+ * <p>
+ * A changed time-to-live applies to messages sent (or read) afterwards. Turning it off drops the entries still
+ * waiting to be read; messages whose clock already runs disappear as planned.
+ */
+@Component
+public class MessageExpiries {
+    private final MessageExpiryRepository messageExpiryRepository;
+    private final long maxTtlSeconds;
+
+    public MessageExpiries( MessageExpiryRepository messageExpiryRepository,
+                            @Value("${messages.ttl.max-days:365}") int maxTtlDays ) {
+        this.messageExpiryRepository = messageExpiryRepository;
+        this.maxTtlSeconds = maxTtlDays * 86_400L;
+    }
+
+    /**
+     * Sets the chat's time-to-live; {@code null} or 0 turns it off
+     */
+    public void configure( Chat chat, Long ttlSeconds, MessageExpiryMode mode ) {
+        if (ttlSeconds == null || ttlSeconds == 0) {
+            chat.setMessageTtlSeconds(null);
+            chat.setMessageExpiryMode(null);
+            messageExpiryRepository.deleteUnstarted(chat.getId());
+            return;
+        }
+        if (ttlSeconds < 0 || ttlSeconds > maxTtlSeconds) {
+            throw new IllegalArgumentException("Message time-to-live must be between 1 and " + maxTtlSeconds + " seconds");
+        }
+        chat.setMessageTtlSeconds(ttlSeconds);
+        chat.setMessageExpiryMode(mode == null ? MessageExpiryMode.AFTER_SENT : mode);
+    }
+
+    /**
+     * Indexes a just stored message, if its chat has a time-to-live
+     */
+    public void track( Chat chat, Message message ) {
+        if (chat.getMessageTtlSeconds() == null) {
+            return;
+        }
+        LocalDateTime sentAt = message.getCreatedAt() != null ? message.getCreatedAt() : LocalDateTime.now();
+        // A message stored as already read starts its clock at once
+        boolean waitsForRead = chat.getMessageExpiryMode() == MessageExpiryMode.AFTER_READ && !Boolean.TRUE.equals(message.getIsRead());
+        messageExpiryRepository.save(MessageExpiry.builder()
+                .messageId(message.getId())
+                .chatId(chat.getId())
+                .senderId(message.getSender().getId())
+                .expiresAt(waitsForRead ? null : sentAt.plusSeconds(chat.getMessageTtlSeconds()))
+                .build());
+    }
+
+    /**
+     * Starts the clock on messages from others that {@code readerId} just read
+     */
+    public void startOnRead( Chat chat, Long readerId ) {
+        if (chat.getMessageTtlSeconds() != null) {
+            messageExpiryRepository.startOnRead(chat.getId(), readerId, LocalDateTime.now().plusSeconds(chat.getMessageTtlSeconds()));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.system.chattalk_serverside.service.Message;
+
+import com.system.chattalk_serverside.dto.ChatDto.MessageDeltaDTO;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.MessageExpiry;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.MessageExpiryRepository;
+import com.system.chattalk_serverside.service.Chat.ChatAudience;
+import com.system.chattalk_serverside.service.RealTimeNotifcation.RealtimeNotificationImpl;
+import com.system.chattalk_serverside.service.Stats.MessageRollups;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes expired messages, reading the expiry index in due order, at most {@code messages.ttl.batch-size}
+ * entries at a time. Each chat's share of a batch is deleted in one transaction, which also uncounts the messages
+ * and queues a tombstone per message for every participant. A time-to-live may outlive the archive age, so messages
+ * no longer in the hot table are looked up in the {@link MessageArchive} and deleted there too.
+ * Entries whose message is gone from both are just dropped.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "messages.ttl.reaper.enabled", havingValue = "true", matchIfMissing = true)
+public class MessageExpiryReaper {
+    private final MessageExpiryRepository messageExpiryRepository;
+    private final MessageStore messageStore;
+    private final MessageArchive messageArchive;
+    private final ChatRepository chatRepository;
+    private final MessageRollups messageRollups;
+    private final RealtimeNotificationImpl realtimeNotificationImpl;
+    private final ChatAudience chatAudience;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Timer expiryLag;
+    private final DistributionSummary batchSizes;
+    private final Counter expired;
+
+    public MessageExpiryReaper( MessageExpiryRepository messageExpiryRepository,
+                                MessageStore messageStore,
+                                MessageArchive messageArchive,
+                                ChatRepository chatRepository,
+                                MessageRollups messageRollups,
+                                RealtimeNotificationImpl realtimeNotificationImpl,
+                                ChatAudience chatAudience,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${messages.ttl.batch-size:500}") int batchSize,
+                                @Value("${messages.ttl.max-batches-per-run:20}") int maxBatchesPerRun ) {
+        this.messageExpiryRepository = messageExpiryRepository;
+        this.messageStore = messageStore;
+        this.messageArchive = messageArchive;
+        this.chatRepository = chatRepository;
+        this.messageRollups = messageRollups;
+        this.realtimeNotificationImpl = realtimeNotificationImpl;
+        this.chatAudience = chatAudience;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.expiryLag = Timer.builder("chattalk.messages.expiry.lag")
+                .description("Time from a message expiring to it being deleted")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("chattalk.messages.expiry.batch")
+                .description("Expiry index entries handled per reaper batch")
+                .register(meterRegistry);
+        this.expired = Counter.builder("chattalk.messages.expired")
+                .description("Messages deleted because their time-to-live ran out")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${messages.ttl.reap-interval-ms:1000}", initialDelayString = "${messages.ttl.reap-interval-ms:1000}")
+    public void reapExpired() {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int reaped = reapBatch(LocalDateTime.now());
+            total += reaped;
+            if (reaped < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.debug("Reaped {} expiry entries", total);
+        }
+    }
+
+    /**
+     * Handles up to one batch of entries due at {@code now}; returns how many were taken off the index
+     */
+    public int reapBatch( LocalDateTime now ) {
+        List<MessageExpiry> due = transactionTemplate.execute(status -> messageExpiryRepository.findDue(now, PageRequest.of(0, batchSize)));
+        if (due == null || due.isEmpty()) {
+            return 0;
+        }
+        Map<Long, List<MessageExpiry>> byChat = new LinkedHashMap<>();
+        for (MessageExpiry entry : due) {
+            byChat.computeIfAbsent(entry.getChatId(), chatId -> new ArrayList<>()).add(entry);
+        }
+        byChat.forEach(( chatId, entries ) -> transactionTemplate.executeWithoutResult(status -> reapChat(chatId, entries)));
+        batchSizes.record(due.size());
+        return due.size();
+    }
+
+    private void reapChat( Long chatId, List<MessageExpiry> entries ) {
+        List<Long> messageIds = entries.stream().map(MessageExpiry::getMessageId).toList();
+        Chat chat = chatRepository.findById(chatId).orElse(null);
+        List<Message> hot = chat == null ? List.of() : messageStore.findByIds(chat, messageIds);
+        List<Message> archived = List.of();
+        if (chat != null && hot.size() < messageIds.size()) {
+            Set<Long> hotIds = hot.stream().map(Message::getId).collect(Collectors.toSet());
+            archived = messageArchive.findByIds(chat, messageIds.stream().filter(id -> !hotIds.contains(id)).toList());
+        }
+        List<Message> messages = new ArrayList<>(hot);
+        messages.addAll(archived);
+        if (!messages.isEmpty()) {
+            messageRollups.recordDeleted(messages);
+            if (!hot.isEmpty()) {
+                messageStore.deleteByIds(chatId, hot.stream().map(Message::getId).toList());
+            }
+            // Last, so a failure here rolls back the rest and the entries are retried
+            messageArchive.delete(chat, archived.stream().map(Message::getId).toList());
+            List<User> participants = chatAudience.recipients(chatId);
+            for (Message message : messages) {
+                // Deletion is final, so the tombstone carries the next version like a manual delete
+                realtimeNotificationImpl.sendMessageDeltaToAllParticipants(participants, MessageDeltaDTO.builder()
+                        .messageId(message.getId())
+                        .chatId(chatId)
+                        .version(message.getVersion() == null ? 1 : message.getVersion() + 1)
+                        .deleted(true)
+                        .build());
+            }
+            expired.increment(messages.size());
+        }
+        messageExpiryRepository.deleteByMessageIds(messageIds);
+
+        LocalDateTime deletedAt = LocalDateTime.now();
+        for (MessageExpiry entry : entries) {
+            expiryLag.record(Math.max(0, ChronoUnit.MILLIS.between(entry.getExpiresAt(), deletedAt)), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.system.chattalk_serverside.service.Message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.chattalk_serverside.enums.ExportFormat;
+import com.system.chattalk_serverside.exception.ResourceNotFoundException;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Writes the history of a chat as NDJSON or CSV, oldest first: archived messages, then the ones still in the hot table
+ * (everything archived is older than what is left). Messages are written as they are read, so memory use is one fetch
+ * or one archive block however long the chat is.
+ */
+@Slf4j
+@Service
+public class MessageExportService {
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String CSV_HEADER = "id,chat_id,sender_id,type,created_at,edited,content,attachment_url\n";
+
+    private final MessageStore messageStore;
+    private final MessageArchive messageArchive;
+    private final ChatRepository chatRepository;
+    private final ObjectMapper objectMapper;
+    private final int flushEvery;
+
+    public MessageExportService( MessageStore messageStore,
+                                 MessageArchive messageArchive,
+                                 ChatRepository chatRepository,
+                                 ObjectMapper objectMapper,
+                                 @Value("${messages.export.flush-every:1000}") int flushEvery ) {
+        this.messageStore = messageStore;
+        this.messageArchive = messageArchive;
+        this.chatRepository = chatRepository;
+        this.objectMapper = objectMapper;
+        this.flushEvery = Math.max(1, flushEvery);
+    }
+
+    /**
+     * Checks the export before anything is written, so a refusal is still an ordinary error response.
+     * An open start means the beginning of the chat, an open end means now.
+     */
+    public Export prepare( Long chatId, Long userId, LocalDateTime from, LocalDateTime to ) {
+        Chat chat = chatRepository.findById(chatId).orElseThrow(() -> new ResourceNotFoundException("Chat not found"));
+        if (!chatRepository.isUserInChat(chatId, userId)) {
+            throw new IllegalArgumentException("User is not a participant in this chat");
+        }
+        LocalDateTime start = from != null ? from : EARLIEST;
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        return new Export(chat, start, end);
+    }
+
+    /**
+     * Writes the messages created in {@code [from, to)}, flushing every {@code messages.export.flush-every} messages
+     *
+     * @return the number of messages written
+     */
+    public long export( Export export, ExportFormat format, OutputStream out ) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+        long[] written = {0};
+        Consumer<Message> sink = message -> {
+            try {
+                if (format == ExportFormat.CSV) {
+                    writeCsv(writer, export.chat(), message);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(toRow(export.chat(), message)));
+                    writer.write('\n');
+                }
+                if (++written[0] % flushEvery == 0) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        try {
+            messageArchive.forEachInRange(export.chat(), export.from(), export.to(), sink);
+            messageStore.forEachInRange(export.chat(), export.from(), export.to(), sink);
+        } catch (UncheckedIOException e) {
+            // Usually the client going away mid-download
+            log.debug("Export of chat {} stopped after {} messages: {}", export.chat().getId(), written[0], e.getMessage());
+            throw e.getCause();
+        }
+        writer.flush();
+        log.debug("Exported {} messages of chat {}", written[0], export.chat().getId());
+        return written[0];
+    }
+
+    private static ExportedMessage toRow( Chat chat, Message message ) {
+        return new ExportedMessage(message.getId(), chat.getId(), message.getSender().getId(),
+                message.getMessageType() == null ? null : message.getMessageType().name(),
+                message.getContent(), message.getAttachmentUrl(), Boolean.TRUE.equals(message.getIsEdited()), message.getCreatedAt());
+    }
+
+    private static void writeCsv( Writer writer, Chat chat, Message message ) throws IOException {
+        ExportedMessage row = toRow(chat, message);
+        writer.write(String.valueOf(row.id()));
+        writer.write(',');
+        writer.write(String.valueOf(row.chatId()));
+        writer.write(',');
+        writer.write(String.valueOf(row.senderId()));
+        writer.write(',');
+        writeCsvField(writer, row.type());
+        writer.write(',');
+        writeCsvField(writer, row.createdAt() == null ? null : row.createdAt().toString());
+        writer.write(',');
+        writer.write(String.valueOf(row.edited()));
+        writer.write(',');
+        writeCsvField(writer, row.content());
+        writer.write(',');
+        writeCsvField(writer, row.attachmentUrl());
+        writer.write('\n');
+    }
+
+    // RFC 4180: quoted when it holds a separator, quote or line break, with quotes doubled
+    private static void writeCsvField( Writer writer, String value ) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    public record Export(Chat chat, LocalDateTime from, LocalDateTime to) {
+    }
+
+    private record ExportedMessage(Long id, Long chatId, Long senderId, String type, String content,
+                                   String attachmentUrl, boolean edited, LocalDateTime createdAt) {
+    }
+}
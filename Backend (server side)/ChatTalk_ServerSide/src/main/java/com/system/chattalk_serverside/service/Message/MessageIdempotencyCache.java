@@ -0,0 +1,43 @@
+package com.system.chattalk_serverside.service.Message;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.system.chattalk_serverside.dto.Entity.MessageDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Recently sent messages keyed by sender and client message id, so a retried send returns the original message.
+ * Entries expire after the window and the cache is capped; older retries fall back to the unique
+ * {@code (sender_id, client_message_id)} constraint on {@code messages}.
+ */
+@Component
+public class MessageIdempotencyCache {
+    private final Cache<String, MessageDTO> entries;
+
+    public MessageIdempotencyCache( @Value("${messages.idempotency.window-seconds:300}") long windowSeconds,
+                                    @Value("${messages.idempotency.max-entries:100000}") int maxEntries ) {
+        this.entries = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(windowSeconds))
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    public MessageDTO get( Long senderId, String clientMessageId ) {
+        return entries.getIfPresent(key(senderId, clientMessageId));
+    }
+
+    public void put( Long senderId, String clientMessageId, MessageDTO message ) {
+        entries.put(key(senderId, clientMessageId), message);
+    }
+
+    public void evict( Long senderId, String clientMessageId ) {
+        entries.invalidate(key(senderId, clientMessageId));
+    }
+
+    private static String key( Long senderId, String clientMessageId ) {
+        return senderId + ":" + clientMessageId;
+    }
+}
@@ -17,11 +17,15 @@ public interface MessageService {
 
     Long getUnreadMessageCount(Long conversationId, Long userId);
     MessageDTO sendMessage( SendMessageRequest request);
+    // Same send path on behalf of a given user, for sends not made by the request's caller (scheduled messages)
+    MessageDTO sendMessage( SendMessageRequest request, Long senderId);
     MessageDTO getLastMessage(Long conversationId);
 
     // Management
     void deleteMessage(Long chatId, Long messageId, Long userId, boolean forEveryone);
     MessageDTO editMessage(Long chatId, Long messageId, String newContent, Long userId);
+    // Applied only if the message is still at the version the editor last saw (null: whatever version is current)
+    MessageDTO editMessage(Long chatId, Long messageId, String newContent, Long userId, Long expectedVersion);
 
 
     // Optional: media & reactions
@@ -3,65 +3,97 @@ package com.system.chattalk_serverside.service.Message;
 import com.system.chattalk_serverside.service.RealTimeNotifcation.RealtimeNotificationImpl;
 import com.system.chattalk_serverside.dto.ChatDto.SendMessageRequest;
 import com.system.chattalk_serverside.dto.ChatDto.ConversationDTO;
+import com.system.chattalk_serverside.dto.ChatDto.MessageDeltaDTO;
 import com.system.chattalk_serverside.dto.Entity.MessageDTO;
 import com.system.chattalk_serverside.dto.Entity.NotificationDTO;
 import com.system.chattalk_serverside.enums.MessageType;
+import com.system.chattalk_serverside.enums.VersionedResource;
 import com.system.chattalk_serverside.model.Chat;
 import com.system.chattalk_serverside.model.Message;
 import com.system.chattalk_serverside.model.User;
 import com.system.chattalk_serverside.repository.ChatRepository;
-import com.system.chattalk_serverside.repository.MessageRepository;
 import com.system.chattalk_serverside.repository.UserRepository;
+import com.system.chattalk_serverside.service.Chat.ChatAudience;
+import com.system.chattalk_serverside.service.Stats.MessageRollups;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
+import com.system.chattalk_serverside.websocket.ChatFocusRegistry;
 import lombok.extern.slf4j.Slf4j;
-import jakarta.transaction.Transactional;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class MessageServiceImpl implements MessageService {
-    private final MessageRepository messageRepository;
+    private final MessageStore messageStore;
+    private final MessageArchive messageArchive;
     private final ChatRepository chatRepository;
     private final UserRepository userRepository;
     private final RealtimeNotificationImpl realtimeNotificationImpl;
+    private final MessageIdempotencyCache idempotencyCache;
+    private final ResourceVersions resourceVersions;
+    private final MessageRollups messageRollups;
+    private final MessageExpiries messageExpiries;
+    private final ChatAudience chatAudience;
+    private final ChatFocusRegistry chatFocusRegistry;
+    private final TransactionTemplate transactionTemplate;
 
-    public MessageServiceImpl( MessageRepository messageRepository, ChatRepository chatRepository, UserRepository userRepository, RealtimeNotificationImpl realtimeNotificationImpl ) {
-        this.messageRepository = messageRepository;
+    public MessageServiceImpl( MessageStore messageStore, MessageArchive messageArchive, ChatRepository chatRepository, UserRepository userRepository, RealtimeNotificationImpl realtimeNotificationImpl, MessageIdempotencyCache idempotencyCache, ResourceVersions resourceVersions, MessageRollups messageRollups, MessageExpiries messageExpiries, ChatAudience chatAudience, ChatFocusRegistry chatFocusRegistry, TransactionTemplate transactionTemplate ) {
+        this.messageStore = messageStore;
+        this.messageArchive = messageArchive;
         this.chatRepository = chatRepository;
         this.userRepository = userRepository;
         this.realtimeNotificationImpl = realtimeNotificationImpl;
+        this.idempotencyCache = idempotencyCache;
+        this.resourceVersions = resourceVersions;
+        this.messageRollups = messageRollups;
+        this.messageExpiries = messageExpiries;
+        this.chatAudience = chatAudience;
+        this.chatFocusRegistry = chatFocusRegistry;
+        this.transactionTemplate = transactionTemplate;
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<MessageDTO> getMessagesHistory( Long conversationId, int page, int size ) {
         Chat chat = validateConversation(conversationId);
         Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 100));
-        Page<Message> pageResult = messageRepository.findByChat_IdOrderByCreatedAtDesc(chat.getId(), pageable);
-        return pageResult.getContent().stream().map(this::toMessageDto).collect(Collectors.toList());
+        List<Message> messages = new ArrayList<>(messageStore.findHistory(chat, pageable));
+        if (messages.size() < pageable.getPageSize()) {
+            // The page runs past the hot table: continue with the newest archived messages
+            long hotTotal = messages.isEmpty() ? (pageable.getOffset() == 0 ? 0 : messageStore.countInChat(chat.getId())) : pageable.getOffset() + messages.size();
+            long archiveSkip = Math.max(0, pageable.getOffset() - hotTotal);
+            messages.addAll(messageArchive.readNewestFirst(chat, archiveSkip, pageable.getPageSize() - messages.size()));
+        }
+        return messages.stream().map(this::toMessageDto).collect(Collectors.toList());
     }
 
     @Override
     public List<ConversationDTO> getUnreadMessagesCount() {
         Long userId = getAuthenticatedUserId();
-        List<Object[]> results = messageRepository.countUnreadMessages(userId);
-
-        return results.stream().map(row -> {
-            Long chatId = (Long) row[0];
-            Long unreadCount = (Long) row[1];
-            String lastMessage = (String) row[2];
+        List<Chat> chats = chatRepository.findChatsByUserId(userId);
+        Map<Long, Long> unreadByChat = messageStore.countUnreadByChat(chats.stream().map(Chat::getId).toList(), userId);
 
-            return ConversationDTO.builder().conversationId(chatId).unreadCount(unreadCount).lastMessage(lastMessage).build();
-        }).toList();
+        return chats.stream()
+                .filter(c -> unreadByChat.containsKey(c.getId()))
+                .map(c -> ConversationDTO.builder().conversationId(c.getId()).unreadCount(unreadByChat.get(c.getId())).lastMessage(c.getLastMessage()).build())
+                .toList();
     }
 
     @Override
@@ -71,13 +103,17 @@ public class MessageServiceImpl implements MessageService {
         if (!isUserInChat(chat.getId(), userId)) {
             throw new IllegalArgumentException("User is not a participant in this chat");
         }
-        messageRepository.markConversationAsReadForUser(chatId, userId);
+        messageStore.markRead(chatId, userId);
+        messageExpiries.startOnRead(chat, userId);
     }
 
     @Override
     public List<ConversationDTO> getConversations() {
         Long userId = getAuthenticatedUserId();
-        return chatRepository.findChatsByUserId(userId).stream().map(c -> ConversationDTO.builder().conversationId(c.getId()).lastMessage(c.getLastMessage()).unreadCount(messageRepository.countUnreadInChatForUser(c.getId(), userId)).build()).collect(Collectors.toList());
+        List<Chat> chats = chatRepository.findChatsByUserId(userId);
+        // One unread query per shard rather than one per chat
+        Map<Long, Long> unreadByChat = messageStore.countUnreadByChat(chats.stream().map(Chat::getId).toList(), userId);
+        return chats.stream().map(c -> ConversationDTO.builder().conversationId(c.getId()).lastMessage(c.getLastMessage()).unreadCount(unreadByChat.getOrDefault(c.getId(), 0L)).build()).collect(Collectors.toList());
     }
 
     @Override
@@ -86,67 +122,150 @@ public class MessageServiceImpl implements MessageService {
         if (!isUserInChat(chat.getId(), userId)) {
             throw new IllegalArgumentException("User is not a participant in this chat");
         }
-        return messageRepository.countUnreadInChatForUser(conversationId, userId);
+        return messageStore.countUnread(conversationId, userId);
     }
 
-    @Transactional
     @Override
     public MessageDTO sendMessage( SendMessageRequest messageDTO ) {
+        return sendMessage(messageDTO, getAuthenticatedUserId());
+    }
+
+    /**
+     * Sends in a transaction of its own, so a send that loses an insert race on its client message id is rolled
+     * back whole and answered with the message that won
+     */
+    @Override
+    public MessageDTO sendMessage( SendMessageRequest messageDTO, Long senderId ) {
+        try {
+            return transactionTemplate.execute(status -> send(messageDTO, senderId));
+        } catch (DataIntegrityViolationException e) {
+            String clientMessageId = messageDTO.getClientMessageId();
+            if (clientMessageId == null || clientMessageId.isBlank()) {
+                throw e;
+            }
+            // Read in a read-write transaction so it goes to the primary, where the winning send has just committed
+            MessageDTO existing = transactionTemplate.execute(status -> messageStore
+                    .findByClientMessageId(validateConversation(messageDTO.getChatId()), senderId, clientMessageId)
+                    .map(this::toMessageDto)
+                    .orElse(null));
+            if (existing == null) {
+                throw e;
+            }
+            log.debug("Concurrent duplicate send {} from user {} returns message {}", clientMessageId, senderId, existing.getMessageId());
+            return existing;
+        }
+    }
+
+    private MessageDTO send( SendMessageRequest messageDTO, Long senderId ) {
         if (messageDTO == null || messageDTO.getChatId() == null || messageDTO.getContent() == null) {
             throw new IllegalArgumentException("Invalid message payload");
         }
         Chat chat = validateConversation(messageDTO.getChatId());
-        Long senderId = getAuthenticatedUserId();
         if (!isUserInChat(chat.getId(), senderId)) {
             throw new IllegalArgumentException("User is not a participant in this chat");
         }
+        String clientMessageId = messageDTO.getClientMessageId();
+        if (clientMessageId == null || clientMessageId.isBlank()) {
+            return createMessage(chat, senderId, messageDTO.getContent(), null);
+        }
+        if (clientMessageId.length() > 64) {
+            throw new IllegalArgumentException("clientMessageId must be at most 64 characters");
+        }
+
+        // A retry of an already stored send returns the original message without a second insert or fan-out;
+        // a retry racing the original fails on the (sender_id, client_message_id) constraint instead
+        MessageDTO existing = idempotencyCache.get(senderId, clientMessageId);
+        if (existing == null) {
+            existing = messageStore.findByClientMessageId(chat, senderId, clientMessageId).map(this::toMessageDto).orElse(null);
+        }
+        if (existing != null) {
+            log.debug("Duplicate send {} from user {} returns message {}", clientMessageId, senderId, existing.getMessageId());
+            return existing;
+        }
+        MessageDTO created = createMessage(chat, senderId, messageDTO.getContent(), clientMessageId);
+        rememberSentMessage(senderId, clientMessageId, created);
+        return created;
+    }
+
+    private MessageDTO createMessage( Chat chat, Long senderId, String content, String clientMessageId ) {
         User sender = userRepository.findById(senderId).orElseThrow(() -> new RuntimeException("Sender not found"));
 
-        Message message = Message.builder().chat(chat).sender(sender).content(messageDTO.getContent()).messageType(MessageType.TEXT).isRead(false).isEdited(false).build();
-        Message saved = messageRepository.save(message);
+        // Participants who left or were banned get nothing, muted ones get no notification rows
+        ChatAudience.Audience audience = chatAudience.forMessage(chat.getId(), sender.getId());
+        // Nor does anyone who has the chat open; with mark-read on, the message is stored as read right away,
+        // but only when that viewer is its one reader: the read flag is shared by everyone in a group
+        List<User> notified = audience.notified().stream()
+                .filter(recipient -> !chatFocusRegistry.isViewing(recipient.getEmail(), chat.getId()))
+                .toList();
+        List<User> readers = audience.recipients().stream()
+                .filter(recipient -> !recipient.getId().equals(senderId))
+                .toList();
+        boolean seen = chatFocusRegistry.marksReadOnFocus() && readers.size() == 1
+                && chatFocusRegistry.isViewing(readers.get(0).getEmail(), chat.getId());
+
+        Message message = Message.builder().chat(chat).sender(sender).content(content).messageType(MessageType.TEXT).isRead(seen).isEdited(false).clientMessageId(clientMessageId).build();
+        // Counted first: a sharded store commits the row on its own, before this transaction does
+        messageRollups.recordSent(List.of(message));
+        Message saved = messageStore.save(message);
+        messageExpiries.track(chat, saved);
 
         chat.setLastMessage(saved.getContent());
         chatRepository.save(chat); // Save the updated chat with last message
         
         MessageDTO messageDto = toMessageDto(saved);
         
-        // Send message to all participants via RealtimeNotification service
-        List<User> participants = chat.getParticipants().stream()
-                .map(participation -> participation.getUser())
-                .collect(Collectors.toList());
+        List<User> participants = audience.recipients();
+        // The chat moved to the top of everyone's chat list
+        resourceVersions.changed(participants.stream().map(User::getEmail).toList(), VersionedResource.CHATS);
         
         // Send the actual message to all participants
         realtimeNotificationImpl.sendMessageToAllParticipants(participants, messageDto);
         
         // Send notifications to other users (not the sender)
-        chat.getParticipants().forEach(participation -> {
-            if (!participation.getUser().getId().equals(sender.getId())) {
-                try {
-                    realtimeNotificationImpl.receiveNewMessageNotification(
-                        participation.getUser(), 
-                        NotificationDTO.builder()
-                            .userId(participation.getUser().getId())
-                            .message(message.getContent())
-                            .senderEmail(sender.getEmail())
-                            .chatId(chat.getId())
-                            .senderId(sender.getId())
-                            .build()
-                    );
-                    
-                    log.debug("Message and notification sent to user: {}", participation.getUser().getEmail());
-                } catch (Exception e) {
-                    log.error("Failed to send notification to user: {}", participation.getUser().getEmail(), e);
-                }
+        notified.forEach(recipient -> {
+            try {
+                realtimeNotificationImpl.receiveNewMessageNotification(
+                    recipient, 
+                    NotificationDTO.builder()
+                        .userId(recipient.getId())
+                        .message(message.getContent())
+                        .senderEmail(sender.getEmail())
+                        .chatId(chat.getId())
+                        .senderId(sender.getId())
+                        .build()
+                );
+                
+                log.debug("Message and notification sent to user: {}", recipient.getEmail());
+            } catch (Exception e) {
+                log.error("Failed to send notification to user: {}", recipient.getEmail(), e);
             }
         });
         
         return messageDto;
     }
 
+    private void rememberSentMessage( Long senderId, String clientMessageId, MessageDTO message ) {
+        idempotencyCache.put(senderId, clientMessageId, message);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion( int status ) {
+                    if (status != STATUS_COMMITTED) {
+                        idempotencyCache.evict(senderId, clientMessageId);
+                    }
+                }
+            });
+        }
+    }
+
     @Override
     public MessageDTO getLastMessage( Long conversationId ) {
         Chat chat = validateConversation(conversationId);
-        Message last = messageRepository.findTopByChat_IdOrderByCreatedAtDesc(chat.getId());
+        Message last = messageStore.findLatest(chat);
+        if (last == null) {
+            List<Message> archived = messageArchive.readNewestFirst(chat, 0, 1);
+            last = archived.isEmpty() ? null : archived.get(0);
+        }
         return last == null ? null : toMessageDto(last);
     }
 
@@ -157,7 +276,7 @@ public class MessageServiceImpl implements MessageService {
         if (!isUserInChat(chat.getId(), userId)) {
             throw new IllegalArgumentException("User is not a participant in this chat");
         }
-        Message message = messageRepository.findById(messageId).orElseThrow(() -> new IllegalArgumentException("Message not found"));
+        Message message = messageStore.findById(chat, messageId).orElseThrow(() -> new IllegalArgumentException("Message not found"));
 
         if (!message.getChat().getId().equals(chatId)) {
             throw new AccessDeniedException("Message does not belong to this chat");
@@ -170,27 +289,66 @@ public class MessageServiceImpl implements MessageService {
         if (!forEveryone && !isSender) {
             throw new org.springframework.security.access.AccessDeniedException("Not allowed to delete others' messages");
         }
-        messageRepository.deleteById(messageId);
+        messageRollups.recordDeleted(List.of(message));
+        messageStore.delete(chat, messageId);
+        publishDelta(chat, MessageDeltaDTO.builder()
+                .messageId(messageId)
+                .chatId(chatId)
+                .version(nextVersion(message))
+                .deleted(true)
+                .build());
     }
 
     @Transactional
     @Override
     public MessageDTO editMessage( Long chatId, Long messageId, String newContent, Long userId ) {
+        return editMessage(chatId, messageId, newContent, userId, null);
+    }
+
+    @Transactional
+    @Override
+    public MessageDTO editMessage( Long chatId, Long messageId, String newContent, Long userId, Long expectedVersion ) {
         Chat chat = validateConversation(chatId);
         if (!isUserInChat(chat.getId(), userId)) {
             throw new IllegalArgumentException("User is not a participant in this chat");
         }
-        Message message = messageRepository.findById(messageId).orElseThrow(() -> new IllegalArgumentException("Message not found"));
+        Message message = messageStore.findById(chat, messageId).orElseThrow(() -> new IllegalArgumentException("Message not found"));
         if (!message.getChat().getId().equals(chatId)) {
             throw new IllegalArgumentException("Message does not belong to this chat");
         }
         if (!message.getSender().getId().equals(userId)) {
             throw new org.springframework.security.access.AccessDeniedException("Not allowed to edit this message");
         }
+        // Compare-and-set on the version: of two edits based on the same version only the first one is applied
+        long version = expectedVersion != null ? expectedVersion : currentVersion(message);
+        if (!messageStore.updateContent(chat, messageId, newContent, version)) {
+            throw new OptimisticLockingFailureException("Message " + messageId + " was changed by another edit; reload it and try again");
+        }
         message.setContent(newContent);
         message.setIsEdited(true);
-        Message saved = messageRepository.save(message);
-        return toMessageDto(saved);
+        message.setVersion(version + 1);
+        publishDelta(chat, MessageDeltaDTO.builder()
+                .messageId(message.getId())
+                .chatId(chatId)
+                .version(message.getVersion())
+                .content(message.getContent())
+                .build());
+        return toMessageDto(message);
+    }
+
+    /**
+     * Pushes an edit or deletion to every participant, so open chats update without re-reading the history
+     */
+    private void publishDelta( Chat chat, MessageDeltaDTO delta ) {
+        realtimeNotificationImpl.sendMessageDeltaToAllParticipants(chatAudience.recipients(chat.getId()), delta);
+    }
+
+    private static long currentVersion( Message message ) {
+        return message.getVersion() == null ? 0 : message.getVersion();
+    }
+
+    private static long nextVersion( Message message ) {
+        return currentVersion(message) + 1;
     }
 
     @Transactional
@@ -221,7 +379,7 @@ public class MessageServiceImpl implements MessageService {
 
 
     private MessageDTO toMessageDto( Message message ) {
-        return MessageDTO.builder().messageId(message.getId()).chatId(message.getChat().getId()).messageType(message.getMessageType().name() != null ? MessageType.TEXT.name() : message.getMessageType().name()).content(message.getContent()).isRead(message.getIsRead()).senderId(message.getSender().getId()).timestamp(message.getCreatedAt()).chatName(message.getChat().getName()).build();
+        return MessageDTO.builder().messageId(message.getId()).chatId(message.getChat().getId()).messageType(message.getMessageType().name() != null ? MessageType.TEXT.name() : message.getMessageType().name()).content(message.getContent()).isRead(message.getIsRead()).senderId(message.getSender().getId()).timestamp(message.getCreatedAt()).chatName(message.getChat().getName()).clientMessageId(message.getClientMessageId()).isEdited(message.getIsEdited()).version(message.getVersion()).build();
     }
 
     private boolean isUserInChat( Long chatId, Long userId ) {
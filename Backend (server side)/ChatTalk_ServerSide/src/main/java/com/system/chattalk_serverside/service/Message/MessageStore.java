@@ -0,0 +1,93 @@
+package com.system.chattalk_serverside.service.Message;
+
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.Message;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Where messages live. Everything scoped to a chat is answered by a single store (or shard);
+ * only the per-sender operations may have to visit all of them.
+ */
+public interface MessageStore {
+
+    /**
+     * Inserts a new message (no id yet) or updates an existing one
+     */
+    Message save( Message message );
+
+    Optional<Message> findById( Chat chat, Long messageId );
+
+    /**
+     * Those of the given messages that still exist in the chat, in no particular order
+     */
+    List<Message> findByIds( Chat chat, Collection<Long> messageIds );
+
+    void delete( Chat chat, Long messageId );
+
+    /**
+     * Replaces the content of a message that is still at {@code expectedVersion} and moves it to the next version;
+     * returns false when the message is gone or another edit got there first
+     */
+    boolean updateContent( Chat chat, Long messageId, String content, long expectedVersion );
+
+    /**
+     * Newest first
+     */
+    List<Message> findHistory( Chat chat, Pageable pageable );
+
+    Message findLatest( Chat chat );
+
+    Optional<Message> findByClientMessageId( Chat chat, Long senderId, String clientMessageId );
+
+    long countUnread( Long chatId, Long userId );
+
+    int markRead( Long chatId, Long userId );
+
+    /**
+     * Unread messages from others per chat; chats without any are left out
+     */
+    Map<Long, Long> countUnreadByChat( Collection<Long> chatIds, Long userId );
+
+    Map<Long, LastMessage> findLastMessages( Collection<Long> chatIds );
+
+    List<Message> findBySender( Long senderId );
+
+    int deleteBySender( Long senderId );
+
+    int deleteByChat( Long chatId );
+
+    long countInChat( Long chatId );
+
+    /**
+     * Messages of a chat per sender id; used to seed rollups, so it may scan the chat
+     */
+    Map<Long, Long> countBySenderInChat( Long chatId );
+
+    /**
+     * Messages created before the cutoff, ordered by chat and id, for archiving
+     */
+    List<Message> findOlderThan( LocalDateTime cutoff, int limit );
+
+    int deleteByIds( Long chatId, Collection<Long> messageIds );
+
+    /**
+     * Messages of a chat created in {@code [from, to)}, oldest first, handed over one at a time
+     * so a long chat is never held in memory as a whole
+     */
+    void forEachInRange( Chat chat, LocalDateTime from, LocalDateTime to, Consumer<Message> action );
+
+    /**
+     * Bulk insert for imports: messages keep their creation time, and nothing else (chat, notifications) is touched
+     */
+    int insertAll( List<Message> messages );
+
+    record LastMessage(Long chatId, String content, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,377 @@
+package com.system.chattalk_serverside.service.Message;
+
+import com.system.chattalk_serverside.config.MessageShards;
+import com.system.chattalk_serverside.enums.MessageType;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Messages spread over {@link MessageShards} by chat id, so every per-chat query touches one shard only.
+ * Ids are generated here (time, node id, counter) since shard-local identity columns would collide.
+ * Shards are separate databases: their writes commit on their own and are not part of the caller's transaction.
+ * Loaded messages reference their chat and sender by id only. A shard holds many chats, so every per-chat
+ * lookup also filters on chat_id: the mapper stamps the caller's chat onto the row and could not tell otherwise.
+ */
+public class ShardedMessageStore implements MessageStore {
+    private static final long ID_EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int COUNTER_BITS = 12;
+    private static final int RANGE_PAGE_SIZE = 500;
+
+    private static final String COLUMNS = """
+            id, chat_id, sender_id, content, message_type, attachment_url, client_message_id,
+            is_read, is_edited, version, created_at, updated_at
+            """;
+
+    private final MessageShards shards;
+    private final long nodeId;
+    private long lastIdMillis = -1;
+    private long counter;
+
+    public ShardedMessageStore( MessageShards shards, int nodeId ) {
+        if (nodeId < 0 || nodeId >= (1 << NODE_BITS)) {
+            throw new IllegalArgumentException("messages.sharding.node-id must be between 0 and " + ((1 << NODE_BITS) - 1));
+        }
+        this.shards = shards;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public Message save( Message message ) {
+        Long chatId = message.getChat().getId();
+        LocalDateTime now = LocalDateTime.now();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("chatId", chatId)
+                .addValue("content", message.getContent())
+                .addValue("attachmentUrl", message.getAttachmentUrl())
+                .addValue("isRead", message.getIsRead())
+                .addValue("isEdited", message.getIsEdited())
+                .addValue("version", message.getVersion() == null ? 0L : message.getVersion())
+                .addValue("updatedAt", Timestamp.valueOf(now));
+
+        if (message.getId() == null) {
+            message.setId(nextId());
+            message.setCreatedAt(now);
+            params.addValue("id", message.getId())
+                    .addValue("senderId", message.getSender().getId())
+                    .addValue("messageType", message.getMessageType() == null ? MessageType.TEXT.name() : message.getMessageType().name())
+                    .addValue("clientMessageId", message.getClientMessageId())
+                    .addValue("createdAt", Timestamp.valueOf(now));
+            shards.forChat(chatId).update("""
+                    INSERT INTO messages (id, chat_id, sender_id, content, message_type, attachment_url, client_message_id,
+                                          is_read, is_edited, version, created_at, updated_at)
+                    VALUES (:id, :chatId, :senderId, :content, :messageType, :attachmentUrl, :clientMessageId,
+                            :isRead, :isEdited, :version, :createdAt, :updatedAt)
+                    """, params);
+        } else {
+            params.addValue("id", message.getId());
+            shards.forChat(chatId).update("""
+                    UPDATE messages
+                    SET content = :content, attachment_url = :attachmentUrl, is_read = :isRead,
+                        is_edited = :isEdited, version = :version, updated_at = :updatedAt
+                    WHERE id = :id AND chat_id = :chatId
+                    """, params);
+        }
+        message.setUpdatedAt(now);
+        return message;
+    }
+
+    @Override
+    public Optional<Message> findById( Chat chat, Long messageId ) {
+        return shards.forChat(chat.getId())
+                .query("SELECT " + COLUMNS + " FROM messages WHERE id = :id AND chat_id = :chatId",
+                        Map.of("id", messageId, "chatId", chat.getId()), mapper(chat))
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<Message> findByIds( Chat chat, Collection<Long> messageIds ) {
+        if (messageIds.isEmpty()) {
+            return List.of();
+        }
+        return shards.forChat(chat.getId()).query("SELECT " + COLUMNS + " FROM messages WHERE chat_id = :chatId AND id IN (:ids)",
+                Map.of("chatId", chat.getId(), "ids", messageIds), mapper(chat));
+    }
+
+    @Override
+    public void delete( Chat chat, Long messageId ) {
+        shards.forChat(chat.getId()).update("DELETE FROM messages WHERE id = :id AND chat_id = :chatId",
+                Map.of("id", messageId, "chatId", chat.getId()));
+    }
+
+    @Override
+    public boolean updateContent( Chat chat, Long messageId, String content, long expectedVersion ) {
+        return shards.forChat(chat.getId()).update("""
+                UPDATE messages
+                SET content = :content, is_edited = TRUE, version = version + 1, updated_at = :updatedAt
+                WHERE id = :id AND chat_id = :chatId AND version = :expectedVersion
+                """, new MapSqlParameterSource()
+                .addValue("id", messageId)
+                .addValue("chatId", chat.getId())
+                .addValue("content", content)
+                .addValue("expectedVersion", expectedVersion)
+                .addValue("updatedAt", Timestamp.valueOf(LocalDateTime.now()))) > 0;
+    }
+
+    @Override
+    public List<Message> findHistory( Chat chat, Pageable pageable ) {
+        return shards.forChat(chat.getId()).query("""
+                        SELECT %s FROM messages
+                        WHERE chat_id = :chatId
+                        ORDER BY created_at DESC, id DESC
+                        LIMIT :limit OFFSET :offset
+                        """.formatted(COLUMNS),
+                Map.of("chatId", chat.getId(), "limit", pageable.getPageSize(), "offset", pageable.getOffset()),
+                mapper(chat));
+    }
+
+    @Override
+    public Message findLatest( Chat chat ) {
+        List<Message> latest = findHistory(chat, Pageable.ofSize(1));
+        return latest.isEmpty() ? null : latest.get(0);
+    }
+
+    @Override
+    public Optional<Message> findByClientMessageId( Chat chat, Long senderId, String clientMessageId ) {
+        // Retries repeat the same chat, so the chat's shard is the only one that can hold the earlier send
+        return shards.forChat(chat.getId())
+                .query("SELECT " + COLUMNS + " FROM messages WHERE chat_id = :chatId AND sender_id = :senderId AND client_message_id = :clientMessageId",
+                        Map.of("chatId", chat.getId(), "senderId", senderId, "clientMessageId", clientMessageId), mapper(chat))
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public long countUnread( Long chatId, Long userId ) {
+        Long count = shards.forChat(chatId).queryForObject("""
+                SELECT COUNT(*) FROM messages
+                WHERE chat_id = :chatId AND sender_id <> :userId AND is_read = FALSE
+                """, Map.of("chatId", chatId, "userId", userId), Long.class);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public int markRead( Long chatId, Long userId ) {
+        return shards.forChat(chatId).update("""
+                UPDATE messages SET is_read = TRUE
+                WHERE chat_id = :chatId AND sender_id <> :userId AND is_read = FALSE
+                """, Map.of("chatId", chatId, "userId", userId));
+    }
+
+    @Override
+    public Map<Long, Long> countUnreadByChat( Collection<Long> chatIds, Long userId ) {
+        Map<Long, Long> unread = new HashMap<>();
+        if (chatIds.isEmpty()) {
+            return unread;
+        }
+        shards.<Object[]>scatterByChat(chatIds, (shard, shardChatIds) -> shard.query("""
+                        SELECT chat_id, COUNT(*) FROM messages
+                        WHERE chat_id IN (:chatIds) AND sender_id <> :userId AND is_read = FALSE
+                        GROUP BY chat_id
+                        """, Map.of("chatIds", shardChatIds, "userId", userId),
+                        (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2)}))
+                .forEach(row -> unread.put((Long) row[0], (Long) row[1]));
+        return unread;
+    }
+
+    @Override
+    public Map<Long, LastMessage> findLastMessages( Collection<Long> chatIds ) {
+        Map<Long, LastMessage> last = new HashMap<>();
+        if (chatIds.isEmpty()) {
+            return last;
+        }
+        shards.<LastMessage>scatterByChat(chatIds, (shard, shardChatIds) -> shard.query("""
+                        SELECT chat_id, content, created_at FROM messages
+                        WHERE id IN (SELECT MAX(id) FROM messages WHERE chat_id IN (:chatIds) GROUP BY chat_id)
+                        """, Map.of("chatIds", shardChatIds),
+                        (rs, rowNum) -> new LastMessage(rs.getLong(1), rs.getString(2), toLocalDateTime(rs.getTimestamp(3)))))
+                .forEach(message -> last.put(message.chatId(), message));
+        return last;
+    }
+
+    @Override
+    public List<Message> findBySender( Long senderId ) {
+        return shards.scatter(shard -> shard.query("SELECT " + COLUMNS + " FROM messages WHERE sender_id = :senderId",
+                Map.of("senderId", senderId), mapper(null)));
+    }
+
+    @Override
+    public int deleteBySender( Long senderId ) {
+        return shards.scatter(shard -> List.of(shard.update("DELETE FROM messages WHERE sender_id = :senderId", Map.of("senderId", senderId))))
+                .stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    @Override
+    public int deleteByChat( Long chatId ) {
+        return shards.forChat(chatId).update("DELETE FROM messages WHERE chat_id = :chatId", Map.of("chatId", chatId));
+    }
+
+    @Override
+    public long countInChat( Long chatId ) {
+        Long count = shards.forChat(chatId).queryForObject("SELECT COUNT(*) FROM messages WHERE chat_id = :chatId", Map.of("chatId", chatId), Long.class);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public Map<Long, Long> countBySenderInChat( Long chatId ) {
+        Map<Long, Long> counts = new HashMap<>();
+        shards.forChat(chatId).query("SELECT sender_id, COUNT(*) FROM messages WHERE chat_id = :chatId GROUP BY sender_id",
+                Map.of("chatId", chatId), rs -> {
+                    counts.put(rs.getLong(1), rs.getLong(2));
+                });
+        return counts;
+    }
+
+    @Override
+    public List<Message> findOlderThan( LocalDateTime cutoff, int limit ) {
+        List<Message> older = shards.scatter(shard -> shard.query("""
+                        SELECT %s FROM messages
+                        WHERE created_at < :cutoff
+                        ORDER BY chat_id, id
+                        LIMIT :limit
+                        """.formatted(COLUMNS),
+                Map.of("cutoff", Timestamp.valueOf(cutoff), "limit", limit), mapper(null)));
+        return older.size() > limit ? older.subList(0, limit) : older;
+    }
+
+    @Override
+    public int deleteByIds( Long chatId, Collection<Long> messageIds ) {
+        if (messageIds.isEmpty()) {
+            return 0;
+        }
+        return shards.forChat(chatId).update("DELETE FROM messages WHERE chat_id = :chatId AND id IN (:ids)",
+                Map.of("chatId", chatId, "ids", messageIds));
+    }
+
+    @Override
+    public void forEachInRange( Chat chat, LocalDateTime from, LocalDateTime to, Consumer<Message> action ) {
+        // Keyset pages instead of one open cursor: shard reads run outside a transaction, where drivers buffer the whole result
+        NamedParameterJdbcTemplate shard = shards.forChat(chat.getId());
+        LocalDateTime afterCreatedAt = from;
+        long afterId = Long.MIN_VALUE;
+        List<Message> page;
+        do {
+            page = shard.query("""
+                            SELECT %s FROM messages
+                            WHERE chat_id = :chatId AND created_at < :to
+                              AND (created_at > :afterCreatedAt OR (created_at = :afterCreatedAt AND id > :afterId))
+                            ORDER BY created_at, id
+                            LIMIT :limit
+                            """.formatted(COLUMNS),
+                    new MapSqlParameterSource()
+                            .addValue("chatId", chat.getId())
+                            .addValue("to", Timestamp.valueOf(to))
+                            .addValue("afterCreatedAt", Timestamp.valueOf(afterCreatedAt))
+                            .addValue("afterId", afterId)
+                            .addValue("limit", RANGE_PAGE_SIZE),
+                    mapper(chat));
+            page.forEach(action);
+            if (!page.isEmpty()) {
+                Message last = page.get(page.size() - 1);
+                afterCreatedAt = last.getCreatedAt();
+                afterId = last.getId();
+            }
+        } while (page.size() == RANGE_PAGE_SIZE);
+    }
+
+    @Override
+    public int insertAll( List<Message> messages ) {
+        int inserted = 0;
+        Map<Integer, List<Message>> byShard = messages.stream()
+                .collect(Collectors.groupingBy(message -> shards.indexFor(message.getChat().getId())));
+        for (Map.Entry<Integer, List<Message>> shard : byShard.entrySet()) {
+            List<Message> shardMessages = shard.getValue();
+            for (int from = 0; from < shardMessages.size(); from += RANGE_PAGE_SIZE) {
+                List<Message> rows = shardMessages.subList(from, Math.min(from + RANGE_PAGE_SIZE, shardMessages.size()));
+                List<Object> args = new ArrayList<>(rows.size() * 12);
+                for (Message message : rows) {
+                    LocalDateTime createdAt = message.getCreatedAt() != null ? message.getCreatedAt() : LocalDateTime.now();
+                    message.setId(nextId());
+                    args.add(message.getId());
+                    args.add(message.getChat().getId());
+                    args.add(message.getSender().getId());
+                    args.add(message.getContent());
+                    args.add(message.getMessageType() == null ? MessageType.TEXT.name() : message.getMessageType().name());
+                    args.add(message.getAttachmentUrl());
+                    args.add(message.getClientMessageId());
+                    args.add(Boolean.TRUE.equals(message.getIsRead()));
+                    args.add(Boolean.TRUE.equals(message.getIsEdited()));
+                    args.add(message.getVersion() == null ? 0L : message.getVersion());
+                    args.add(Timestamp.valueOf(createdAt));
+                    args.add(Timestamp.valueOf(message.getUpdatedAt() != null ? message.getUpdatedAt() : createdAt));
+                }
+                inserted += shards.get(shard.getKey()).getJdbcOperations().update("""
+                        INSERT INTO messages (id, chat_id, sender_id, content, message_type, attachment_url, client_message_id,
+                                              is_read, is_edited, version, created_at, updated_at)
+                        VALUES\s""" + String.join(", ", Collections.nCopies(rows.size(), "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")), args.toArray());
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Milliseconds since {@link #ID_EPOCH_MILLIS}, then the node id, then a per-millisecond counter,
+     * so ids are unique across application nodes and grow with time like the identity ids did
+     */
+    synchronized long nextId() {
+        long now = Math.max(System.currentTimeMillis(), lastIdMillis);
+        if (now == lastIdMillis) {
+            counter = (counter + 1) & ((1 << COUNTER_BITS) - 1);
+            if (counter == 0) {
+                now++;
+            }
+        } else {
+            counter = 0;
+        }
+        lastIdMillis = now;
+        return ((now - ID_EPOCH_MILLIS) << (NODE_BITS + COUNTER_BITS)) | (nodeId << COUNTER_BITS) | counter;
+    }
+
+    private static RowMapper<Message> mapper( Chat chat ) {
+        return ( rs, rowNum ) -> Message.builder()
+                .id(rs.getLong("id"))
+                .chat(chat != null ? chat : Chat.builder().id(rs.getLong("chat_id")).build())
+                .sender(User.builder().id(rs.getLong("sender_id")).build())
+                .content(rs.getString("content"))
+                .messageType(messageType(rs))
+                .attachmentUrl(rs.getString("attachment_url"))
+                .clientMessageId(rs.getString("client_message_id"))
+                .isRead(rs.getBoolean("is_read"))
+                .isEdited(rs.getBoolean("is_edited"))
+                .version(rs.getLong("version"))
+                .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+                .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+                .build();
+    }
+
+    private static MessageType messageType( ResultSet rs ) throws SQLException {
+        String type = rs.getString("message_type");
+        return type == null ? MessageType.TEXT : MessageType.valueOf(type);
+    }
+
+    private static LocalDateTime toLocalDateTime( Timestamp timestamp ) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
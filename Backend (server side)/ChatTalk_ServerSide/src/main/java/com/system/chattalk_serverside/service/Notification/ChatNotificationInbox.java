@@ -0,0 +1,99 @@
+package com.system.chattalk_serverside.service.Notification;
+
+import com.system.chattalk_serverside.dto.Entity.NotificationDTO;
+import com.system.chattalk_serverside.enums.NotificationType;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.utils.SqlUpserts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * New-message notifications coalesced per (user, chat): one entry whose count and preview are updated in place,
+ * instead of a row per message. Reading the entry resets it, so the next message starts counting from one.
+ * <p>
+ * Everything runs in the caller's transaction and keeps the unread counter in step. A missing entry is created
+ * unread with a count of one by an insert-if-absent, like the rollup counters; a sender that loses the race to
+ * create it counts its message in the winner's entry instead.
+ */
+@Slf4j
+@Component
+public class ChatNotificationInbox {
+    public static final String TITLE = "New Message 💌";
+    private static final int PREVIEW_LENGTH = 140;
+
+    private static final List<String> COLUMNS = List.of("user_id", "chat_id", "title", "message", "type", "is_read", "message_count", "created_at", "updated_at");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlUpserts sqlUpserts;
+    private final NotificationCounters notificationCounters;
+
+    public ChatNotificationInbox( JdbcTemplate jdbcTemplate, SqlUpserts sqlUpserts, NotificationCounters notificationCounters ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlUpserts = sqlUpserts;
+        this.notificationCounters = notificationCounters;
+    }
+
+    /**
+     * Counts one more message from {@code senderEmail} in the user's entry for the chat; returns the entry as it is now
+     */
+    public NotificationDTO newMessage( User user, Long chatId, String senderEmail, String content ) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        String preview = senderEmail + ": " + preview(content);
+        if (!countMessage(user.getId(), chatId, preview, now)) {
+            if (sqlUpserts.insertIfAbsent("notifications", 2, COLUMNS, user.getId(), chatId, TITLE, preview, NotificationType.NEW_MESSAGE.name(),
+                    false, 1, Timestamp.valueOf(now), Timestamp.valueOf(now))) {
+                notificationCounters.add(user.getId(), 1);
+            } else {
+                log.debug("Notification entry of user {} for chat {} created concurrently", user.getId(), chatId);
+                countMessage(user.getId(), chatId, preview, now);
+            }
+        }
+        return jdbcTemplate.queryForObject("""
+                SELECT id, message_count, created_at FROM notifications WHERE user_id = ? AND chat_id = ?
+                """, ( rs, rowNum ) -> NotificationDTO.builder()
+                .id(rs.getLong("id"))
+                .userId(user.getId())
+                .chatId(chatId)
+                .title(TITLE)
+                .message(preview)
+                .type(NotificationType.NEW_MESSAGE.name())
+                .isRead(false)
+                .messageCount(rs.getInt("message_count"))
+                .senderEmail(senderEmail)
+                .createdAt(rs.getTimestamp("created_at").toLocalDateTime().toString())
+                .updatedAt(now.toString())
+                .build(), user.getId(), chatId);
+    }
+
+    /**
+     * A read entry starts again from one and becomes unread; an unread one counts one more.
+     * Two conditional updates rather than one, so the unread counter knows which happened.
+     */
+    private boolean countMessage( Long userId, Long chatId, String preview, LocalDateTime now ) {
+        int reopened = jdbcTemplate.update("""
+                UPDATE notifications SET message_count = 1, is_read = FALSE, read_at = NULL, message = ?, updated_at = ?
+                WHERE user_id = ? AND chat_id = ? AND is_read = TRUE
+                """, preview, Timestamp.valueOf(now), userId, chatId);
+        if (reopened > 0) {
+            notificationCounters.add(userId, 1);
+            return true;
+        }
+        return jdbcTemplate.update("""
+                UPDATE notifications SET message_count = message_count + 1, message = ?, updated_at = ?
+                WHERE user_id = ? AND chat_id = ? AND is_read = FALSE
+                """, preview, Timestamp.valueOf(now), userId, chatId) > 0;
+    }
+
+    private static String preview( String content ) {
+        if (content == null) {
+            return "";
+        }
+        return content.length() <= PREVIEW_LENGTH ? content : content.substring(0, PREVIEW_LENGTH - 1) + "…";
+    }
+}
@@ -0,0 +1,91 @@
+package com.system.chattalk_serverside.service.Notification;
+
+import com.system.chattalk_serverside.utils.SqlUpserts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Per-user unread notification counters, so the badge never counts the {@code notifications} table.
+ * Callers adjust the counter in the same transaction as the change it describes, after making that change.
+ * <p>
+ * A user without a row yet is seeded by the first writer, inside the caller's transaction, through
+ * {@link SqlUpserts#insertIfAbsent}, as the message rollups are. That count already includes the caller's change;
+ * if another transaction seeded the row first, the change is applied on top. Reading an unseeded counter seeds it too, except in a read-only transaction,
+ * where it counts without writing anything.
+ */
+@Slf4j
+@Component
+public class NotificationCounters {
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlUpserts sqlUpserts;
+
+    public NotificationCounters( JdbcTemplate jdbcTemplate, SqlUpserts sqlUpserts ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlUpserts = sqlUpserts;
+    }
+
+    /**
+     * Adds {@code delta} (negative when notifications were read or deleted) to the user's unread count
+     */
+    public void add( Long userId, long delta ) {
+        if (delta != 0) {
+            apply("UPDATE notification_counters SET unread = GREATEST(unread + ?, 0) WHERE user_id = ?", delta, userId);
+        }
+    }
+
+    /**
+     * The user has no unread notifications left
+     */
+    public void reset( Long userId ) {
+        apply("UPDATE notification_counters SET unread = 0 WHERE user_id = ?", userId);
+    }
+
+    @Transactional
+    public long unread( Long userId ) {
+        List<Long> unread = jdbcTemplate.queryForList("SELECT unread FROM notification_counters WHERE user_id = ?", Long.class, userId);
+        if (!unread.isEmpty()) {
+            return unread.get(0);
+        }
+        long counted = count(userId);
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            seed(userId, counted);
+        }
+        return counted;
+    }
+
+    public void forget( Long userId ) {
+        jdbcTemplate.update("DELETE FROM notification_counters WHERE user_id = ?", userId);
+    }
+
+    private void apply( String update, Object... args ) {
+        if (jdbcTemplate.update(update, args) == 0 && !seed(userId(args), count(userId(args)))) {
+            jdbcTemplate.update(update, args);
+        }
+    }
+
+    private static Long userId( Object[] args ) {
+        return (Long) args[args.length - 1];
+    }
+
+    /**
+     * Writes the user's row with their counted unread notifications; returns false when someone else already did
+     */
+    private boolean seed( Long userId, long counted ) {
+        if (!sqlUpserts.insertIfAbsent("notification_counters", 1, List.of("user_id", "unread"), userId, counted)) {
+            log.debug("Unread notifications of user {} were seeded concurrently", userId);
+            return false;
+        }
+        log.debug("Seeded unread notifications of user {} with {}", userId, counted);
+        return true;
+    }
+
+    private long count( Long userId ) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM notifications WHERE user_id = ? AND is_read = FALSE AND message_count > 0", Long.class, userId);
+    }
+}
@@ -0,0 +1,37 @@
+package com.system.chattalk_serverside.service.Notification;
+
+import com.system.chattalk_serverside.model.Notification;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Position in a user's notifications, ordered by last activity and then id. Sent to clients as
+ * {@code <epoch microseconds>_<id>}; the time is only compared with itself, so the zone does not matter.
+ */
+public record NotificationCursor(LocalDateTime updatedAt, Long id) {
+    public static final NotificationCursor START = new NotificationCursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0L);
+
+    public static NotificationCursor of( Notification notification ) {
+        return new NotificationCursor(notification.getUpdatedAt(), notification.getId());
+    }
+
+    public static NotificationCursor parse( String cursor ) {
+        int separator = cursor.indexOf('_');
+        try {
+            long micros = Long.parseLong(cursor.substring(0, separator));
+            LocalDateTime updatedAt = LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                    (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+            return new NotificationCursor(updatedAt, Long.parseLong(cursor.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid notification cursor: " + cursor);
+        }
+    }
+
+    @Override
+    public String toString() {
+        LocalDateTime micros = updatedAt.truncatedTo(ChronoUnit.MICROS);
+        return (micros.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + micros.getNano() / 1000) + "_" + id;
+    }
+}
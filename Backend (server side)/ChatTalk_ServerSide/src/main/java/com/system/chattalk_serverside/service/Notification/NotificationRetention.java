@@ -0,0 +1,221 @@
+package com.system.chattalk_serverside.service.Notification;
+
+import com.system.chattalk_serverside.enums.VersionedResource;
+import com.system.chattalk_serverside.repository.NotificationRepository;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@code notifications} table small: deletes read entries with no activity for
+ * {@code notifications.retention.read-after-days}, then the oldest unread entries of users holding more than
+ * {@code notifications.retention.unread-cap}. Runs only inside the off-peak window, in batches of
+ * {@code batch-size} rows per transaction with a pause between them, and stops when a run has taken {@code max-run-ms}.
+ * <p>
+ * Users over the cap are found from the unread counters, so a user whose counter was never seeded is capped once it is.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notifications.retention.enabled", havingValue = "true", matchIfMissing = true)
+public class NotificationRetention {
+    private final NotificationRepository notificationRepository;
+    private final NotificationCounters notificationCounters;
+    private final ResourceVersions resourceVersions;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LocalTime windowStart;
+    private final LocalTime windowEnd;
+    private final int readAfterDays;
+    private final int unreadCap;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final long maxRunMillis;
+    private final Counter readPurged;
+    private final Counter overCapPurged;
+    private final Timer runTime;
+
+    public NotificationRetention( NotificationRepository notificationRepository,
+                                  NotificationCounters notificationCounters,
+                                  ResourceVersions resourceVersions,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${notifications.retention.window-start:02:00}") String windowStart,
+                                  @Value("${notifications.retention.window-end:05:00}") String windowEnd,
+                                  @Value("${notifications.retention.read-after-days:30}") int readAfterDays,
+                                  @Value("${notifications.retention.unread-cap:500}") int unreadCap,
+                                  @Value("${notifications.retention.batch-size:500}") int batchSize,
+                                  @Value("${notifications.retention.pause-ms:100}") long pauseMillis,
+                                  @Value("${notifications.retention.max-run-ms:60000}") long maxRunMillis ) {
+        this.notificationRepository = notificationRepository;
+        this.notificationCounters = notificationCounters;
+        this.resourceVersions = resourceVersions;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.windowStart = LocalTime.parse(windowStart);
+        this.windowEnd = LocalTime.parse(windowEnd);
+        this.readAfterDays = readAfterDays;
+        this.unreadCap = unreadCap;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.maxRunMillis = maxRunMillis;
+        this.readPurged = Counter.builder("chattalk.notifications.purged")
+                .tag("reason", "read")
+                .description("Notifications deleted by retention")
+                .register(meterRegistry);
+        this.overCapPurged = Counter.builder("chattalk.notifications.purged")
+                .tag("reason", "unread-cap")
+                .description("Notifications deleted by retention")
+                .register(meterRegistry);
+        this.runTime = Timer.builder("chattalk.notifications.retention.run")
+                .description("Time spent in one notification retention run")
+                .register(meterRegistry);
+    }
+
+    public record Report(int readPurged, int overCapPurged, long millis, boolean finished) {
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.retention.interval-ms:600000}", initialDelayString = "${notifications.retention.interval-ms:600000}")
+    public void purgeOffPeak() {
+        if (isOffPeak(LocalTime.now())) {
+            purge(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * True inside [window-start, window-end); the window may wrap past midnight
+     */
+    public boolean isOffPeak( LocalTime time ) {
+        if (windowStart.isBefore(windowEnd)) {
+            return !time.isBefore(windowStart) && time.isBefore(windowEnd);
+        }
+        return !time.isBefore(windowStart) || time.isBefore(windowEnd);
+    }
+
+    /**
+     * One retention run as of {@code now}; {@code finished} is false when the time budget ran out first
+     */
+    public Report purge( LocalDateTime now ) {
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(maxRunMillis);
+        LocalDateTime cutoff = now.minusDays(readAfterDays);
+
+        int read = 0;
+        boolean finished = false;
+        while (System.nanoTime() < deadline) {
+            Batch batch = purgeReadBatch(cutoff);
+            read += batch.deleted();
+            if (batch.selected() < batchSize) {
+                finished = true;
+                break;
+            }
+            pause();
+        }
+
+        int overCap = 0;
+        if (finished) {
+            List<UserOverCap> users = jdbcTemplate.query("""
+                    SELECT c.user_id, u.email FROM notification_counters c JOIN users u ON u.id = c.user_id
+                    WHERE c.unread > ? ORDER BY c.user_id
+                    """, ( rs, rowNum ) -> new UserOverCap(rs.getLong(1), rs.getString(2)), unreadCap);
+            for (UserOverCap user : users) {
+                Batch batch;
+                do {
+                    if (System.nanoTime() >= deadline) {
+                        finished = false;
+                        break;
+                    }
+                    batch = purgeOverCapBatch(user);
+                    overCap += batch.deleted();
+                    if (batch.selected() > 0) {
+                        pause();
+                    }
+                } while (batch.selected() == batchSize);
+                if (!finished) {
+                    break;
+                }
+            }
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        runTime.record(millis, TimeUnit.MILLISECONDS);
+        if (read > 0 || overCap > 0 || !finished) {
+            log.info("Notification retention removed {} read and {} over-cap notifications in {} ms{}",
+                    read, overCap, millis, finished ? "" : " (time budget used up, continuing next run)");
+        }
+        return new Report(read, overCap, millis, finished);
+    }
+
+    private Batch purgeReadBatch( LocalDateTime cutoff ) {
+        Batch batch = transactionTemplate.execute(status -> {
+            List<Object[]> rows = notificationRepository.findReadBefore(cutoff, PageRequest.of(0, batchSize));
+            if (rows.isEmpty()) {
+                return Batch.EMPTY;
+            }
+            int deleted = notificationRepository.deleteByIds(rows.stream().map(row -> (Long) row[0]).toList());
+            resourceVersions.changed(rows.stream().map(row -> (String) row[1]).distinct().toList(), VersionedResource.NOTIFICATIONS);
+            // Read entries are not in the unread counters
+            return new Batch(rows.size(), deleted);
+        });
+        readPurged.increment(batch.deleted());
+        return batch;
+    }
+
+    /**
+     * Deletes up to one batch of the user's unread entries beyond the newest {@code unread-cap}
+     */
+    private Batch purgeOverCapBatch( UserOverCap user ) {
+        Batch batch = transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList("""
+                    SELECT id FROM notifications WHERE user_id = ? AND is_read = FALSE AND message_count > 0
+                    ORDER BY updated_at DESC, id DESC OFFSET ? ROWS FETCH FIRST ? ROWS ONLY
+                    """, Long.class, user.id(), unreadCap, batchSize);
+            if (ids.isEmpty()) {
+                return Batch.EMPTY;
+            }
+            // Entries read in the meantime stay
+            int deleted = notificationRepository.deleteUnreadByIds(ids);
+            notificationCounters.add(user.id(), -deleted);
+            resourceVersions.changed(user.email(), VersionedResource.NOTIFICATIONS);
+            return new Batch(ids.size(), deleted);
+        });
+        overCapPurged.increment(batch.deleted());
+        return batch;
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record UserOverCap(Long id, String email) {
+    }
+
+    /**
+     * Rows a batch picked and rows it actually removed; fewer are removed when entries change in between,
+     * and only a full pick means there may be more to do
+     */
+    private record Batch(int selected, int deleted) {
+        static final Batch EMPTY = new Batch(0, 0);
+    }
+}
@@ -1,12 +1,18 @@
 package com.system.chattalk_serverside.service.Notification;
 
 import com.system.chattalk_serverside.dto.Entity.NotificationDTO;
+import com.system.chattalk_serverside.dto.NotificationDto.NotificationPageDTO;
 
 import java.util.List;
 
 public interface NotificationService {
      List<NotificationDTO> getNotification();
+     List<NotificationDTO> getNotification(String email);
      void deleteAllNotification();
      void deleteNotification(Long notificationId );
      NotificationDTO markAsRead(Long notificationId );
+     int markAllAsRead();
+     long getUnreadCount();
+     NotificationPageDTO getPage(String cursor, Integer limit);
+     NotificationPageDTO getChangesSince(String since, Integer limit);
 }
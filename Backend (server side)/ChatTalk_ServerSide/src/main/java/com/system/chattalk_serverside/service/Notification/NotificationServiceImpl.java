@@ -1,70 +1,177 @@
 package com.system.chattalk_serverside.service.Notification;
 
 import com.system.chattalk_serverside.dto.Entity.NotificationDTO;
+import com.system.chattalk_serverside.dto.NotificationDto.NotificationPageDTO;
+import com.system.chattalk_serverside.enums.VersionedResource;
+import com.system.chattalk_serverside.exception.ResourceNotFoundException;
 import com.system.chattalk_serverside.model.Notification;
+import com.system.chattalk_serverside.model.User;
 import com.system.chattalk_serverside.repository.NotificationRepository;
-import jakarta.transaction.Transactional;
+import com.system.chattalk_serverside.repository.UserRepository;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
 
 @Slf4j
 @Service
 public class NotificationServiceImpl implements NotificationService {
     private final NotificationRepository notificationRepository;
+    private final UserRepository userRepository;
+    private final NotificationCounters notificationCounters;
+    private final ResourceVersions resourceVersions;
+    private final int inboxSize;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public NotificationServiceImpl( NotificationRepository notificationRepository ) {
+    public NotificationServiceImpl( NotificationRepository notificationRepository, UserRepository userRepository,
+                                    NotificationCounters notificationCounters, ResourceVersions resourceVersions,
+                                    @Value("${notifications.inbox-size:100}") int inboxSize,
+                                    @Value("${notifications.page.default-size:20}") int defaultPageSize,
+                                    @Value("${notifications.page.max-size:100}") int maxPageSize ) {
         super();
         this.notificationRepository = notificationRepository;
+        this.userRepository = userRepository;
+        this.notificationCounters = notificationCounters;
+        this.resourceVersions = resourceVersions;
+        this.inboxSize = inboxSize;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
 
+    @Transactional(readOnly = true)
     @Override
     public List<NotificationDTO> getNotification() {
-        String email = getAuthenticatedEmail();
-        List<Notification> notifications = notificationRepository.findByUserEmail(email);
+        return getNotification(getAuthenticatedEmail());
+    }
 
-        return notifications.stream()
-                .sorted(Comparator.comparing(Notification::getCreatedAt).reversed())
+    @Transactional(readOnly = true)
+    @Override
+    public List<NotificationDTO> getNotification( String email ) {
+        // New messages are coalesced per chat, so the newest page is the whole useful inbox
+        return notificationRepository.findLatest(currentUser(email).getId(), PageRequest.of(0, inboxSize)).stream()
                 .map(this::toNotificationDto).toList();
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public NotificationPageDTO getPage( String cursor, Integer limit ) {
+        Long userId = currentUser(getAuthenticatedEmail()).getId();
+        int size = pageSize(limit);
+        // One row more than asked tells whether there is a next page
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<Notification> found;
+        if (cursor == null || cursor.isBlank()) {
+            found = notificationRepository.findLatest(userId, page);
+        } else {
+            NotificationCursor after = NotificationCursor.parse(cursor);
+            found = notificationRepository.findOlder(userId, after.updatedAt(), after.id(), page);
+        }
+        List<Notification> notifications = found.size() > size ? found.subList(0, size) : found;
+        return NotificationPageDTO.builder()
+                .notifications(notifications.stream().map(this::toNotificationDto).toList())
+                .nextCursor(found.size() > size ? NotificationCursor.of(notifications.get(size - 1)).toString() : null)
+                .latestCursor(notifications.isEmpty() ? cursor : NotificationCursor.of(notifications.get(0)).toString())
+                .unreadCount(notificationCounters.unread(userId))
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public NotificationPageDTO getChangesSince( String since, Integer limit ) {
+        Long userId = currentUser(getAuthenticatedEmail()).getId();
+        int size = pageSize(limit);
+        NotificationCursor after = since == null || since.isBlank() ? NotificationCursor.START : NotificationCursor.parse(since);
+        List<Notification> found = notificationRepository.findChangedAfter(userId, after.updatedAt(), after.id(), PageRequest.of(0, size + 1));
+        // Oldest change first, so the cursor of the last one returned never skips a change
+        List<Notification> changes = found.size() > size ? found.subList(0, size) : found;
+        return NotificationPageDTO.builder()
+                .notifications(changes.stream().map(this::toNotificationDto).toList())
+                .latestCursor(changes.isEmpty() ? since : NotificationCursor.of(changes.get(changes.size() - 1)).toString())
+                .hasMore(found.size() > size)
+                .unreadCount(notificationCounters.unread(userId))
+                .build();
+    }
+
     @Transactional
     @Override
     public void deleteAllNotification() {
         String email = getAuthenticatedEmail();
-        List<Notification> notifications = notificationRepository.findByUserEmail(email);
-        if (notifications.isEmpty()) {
+        Long userId = currentUser(email).getId();
+        if (notificationRepository.deleteAllByUserId(userId) == 0) {
             throw new RuntimeException("No notifications found for user: " + email);
         }
-        notificationRepository.deleteAll(notifications);
+        notificationCounters.reset(userId);
+        resourceVersions.changed(email, VersionedResource.NOTIFICATIONS);
     }
 
     @Transactional
     @Override
     public void deleteNotification( Long notificationId ) {
-        notificationRepository.deleteById(notificationId);
+        String email = getAuthenticatedEmail();
+        Long userId = currentUser(email).getId();
+        if (notificationRepository.deleteOwned(notificationId, userId, false) > 0) {
+            notificationCounters.add(userId, -1);
+        } else {
+            notificationRepository.deleteOwned(notificationId, userId, true);
+        }
+        resourceVersions.changed(email, VersionedResource.NOTIFICATIONS);
     }
 
     @Transactional
     @Override
     public NotificationDTO markAsRead( Long notificationId ) {
-        Optional<Notification> optionalNotification = notificationRepository.findById(notificationId);
-        if (optionalNotification.isEmpty()) {
-            throw new RuntimeException("optionalNotification not exist");
+        String email = getAuthenticatedEmail();
+        Long userId = currentUser(email).getId();
+        if (notificationRepository.markRead(notificationId, userId, LocalDateTime.now()) > 0) {
+            notificationCounters.add(userId, -1);
+            resourceVersions.changed(email, VersionedResource.NOTIFICATIONS);
         }
-        Notification notification = optionalNotification.get();
-        notification.setIsRead(true);
-        notification.setReadAt(LocalDateTime.now());
-        notificationRepository.save(notification);
+        Notification notification = notificationRepository.findByIdAndUserId(notificationId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Notification not found: " + notificationId));
         return toNotificationDto(notification);
     }
 
+    @Transactional
+    @Override
+    public int markAllAsRead() {
+        String email = getAuthenticatedEmail();
+        Long userId = currentUser(email).getId();
+        int read = notificationRepository.markAllRead(userId, LocalDateTime.now());
+        if (read > 0) {
+            notificationCounters.reset(userId);
+            resourceVersions.changed(email, VersionedResource.NOTIFICATIONS);
+        }
+        return read;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public long getUnreadCount() {
+        return notificationCounters.unread(currentUser(getAuthenticatedEmail()).getId());
+    }
+
+    private int pageSize( Integer limit ) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private User currentUser( String email ) {
+        return userRepository.findByEmail(email).orElseThrow(() -> new ResourceNotFoundException("User not found: " + email));
+    }
+
     private NotificationDTO toNotificationDto( Notification notification ) {
         return NotificationDTO.builder().id(notification.getId())
                 .createdAt(notification.getCreatedAt() != null ? notification.getCreatedAt().toString() : null)
@@ -73,6 +180,9 @@ public class NotificationServiceImpl implements NotificationService {
                 .message(notification.getMessage())
                 .type(notification.getType() != null ? notification.getType().name() : null)
                 .readAt(notification.getReadAt() != null ? notification.getReadAt().toString() : null)
+                .chatId(notification.getChatId())
+                .messageCount(notification.getMessageCount())
+                .updatedAt(notification.getUpdatedAt() != null ? notification.getUpdatedAt().toString() : null)
                 .build();
     }
 
@@ -7,6 +7,7 @@ import com.system.chattalk_serverside.dto.Entity.UserDTO;
 import com.system.chattalk_serverside.exception.UserNotFoundException;
 import com.system.chattalk_serverside.model.User;
 import com.system.chattalk_serverside.repository.UserRepository;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -27,12 +28,14 @@ public class ProfileService {
     private final UserRepository userRepository;
     private final Cloudinary cloudinary;
     private final PasswordEncoder passwordEncoder;
+    private final ResourceVersions resourceVersions;
 
     @Autowired
-    public ProfileService( UserRepository userRepository, Cloudinary cloudinary, PasswordEncoder passwordEncoder ) {
+    public ProfileService( UserRepository userRepository, Cloudinary cloudinary, PasswordEncoder passwordEncoder, ResourceVersions resourceVersions ) {
         this.userRepository = userRepository;
         this.cloudinary = cloudinary;
         this.passwordEncoder = passwordEncoder;
+        this.resourceVersions = resourceVersions;
     }
 
     public UserDTO GetProfile( String email ) {
@@ -87,6 +90,7 @@ public class ProfileService {
         }
 
         userRepository.save(user);
+        resourceVersions.profileChanged(user);
         return UserDTO.builder().id(user.getId()).email(user.getEmail()).username(user.getUsername()).firstName(user.getFirstName()).lastName(user.getLastName()).profilePictureUrl(user.getProfilePictureUrl()).phoneNumber(user.getPhoneNumber()).bio(user.getBio()).gender(user.getGender()).dateOfBirth(user.getDateOfBirth()).build();
 
     }
@@ -130,6 +134,7 @@ public class ProfileService {
         }
 
         userRepository.save(user);
+        resourceVersions.profileChanged(user);
 
         return UserDTO.builder().id(user.getId()).email(user.getEmail()).username(user.getUsername()).firstName(user.getFirstName()).lastName(user.getLastName()).profilePictureUrl(user.getProfilePictureUrl()).phoneNumber(user.getPhoneNumber()).bio(user.getBio()).gender(user.getGender()).dateOfBirth(user.getDateOfBirth()).build();
     }
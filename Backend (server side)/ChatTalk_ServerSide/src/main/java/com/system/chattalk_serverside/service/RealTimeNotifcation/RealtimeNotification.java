@@ -1,5 +1,6 @@
 package com.system.chattalk_serverside.service.RealTimeNotifcation;
 
+import com.system.chattalk_serverside.dto.ChatDto.MessageDeltaDTO;
 import com.system.chattalk_serverside.dto.Entity.MessageDTO;
 import com.system.chattalk_serverside.dto.Entity.NotificationDTO;
 import com.system.chattalk_serverside.model.User;
@@ -12,5 +13,6 @@ public interface RealtimeNotification {
     void sendMessageToUser(User toUserId, MessageDTO message);
     void sendMessageToAllParticipants(java.util.List<User> participants, MessageDTO message);
     void sendMessageToUserById(Long userId, MessageDTO message);
+    void sendMessageDeltaToAllParticipants(java.util.List<User> participants, MessageDeltaDTO delta);
 
 }
@@ -1,33 +1,50 @@
 package com.system.chattalk_serverside.service.RealTimeNotifcation;
 
+import com.system.chattalk_serverside.dto.ChatDto.MessageDeltaDTO;
 import com.system.chattalk_serverside.dto.Entity.MessageDTO;
 import com.system.chattalk_serverside.dto.Entity.NotificationDTO;
 import com.system.chattalk_serverside.enums.NotificationType;
+import com.system.chattalk_serverside.enums.UserEventType;
+import com.system.chattalk_serverside.enums.VersionedResource;
 import com.system.chattalk_serverside.model.Notification;
 import com.system.chattalk_serverside.model.User;
 import com.system.chattalk_serverside.repository.NotificationRepository;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import com.system.chattalk_serverside.service.Events.UserEventLog;
+import com.system.chattalk_serverside.service.Notification.ChatNotificationInbox;
+import com.system.chattalk_serverside.service.Notification.NotificationCounters;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
+import com.system.chattalk_serverside.websocket.EncodedPayload;
+import com.system.chattalk_serverside.websocket.PayloadEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
+/**
+ * Notifications are stored, counted and logged for delivery in one transaction (the caller's, when there is one)
+ */
 @Service
 public class RealtimeNotificationImpl implements RealtimeNotification {
-    private SimpMessagingTemplate messagingTemplate;
     private final NotificationRepository notificationRepository;
+    private final PayloadEncoder payloadEncoder;
+    private final UserEventLog userEventLog;
+    private final ResourceVersions resourceVersions;
+    private final ChatNotificationInbox chatNotificationInbox;
+    private final NotificationCounters notificationCounters;
 
-    public RealtimeNotificationImpl(NotificationRepository notificationRepository) {
+    public RealtimeNotificationImpl(NotificationRepository notificationRepository, PayloadEncoder payloadEncoder, UserEventLog userEventLog, ResourceVersions resourceVersions, ChatNotificationInbox chatNotificationInbox, NotificationCounters notificationCounters) {
         this.notificationRepository = notificationRepository;
-    }
-
-    @Autowired(required = false)
-    public void setMessagingTemplate(SimpMessagingTemplate messagingTemplate) {
-        this.messagingTemplate = messagingTemplate;
+        this.payloadEncoder = payloadEncoder;
+        this.userEventLog = userEventLog;
+        this.resourceVersions = resourceVersions;
+        this.chatNotificationInbox = chatNotificationInbox;
+        this.notificationCounters = notificationCounters;
     }
 
     @Override
+    @Transactional
     public void receiveFriendRequestNotification( User toUserId, NotificationDTO notification ) {
         notification.setType(NotificationType.FRIEND_REQUEST.name());
         notification.setTitle("New Friend Request 👀");
@@ -36,6 +53,7 @@ public class RealtimeNotificationImpl implements RealtimeNotification {
     }
 
     @Override
+    @Transactional
     public void acceptedFriendRequestNotification( User toUserId, NotificationDTO notification ) {
         notification.setType(NotificationType.FRIEND_RESPONSE_ACCEPTED.name());
         notification.setTitle("Friend Request Accepted ✌");
@@ -44,6 +62,7 @@ public class RealtimeNotificationImpl implements RealtimeNotification {
     }
 
     @Override
+    @Transactional
     public void rejectedFriendRequestNotification( User toUserId, NotificationDTO notification ) {
         notification.setType(NotificationType.FRIEND_RESPONSE_REJECTED.name());
         notification.setTitle("Friend Request Rejected 💔");
@@ -52,7 +71,15 @@ public class RealtimeNotificationImpl implements RealtimeNotification {
     }
 
     @Override
+    @Transactional
     public void receiveNewMessageNotification( User toUserId,  NotificationDTO notification) {
+        if (notification.getChatId() != null) {
+            // One entry per chat, updated in place; the client replaces the entry with the same id
+            NotificationDTO entry = chatNotificationInbox.newMessage(toUserId, notification.getChatId(), notification.getSenderEmail(), notification.getMessage());
+            resourceVersions.changed(toUserId.getEmail(), VersionedResource.NOTIFICATIONS);
+            userEventLog.append(toUserId, UserEventType.NOTIFICATION_UPSERTED, "/queue/notifications", payloadEncoder.encode(entry));
+            return;
+        }
         notification.setType(NotificationType.NEW_MESSAGE.name());
         notification.setTitle("New Message 💌");
         notification.setMessage("New message from " + notification.getSenderEmail());
@@ -62,44 +89,40 @@ public class RealtimeNotificationImpl implements RealtimeNotification {
 
     private void sendAndSave(User toUserId, NotificationDTO notification) {
         saveNotification(toUserId, notification);
-        if (messagingTemplate != null) {
-            messagingTemplate.convertAndSendToUser(
-                    toUserId.getEmail(),
-                    "/queue/notifications",
-                    notification
-            );
-        }
+        EncodedPayload payload = payloadEncoder.encode(notification);
+        // Logged even when nobody is connected, so the client can replay it on reconnect; pushed after commit
+        userEventLog.append(toUserId, notificationEventType(notification), "/queue/notifications", payload);
         System.out.println("Notification sent"+notification.getTitle()+" "+toUserId.getEmail());
     }
 
     @Override
     public void sendMessageToUser(User toUserId, MessageDTO message) {
-        if (messagingTemplate != null && toUserId != null && message != null) {
-            try {
-                // Send message via both channels for compatibility
-                messagingTemplate.convertAndSendToUser(
-                    toUserId.getEmail(),
-                    "/queue/messages",
-                    message
-                );
-                
-                messagingTemplate.convertAndSendToUser(
-                    toUserId.getEmail(),
-                    "/queue/chat",
-                    message
-                );
-                
-                System.out.println("Message sent to user: " + toUserId.getEmail());
-            } catch (Exception e) {
-                System.err.println("Failed to send message to user " + toUserId.getEmail() + ": " + e.getMessage());
-            }
+        if (toUserId != null && message != null) {
+            sendEncodedMessage(toUserId, payloadEncoder.encode(message));
         }
     }
 
     @Override
     public void sendMessageToAllParticipants(List<User> participants, MessageDTO message) {
         if (participants != null && !participants.isEmpty() && message != null) {
-            participants.forEach(participant -> sendMessageToUser(participant, message));
+            // Serialize once and share the bytes across every participant and destination; one event per recipient,
+            // with all their sequence numbers taken in user id order
+            userEventLog.appendAll(participants, UserEventType.MESSAGE_CREATED, "/queue/chat", payloadEncoder.encode(message));
+        }
+    }
+
+    private void sendEncodedMessage(User toUserId, EncodedPayload payload) {
+        // One event per recipient; the outbox pushes it on both message queues with the same sequence number
+        userEventLog.append(toUserId, UserEventType.MESSAGE_CREATED, "/queue/chat", payload);
+    }
+
+    @Override
+    public void sendMessageDeltaToAllParticipants(List<User> participants, MessageDeltaDTO delta) {
+        if (participants != null && !participants.isEmpty() && delta != null) {
+            // Only the id, version and new content (or tombstone) go out; clients patch the message in place
+            EncodedPayload payload = payloadEncoder.encode(delta);
+            UserEventType type = Boolean.TRUE.equals(delta.getDeleted()) ? UserEventType.MESSAGE_DELETED : UserEventType.MESSAGE_UPDATED;
+            userEventLog.appendAll(participants, type, "/queue/message-updates", payload);
         }
     }
 
@@ -112,15 +135,25 @@ public class RealtimeNotificationImpl implements RealtimeNotification {
         }
     }
 
+    private static UserEventType notificationEventType(NotificationDTO notification) {
+        return notification.getType() != null && notification.getType().startsWith("FRIEND_")
+                ? UserEventType.FRIEND_EVENT
+                : UserEventType.NOTIFICATION;
+    }
+
     private void saveNotification(User toUser, NotificationDTO notification) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         Notification entity = Notification.builder()
                 .title(notification.getTitle())
-                .createdAt(LocalDateTime.now())
+                .createdAt(now)
                 .message(notification.getMessage())
                 .type(NotificationType.valueOf(notification.getType()))
                 .user(toUser)
+                .updatedAt(now)
                 .build();
         notificationRepository.save(entity);
+        notificationCounters.add(toUser.getId(), 1);
+        resourceVersions.changed(toUser.getEmail(), VersionedResource.NOTIFICATIONS);
     }
 
 }
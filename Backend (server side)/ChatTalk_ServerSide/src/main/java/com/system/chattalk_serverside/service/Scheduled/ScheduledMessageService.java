@@ -0,0 +1,301 @@
+package com.system.chattalk_serverside.service.Scheduled;
+
+import com.system.chattalk_serverside.dto.ChatDto.SendMessageRequest;
+import com.system.chattalk_serverside.dto.Entity.MessageDTO;
+import com.system.chattalk_serverside.dto.ScheduledDto.ScheduleMessageRequest;
+import com.system.chattalk_serverside.dto.ScheduledDto.ScheduledMessageDTO;
+import com.system.chattalk_serverside.enums.ScheduledMessageStatus;
+import com.system.chattalk_serverside.exception.ResourceNotFoundException;
+import com.system.chattalk_serverside.model.ScheduledMessage;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.ScheduledMessageRepository;
+import com.system.chattalk_serverside.service.Message.MessageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages scheduled for later delivery. Pending messages sit in an in-memory {@link TimingWheel} as
+ * (id, due time) only; the rows in {@code scheduled_messages} are the durable copy and are loaded back on startup.
+ * A single ticker thread advances the wheel, claims due rows in batches and sends each through the normal send path.
+ * <p>
+ * Every scheduled message is sent with the client message id {@code scheduled-<id>}, so firing it again after a
+ * crash (or from a second instance) returns the message already stored instead of sending it twice.
+ */
+@Slf4j
+@Service
+public class ScheduledMessageService implements DisposableBean {
+    private static final int SLOTS_PER_LEVEL = 64;
+    // 64^6 ticks: centuries at any sensible tick length
+    private static final int LEVELS = 6;
+    private static final List<ScheduledMessageStatus> LIVE = List.of(ScheduledMessageStatus.PENDING, ScheduledMessageStatus.FIRING);
+
+    private final ScheduledMessageRepository scheduledMessageRepository;
+    private final ChatRepository chatRepository;
+    private final MessageService messageService;
+    private final TransactionTemplate transactionTemplate;
+    private final long tickMillis;
+    private final int batchSize;
+    private final int reloadPageSize;
+    private final int maxDelayDays;
+    private final int maxPendingPerUser;
+    private final TimingWheel<Long> wheel;
+    private final Timer firingLag;
+    private final Counter sent;
+    private final Counter failed;
+    private Thread ticker;
+
+    public ScheduledMessageService( ScheduledMessageRepository scheduledMessageRepository,
+                                    ChatRepository chatRepository,
+                                    MessageService messageService,
+                                    TransactionTemplate transactionTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${messages.scheduled.tick-ms:100}") long tickMillis,
+                                    @Value("${messages.scheduled.batch-size:200}") int batchSize,
+                                    @Value("${messages.scheduled.reload-page-size:10000}") int reloadPageSize,
+                                    @Value("${messages.scheduled.max-delay-days:365}") int maxDelayDays,
+                                    @Value("${messages.scheduled.max-pending-per-user:100}") int maxPendingPerUser ) {
+        this.scheduledMessageRepository = scheduledMessageRepository;
+        this.chatRepository = chatRepository;
+        this.messageService = messageService;
+        this.transactionTemplate = transactionTemplate;
+        this.tickMillis = tickMillis;
+        this.batchSize = batchSize;
+        this.reloadPageSize = reloadPageSize;
+        this.maxDelayDays = maxDelayDays;
+        this.maxPendingPerUser = maxPendingPerUser;
+        this.wheel = new TimingWheel<>(tickMillis, SLOTS_PER_LEVEL, LEVELS, System.currentTimeMillis());
+        this.firingLag = Timer.builder("chattalk.scheduled.firing.lag")
+                .description("Time from a scheduled message being due to it being sent")
+                .register(meterRegistry);
+        this.sent = Counter.builder("chattalk.scheduled.fired")
+                .tag("outcome", "sent")
+                .description("Scheduled messages fired")
+                .register(meterRegistry);
+        this.failed = Counter.builder("chattalk.scheduled.fired")
+                .tag("outcome", "failed")
+                .description("Scheduled messages fired")
+                .register(meterRegistry);
+        Gauge.builder("chattalk.scheduled.pending", wheel, w -> {
+                    synchronized (w) {
+                        return w.size();
+                    }
+                })
+                .description("Scheduled messages waiting in the timing wheel")
+                .register(meterRegistry);
+    }
+
+    @Transactional
+    public ScheduledMessageDTO schedule( Long chatId, ScheduleMessageRequest request, Long userId ) {
+        if (request == null || request.getContent() == null || request.getContent().isBlank() || request.getSendAt() == null) {
+            throw new IllegalArgumentException("content and sendAt are required");
+        }
+        if (!chatRepository.existsById(chatId)) {
+            throw new ResourceNotFoundException("Chat not found: " + chatId);
+        }
+        if (!chatRepository.isUserInChat(chatId, userId)) {
+            throw new IllegalArgumentException("User is not a participant in this chat");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!request.getSendAt().isAfter(now)) {
+            throw new IllegalArgumentException("sendAt must be in the future");
+        }
+        if (request.getSendAt().isAfter(now.plusDays(maxDelayDays))) {
+            throw new IllegalArgumentException("sendAt must be within " + maxDelayDays + " days");
+        }
+        // Every pending row sits in the wheel until it fires, so one user cannot file an unbounded number of them
+        if (scheduledMessageRepository.countBySenderIdAndStatusIn(userId, LIVE) >= maxPendingPerUser) {
+            throw new IllegalArgumentException("At most " + maxPendingPerUser + " scheduled messages can be pending");
+        }
+
+        ScheduledMessage scheduled = scheduledMessageRepository.save(ScheduledMessage.builder()
+                .chatId(chatId)
+                .senderId(userId)
+                .content(request.getContent())
+                .sendAt(request.getSendAt())
+                .createdAt(now)
+                .build());
+        Long id = scheduled.getId();
+        long dueMillis = toMillis(scheduled.getSendAt());
+        // Only a committed row goes on the wheel
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(id, dueMillis);
+                }
+            });
+        } else {
+            enqueue(id, dueMillis);
+        }
+        return toDto(scheduled);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ScheduledMessageDTO> pending( Long chatId, Long userId ) {
+        return scheduledMessageRepository.findBySenderIdAndChatIdAndStatusOrderBySendAtAsc(userId, chatId, ScheduledMessageStatus.PENDING)
+                .stream()
+                .map(this::toDto)
+                .toList();
+    }
+
+    /**
+     * Cancels a pending message of the caller. Its wheel entry stays and is dropped when it comes due.
+     */
+    @Transactional
+    public void cancel( Long chatId, Long scheduledId, Long userId ) {
+        ScheduledMessage scheduled = scheduledMessageRepository.findById(scheduledId)
+                .filter(message -> message.getChatId().equals(chatId))
+                .orElseThrow(() -> new ResourceNotFoundException("Scheduled message not found: " + scheduledId));
+        if (!scheduled.getSenderId().equals(userId)) {
+            throw new AccessDeniedException("Not allowed to cancel others' scheduled messages");
+        }
+        if (scheduledMessageRepository.transition(List.of(scheduledId), ScheduledMessageStatus.PENDING, ScheduledMessageStatus.CANCELLED) == 0) {
+            throw new IllegalArgumentException("Scheduled message is no longer pending");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        log.info("Loaded {} scheduled messages onto the timing wheel", reload());
+        ticker = new Thread(this::tick, "scheduled-messages");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * Files every pending (or interrupted) scheduled message on the wheel, reading the table page by page.
+     * A message that is already on the wheel is still sent once, since firing claims the row.
+     */
+    public long reload() {
+        long loaded = 0;
+        long afterId = 0;
+        List<Object[]> page;
+        do {
+            page = scheduledMessageRepository.findDueTimesAfter(LIVE, afterId, PageRequest.of(0, reloadPageSize));
+            for (Object[] row : page) {
+                enqueue((Long) row[0], toMillis((LocalDateTime) row[1]));
+                afterId = (Long) row[0];
+            }
+            loaded += page.size();
+        } while (page.size() == reloadPageSize);
+        return loaded;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (ticker != null) {
+            ticker.interrupt();
+        }
+    }
+
+    /**
+     * Advances the wheel to now and fires everything that came due, {@code batch-size} messages at a time
+     */
+    private void fireDue() {
+        List<Long> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advanceTo(System.currentTimeMillis(), due);
+        }
+        for (int from = 0; from < due.size(); from += batchSize) {
+            fireBatch(due.subList(from, Math.min(from + batchSize, due.size())));
+        }
+    }
+
+    private void tick() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(tickMillis);
+                fireDue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Scheduled message tick failed", e);
+            }
+        }
+    }
+
+    private void fireBatch( List<Long> ids ) {
+        // Claimed in one statement; cancelled rows are not claimed, and rows interrupted while firing are picked up again
+        List<ScheduledMessage> claimed = transactionTemplate.execute(status -> {
+            scheduledMessageRepository.transition(ids, ScheduledMessageStatus.PENDING, ScheduledMessageStatus.FIRING);
+            return scheduledMessageRepository.findByIdInAndStatus(ids, ScheduledMessageStatus.FIRING);
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return;
+        }
+
+        List<Runnable> outcomes = new ArrayList<>(claimed.size());
+        for (ScheduledMessage scheduled : claimed) {
+            LocalDateTime firedAt = LocalDateTime.now();
+            try {
+                MessageDTO message = messageService.sendMessage(SendMessageRequest.builder()
+                        .chatId(scheduled.getChatId())
+                        .content(scheduled.getContent())
+                        .clientMessageId("scheduled-" + scheduled.getId())
+                        .build(), scheduled.getSenderId());
+                sent.increment();
+                outcomes.add(() -> scheduledMessageRepository.complete(scheduled.getId(), ScheduledMessageStatus.SENT, message.getMessageId(), null, firedAt));
+            } catch (RuntimeException e) {
+                // e.g. the sender left the chat or the chat is gone
+                failed.increment();
+                log.warn("Scheduled message {} could not be sent: {}", scheduled.getId(), e.getMessage());
+                String error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+                outcomes.add(() -> scheduledMessageRepository.complete(scheduled.getId(), ScheduledMessageStatus.FAILED, null,
+                        error.length() > 1000 ? error.substring(0, 1000) : error, firedAt));
+            }
+            firingLag.record(Math.max(0, ChronoUnit.MILLIS.between(scheduled.getSendAt(), firedAt)), TimeUnit.MILLISECONDS);
+        }
+        transactionTemplate.executeWithoutResult(status -> outcomes.forEach(Runnable::run));
+    }
+
+    private void enqueue( Long id, long dueMillis ) {
+        synchronized (wheel) {
+            wheel.add(dueMillis, id);
+        }
+    }
+
+    private static long toMillis( LocalDateTime time ) {
+        Instant instant = time.atZone(ZoneId.systemDefault()).toInstant();
+        // Sub-millisecond parts round up as well
+        return instant.toEpochMilli() + (instant.getNano() % 1_000_000 == 0 ? 0 : 1);
+    }
+
+    private ScheduledMessageDTO toDto( ScheduledMessage scheduled ) {
+        return ScheduledMessageDTO.builder()
+                .id(scheduled.getId())
+                .chatId(scheduled.getChatId())
+                .content(scheduled.getContent())
+                .sendAt(scheduled.getSendAt())
+                .status(scheduled.getStatus().name())
+                .messageId(scheduled.getMessageId())
+                .error(scheduled.getError())
+                .createdAt(scheduled.getCreatedAt())
+                .sentAt(scheduled.getSentAt())
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.system.chattalk_serverside.service.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical hashed timing wheel. Level 0 has one slot per tick; each higher level has slots as wide as
+ * a whole turn of the level below. Adding is O(1), and advancing one tick drains one slot plus, when a lower
+ * level wraps, moves one slot of the level above down, so the cost does not depend on how many timers are pending.
+ * <p>
+ * Not thread-safe; callers synchronize.
+ */
+public class TimingWheel<T> {
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final List<Entry<T>>[][] levels;
+    private final long maxDelta;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param slotsPerLevel a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel( long tickMillis, int slotsPerLevel, int levelCount, long startMillis ) {
+        if (Integer.bitCount(slotsPerLevel) != 1) {
+            throw new IllegalArgumentException("slotsPerLevel must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = Integer.numberOfTrailingZeros(slotsPerLevel);
+        this.mask = slotsPerLevel - 1;
+        this.levels = new List[levelCount][slotsPerLevel];
+        // Later deadlines are parked in the last slot reachable from now and re-filed when it comes round
+        this.maxDelta = bits * levelCount >= 63 ? Long.MAX_VALUE : (1L << (bits * levelCount)) - 1;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Files an item due at {@code dueMillis}. Items already due are returned by the next {@link #advanceTo}.
+     */
+    public void add( long dueMillis, T item ) {
+        // Rounded up to a whole tick, so nothing expires early
+        file(new Entry<>(Math.max(Math.ceilDiv(dueMillis, tickMillis), currentTick), item));
+        size++;
+    }
+
+    /**
+     * Moves the wheel up to {@code nowMillis} and hands every item that came due to {@code expired}
+     */
+    public void advanceTo( long nowMillis, List<T> expired ) {
+        long targetTick = nowMillis / tickMillis;
+        drain(levels[0][(int) (currentTick & mask)], expired);
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Highest level first, so entries moved down land in slots that are moved next
+            for (int level = levels.length - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    int slot = (int) ((currentTick >>> (bits * level)) & mask);
+                    List<Entry<T>> cascaded = levels[level][slot];
+                    if (cascaded != null) {
+                        levels[level][slot] = null;
+                        cascaded.forEach(this::file);
+                    }
+                }
+            }
+            drain(levels[0][(int) (currentTick & mask)], expired);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long currentMillis() {
+        return currentTick * tickMillis;
+    }
+
+    private void file( Entry<T> entry ) {
+        long delta = Math.min(entry.dueTick() - currentTick, maxDelta);
+        int level = 0;
+        while (level < levels.length - 1 && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        long slotTick = currentTick + delta;
+        int slot = (int) ((slotTick >>> (bits * level)) & mask);
+        List<Entry<T>> entries = levels[level][slot];
+        if (entries == null) {
+            entries = new ArrayList<>(4);
+            levels[level][slot] = entries;
+        }
+        entries.add(entry);
+    }
+
+    private void drain( List<Entry<T>> slot, List<T> expired ) {
+        if (slot == null || slot.isEmpty()) {
+            return;
+        }
+        List<Entry<T>> due = new ArrayList<>(slot);
+        slot.clear();
+        for (Entry<T> entry : due) {
+            if (entry.dueTick() <= currentTick) {
+                expired.add(entry.item());
+                size--;
+            } else {
+                file(entry);
+            }
+        }
+    }
+
+    private record Entry<T>(long dueTick, T item) {
+    }
+}
@@ -0,0 +1,250 @@
+package com.system.chattalk_serverside.service.Stats;
+
+import com.system.chattalk_serverside.dto.StatsDto.ChatStatsDTO;
+import com.system.chattalk_serverside.dto.StatsDto.DailyStatsDTO;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatSenderStats;
+import com.system.chattalk_serverside.model.ChatStats;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.repository.ChatSenderStatsRepository;
+import com.system.chattalk_serverside.repository.ChatStatsRepository;
+import com.system.chattalk_serverside.repository.UserDailyStatsRepository;
+import com.system.chattalk_serverside.service.Message.MessageArchive;
+import com.system.chattalk_serverside.service.Message.MessageStore;
+import lombok.extern.slf4j.Slf4j;
+import com.system.chattalk_serverside.utils.SqlUpserts;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Message statistics kept as counters instead of being counted from the {@code messages} table:
+ * per chat (message count, last activity), per sender within a chat, and per user per day.
+ * Senders call {@link #recordSent} / {@link #recordDeleted} in their own transaction <em>before</em> writing
+ * the messages, so the counters commit (or roll back) together with them.
+ * <p>
+ * A chat without a row yet (created before rollups existed, or forgotten after a bulk delete) is seeded
+ * from the store and the archive by the first writer, inside the caller's transaction, through
+ * {@link SqlUpserts#insertIfAbsent}; if a concurrent transaction seeded it first, that row is kept. The caller's
+ * change is not written yet, so it is applied on top either way. Reads seed the same way, except in a read-only
+ * transaction, where they count without writing anything.
+ * Daily counters are not backfilled.
+ */
+@Slf4j
+@Service
+public class MessageRollups {
+    private static final LocalDateTime ARCHIVE_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlUpserts sqlUpserts;
+    private final MessageStore messageStore;
+    private final MessageArchive messageArchive;
+    private final ChatStatsRepository chatStatsRepository;
+    private final ChatSenderStatsRepository chatSenderStatsRepository;
+    private final UserDailyStatsRepository userDailyStatsRepository;
+
+    public MessageRollups( JdbcTemplate jdbcTemplate,
+                           SqlUpserts sqlUpserts,
+                           MessageStore messageStore,
+                           MessageArchive messageArchive,
+                           ChatStatsRepository chatStatsRepository,
+                           ChatSenderStatsRepository chatSenderStatsRepository,
+                           UserDailyStatsRepository userDailyStatsRepository ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlUpserts = sqlUpserts;
+        this.messageStore = messageStore;
+        this.messageArchive = messageArchive;
+        this.chatStatsRepository = chatStatsRepository;
+        this.chatSenderStatsRepository = chatSenderStatsRepository;
+        this.userDailyStatsRepository = userDailyStatsRepository;
+    }
+
+    /**
+     * Counts messages about to be stored; a missing creation time counts as now
+     */
+    public void recordSent( Collection<Message> messages ) {
+        apply(messages, 1);
+    }
+
+    /**
+     * Uncounts messages about to be deleted. Last activity stays where it is.
+     */
+    public void recordDeleted( Collection<Message> messages ) {
+        apply(messages, -1);
+    }
+
+    /**
+     * Drops the counters of chats whose messages were removed in bulk; they are seeded again on next use
+     */
+    public void forgetChats( Collection<Long> chatIds ) {
+        for (Long chatId : chatIds) {
+            jdbcTemplate.update("DELETE FROM chat_sender_stats WHERE chat_id = ?", chatId);
+            jdbcTemplate.update("DELETE FROM chat_stats WHERE chat_id = ?", chatId);
+        }
+    }
+
+    /**
+     * Drops everything counted for a removed user, including the chats they wrote in
+     */
+    public void forgetUser( Long userId, Collection<Long> chatIds ) {
+        forgetChats(chatIds);
+        jdbcTemplate.update("DELETE FROM chat_sender_stats WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM user_daily_stats WHERE user_id = ?", userId);
+    }
+
+    @Transactional
+    public long messageCount( Long chatId ) {
+        return chatStatsRepository.findById(chatId)
+                .map(ChatStats::getMessageCount)
+                .orElseGet(() -> seedForRead(chatId).messageCount());
+    }
+
+    @Transactional
+    public ChatStatsDTO chatStats( Long chatId ) {
+        ChatStats stats = chatStatsRepository.findById(chatId).orElse(null);
+        if (stats == null) {
+            Snapshot snapshot = seedForRead(chatId);
+            return ChatStatsDTO.builder()
+                    .chatId(chatId)
+                    .messageCount(snapshot.messageCount())
+                    .lastActivityAt(snapshot.lastActivityAt())
+                    .messagesBySender(snapshot.bySender())
+                    .build();
+        }
+        Map<Long, Long> bySender = new LinkedHashMap<>();
+        for (ChatSenderStats sender : chatSenderStatsRepository.findByChatIdOrderByMessageCountDesc(chatId)) {
+            if (sender.getMessageCount() > 0) {
+                bySender.put(sender.getUserId(), sender.getMessageCount());
+            }
+        }
+        return ChatStatsDTO.builder()
+                .chatId(chatId)
+                .messageCount(stats.getMessageCount())
+                .lastActivityAt(stats.getLastActivityAt())
+                .messagesBySender(bySender)
+                .build();
+    }
+
+    /**
+     * Days in {@code [from, to]} on which the user sent messages, oldest first
+     */
+    public List<DailyStatsDTO> dailyStats( Long userId, LocalDate from, LocalDate to ) {
+        return userDailyStatsRepository.findByUserIdAndActivityDateBetweenOrderByActivityDateAsc(userId, from, to).stream()
+                .filter(day -> day.getMessagesSent() > 0)
+                .map(day -> DailyStatsDTO.builder().date(day.getActivityDate()).messagesSent(day.getMessagesSent()).build())
+                .toList();
+    }
+
+    private void apply( Collection<Message> messages, int sign ) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        // Sorted keys so concurrent writers lock rows in the same order
+        Map<Long, Map<Long, Long>> bySenderByChat = new TreeMap<>();
+        Map<Long, LocalDateTime> latestByChat = new HashMap<>();
+        Map<Long, Map<LocalDate, Long>> byDayByUser = new TreeMap<>();
+        for (Message message : messages) {
+            Long chatId = message.getChat().getId();
+            Long senderId = message.getSender().getId();
+            LocalDateTime createdAt = message.getCreatedAt() != null ? message.getCreatedAt() : now;
+            bySenderByChat.computeIfAbsent(chatId, id -> new TreeMap<>()).merge(senderId, 1L, Long::sum);
+            latestByChat.merge(chatId, createdAt, ( a, b ) -> a.isAfter(b) ? a : b);
+            byDayByUser.computeIfAbsent(senderId, id -> new TreeMap<>()).merge(createdAt.toLocalDate(), 1L, Long::sum);
+        }
+
+        bySenderByChat.forEach(( chatId, bySender ) -> {
+            long total = bySender.values().stream().mapToLong(Long::longValue).sum();
+            Timestamp latest = Timestamp.valueOf(latestByChat.get(chatId));
+            Object[] chatArgs = sign > 0 ? new Object[]{total, latest, latest, chatId} : new Object[]{total, chatId};
+            String chatUpdate = sign > 0
+                    ? """
+                    UPDATE chat_stats SET message_count = message_count + ?,
+                        last_activity_at = CASE WHEN last_activity_at IS NULL OR last_activity_at < ? THEN ? ELSE last_activity_at END
+                    WHERE chat_id = ?
+                    """
+                    : "UPDATE chat_stats SET message_count = GREATEST(message_count - ?, 0) WHERE chat_id = ?";
+            if (jdbcTemplate.update(chatUpdate, chatArgs) == 0) {
+                seedChat(chatId);
+                jdbcTemplate.update(chatUpdate, chatArgs);
+            }
+            // Seeding wrote a row for every sender that already had messages; a missing one starts from zero
+            bySender.forEach(( senderId, count ) -> increment(
+                    "UPDATE chat_sender_stats SET message_count = GREATEST(message_count + ?, 0) WHERE chat_id = ? AND user_id = ?",
+                    new Object[]{sign * count, chatId, senderId},
+                    "chat_sender_stats", List.of("chat_id", "user_id", "message_count"), chatId, senderId,
+                    sign > 0));
+        });
+
+        byDayByUser.forEach(( userId, byDay ) -> byDay.forEach(( day, count ) -> increment(
+                "UPDATE user_daily_stats SET messages_sent = GREATEST(messages_sent + ?, 0) WHERE user_id = ? AND activity_date = ?",
+                new Object[]{sign * count, userId, Date.valueOf(day)},
+                "user_daily_stats", List.of("user_id", "activity_date", "messages_sent"), userId, Date.valueOf(day),
+                sign > 0)));
+    }
+
+    /**
+     * Runs the update; when no row matched and {@code create} is set, inserts the zero row
+     * (a concurrent insert of the same key wins harmlessly) and runs it again
+     */
+    private void increment( String update, Object[] updateArgs, String table, List<String> columns, Object firstKey, Object secondKey, boolean create ) {
+        if (jdbcTemplate.update(update, updateArgs) > 0 || !create) {
+            return;
+        }
+        sqlUpserts.insertIfAbsent(table, 2, columns, firstKey, secondKey, 0L);
+        jdbcTemplate.update(update, updateArgs);
+    }
+
+    private Snapshot seedForRead( Long chatId ) {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? count(chatId) : seedChat(chatId);
+    }
+
+    /**
+     * Counts a chat's stored and archived messages and writes its rows, unless someone else already did
+     */
+    private Snapshot seedChat( Long chatId ) {
+        Snapshot counted = count(chatId);
+        if (!sqlUpserts.insertIfAbsent("chat_stats", 1, List.of("chat_id", "message_count", "last_activity_at"),
+                chatId, counted.messageCount(), counted.lastActivityAt() == null ? null : Timestamp.valueOf(counted.lastActivityAt()))) {
+            log.debug("Rollups of chat {} were seeded concurrently", chatId);
+            return counted;
+        }
+        counted.bySender().forEach(( senderId, count ) ->
+                sqlUpserts.insertIfAbsent("chat_sender_stats", 2, List.of("chat_id", "user_id", "message_count"), chatId, senderId, count));
+        log.debug("Seeded rollups of chat {} with {} messages", chatId, counted.messageCount());
+        return counted;
+    }
+
+    private Snapshot count( Long chatId ) {
+        Chat chat = Chat.builder().id(chatId).build();
+        Map<Long, Long> bySender = new HashMap<>(messageStore.countBySenderInChat(chatId));
+        LocalDateTime[] latest = {null};
+        messageArchive.forEachInRange(chat, ARCHIVE_START, LocalDateTime.now().plusDays(1), message -> {
+            bySender.merge(message.getSender().getId(), 1L, Long::sum);
+            if (latest[0] == null || message.getCreatedAt().isAfter(latest[0])) {
+                latest[0] = message.getCreatedAt();
+            }
+        });
+        // Archived messages are always older than stored ones
+        Message newest = messageStore.findLatest(chat);
+        if (newest != null) {
+            latest[0] = newest.getCreatedAt();
+        }
+        return new Snapshot(bySender.values().stream().mapToLong(Long::longValue).sum(), latest[0], bySender);
+    }
+
+    private record Snapshot(long messageCount, LocalDateTime lastActivityAt, Map<Long, Long> bySender) {
+    }
+}
@@ -1,8 +1,15 @@
 package com.system.chattalk_serverside.service.User;
 
 import com.system.chattalk_serverside.enums.UserStatus;
+import com.system.chattalk_serverside.enums.VersionedResource;
 import com.system.chattalk_serverside.model.*;
 import com.system.chattalk_serverside.repository.*;
+import com.system.chattalk_serverside.service.Events.UserEventSequences;
+import com.system.chattalk_serverside.service.Message.MessageArchive;
+import com.system.chattalk_serverside.service.Message.MessageStore;
+import com.system.chattalk_serverside.service.Notification.NotificationCounters;
+import com.system.chattalk_serverside.service.Stats.MessageRollups;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -22,9 +29,15 @@ public class UserDeletionService {
     private final UserRepository userRepository;
     private final FriendRequestRepository friendRequestRepository;
     private final ChatParticipationRepository chatParticipationRepository;
-    private final MessageRepository messageRepository;
+    private final MessageStore messageStore;
+    private final MessageArchive messageArchive;
     private final NotificationRepository notificationRepository;
     private final ChatRepository chatRepository;
+    private final UserEventRepository userEventRepository;
+    private final ResourceVersions resourceVersions;
+    private final MessageRollups messageRollups;
+    private final NotificationCounters notificationCounters;
+    private final UserEventSequences userEventSequences;
 
     /**
      * Soft delete user account - marks user as deleted but keeps data for referential integrity
@@ -35,6 +48,7 @@ public class UserDeletionService {
                 .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
 
         log.info("Starting soft deletion for user: {} ({})", user.getEmail(), userId);
+        accountRemoved(user);
 
         // 1. Mark user as deleted
         user.setStatus(UserStatus.DELETED);
@@ -70,15 +84,17 @@ public class UserDeletionService {
         }
 
         // 4. Handle messages - anonymize sender
-        List<Message> userMessages = messageRepository.findBySenderId(userId);
+        // Messages may be spread over every shard
+        List<Message> userMessages = messageStore.findBySender(userId);
         for (Message message : userMessages) {
             message.setContent("[Message from deleted user]");
-            messageRepository.save(message);
+            messageStore.save(message);
         }
 
         // 5. Delete user's notifications
-        List<Notification> userNotifications = notificationRepository.findByUserId(userId);
-        notificationRepository.deleteAll(userNotifications);
+        notificationRepository.deleteAllByUserId(userId);
+        notificationCounters.forget(userId);
+        userEventRepository.deleteByUserId(userId);
 
         log.info("Soft deletion completed for user: {} ({})", user.getEmail(), userId);
     }
@@ -93,14 +109,21 @@ public class UserDeletionService {
                 .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
 
         log.info("Starting hard deletion for user: {} ({})", user.getEmail(), userId);
+        accountRemoved(user);
 
         // 1. Delete user's notifications
-        List<Notification> userNotifications = notificationRepository.findByUserId(userId);
-        notificationRepository.deleteAll(userNotifications);
-
-        // 2. Delete user's messages
-        List<Message> userMessages = messageRepository.findBySenderId(userId);
-        messageRepository.deleteAll(userMessages);
+        notificationRepository.deleteAllByUserId(userId);
+        notificationCounters.forget(userId);
+        userEventRepository.deleteByUserId(userId);
+        userEventSequences.forget(userId);
+
+        // 2. Delete user's messages, archived ones included; the chats they wrote in are rolled up again on next use
+        List<Long> chatIds = chatParticipationRepository.findByUserId(userId).stream()
+                .map(participation -> participation.getChat().getId())
+                .toList();
+        messageRollups.forgetUser(userId, chatIds);
+        messageStore.deleteBySender(userId);
+        messageArchive.deleteBySender(chatIds, userId);
 
         // 3. Delete chat participations
         List<ChatParticipation> participations = chatParticipationRepository.findByUserId(userId);
@@ -119,6 +142,9 @@ public class UserDeletionService {
                 // Check if chat has other participants
                 long participantCount = chatParticipationRepository.countByChatId(chat.getId());
                 if (participantCount <= 1) {
+                    messageRollups.forgetChats(List.of(chat.getId()));
+                    messageStore.deleteByChat(chat.getId());
+                    messageArchive.purgeChat(chat.getId());
                     chatRepository.delete(chat);
                 }
             }
@@ -156,4 +182,14 @@ public class UserDeletionService {
         
         return true;
     }
+
+    /**
+     * Contacts and chat partners stop seeing the user; collected before the rows change
+     */
+    private void accountRemoved( User user ) {
+        resourceVersions.profileChanged(user);
+        for (ChatParticipation participation : chatParticipationRepository.findByUserId(user.getId())) {
+            resourceVersions.changed(chatRepository.getChatParticipantEmails(participation.getChat().getId()), VersionedResource.CHATS);
+        }
+    }
 }
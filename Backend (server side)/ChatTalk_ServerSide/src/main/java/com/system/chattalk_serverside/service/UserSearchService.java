@@ -7,6 +7,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class UserSearchService {
@@ -17,6 +18,7 @@ public class UserSearchService {
         this.userRepository = userRepository;
     }
 
+    @Transactional(readOnly = true)
     public Page<SearchUserResultDTO> searchForNewFriends(String query, Long currentUserId, int page, int size) {
         System.out.println("query: " + query);
         Pageable pageable = PageRequest.of(page, size);
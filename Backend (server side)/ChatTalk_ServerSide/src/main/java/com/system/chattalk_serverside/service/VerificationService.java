@@ -3,11 +3,11 @@ package com.system.chattalk_serverside.service;
 import com.system.chattalk_serverside.model.VerificationCode;
 import com.system.chattalk_serverside.repository.VerificationCodeRepository;
 import com.system.chattalk_serverside.utils.AppMailService;
-import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
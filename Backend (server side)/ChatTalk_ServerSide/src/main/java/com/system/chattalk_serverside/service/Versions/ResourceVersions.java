@@ -0,0 +1,109 @@
+package com.system.chattalk_serverside.service.Versions;
+
+import com.system.chattalk_serverside.enums.VersionedResource;
+import com.system.chattalk_serverside.model.FriendRequest;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.FriendRequestRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Change counters per user and resource, used as ETags so an unchanged list is answered with 304
+ * before any query runs. Versions come from one node-wide clock and are bumped after the writing
+ * transaction commits; the tag also carries the node start time, so a restart invalidates every tag.
+ * Counters live in memory, like the simple STOMP broker, so this assumes a single backend node.
+ */
+@Component
+public class ResourceVersions {
+    /** Clients must revalidate every time; responses are per user */
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final FriendRequestRepository friendRequestRepository;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, long[]> versions;
+    private long clock;
+    // Highest version any evicted user may have had; users without an entry report it
+    private long floor;
+
+    public ResourceVersions( FriendRequestRepository friendRequestRepository,
+                             @Value("${http.etag.max-users:100000}") int maxUsers ) {
+        this.friendRequestRepository = friendRequestRepository;
+        this.versions = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, long[]> eldest ) {
+                if (size() > maxUsers) {
+                    floor = clock;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public String etag( String email, VersionedResource resource ) {
+        long version;
+        synchronized (versions) {
+            long[] userVersions = versions.get(email);
+            version = userVersions == null ? floor : userVersions[resource.ordinal()];
+        }
+        return "W/\"" + epoch + "-" + Long.toString(version, 36) + "\"";
+    }
+
+    public void changed( String email, VersionedResource... resources ) {
+        changed(List.of(email), resources);
+    }
+
+    public void changed( Collection<String> emails, VersionedResource... resources ) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        List<String> affected = List.copyOf(emails);
+        // Bumping before commit would let a concurrent read tag the old rows with the new version
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(affected, resources);
+                }
+            });
+        } else {
+            bump(affected, resources);
+        }
+    }
+
+    /**
+     * Profile or presence of a user changed: their own profile, and the friend and pending-request
+     * lists of everyone who sees them there
+     */
+    public void profileChanged( User user ) {
+        changed(user.getEmail(), VersionedResource.PROFILE);
+        changed(friendRequestRepository.findContactEmails(user.getId(), FriendRequest.RequestStatus.ACCEPTED, FriendRequest.RequestStatus.PENDING),
+                VersionedResource.FRIENDS, VersionedResource.PENDING_REQUESTS);
+    }
+
+    private void bump( List<String> emails, VersionedResource[] resources ) {
+        synchronized (versions) {
+            long version = ++clock;
+            for (String email : emails) {
+                long[] userVersions = versions.get(email);
+                if (userVersions == null) {
+                    userVersions = new long[VersionedResource.values().length];
+                    Arrays.fill(userVersions, floor);
+                    versions.put(email, userVersions);
+                }
+                for (VersionedResource resource : resources) {
+                    userVersions[resource.ordinal()] = version;
+                }
+            }
+        }
+    }
+}
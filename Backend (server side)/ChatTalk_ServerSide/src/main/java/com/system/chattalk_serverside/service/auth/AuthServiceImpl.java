@@ -6,9 +6,9 @@ import com.system.chattalk_serverside.exception.UserNotFoundException;
 import com.system.chattalk_serverside.model.User;
 import com.system.chattalk_serverside.repository.UserRepository;
 import com.system.chattalk_serverside.service.VerificationService;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
 import com.system.chattalk_serverside.utils.TokenManager;
 import com.system.chattalk_serverside.mapper.UserMapper;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.*;
@@ -16,6 +16,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 
@@ -31,6 +32,7 @@ public class AuthServiceImpl implements AuthService {
     private final AuthenticationManager authenticationManager;
     private final VerificationService verificationService;
     private final UserMapper userMapper;
+    private final ResourceVersions resourceVersions;
 
     @Override
     public AuthResponse register(RegisterRequest request){
@@ -70,6 +72,7 @@ public class AuthServiceImpl implements AuthService {
             user.setIsOnline(true);
             user.setLastSeen(LocalDateTime.now());
             userRepository.save(user);
+            resourceVersions.profileChanged(user);
 
             return generateAuthResponse(user);
         } catch (BadCredentialsException e) {
@@ -117,6 +120,7 @@ public class AuthServiceImpl implements AuthService {
             user.setIsOnline(false);
             user.setLastSeen(LocalDateTime.now());
             userRepository.save(user);
+            resourceVersions.profileChanged(user);
         });
     }
 
@@ -0,0 +1,64 @@
+package com.system.chattalk_serverside.utils;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Insert-if-absent for counter rows that are created on first use, run in the caller's transaction on the caller's connection.
+ * PostgreSQL gets {@code INSERT ... ON CONFLICT DO NOTHING}, which waits for a concurrent insert of the same key to commit
+ * instead of failing; other databases (H2 in tests) get the standard {@code MERGE}, which fails with a duplicate key
+ * when that insert commits first, and is then reported as not inserted like a conflict.
+ */
+@Component
+public class SqlUpserts {
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    public SqlUpserts( JdbcTemplate jdbcTemplate ) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts one row unless a row with the same key exists; returns whether this call inserted it.
+     * The key columns come first in {@code columns}, and {@code values} follow the same order.
+     */
+    public boolean insertIfAbsent( String table, int keyColumns, List<String> columns, Object... values ) {
+        try {
+            return jdbcTemplate.update(insertIfAbsentSql(table, keyColumns, columns), values) > 0;
+        } catch (DuplicateKeyException e) {
+            if (isPostgres()) {
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    String insertIfAbsentSql( String table, int keyColumns, List<String> columns ) {
+        String names = String.join(", ", columns);
+        String placeholders = String.join(", ", Collections.nCopies(columns.size(), "?"));
+        List<String> keys = columns.subList(0, keyColumns);
+        if (isPostgres()) {
+            return "INSERT INTO %s (%s) VALUES (%s) ON CONFLICT (%s) DO NOTHING".formatted(table, names, placeholders, String.join(", ", keys));
+        }
+        return "MERGE INTO %s t USING (VALUES (%s)) AS s (%s) ON %s WHEN NOT MATCHED THEN INSERT (%s) VALUES (%s)".formatted(
+                table, placeholders, names,
+                keys.stream().map(key -> "t." + key + " = s." + key).collect(Collectors.joining(" AND ")),
+                names,
+                columns.stream().map(column -> "s." + column).collect(Collectors.joining(", ")));
+    }
+
+    private boolean isPostgres() {
+        Boolean known = postgres;
+        if (known == null) {
+            known = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            postgres = known;
+        }
+        return Boolean.TRUE.equals(known);
+    }
+}
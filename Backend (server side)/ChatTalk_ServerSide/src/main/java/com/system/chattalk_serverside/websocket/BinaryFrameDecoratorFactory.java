@@ -0,0 +1,62 @@
+package com.system.chattalk_serverside.websocket;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.IOException;
+
+/**
+ * STOMP frames are written as WebSocket text messages unless the body is {@code application/octet-stream},
+ * and the container decodes text messages as UTF-8. Sessions that negotiated a binary payload encoding
+ * therefore get every frame as a binary WebSocket message so the encoded body reaches the client intact.
+ * SockJS cannot carry binary frames, so its sessions are registered as text-only and never switch away from JSON.
+ */
+@Component
+public class BinaryFrameDecoratorFactory implements WebSocketHandlerDecoratorFactory {
+    private final PayloadEncodingRegistry encodingRegistry;
+
+    public BinaryFrameDecoratorFactory( PayloadEncodingRegistry encodingRegistry ) {
+        this.encodingRegistry = encodingRegistry;
+    }
+
+    @Override
+    public WebSocketHandler decorate( WebSocketHandler handler ) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished( WebSocketSession session ) throws Exception {
+                // SockJS transports are text-only, so such sessions are kept on JSON
+                if (WebSocketSessionDecorator.unwrap(session) instanceof SockJsSession) {
+                    encodingRegistry.markTextOnly(session.getId());
+                    super.afterConnectionEstablished(session);
+                    return;
+                }
+                super.afterConnectionEstablished(new BinaryFrameSession(session));
+            }
+        };
+    }
+
+    private class BinaryFrameSession extends WebSocketSessionDecorator {
+        BinaryFrameSession( WebSocketSession session ) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage( WebSocketMessage<?> message ) throws IOException {
+            if (message instanceof TextMessage text && encodingRegistry.hasCustomEncodings()
+                    && !MimeTypeUtils.APPLICATION_JSON.equalsTypeAndSubtype(encodingRegistry.encodingFor(getId()))) {
+                super.sendMessage(new BinaryMessage(text.asBytes(), text.isLast()));
+                return;
+            }
+            super.sendMessage(message);
+        }
+    }
+}
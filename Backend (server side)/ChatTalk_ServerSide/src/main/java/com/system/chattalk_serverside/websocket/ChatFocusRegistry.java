@@ -0,0 +1,79 @@
+package com.system.chattalk_serverside.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which chat each STOMP session has open, as reported by the client's focus messages. A user counts as viewing
+ * a chat while any of their sessions has it focused; new messages there need no notification.
+ * Sessions that never sent a focus message are not tracked.
+ */
+@Slf4j
+@Component
+public class ChatFocusRegistry {
+    // user -> session -> focused chat; a user's sessions are only changed inside compute, so a blur that empties
+    // the map cannot drop a focus that is being added at the same time
+    private final Map<String, Map<String, Long>> focusByUser = new ConcurrentHashMap<>();
+    private final Map<String, String> userBySession = new ConcurrentHashMap<>();
+    private final boolean markReadOnFocus;
+
+    public ChatFocusRegistry( @Value("${messages.focus.mark-read:false}") boolean markReadOnFocus ) {
+        this.markReadOnFocus = markReadOnFocus;
+    }
+
+    /**
+     * Records the chat a session is showing; {@code null} means none
+     */
+    public void focus( String sessionId, String user, Long chatId ) {
+        if (sessionId == null || user == null) {
+            return;
+        }
+        if (chatId == null) {
+            blur(sessionId);
+            return;
+        }
+        userBySession.put(sessionId, user);
+        focusByUser.compute(user, ( u, sessions ) -> {
+            Map<String, Long> focused = sessions != null ? sessions : new ConcurrentHashMap<>();
+            focused.put(sessionId, chatId);
+            return focused;
+        });
+        log.debug("Session {} of {} focused chat {}", sessionId, user, chatId);
+    }
+
+    public void blur( String sessionId ) {
+        String user = userBySession.remove(sessionId);
+        if (user != null) {
+            focusByUser.compute(user, ( u, sessions ) -> {
+                if (sessions == null) {
+                    return null;
+                }
+                sessions.remove(sessionId);
+                return sessions.isEmpty() ? null : sessions;
+            });
+        }
+    }
+
+    public boolean isViewing( String user, Long chatId ) {
+        Map<String, Long> sessions = focusByUser.get(user);
+        return sessions != null && sessions.containsValue(chatId);
+    }
+
+    /**
+     * Whether a message whose only reader is viewing its chat is stored as read straight away
+     */
+    public boolean marksReadOnFocus() {
+        return markReadOnFocus;
+    }
+
+    @EventListener
+    public void onDisconnect( SessionDisconnectEvent event ) {
+        blur(event.getSessionId());
+    }
+}
@@ -0,0 +1,31 @@
+package com.system.chattalk_serverside.websocket;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.List;
+
+/**
+ * Handshake handler for the {@code /ws} endpoint.
+ * The servlet container negotiates {@code permessage-deflate} by itself whenever a client offers it;
+ * this handler lets deployments switch that off (e.g. CPU-bound nodes behind a compressing proxy).
+ */
+@Component
+public class CompressionHandshakeHandler extends DefaultHandshakeHandler {
+    public static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    @Value("${websocket.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions( ServerHttpRequest request, List<WebSocketExtension> requestedExtensions, List<WebSocketExtension> supportedExtensions ) {
+        List<WebSocketExtension> extensions = super.filterRequestedExtensions(request, requestedExtensions, supportedExtensions);
+        if (compressionEnabled) {
+            return extensions;
+        }
+        return extensions.stream().filter(extension -> !PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName())).toList();
+    }
+}
@@ -0,0 +1,133 @@
+package com.system.chattalk_serverside.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Records outbound WebSocket frame sizes and, for sessions that negotiated {@code permessage-deflate},
+ * samples the compression ratio and CPU time of deflating a frame.
+ * The container compresses frames itself and does not expose its numbers, so sampled frames are deflated
+ * a second time here with a fresh context; the ratio is therefore a conservative estimate.
+ */
+@Component
+public class CompressionMetricsDecoratorFactory implements WebSocketHandlerDecoratorFactory {
+    private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    private final double sampleRate;
+    private final DistributionSummary compressedFrameSize;
+    private final DistributionSummary plainFrameSize;
+    private final DistributionSummary compressionRatio;
+    private final Timer deflateTime;
+    private final Counter sampledBytesSaved;
+
+    public CompressionMetricsDecoratorFactory( MeterRegistry meterRegistry, @Value("${websocket.compression.metrics.sample-rate:0.05}") double sampleRate ) {
+        this.sampleRate = sampleRate;
+        this.compressedFrameSize = frameSize(meterRegistry, true);
+        this.plainFrameSize = frameSize(meterRegistry, false);
+        this.compressionRatio = DistributionSummary.builder("chattalk.websocket.deflate.ratio")
+                .description("Compressed / uncompressed size of sampled outbound frames")
+                .register(meterRegistry);
+        this.deflateTime = Timer.builder("chattalk.websocket.deflate.time")
+                .description("CPU time spent deflating one sampled outbound frame")
+                .register(meterRegistry);
+        this.sampledBytesSaved = Counter.builder("chattalk.websocket.deflate.saved")
+                .description("Bytes saved by compression across sampled outbound frames")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public WebSocketHandler decorate( WebSocketHandler handler ) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished( WebSocketSession session ) throws Exception {
+                super.afterConnectionEstablished(new MeteredSession(session));
+            }
+        };
+    }
+
+    private static DistributionSummary frameSize( MeterRegistry meterRegistry, boolean compressed ) {
+        return DistributionSummary.builder("chattalk.websocket.outbound.frame.size")
+                .description("Uncompressed size of outbound WebSocket frames")
+                .baseUnit("bytes")
+                .tag("compressed", String.valueOf(compressed))
+                .register(meterRegistry);
+    }
+
+    private void sample( byte[] payload ) {
+        long start = System.nanoTime();
+        int compressedLength = deflatedLength(payload);
+        deflateTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        compressionRatio.record((double) compressedLength / payload.length);
+        sampledBytesSaved.increment(Math.max(0, payload.length - compressedLength));
+    }
+
+    private static int deflatedLength( byte[] payload ) {
+        Deflater deflater = DEFLATERS.get();
+        byte[] buffer = BUFFERS.get();
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                length += deflater.deflate(buffer);
+            }
+            return length;
+        } finally {
+            deflater.reset();
+        }
+    }
+
+    private class MeteredSession extends WebSocketSessionDecorator {
+        private final boolean deflateNegotiated;
+
+        MeteredSession( WebSocketSession session ) {
+            super(session);
+            this.deflateNegotiated = session.getExtensions().stream()
+                    .anyMatch(extension -> CompressionHandshakeHandler.PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()));
+        }
+
+        @Override
+        public void sendMessage( WebSocketMessage<?> message ) throws IOException {
+            int length = message.getPayloadLength();
+            if (length > 0 && !(message instanceof PingMessage || message instanceof PongMessage)) {
+                (deflateNegotiated ? compressedFrameSize : plainFrameSize).record(length);
+                if (deflateNegotiated && sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                    sample(payloadOf(message));
+                }
+            }
+            super.sendMessage(message);
+        }
+
+        private static byte[] payloadOf( WebSocketMessage<?> message ) {
+            if (message instanceof TextMessage text) {
+                return text.asBytes();
+            }
+            ByteBuffer buffer = ((BinaryMessage) message).getPayload().duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        }
+    }
+}
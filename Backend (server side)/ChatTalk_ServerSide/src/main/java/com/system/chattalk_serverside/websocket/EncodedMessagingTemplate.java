@@ -0,0 +1,84 @@
+package com.system.chattalk_serverside.websocket;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Sends {@link EncodedPayload}s to user destinations without going through the broker message converter.
+ * The JSON byte array is shared by every destination and session; when a user has sessions that negotiated
+ * a binary encoding, each session is addressed individually so it receives the matching content-type.
+ */
+@Component
+public class EncodedMessagingTemplate {
+    /** STOMP header carrying the per-user event sequence number, see {@code UserEventLog} */
+    public static final String SEQ_HEADER = "seq";
+
+    private final ObjectProvider<SimpMessagingTemplate> templateProvider;
+    private final ObjectProvider<SimpUserRegistry> userRegistryProvider;
+    private final PayloadEncodingRegistry encodingRegistry;
+
+    public EncodedMessagingTemplate( ObjectProvider<SimpMessagingTemplate> templateProvider, ObjectProvider<SimpUserRegistry> userRegistryProvider, PayloadEncodingRegistry encodingRegistry ) {
+        this.templateProvider = templateProvider;
+        this.userRegistryProvider = userRegistryProvider;
+        this.encodingRegistry = encodingRegistry;
+    }
+
+    public boolean isAvailable() {
+        return templateProvider.getIfAvailable() != null;
+    }
+
+    public void sendToUser( String user, String destination, EncodedPayload payload ) {
+        sendToUser(user, destination, payload, null);
+    }
+
+    public void sendToUser( String user, String destination, EncodedPayload payload, Long seq ) {
+        SimpMessagingTemplate template = templateProvider.getIfAvailable();
+        if (template == null || user == null) {
+            return;
+        }
+        String userDestination = template.getUserDestinationPrefix() + StringUtils.replace(user, "/", "%2F") + destination;
+
+        SimpUser simpUser = encodingRegistry.hasCustomEncodings() ? findUser(user) : null;
+        if (simpUser == null || simpUser.getSessions().stream().noneMatch(this::hasCustomEncoding)) {
+            template.send(userDestination, createMessage(payload.getJson(), MimeTypeUtils.APPLICATION_JSON, null, seq));
+            return;
+        }
+        for (SimpSession session : simpUser.getSessions()) {
+            MimeType contentType = encodingRegistry.encodingFor(session.getId());
+            template.send(userDestination, createMessage(payload.bytesFor(contentType), contentType, session.getId(), seq));
+        }
+    }
+
+    private SimpUser findUser( String user ) {
+        SimpUserRegistry userRegistry = userRegistryProvider.getIfAvailable();
+        return userRegistry != null ? userRegistry.getUser(user) : null;
+    }
+
+    private boolean hasCustomEncoding( SimpSession session ) {
+        return !MimeTypeUtils.APPLICATION_JSON.equalsTypeAndSubtype(encodingRegistry.encodingFor(session.getId()));
+    }
+
+    private static Message<byte[]> createMessage( byte[] body, MimeType contentType, String sessionId, Long seq ) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(contentType);
+        if (sessionId != null) {
+            accessor.setSessionId(sessionId);
+        }
+        if (seq != null) {
+            accessor.setNativeHeader(SEQ_HEADER, seq.toString());
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(body, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,69 @@
+package com.system.chattalk_serverside.websocket;
+
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * A realtime payload serialized once and shared by every destination and session it is sent to.
+ * JSON bytes are produced eagerly; the compact binary form is only produced the first time
+ * an opted-in session asks for it.
+ */
+public final class EncodedPayload {
+    private final Object source;
+    private final byte[] json;
+    private final Function<Object, byte[]> binaryEncoder;
+    private volatile byte[] binary;
+    private volatile String jsonText;
+
+    EncodedPayload( Object source, byte[] json, Function<Object, byte[]> binaryEncoder ) {
+        this.source = source;
+        this.json = json;
+        this.binaryEncoder = binaryEncoder;
+    }
+
+    public Object getSource() {
+        return source;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * JSON as a string, decoded once (racing callers may decode twice, which is harmless)
+     */
+    public String getJsonText() {
+        String result = jsonText;
+        if (result == null) {
+            result = new String(json, StandardCharsets.UTF_8);
+            jsonText = result;
+        }
+        return result;
+    }
+
+    public byte[] getBinary() {
+        byte[] result = binary;
+        if (result == null) {
+            synchronized (this) {
+                result = binary;
+                if (result == null) {
+                    result = binaryEncoder.apply(source);
+                    binary = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Bytes for the given content type, falling back to JSON for anything other than CBOR
+     */
+    public byte[] bytesFor( MimeType contentType ) {
+        if (PayloadEncoder.APPLICATION_CBOR.equalsTypeAndSubtype(contentType)) {
+            return getBinary();
+        }
+        return json;
+    }
+}
@@ -0,0 +1,312 @@
+package com.system.chattalk_serverside.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalesces outbound STOMP frames of one session into a single WebSocket message.
+ * Every STOMP frame already ends with a NUL octet, so a batch is simply the frames written back to back;
+ * STOMP clients split on NUL (Spring's StompDecoder returns every frame in the buffer).
+ * A batch is written when the window elapses after its first frame, or at once when it reaches the byte limit.
+ * <p>
+ * Completed batches wait in a per-session queue that one thread at a time writes out, like Spring's
+ * {@code ConcurrentWebSocketSessionDecorator}: a thread that finds another one writing leaves its batch queued and returns.
+ * The window timer never writes itself: each flush runs on its own virtual thread, so a client that stopped reading
+ * parks only the virtual thread stuck in its write, and no number of such clients can hold up the flushes of others.
+ * A session whose write has been stuck for longer than {@code websocket.send-time-limit-ms} is closed as not reliable
+ * by a periodic check of the timer, whether or not anything else is sent to it; one whose queue grows past
+ * {@code websocket.send-buffer-size-limit} is closed on its next send.
+ */
+@Slf4j
+@Component
+public class OutboundBatchingDecoratorFactory implements WebSocketHandlerDecoratorFactory, DisposableBean {
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxBytes;
+    private final long sendTimeLimitMillis;
+    private final int bufferSizeLimit;
+    private final ScheduledExecutorService flushTimer;
+    private final ExecutorService flushExecutor;
+    private final Set<BatchingSession> sessions = ConcurrentHashMap.newKeySet();
+
+    public OutboundBatchingDecoratorFactory( @Value("${websocket.batching.enabled:true}") boolean enabled,
+                                             @Value("${websocket.batching.window-ms:5}") long windowMillis,
+                                             @Value("${websocket.batching.max-bytes:16384}") int maxBytes,
+                                             @Value("${websocket.send-time-limit-ms:20000}") long sendTimeLimitMillis,
+                                             @Value("${websocket.send-buffer-size-limit:524288}") int bufferSizeLimit ) {
+        this.enabled = enabled && windowMillis > 0;
+        this.windowMillis = windowMillis;
+        this.maxBytes = maxBytes;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.flushTimer = Executors.newSingleThreadScheduledExecutor(daemonThreads("ws-batch-timer"));
+        this.flushExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-batch-flush-", 1).factory());
+        if (this.enabled) {
+            long checkMillis = Math.max(10, sendTimeLimitMillis / 4);
+            flushTimer.scheduleWithFixedDelay(this::closeStuckSessions, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public WebSocketHandler decorate( WebSocketHandler handler ) {
+        if (!enabled) {
+            return handler;
+        }
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished( WebSocketSession session ) throws Exception {
+                // SockJS has its own framing and already batches on polling transports
+                if (WebSocketSessionDecorator.unwrap(session) instanceof SockJsSession) {
+                    super.afterConnectionEstablished(session);
+                    return;
+                }
+                BatchingSession batching = new BatchingSession(session);
+                sessions.add(batching);
+                super.afterConnectionEstablished(batching);
+            }
+
+            @Override
+            public void afterConnectionClosed( WebSocketSession session, CloseStatus closeStatus ) throws Exception {
+                sessions.removeIf(batching -> batching.getId().equals(session.getId()));
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public void destroy() {
+        flushTimer.shutdownNow();
+        flushExecutor.shutdownNow();
+    }
+
+    private void closeStuckSessions() {
+        for (BatchingSession session : sessions) {
+            if (session.writeStuck() && sessions.remove(session)) {
+                // Closed off the timer thread: the close may itself wait for the stuck write
+                flushExecutor.execute(() -> session.closeQuietly(CloseStatus.SESSION_NOT_RELIABLE));
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreads( String prefix ) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private class BatchingSession extends WebSocketSessionDecorator {
+        // Guards the open batch; held only for buffer bookkeeping, never across a write
+        private final Lock batchLock = new ReentrantLock();
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        private boolean binary;
+        private ScheduledFuture<?> pendingFlush;
+
+        private final Lock writeLock = new ReentrantLock();
+        private final Queue<WebSocketMessage<?>> ready = new ConcurrentLinkedQueue<>();
+        private final AtomicLong readyBytes = new AtomicLong();
+        private volatile long writeStartedAt;
+        private volatile boolean closing;
+
+        BatchingSession( WebSocketSession session ) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage( WebSocketMessage<?> message ) throws IOException {
+            if (closing) {
+                return;
+            }
+            byte[] frame = frameBytes(message);
+            batchLock.lock();
+            try {
+                if (frame == null) {
+                    // Ping/pong and partial messages bypass batching, but must not overtake buffered frames
+                    closeBatch();
+                    enqueue(message);
+                } else {
+                    boolean isBinary = message instanceof BinaryMessage;
+                    if (buffer.size() > 0 && (isBinary != binary || buffer.size() + frame.length > maxBytes)) {
+                        closeBatch();
+                    }
+                    binary = isBinary;
+                    buffer.write(frame);
+                    if (buffer.size() >= maxBytes) {
+                        closeBatch();
+                    } else if (pendingFlush == null) {
+                        pendingFlush = flushTimer.schedule(() -> flushExecutor.execute(this::scheduledFlush), windowMillis, TimeUnit.MILLISECONDS);
+                    }
+                }
+            } finally {
+                batchLock.unlock();
+            }
+            writeReady();
+        }
+
+        @Override
+        public void close() throws IOException {
+            close(CloseStatus.NORMAL);
+        }
+
+        @Override
+        public void close( CloseStatus status ) throws IOException {
+            // ERROR frames are immediately followed by a close; deliver them first, unless a stuck write holds the session
+            if (isOpen() && !closing) {
+                batchLock.lock();
+                try {
+                    closeBatch();
+                } finally {
+                    batchLock.unlock();
+                }
+                try {
+                    writeReady();
+                } catch (IOException | SessionLimitExceededException e) {
+                    log.debug("Dropped batched frames of closing session {}: {}", getId(), e.getMessage());
+                }
+            }
+            closing = true;
+            ready.clear();
+            sessions.remove(this);
+            super.close(status);
+        }
+
+        private void scheduledFlush() {
+            batchLock.lock();
+            try {
+                pendingFlush = null;
+                closeBatch();
+            } finally {
+                batchLock.unlock();
+            }
+            try {
+                writeReady();
+            } catch (SessionLimitExceededException e) {
+                log.debug("Closing session {}: {}", getId(), e.getMessage());
+                closeQuietly(e.getStatus());
+            } catch (IOException e) {
+                log.debug("Failed to flush batched frames for session {}: {}", getId(), e.getMessage());
+                ready.clear();
+            }
+        }
+
+        /**
+         * Moves the open batch to the write queue; the caller holds {@link #batchLock}, which keeps batches in order
+         */
+        private void closeBatch() {
+            if (pendingFlush != null) {
+                pendingFlush.cancel(false);
+                pendingFlush = null;
+            }
+            if (buffer.size() == 0) {
+                return;
+            }
+            byte[] batch = buffer.toByteArray();
+            buffer.reset();
+            enqueue(binary ? new BinaryMessage(batch) : new TextMessage(batch));
+        }
+
+        private void enqueue( WebSocketMessage<?> message ) {
+            ready.add(message);
+            readyBytes.addAndGet(message.getPayloadLength());
+        }
+
+        /**
+         * Writes queued messages unless another thread already is; that thread picks up what was just queued
+         */
+        private void writeReady() throws IOException {
+            while (!ready.isEmpty() && !closing) {
+                if (!writeLock.tryLock()) {
+                    checkLimits();
+                    return;
+                }
+                try {
+                    writeStartedAt = System.currentTimeMillis();
+                    WebSocketMessage<?> message;
+                    while (!closing && (message = ready.poll()) != null) {
+                        readyBytes.addAndGet(-message.getPayloadLength());
+                        if (isOpen()) {
+                            getDelegate().sendMessage(message);
+                        }
+                    }
+                } finally {
+                    writeStartedAt = 0;
+                    writeLock.unlock();
+                }
+            }
+        }
+
+        private boolean writeStuck() {
+            long startedAt = writeStartedAt;
+            return startedAt != 0 && System.currentTimeMillis() - startedAt > sendTimeLimitMillis;
+        }
+
+        private void checkLimits() {
+            long startedAt = writeStartedAt;
+            if (startedAt != 0 && System.currentTimeMillis() - startedAt > sendTimeLimitMillis) {
+                throw new SessionLimitExceededException("Send time " + (System.currentTimeMillis() - startedAt) + " (ms) for session '"
+                        + getId() + "' exceeded the allowed limit " + sendTimeLimitMillis, CloseStatus.SESSION_NOT_RELIABLE);
+            }
+            if (readyBytes.get() > bufferSizeLimit) {
+                throw new SessionLimitExceededException("Buffer size " + readyBytes.get() + " bytes for session '"
+                        + getId() + "' exceeds the allowed limit " + bufferSizeLimit, CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        }
+
+        private void closeQuietly( CloseStatus status ) {
+            try {
+                close(status);
+            } catch (IOException e) {
+                log.debug("Failed to close session {}: {}", getId(), e.getMessage());
+            }
+        }
+
+        private static byte[] frameBytes( WebSocketMessage<?> message ) {
+            if (!message.isLast()) {
+                return null;
+            }
+            if (message instanceof TextMessage text) {
+                return text.asBytes();
+            }
+            if (message instanceof BinaryMessage binaryMessage) {
+                ByteBuffer payload = binaryMessage.getPayload().duplicate();
+                byte[] bytes = new byte[payload.remaining()];
+                payload.get(bytes);
+                return bytes;
+            }
+            return null;
+        }
+    }
+}
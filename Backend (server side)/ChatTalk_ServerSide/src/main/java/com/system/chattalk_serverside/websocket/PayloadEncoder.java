@@ -0,0 +1,62 @@
+package com.system.chattalk_serverside.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializes outbound realtime payloads exactly once per event.
+ * Uses the application ObjectMapper so the JSON matches what the broker converter produced before;
+ * the CBOR mapper copies its configuration (date handling, modules) for opted-in clients.
+ */
+@Component
+public class PayloadEncoder {
+    public static final MimeType APPLICATION_CBOR = MimeType.valueOf("application/cbor");
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+
+    public PayloadEncoder( ObjectMapper objectMapper ) {
+        this.jsonMapper = objectMapper;
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+    }
+
+    public EncodedPayload encode( Object payload ) {
+        return new EncodedPayload(payload, write(jsonMapper, payload), source -> write(cborMapper, source));
+    }
+
+    /**
+     * Payload stored earlier as JSON text (the user event log); only parsed again if a binary session needs it
+     */
+    public EncodedPayload fromJson( String json ) {
+        return new EncodedPayload(json, json.getBytes(StandardCharsets.UTF_8), source -> write(cborMapper, readTree((String) source)));
+    }
+
+    public static boolean isSupported( MimeType contentType ) {
+        return contentType != null && (APPLICATION_CBOR.equalsTypeAndSubtype(contentType)
+                || MimeTypeUtils.APPLICATION_JSON.equalsTypeAndSubtype(contentType));
+    }
+
+    private JsonNode readTree( String json ) {
+        try {
+            return jsonMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException("Failed to decode stored realtime payload: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] write( ObjectMapper mapper, Object payload ) {
+        try {
+            return mapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException("Failed to encode realtime payload: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.system.chattalk_serverside.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+
+/**
+ * Reads the optional {@code accept-content-type} header of a STOMP CONNECT frame.
+ * A client that sends {@code accept-content-type:application/cbor} receives MESSAGE frames with
+ * {@code content-type:application/cbor} and a CBOR body; everyone else keeps getting JSON.
+ */
+@Component
+public class PayloadEncodingInterceptor implements ChannelInterceptor {
+    public static final String ACCEPT_CONTENT_TYPE_HEADER = "accept-content-type";
+
+    private final PayloadEncodingRegistry registry;
+
+    public PayloadEncodingInterceptor( PayloadEncodingRegistry registry ) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Message<?> preSend( Message<?> message, MessageChannel channel ) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+        String requested = accessor.getFirstNativeHeader(ACCEPT_CONTENT_TYPE_HEADER);
+        if (requested == null) {
+            return message;
+        }
+        try {
+            MimeType contentType = MimeType.valueOf(requested);
+            if (PayloadEncoder.isSupported(contentType)) {
+                registry.register(accessor.getSessionId(), contentType);
+            }
+        } catch (InvalidMimeTypeException ignored) {
+            // Unknown encodings fall back to JSON
+        }
+        return message;
+    }
+}
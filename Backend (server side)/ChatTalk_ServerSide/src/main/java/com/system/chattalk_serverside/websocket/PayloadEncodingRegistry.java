@@ -0,0 +1,57 @@
+package com.system.chattalk_serverside.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which STOMP sessions asked for a non-JSON payload encoding on CONNECT.
+ * Sessions that never opted in are not tracked, so the common JSON-only case costs nothing.
+ * Text-only transports (SockJS) are marked when they connect and always stay on JSON.
+ */
+@Slf4j
+@Component
+public class PayloadEncodingRegistry {
+    private final Map<String, MimeType> encodings = new ConcurrentHashMap<>();
+    private final Set<String> textOnlySessions = ConcurrentHashMap.newKeySet();
+
+    public void register( String sessionId, MimeType contentType ) {
+        if (sessionId == null || contentType == null || MimeTypeUtils.APPLICATION_JSON.equalsTypeAndSubtype(contentType)) {
+            return;
+        }
+        if (textOnlySessions.contains(sessionId)) {
+            log.debug("Session {} asked for {} over a text-only transport, keeping JSON", sessionId, contentType);
+            return;
+        }
+        encodings.put(sessionId, contentType);
+        log.debug("Session {} negotiated payload content-type {}", sessionId, contentType);
+    }
+
+    /**
+     * Marks a session whose transport cannot carry binary frames; binary encodings it asks for are ignored
+     */
+    public void markTextOnly( String sessionId ) {
+        textOnlySessions.add(sessionId);
+    }
+
+    public MimeType encodingFor( String sessionId ) {
+        return encodings.getOrDefault(sessionId, MimeTypeUtils.APPLICATION_JSON);
+    }
+
+    public boolean hasCustomEncodings() {
+        return !encodings.isEmpty();
+    }
+
+    @EventListener
+    public void onDisconnect( SessionDisconnectEvent event ) {
+        encodings.remove(event.getSessionId());
+        textOnlySessions.remove(event.getSessionId());
+    }
+}
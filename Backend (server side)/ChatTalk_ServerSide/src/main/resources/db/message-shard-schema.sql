@@ -0,0 +1,18 @@
+CREATE TABLE IF NOT EXISTS messages (
+    id                BIGINT       NOT NULL PRIMARY KEY,
+    chat_id           BIGINT       NOT NULL,
+    sender_id         BIGINT       NOT NULL,
+    content           TEXT         NOT NULL,
+    message_type      VARCHAR(32),
+    attachment_url    VARCHAR(255),
+    client_message_id VARCHAR(64),
+    is_read           BOOLEAN,
+    is_edited         BOOLEAN,
+    version           BIGINT       NOT NULL DEFAULT 0,
+    created_at        TIMESTAMP,
+    updated_at        TIMESTAMP,
+    CONSTRAINT uk_messages_sender_client_id UNIQUE (sender_id, client_message_id)
+);
+CREATE INDEX IF NOT EXISTS idx_messages_chat_created ON messages (chat_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_messages_unread ON messages (chat_id, is_read, sender_id);
+CREATE INDEX IF NOT EXISTS idx_messages_sender_created ON messages (sender_id, created_at);
@@ -0,0 +1,243 @@
+-- Production schema (PostgreSQL), applied by the migrate profile as a deploy step before Hibernate validates it.
+-- Every statement is idempotent: an empty database gets the full schema, an existing one only what it is missing.
+-- New tables, columns and indexes are appended here together with the entity change that needs them.
+
+CREATE TABLE IF NOT EXISTS users (
+    id                  BIGSERIAL    PRIMARY KEY,
+    username            VARCHAR(255),
+    email               VARCHAR(255) NOT NULL UNIQUE,
+    password            VARCHAR(255) NOT NULL,
+    first_name          VARCHAR(255),
+    last_name           VARCHAR(255),
+    phone_number        VARCHAR(255),
+    profile_picture_url VARCHAR(255),
+    bio                 VARCHAR(255),
+    gender              VARCHAR(255),
+    date_of_birth       DATE,
+    status              VARCHAR(255),
+    is_online           BOOLEAN,
+    is_verified         BOOLEAN,
+    last_seen           TIMESTAMP(6),
+    created_at          TIMESTAMP(6),
+    updated_at          TIMESTAMP(6)
+);
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id BIGINT       NOT NULL REFERENCES users,
+    roles   VARCHAR(255)
+);
+CREATE TABLE IF NOT EXISTS "verification-code" (
+    email        VARCHAR(255) NOT NULL PRIMARY KEY,
+    code         VARCHAR(255),
+    expires_at   TIMESTAMP(6),
+    last_sent_at TIMESTAMP(6)
+);
+CREATE TABLE IF NOT EXISTS chats (
+    id                  BIGSERIAL    PRIMARY KEY,
+    name                VARCHAR(255) NOT NULL,
+    description         VARCHAR(255),
+    chat_type           VARCHAR(255),
+    avatar_url          VARCHAR(255),
+    last_message        VARCHAR(255),
+    created_by          BIGINT       REFERENCES users,
+    message_ttl_seconds BIGINT,
+    message_expiry_mode VARCHAR(16),
+    created_at          TIMESTAMP(6),
+    updated_at          TIMESTAMP(6)
+);
+CREATE TABLE IF NOT EXISTS chat_participations (
+    id        BIGSERIAL    PRIMARY KEY,
+    chat_id   BIGINT       NOT NULL REFERENCES chats,
+    user_id   BIGINT       NOT NULL REFERENCES users,
+    role      VARCHAR(255),
+    status    VARCHAR(255),
+    joined_at TIMESTAMP(6),
+    left_at   TIMESTAMP(6)
+);
+CREATE TABLE IF NOT EXISTS contacts (
+    id           BIGSERIAL    PRIMARY KEY,
+    user_id      BIGINT       NOT NULL REFERENCES users,
+    contact_id   BIGINT       NOT NULL REFERENCES users,
+    display_name VARCHAR(255) NOT NULL,
+    notes        VARCHAR(255),
+    status       VARCHAR(255),
+    created_at   TIMESTAMP(6),
+    updated_at   TIMESTAMP(6)
+);
+CREATE TABLE IF NOT EXISTS friend_requests (
+    id           BIGSERIAL    PRIMARY KEY,
+    sender_id    BIGINT       NOT NULL REFERENCES users,
+    receiver_id  BIGINT       NOT NULL REFERENCES users,
+    message      VARCHAR(255),
+    status       VARCHAR(255),
+    created_at   TIMESTAMP(6),
+    responded_at TIMESTAMP(6)
+);
+CREATE TABLE IF NOT EXISTS messages (
+    id                BIGSERIAL    PRIMARY KEY,
+    chat_id           BIGINT       NOT NULL REFERENCES chats,
+    sender_id         BIGINT       NOT NULL REFERENCES users,
+    content           TEXT         NOT NULL,
+    message_type      VARCHAR(255),
+    attachment_url    VARCHAR(255),
+    client_message_id VARCHAR(64),
+    is_read           BOOLEAN,
+    is_edited         BOOLEAN,
+    version           BIGINT       NOT NULL DEFAULT 0,
+    created_at        TIMESTAMP(6),
+    updated_at        TIMESTAMP(6)
+);
+CREATE TABLE IF NOT EXISTS notifications (
+    id            BIGSERIAL    PRIMARY KEY,
+    user_id       BIGINT       NOT NULL REFERENCES users,
+    chat_id       BIGINT,
+    type          VARCHAR(255),
+    title         VARCHAR(255) NOT NULL,
+    message       TEXT,
+    data          VARCHAR(255),
+    is_read       BOOLEAN,
+    message_count INTEGER      NOT NULL DEFAULT 1,
+    created_at    TIMESTAMP(6),
+    updated_at    TIMESTAMP(6),
+    read_at       TIMESTAMP(6)
+);
+
+-- Columns added to tables that existed before
+ALTER TABLE chats ADD COLUMN IF NOT EXISTS message_ttl_seconds BIGINT;
+ALTER TABLE chats ADD COLUMN IF NOT EXISTS message_expiry_mode VARCHAR(16);
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS client_message_id VARCHAR(64);
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS chat_id BIGINT;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS message_count INTEGER NOT NULL DEFAULT 1;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6);
+-- Keyset pages order by updated_at; entries from before the column get their creation time
+UPDATE notifications SET updated_at = created_at WHERE updated_at IS NULL;
+
+-- Delivery and counter tables
+CREATE TABLE IF NOT EXISTS user_events (
+    id           BIGSERIAL    PRIMARY KEY,
+    user_id      BIGINT       NOT NULL,
+    seq          BIGINT       NOT NULL,
+    type         VARCHAR(255) NOT NULL,
+    destination  VARCHAR(255) NOT NULL,
+    payload      TEXT         NOT NULL,
+    created_at   TIMESTAMP(6),
+    delivered_at TIMESTAMP(6),
+    CONSTRAINT uk_user_events_user_seq UNIQUE (user_id, seq)
+);
+ALTER TABLE user_events ADD COLUMN IF NOT EXISTS delivered_at TIMESTAMP(6);
+CREATE TABLE IF NOT EXISTS user_event_sequences (
+    user_id  BIGINT NOT NULL PRIMARY KEY,
+    last_seq BIGINT NOT NULL
+);
+CREATE TABLE IF NOT EXISTS notification_counters (
+    user_id BIGINT NOT NULL PRIMARY KEY,
+    unread  BIGINT NOT NULL
+);
+CREATE TABLE IF NOT EXISTS chat_stats (
+    chat_id          BIGINT NOT NULL PRIMARY KEY,
+    message_count    BIGINT NOT NULL,
+    last_activity_at TIMESTAMP(6)
+);
+CREATE TABLE IF NOT EXISTS chat_sender_stats (
+    id            BIGSERIAL PRIMARY KEY,
+    chat_id       BIGINT    NOT NULL,
+    user_id       BIGINT    NOT NULL,
+    message_count BIGINT    NOT NULL,
+    CONSTRAINT uk_chat_sender_stats_chat_user UNIQUE (chat_id, user_id)
+);
+CREATE TABLE IF NOT EXISTS user_daily_stats (
+    id            BIGSERIAL PRIMARY KEY,
+    user_id       BIGINT    NOT NULL,
+    activity_date DATE      NOT NULL,
+    messages_sent BIGINT    NOT NULL,
+    CONSTRAINT uk_user_daily_stats_user_date UNIQUE (user_id, activity_date)
+);
+
+-- Scheduled and disappearing messages
+CREATE TABLE IF NOT EXISTS scheduled_messages (
+    id         BIGSERIAL     PRIMARY KEY,
+    chat_id    BIGINT        NOT NULL,
+    sender_id  BIGINT        NOT NULL,
+    content    TEXT          NOT NULL,
+    send_at    TIMESTAMP(6)  NOT NULL,
+    status     VARCHAR(16)   NOT NULL,
+    message_id BIGINT,
+    error      VARCHAR(1000),
+    created_at TIMESTAMP(6)  NOT NULL,
+    sent_at    TIMESTAMP(6)
+);
+CREATE TABLE IF NOT EXISTS message_expiries (
+    message_id BIGINT       NOT NULL PRIMARY KEY,
+    chat_id    BIGINT       NOT NULL,
+    sender_id  BIGINT       NOT NULL,
+    expires_at TIMESTAMP(6)
+);
+
+-- History import
+CREATE TABLE IF NOT EXISTS import_checkpoints (
+    source       VARCHAR(64)   NOT NULL PRIMARY KEY,
+    file         VARCHAR(255)  NOT NULL,
+    byte_offset  BIGINT        NOT NULL,
+    lines        BIGINT        NOT NULL,
+    chats        BIGINT        NOT NULL,
+    participants BIGINT        NOT NULL,
+    messages     BIGINT        NOT NULL,
+    skipped      BIGINT        NOT NULL,
+    status       VARCHAR(255)  NOT NULL,
+    error        VARCHAR(1000),
+    started_at   TIMESTAMP(6),
+    updated_at   TIMESTAMP(6),
+    completed_at TIMESTAMP(6)
+);
+CREATE TABLE IF NOT EXISTS imported_chats (
+    id        BIGSERIAL    PRIMARY KEY,
+    source    VARCHAR(64)  NOT NULL,
+    legacy_id VARCHAR(128) NOT NULL,
+    chat_id   BIGINT       NOT NULL,
+    CONSTRAINT uk_imported_chats_source_legacy UNIQUE (source, legacy_id)
+);
+
+-- Unique keys on tables that existed before (a unique index also serves ON CONFLICT)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_messages_sender_client_id ON messages (sender_id, client_message_id);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_notifications_user_chat ON notifications (user_id, chat_id);
+
+CREATE INDEX IF NOT EXISTS idx_users_email ON users (email);
+CREATE INDEX IF NOT EXISTS idx_users_username ON users (username);
+CREATE INDEX IF NOT EXISTS idx_users_phone ON users (phone_number);
+CREATE INDEX IF NOT EXISTS idx_users_first_name ON users (first_name);
+CREATE INDEX IF NOT EXISTS idx_users_last_name ON users (last_name);
+CREATE INDEX IF NOT EXISTS idx_chats_type ON chats (chat_type);
+CREATE INDEX IF NOT EXISTS idx_chats_created_by ON chats (created_by);
+CREATE INDEX IF NOT EXISTS idx_chats_created_at ON chats (created_at);
+CREATE INDEX IF NOT EXISTS idx_chats_updated_at ON chats (updated_at);
+CREATE INDEX IF NOT EXISTS idx_chats_name ON chats (name);
+CREATE INDEX IF NOT EXISTS idx_chats_type_updated ON chats (chat_type, updated_at);
+CREATE INDEX IF NOT EXISTS idx_chats_created_by_updated ON chats (created_by, updated_at);
+CREATE INDEX IF NOT EXISTS idx_chat_participations_user ON chat_participations (user_id);
+CREATE INDEX IF NOT EXISTS idx_chat_participations_chat ON chat_participations (chat_id);
+CREATE INDEX IF NOT EXISTS idx_chat_participations_user_chat ON chat_participations (user_id, chat_id);
+CREATE INDEX IF NOT EXISTS idx_chat_participations_status ON chat_participations (status);
+CREATE INDEX IF NOT EXISTS idx_chat_participations_role ON chat_participations (role);
+CREATE INDEX IF NOT EXISTS idx_chat_participations_joined_at ON chat_participations (joined_at);
+CREATE INDEX IF NOT EXISTS idx_chat_participations_user_status ON chat_participations (user_id, status);
+CREATE INDEX IF NOT EXISTS idx_contacts_user_contact ON contacts (user_id, contact_id);
+CREATE INDEX IF NOT EXISTS idx_contacts_status ON contacts (status);
+CREATE INDEX IF NOT EXISTS idx_friendreq_sender_receiver ON friend_requests (sender_id, receiver_id);
+CREATE INDEX IF NOT EXISTS idx_friendreq_status ON friend_requests (status);
+CREATE INDEX IF NOT EXISTS idx_friendreq_created_at ON friend_requests (created_at);
+CREATE INDEX IF NOT EXISTS idx_friendreq_receiver_status_created ON friend_requests (receiver_id, status, created_at);
+CREATE INDEX IF NOT EXISTS idx_friendreq_sender_status_created ON friend_requests (sender_id, status, created_at);
+CREATE INDEX IF NOT EXISTS idx_messages_chat_created ON messages (chat_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_messages_sender_created ON messages (sender_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_messages_unread ON messages (chat_id, is_read, sender_id);
+CREATE INDEX IF NOT EXISTS idx_messages_type ON messages (message_type);
+CREATE INDEX IF NOT EXISTS idx_messages_created_at ON messages (created_at);
+CREATE INDEX IF NOT EXISTS idx_notifications_user_updated ON notifications (user_id, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_notifications_read_updated ON notifications (is_read, updated_at);
+CREATE INDEX IF NOT EXISTS idx_user_events_created_at ON user_events (created_at);
+CREATE INDEX IF NOT EXISTS idx_chat_sender_stats_user ON chat_sender_stats (user_id);
+CREATE INDEX IF NOT EXISTS idx_scheduled_messages_status_id ON scheduled_messages (status, id);
+CREATE INDEX IF NOT EXISTS idx_scheduled_messages_sender_chat ON scheduled_messages (sender_id, chat_id, status);
+CREATE INDEX IF NOT EXISTS idx_message_expiries_due ON message_expiries (expires_at, message_id);
+CREATE INDEX IF NOT EXISTS idx_message_expiries_chat ON message_expiries (chat_id, expires_at);
+CREATE INDEX IF NOT EXISTS idx_imported_chats_source_chat ON imported_chats (source, chat_id);
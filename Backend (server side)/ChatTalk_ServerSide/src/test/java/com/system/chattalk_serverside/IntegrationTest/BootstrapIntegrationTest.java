@@ -0,0 +1,170 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.model.FriendRequest;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.FriendRequestRepository;
+import com.system.chattalk_serverside.repository.MessageRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Initial client state from /api/bootstrap. Not @Transactional: the streamed variant is written on an async thread
+ * that would not see data from an uncommitted test transaction.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class BootstrapIntegrationTest {
+    private static final String EMAIL = "bootstrap-user@example.com";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private TestData testData;
+    @Autowired private FriendRequestRepository friendRequestRepository;
+    @Autowired private ChatRepository chatRepository;
+    @Autowired private ChatParticipationRepository chatParticipationRepository;
+    @Autowired private MessageRepository messageRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private final List<User> users = new ArrayList<>();
+    private final List<FriendRequest> requests = new ArrayList<>();
+    private final List<Chat> chats = new ArrayList<>();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = saveUser(EMAIL, "bootstrapuser");
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.deleteChats(chats);
+        friendRequestRepository.deleteAll(requests);
+        testData.deleteUsers(users);
+    }
+
+    @Test
+    void bootstrap_returnsFriendsWithChatSummaryAndPendingRequests() throws Exception {
+        User withChat = addFriend(1, 3);
+        User withoutChat = addFriend(2, -1);
+        User requester = saveUser("bootstrap-requester@example.com", "bootstraprequester");
+        requests.add(friendRequestRepository.save(FriendRequest.builder().sender(requester).receiver(user)
+                .status(FriendRequest.RequestStatus.PENDING).createdAt(LocalDateTime.now()).build()));
+
+        mockMvc.perform(get("/api/bootstrap").with(user(EMAIL)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.profile.email").value(EMAIL))
+                .andExpect(jsonPath("$.friends.length()").value(2))
+                // Friends with a conversation come first
+                .andExpect(jsonPath("$.friends[0].friend.email").value(withChat.getEmail()))
+                .andExpect(jsonPath("$.friends[0].chatId").value(chats.get(0).getId()))
+                .andExpect(jsonPath("$.friends[0].lastMessage").value("message 3"))
+                .andExpect(jsonPath("$.friends[0].unreadCount").value(3))
+                .andExpect(jsonPath("$.friends[1].friend.email").value(withoutChat.getEmail()))
+                .andExpect(jsonPath("$.friends[1].chatId").doesNotExist())
+                .andExpect(jsonPath("$.friends[1].unreadCount").value(0))
+                .andExpect(jsonPath("$.pendingRequests[0].email").value(requester.getEmail()))
+                .andExpect(jsonPath("$.notifications").isArray());
+    }
+
+    @Test
+    void bootstrap_queryCountDoesNotGrowWithFriends() throws Exception {
+        addFriend(1, 2);
+        long fewFriends = statementsForBootstrap();
+
+        for (int i = 2; i <= 8; i++) {
+            addFriend(i, i);
+        }
+        long manyFriends = statementsForBootstrap();
+
+        assertEquals(fewFriends, manyFriends);
+    }
+
+    @Test
+    void streamedBootstrap_writesOneSectionPerLine() throws Exception {
+        addFriend(1, 1);
+
+        MvcResult started = mockMvc.perform(get("/api/bootstrap/stream").with(user(EMAIL)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.strip().split("\n");
+        assertEquals(4, lines.length);
+        List<String> sections = new ArrayList<>();
+        for (String line : lines) {
+            sections.add(objectMapper.readTree(line).get("section").asText());
+        }
+        assertEquals(List.of("profile", "friends", "pendingRequests", "notifications"), sections);
+        JsonNode friends = objectMapper.readTree(lines[1]).get("data");
+        assertEquals(1, friends.get(0).get("unreadCount").asLong());
+    }
+
+    private long statementsForBootstrap() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Warm up once so cached lookups behave the same in both measurements
+        mockMvc.perform(get("/api/bootstrap").with(user(EMAIL))).andExpect(status().isOk());
+        statistics.clear();
+        mockMvc.perform(get("/api/bootstrap").with(user(EMAIL))).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Accepted friend with a private chat holding {@code unreadMessages} messages from them; no chat when negative
+     */
+    private User addFriend( int index, int unreadMessages ) {
+        User friend = saveUser("bootstrap-friend" + index + "@example.com", "bootstrapfriend" + index);
+        requests.add(friendRequestRepository.save(FriendRequest.builder().sender(friend).receiver(user)
+                .status(FriendRequest.RequestStatus.ACCEPTED).createdAt(LocalDateTime.now()).build()));
+        if (unreadMessages < 0) {
+            return friend;
+        }
+        Chat chat = chatRepository.save(Chat.builder().name("Bootstrap " + index).createdBy(user).build());
+        chats.add(chat);
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(user).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(friend).build());
+        for (int i = 1; i <= unreadMessages; i++) {
+            messageRepository.save(Message.builder().chat(chat).sender(friend).content("message " + i).build());
+        }
+        return friend;
+    }
+
+    private User saveUser( String email, String username ) {
+        User saved = testData.saveUser(email, username);
+        users.add(saved);
+        return saved;
+    }
+}
@@ -0,0 +1,147 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.system.chattalk_serverside.dto.ChatDto.SendMessageRequest;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.model.Notification;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.NotificationRepository;
+import com.system.chattalk_serverside.service.Message.MessageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * New-message notifications are coalesced into one entry per (user, chat) that is updated in place.
+ * Not @Transactional, since each call must commit its entry as it does in production.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class ChatNotificationIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private MessageService messageService;
+    @Autowired private ChatRepository chatRepository;
+    @Autowired private ChatParticipationRepository chatParticipationRepository;
+    @Autowired private NotificationRepository notificationRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TestData testData;
+
+    private User alice;
+    private User bob;
+    private final List<Chat> chats = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        alice = testData.saveUser("inbox-alice@example.com", "inboxalice");
+        bob = testData.saveUser("inbox-bob@example.com", "inboxbob");
+        chats.add(saveChat("Coalesced"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.deleteChats(chats);
+        chats.clear();
+        testData.deleteUsers(List.of(alice, bob));
+    }
+
+    @Test
+    void messagesInOneChat_updateASingleEntry() throws Exception {
+        Chat chat = chats.get(0);
+        sendAs(alice, chat, "one");
+        sendAs(alice, chat, "two");
+        sendAs(alice, chat, "three");
+
+        List<Notification> entries = notificationRepository.findByUserId(bob.getId());
+        assertEquals(1, entries.size());
+        assertEquals(3, entries.get(0).getMessageCount());
+        assertEquals(chat.getId(), entries.get(0).getChatId());
+        assertEquals(alice.getEmail() + ": three", entries.get(0).getMessage());
+        // The sender gets nothing, and every change was pushed as an upsert
+        assertTrue(notificationRepository.findByUserId(alice.getId()).isEmpty());
+        assertEquals(3, upserts(bob));
+
+        mockMvc.perform(get("/api/notifications").with(user(bob.getEmail())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].messageCount").value(3))
+                .andExpect(jsonPath("$[0].chatId").value(chat.getId()));
+    }
+
+    @Test
+    void readEntry_startsCountingAgain() throws Exception {
+        Chat chat = chats.get(0);
+        sendAs(alice, chat, "before");
+        sendAs(alice, chat, "read");
+        Long id = notificationRepository.findByUserId(bob.getId()).get(0).getId();
+
+        mockMvc.perform(patch("/api/notifications/{id}/read", id).with(user(bob.getEmail())))
+                .andExpect(status().isOk());
+        sendAs(alice, chat, "after");
+
+        Notification entry = notificationRepository.findById(id).orElseThrow();
+        assertEquals(1, entry.getMessageCount());
+        assertFalse(entry.getIsRead());
+        assertNull(entry.getReadAt());
+        assertEquals(1, notificationRepository.findByUserId(bob.getId()).size());
+    }
+
+    @Test
+    void inbox_listsMostRecentlyActiveChatFirst() throws Exception {
+        Chat quiet = chats.get(0);
+        Chat busy = saveChat("Busy");
+        chats.add(busy);
+        sendAs(alice, busy, "first");
+        sendAs(alice, quiet, "second");
+        sendAs(alice, busy, "third");
+
+        mockMvc.perform(get("/api/notifications").with(user(bob.getEmail())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].chatId").value(busy.getId()))
+                .andExpect(jsonPath("$[0].messageCount").value(2))
+                .andExpect(jsonPath("$[1].chatId").value(quiet.getId()));
+    }
+
+    private long upserts( User user ) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_events WHERE user_id = ? AND type = 'NOTIFICATION_UPSERTED'", Long.class, user.getId());
+    }
+
+    private void sendAs( User sender, Chat chat, String content ) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(sender, null, sender.getAuthorities()));
+        try {
+            messageService.sendMessage(SendMessageRequest.builder().chatId(chat.getId()).content(content).build());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private Chat saveChat( String name ) {
+        Chat chat = chatRepository.save(Chat.builder().name(name).createdBy(alice).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(alice).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(bob).build());
+        return chat;
+    }
+}
@@ -0,0 +1,118 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.system.chattalk_serverside.model.FriendRequest;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.FriendRequestRepository;
+import com.system.chattalk_serverside.service.Connections.ContactService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Version-based ETags: unchanged lists answer 304, and a committed change produces a new tag.
+ * Not @Transactional, since versions are only bumped after the writing transaction commits.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class ConditionalGetIntegrationTest {
+    private static final String RECEIVER_EMAIL = "etag-receiver@example.com";
+    private static final String SENDER_EMAIL = "etag-sender@example.com";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ContactService contactService;
+    @Autowired private FriendRequestRepository friendRequestRepository;
+    @Autowired private TestData testData;
+
+    private User receiver;
+    private User sender;
+    private FriendRequest request;
+
+    @BeforeEach
+    void setUp() {
+        receiver = testData.saveUser(RECEIVER_EMAIL, "etagreceiver");
+        sender = testData.saveUser(SENDER_EMAIL, "etagsender");
+        request = friendRequestRepository.save(FriendRequest.builder()
+                .sender(sender)
+                .receiver(receiver)
+                .status(FriendRequest.RequestStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        friendRequestRepository.deleteAll(friendRequestRepository.findBySenderId(sender.getId()));
+        testData.deleteUsers(List.of(receiver, sender));
+    }
+
+    @Test
+    void unchangedList_returnsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/contacts/requests/pending").with(user(RECEIVER_EMAIL)))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.data.pendingRequests[0].email").value(SENDER_EMAIL))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        byte[] body = mockMvc.perform(get("/api/contacts/requests/pending").with(user(RECEIVER_EMAIL)).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(0, body.length);
+    }
+
+    @Test
+    void acceptedRequest_changesPendingAndFriendTagsOfBothUsers() throws Exception {
+        String pendingTag = etag("/api/contacts/requests/pending", RECEIVER_EMAIL);
+        String receiverFriendsTag = etag("/api/contacts/friends", RECEIVER_EMAIL);
+        String senderFriendsTag = etag("/api/contacts/friends", SENDER_EMAIL);
+        String senderNotificationsTag = etag("/api/notifications", SENDER_EMAIL);
+        String senderProfileTag = etag("/api/profile/me", SENDER_EMAIL);
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(RECEIVER_EMAIL, null, List.of()));
+        contactService.acceptRequest(request.getId());
+        SecurityContextHolder.clearContext();
+
+        mockMvc.perform(get("/api/contacts/requests/pending").with(user(RECEIVER_EMAIL)).header(HttpHeaders.IF_NONE_MATCH, pendingTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.pendingRequests").isEmpty());
+        mockMvc.perform(get("/api/contacts/friends").with(user(RECEIVER_EMAIL)).header(HttpHeaders.IF_NONE_MATCH, receiverFriendsTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.friendList[0].email").value(SENDER_EMAIL));
+        mockMvc.perform(get("/api/contacts/friends").with(user(SENDER_EMAIL)).header(HttpHeaders.IF_NONE_MATCH, senderFriendsTag))
+                .andExpect(status().isOk());
+        // The sender is notified about the acceptance
+        mockMvc.perform(get("/api/notifications").with(user(SENDER_EMAIL)).header(HttpHeaders.IF_NONE_MATCH, senderNotificationsTag))
+                .andExpect(status().isOk());
+        // Unrelated resources keep their tag
+        mockMvc.perform(get("/api/profile/me").with(user(SENDER_EMAIL)).header(HttpHeaders.IF_NONE_MATCH, senderProfileTag))
+                .andExpect(status().isNotModified());
+    }
+
+    private String etag( String path, String email ) throws Exception {
+        String etag = mockMvc.perform(get(path).with(user(email)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+}
@@ -0,0 +1,217 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.system.chattalk_serverside.dto.ImportDto.ImportStatusDTO;
+import com.system.chattalk_serverside.enums.Role;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ImportedChat;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.ImportCheckpointRepository;
+import com.system.chattalk_serverside.repository.ImportedChatRepository;
+import com.system.chattalk_serverside.repository.MessageRepository;
+import com.system.chattalk_serverside.repository.NotificationRepository;
+import com.system.chattalk_serverside.repository.UserEventRepository;
+import com.system.chattalk_serverside.repository.UserRepository;
+import com.system.chattalk_serverside.service.Import.HistoryImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * History import from NDJSON: batched inserts without fan-out, resuming from the checkpoint, and rebuilt chat state.
+ * Not @Transactional, since every batch commits on its own.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class HistoryImportIntegrationTest {
+    private static final String ALICE = "import-alice@example.com";
+    private static final String BOB = "import-bob@example.com";
+    private static final LocalDateTime START = LocalDateTime.of(2019, 5, 1, 9, 0);
+
+    @TempDir
+    static Path importDir;
+
+    @DynamicPropertySource
+    static void importProperties( DynamicPropertyRegistry registry ) {
+        registry.add("imports.dir", () -> importDir.toString());
+        // Small batches so a few lines already span several transactions
+        registry.add("imports.batch-size", () -> "3");
+    }
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private HistoryImportService historyImportService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private ChatRepository chatRepository;
+    @Autowired private MessageRepository messageRepository;
+    @Autowired private ImportedChatRepository importedChatRepository;
+    @Autowired private ImportCheckpointRepository importCheckpointRepository;
+    @Autowired private NotificationRepository notificationRepository;
+    @Autowired private UserEventRepository userEventRepository;
+    @Autowired private TestData testData;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        users.add(testData.saveUser(ALICE, "importalice"));
+        users.add(testData.saveUser(BOB, "importbob"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (ImportedChat imported : importedChatRepository.findAll()) {
+            testData.deleteChat(imported.getChatId());
+        }
+        importedChatRepository.deleteAll();
+        importCheckpointRepository.deleteAll();
+        testData.deleteUsers(users);
+    }
+
+    @Test
+    void import_writesChatsParticipantsAndMessagesWithoutFanOut() throws Exception {
+        Path file = write("history.ndjson", List.of(
+                chat("c1", "Old friends"),
+                participant("c1", ALICE),
+                participant("c1", BOB),
+                message("c1", ALICE, "hello from 2019", 0),
+                message("c1", BOB, "hi!", 1),
+                "{not json",
+                message("c1", "nobody@example.com", "unknown sender", 2),
+                message("missing-chat", ALICE, "unknown chat", 3),
+                message("c1", ALICE, "see you", 4)));
+
+        ImportStatusDTO status = historyImportService.importFile("legacy", file.getFileName().toString());
+
+        assertEquals("COMPLETED", status.getStatus());
+        assertEquals(9, status.getLines());
+        assertEquals(1, status.getChats());
+        assertEquals(2, status.getParticipants());
+        assertEquals(3, status.getMessages());
+        assertEquals(3, status.getSkipped());
+        assertEquals(Files.size(file), status.getBytesRead());
+
+        Long chatId = chatIdOf("c1");
+        Chat chat = chatRepository.findById(chatId).orElseThrow();
+        assertEquals("Old friends", chat.getName());
+        // Derived state rebuilt from the latest imported message
+        assertEquals("see you", chat.getLastMessage());
+        User alice = userRepository.findByEmail(ALICE).orElseThrow();
+        assertTrue(chatRepository.isUserInChat(chatId, alice.getId()));
+
+        List<Message> messages = messageRepository.findByChat_Id(chatId);
+        messages.sort(Comparator.comparing(Message::getCreatedAt));
+        assertEquals(List.of("hello from 2019", "hi!", "see you"), messages.stream().map(Message::getContent).toList());
+        assertEquals(START, messages.get(0).getCreatedAt());
+        assertTrue(messages.stream().allMatch(Message::getIsRead), "imported history is read");
+
+        // No notification or realtime event for history
+        for (User user : users) {
+            assertTrue(notificationRepository.findByUserId(user.getId()).isEmpty());
+            assertNull(userEventRepository.findMaxSeq(user.getId()));
+        }
+    }
+
+    @Test
+    void startingAgain_resumesAfterTheCheckpoint() throws Exception {
+        Path file = write("resume.ndjson", List.of(
+                chat("r1", "Resumed"),
+                participant("r1", ALICE),
+                message("r1", ALICE, "first", 0),
+                message("r1", ALICE, "second", 1)));
+        historyImportService.importFile("resume", file.getFileName().toString());
+
+        // More lines arrive for an existing chat; only they are imported
+        Files.write(file, List.of(message("r1", BOB, "third", 2), message("r1", ALICE, "fourth", 3)), StandardOpenOption.APPEND);
+        ImportStatusDTO status = historyImportService.importFile("resume", file.getFileName().toString());
+
+        assertEquals("COMPLETED", status.getStatus());
+        assertEquals(6, status.getLines());
+        assertEquals(1, status.getChats());
+        assertEquals(4, status.getMessages());
+        Long chatId = chatIdOf("r1");
+        assertEquals(4, messageRepository.countByChat_Id(chatId));
+        assertEquals("fourth", chatRepository.findById(chatId).orElseThrow().getLastMessage());
+        assertEquals(1, importedChatRepository.findAll().size());
+    }
+
+    @Test
+    void adminEndpoint_requiresAdminAndReportsProgress() throws Exception {
+        write("admin.ndjson", List.of(chat("a1", "Admin import"), message("a1", ALICE, "hi", 0)));
+        String body = "{\"source\":\"admin-run\",\"file\":\"admin.ndjson\"}";
+
+        mockMvc.perform(post("/api/v1/admin/imports").with(user(ALICE)).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(post("/api/v1/admin/imports").with(user(BOB).authorities(Role.ADMIN)).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.source").value("admin-run"));
+
+        String status = "";
+        for (int attempt = 0; attempt < 100 && !status.equals("COMPLETED"); attempt++) {
+            Thread.sleep(50);
+            status = historyImportService.status("admin-run").getStatus();
+        }
+        assertEquals("COMPLETED", status);
+        mockMvc.perform(get("/api/v1/admin/imports/admin-run").with(user(BOB).authorities(Role.ADMIN)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messages").value(1));
+
+        // Paths outside the import directory are refused
+        mockMvc.perform(post("/api/v1/admin/imports").with(user(BOB).authorities(Role.ADMIN)).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"source\":\"escape\",\"file\":\"../secrets.ndjson\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long chatIdOf( String legacyId ) {
+        return importedChatRepository.findAll().stream()
+                .filter(imported -> imported.getLegacyId().equals(legacyId))
+                .findFirst()
+                .orElseThrow()
+                .getChatId();
+    }
+
+    private static Path write( String name, List<String> lines ) throws Exception {
+        return Files.write(importDir.resolve(name), lines);
+    }
+
+    private static String chat( String id, String name ) {
+        return "{\"type\":\"chat\",\"id\":\"%s\",\"name\":\"%s\",\"chatType\":\"GROUP\",\"createdBy\":\"%s\",\"createdAt\":\"%s\"}"
+                .formatted(id, name, ALICE, START.minusDays(1));
+    }
+
+    private static String participant( String chat, String email ) {
+        return "{\"type\":\"participant\",\"chat\":\"%s\",\"user\":\"%s\",\"joinedAt\":\"%s\"}".formatted(chat, email, START.minusDays(1));
+    }
+
+    private static String message( String chat, String sender, String content, int minutes ) {
+        return "{\"type\":\"message\",\"chat\":\"%s\",\"sender\":\"%s\",\"content\":\"%s\",\"createdAt\":\"%s\"}"
+                .formatted(chat, sender, content, START.plusMinutes(minutes));
+    }
+}
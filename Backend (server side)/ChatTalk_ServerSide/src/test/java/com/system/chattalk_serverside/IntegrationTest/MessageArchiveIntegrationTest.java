@@ -0,0 +1,195 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.system.chattalk_serverside.dto.Entity.MessageDTO;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.MessageExpiry;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.MessageExpiryRepository;
+import com.system.chattalk_serverside.repository.MessageRepository;
+import com.system.chattalk_serverside.service.Chat.ChatService;
+import com.system.chattalk_serverside.service.Message.MessageArchive;
+import com.system.chattalk_serverside.service.Message.MessageArchiver;
+import com.system.chattalk_serverside.service.Message.MessageExpiryReaper;
+import com.system.chattalk_serverside.service.Message.MessageService;
+import com.system.chattalk_serverside.service.User.UserDeletionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Messages past the archive age leave the hot table, and history pages read through to the archive.
+ * Deleting a chat or a user removes their archived messages too.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class MessageArchiveIntegrationTest {
+
+    @TempDir
+    static Path archiveDir;
+
+    @DynamicPropertySource
+    static void archiveProperties( DynamicPropertyRegistry registry ) {
+        registry.add("messages.archive.enabled", () -> "true");
+        registry.add("messages.archive.dir", () -> archiveDir.toString());
+        registry.add("messages.archive.block-size", () -> "4");
+    }
+
+    @Autowired private MessageArchiver messageArchiver;
+    @Autowired private MessageArchive messageArchive;
+    @Autowired private MessageService messageService;
+    @Autowired private MessageExpiryReaper messageExpiryReaper;
+    @Autowired private MessageExpiryRepository messageExpiryRepository;
+    @Autowired private MessageRepository messageRepository;
+    @Autowired private ChatRepository chatRepository;
+    @Autowired private ChatParticipationRepository chatParticipationRepository;
+    @Autowired private ChatService chatService;
+    @Autowired private UserDeletionService userDeletionService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TestData testData;
+
+    private User sender;
+    private Chat chat;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        sender = testData.saveUser("archive-user@example.com", "archiveuser");
+        chat = chatRepository.save(Chat.builder().name("Archive chat").createdBy(sender).build());
+        // Messages 1-10 are 100+ days old, 11-15 are recent
+        for (int i = 1; i <= 15; i++) {
+            Message message = messageRepository.save(Message.builder().chat(chat).sender(sender).content("message " + i).build());
+            ids.add(message.getId());
+            LocalDateTime createdAt = i <= 10 ? LocalDateTime.now().minusDays(120 - i) : LocalDateTime.now().minusMinutes(20 - i);
+            jdbcTemplate.update("UPDATE messages SET created_at = ? WHERE id = ?", createdAt, message.getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        ids.clear();
+        testData.deleteChat(chat.getId());
+        testData.deleteUsers(List.of(sender));
+    }
+
+    @Test
+    void archiver_movesOldMessagesOutOfTheHotTable() {
+        int moved = messageArchiver.archiveBatch(LocalDateTime.now().minusDays(90));
+
+        assertEquals(10, moved);
+        assertEquals(5, messageRepository.findByChat_Id(chat.getId()).size());
+        assertEquals(10, messageArchive.count(chat.getId()));
+        // Nothing left to move
+        assertEquals(0, messageArchiver.archiveBatch(LocalDateTime.now().minusDays(90)));
+    }
+
+    @Test
+    void history_readsThroughToTheArchive() {
+        messageArchiver.archiveBatch(LocalDateTime.now().minusDays(90));
+
+        // Page 0 is entirely hot, page 1 starts in the hot table and continues in the archive, page 2 is archive only
+        assertEquals(contents(15, 10), contents(messageService.getMessagesHistory(chat.getId(), 0, 6)));
+        assertEquals(contents(9, 4), contents(messageService.getMessagesHistory(chat.getId(), 1, 6)));
+        assertEquals(contents(3, 1), contents(messageService.getMessagesHistory(chat.getId(), 2, 6)));
+        assertTrue(messageService.getMessagesHistory(chat.getId(), 3, 6).isEmpty());
+
+        MessageDTO archived = messageService.getMessagesHistory(chat.getId(), 2, 6).get(0);
+        assertEquals(sender.getId(), archived.getSenderId());
+        assertEquals(chat.getId(), archived.getChatId());
+    }
+
+    @Test
+    void expiringAfterArchiving_deletesFromTheArchive() {
+        // A week-long time-to-live on messages 2 and 6 that runs out only after they were archived
+        for (int i : List.of(2, 6)) {
+            messageExpiryRepository.save(MessageExpiry.builder()
+                    .messageId(ids.get(i - 1))
+                    .chatId(chat.getId())
+                    .senderId(sender.getId())
+                    .expiresAt(LocalDateTime.now().minusDays(1))
+                    .build());
+        }
+        messageArchiver.archiveBatch(LocalDateTime.now().minusDays(90));
+        assertEquals(2, messageArchive.findByIds(chat, List.of(ids.get(1), ids.get(5))).size());
+
+        assertEquals(2, messageExpiryReaper.reapBatch(LocalDateTime.now()));
+
+        assertEquals(0, messageExpiryRepository.count());
+        assertEquals(8, messageArchive.count(chat.getId()));
+        assertTrue(messageArchive.findByIds(chat, List.of(ids.get(1), ids.get(5))).isEmpty());
+        List<String> history = contents(messageService.getMessagesHistory(chat.getId(), 0, 20));
+        assertEquals(13, history.size());
+        assertFalse(history.contains("message 2"));
+        assertFalse(history.contains("message 6"));
+        assertEquals("message 1", history.get(history.size() - 1));
+
+        // The rest of the archive is still readable by range, and a re-run does not bring the deleted messages back
+        List<Long> inRange = new ArrayList<>();
+        messageArchive.forEachInRange(chat, LocalDateTime.now().minusDays(200), LocalDateTime.now(), message -> inRange.add(message.getId()));
+        assertEquals(8, inRange.size());
+        messageArchive.append(chat.getId(), List.of(Message.builder().id(ids.get(1)).chat(chat).sender(sender).content("message 2")
+                .createdAt(LocalDateTime.now().minusDays(118)).build()));
+        assertEquals(8, messageArchive.count(chat.getId()));
+    }
+
+    @Test
+    void hardDeletingAUser_deletesTheirArchivedMessages() {
+        User other = testData.saveUser("archive-other@example.com", "archiveother");
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(other).build());
+        List<Long> otherIds = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Message message = messageRepository.save(Message.builder().chat(chat).sender(other).content("other " + i).build());
+            otherIds.add(message.getId());
+            jdbcTemplate.update("UPDATE messages SET created_at = ? WHERE id = ?", LocalDateTime.now().minusDays(100 + i), message.getId());
+        }
+        messageArchiver.archiveBatch(LocalDateTime.now().minusDays(90));
+        assertEquals(13, messageArchive.count(chat.getId()));
+
+        userDeletionService.hardDeleteUser(other.getId());
+
+        assertEquals(10, messageArchive.count(chat.getId()));
+        assertTrue(messageArchive.findByIds(chat, otherIds).isEmpty());
+        assertEquals(10, messageArchive.findByIds(chat, ids).size());
+    }
+
+    @Test
+    void deletingAPrivateChat_purgesItsArchive() {
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(sender).build());
+        messageArchiver.archiveBatch(LocalDateTime.now().minusDays(90));
+        assertEquals(10, messageArchive.count(chat.getId()));
+
+        chatService.deletePrivateChat(chat.getId(), sender.getEmail());
+
+        assertEquals(0, messageArchive.count(chat.getId()));
+        assertFalse(Files.exists(archiveDir.resolve(String.valueOf(chat.getId()))));
+    }
+
+    private static List<String> contents( int newest, int oldest ) {
+        return IntStream.iterate(newest, i -> i >= oldest, i -> i - 1).mapToObj(i -> "message " + i).toList();
+    }
+
+    private static List<String> contents( List<MessageDTO> messages ) {
+        return messages.stream().map(MessageDTO::getContent).toList();
+    }
+}
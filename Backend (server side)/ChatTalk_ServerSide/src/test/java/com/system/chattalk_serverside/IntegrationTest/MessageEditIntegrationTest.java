@@ -0,0 +1,93 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.MessageRepository;
+import com.system.chattalk_serverside.service.Message.MessageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Message edits are applied with a conditional update on the message version, so an edit based on a version that
+ * another edit has already replaced is rejected instead of silently overwriting it.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class MessageEditIntegrationTest {
+    @Autowired private MockMvc mockMvc;
+    @Autowired private MessageService messageService;
+    @Autowired private ChatRepository chatRepository;
+    @Autowired private ChatParticipationRepository chatParticipationRepository;
+    @Autowired private MessageRepository messageRepository;
+    @Autowired private TestData testData;
+
+    private User alice;
+    private Chat chat;
+    private Message message;
+
+    @BeforeEach
+    void setUp() {
+        alice = testData.saveUser("edit-alice@example.com", "editalice");
+        chat = chatRepository.save(Chat.builder().name("Edits").createdBy(alice).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(alice).build());
+        message = messageRepository.save(Message.builder().chat(chat).sender(alice).content("draft").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.deleteChat(chat.getId());
+        testData.deleteUsers(List.of(alice));
+    }
+
+    @Test
+    void editsWithoutAVersion_applyOneAfterAnother() {
+        messageService.editMessage(chat.getId(), message.getId(), "first", alice.getId());
+        messageService.editMessage(chat.getId(), message.getId(), "second", alice.getId());
+
+        Message stored = messageRepository.findById(message.getId()).orElseThrow();
+        assertEquals("second", stored.getContent());
+        assertEquals(2L, stored.getVersion());
+        assertTrue(stored.getIsEdited());
+    }
+
+    @Test
+    void editOfAnOutdatedVersion_isAConflict() throws Exception {
+        // Two clients opened the message at version 0; the first edit wins
+        mockMvc.perform(patch("/api/chats/{chatId}/messages/{messageId}", chat.getId(), message.getId())
+                        .param("content", "mine")
+                        .param("version", "0")
+                        .with(authentication(new UsernamePasswordAuthenticationToken(alice, null, alice.getAuthorities()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+        mockMvc.perform(patch("/api/chats/{chatId}/messages/{messageId}", chat.getId(), message.getId())
+                        .param("content", "theirs")
+                        .param("version", "0")
+                        .with(authentication(new UsernamePasswordAuthenticationToken(alice, null, alice.getAuthorities()))))
+                .andExpect(status().isConflict());
+
+        Message stored = messageRepository.findById(message.getId()).orElseThrow();
+        assertEquals("mine", stored.getContent());
+        assertEquals(1L, stored.getVersion());
+    }
+}
@@ -0,0 +1,172 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.system.chattalk_serverside.dto.ChatDto.SendMessageRequest;
+import com.system.chattalk_serverside.dto.Entity.MessageDTO;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.model.MessageExpiry;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.MessageExpiryRepository;
+import com.system.chattalk_serverside.repository.MessageRepository;
+import com.system.chattalk_serverside.service.Message.MessageExpiryReaper;
+import com.system.chattalk_serverside.service.Message.MessageService;
+import com.system.chattalk_serverside.service.Stats.MessageRollups;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Disappearing messages: the expiry index is filled on send (or read) and drained by the reaper.
+ * Time-to-live values are long enough that the scheduled reaper never gets there first; the tests reap
+ * "in the future" by hand. Not @Transactional, since the reaper commits per chat.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class MessageExpiryIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private MessageService messageService;
+    @Autowired private MessageExpiryReaper messageExpiryReaper;
+    @Autowired private MessageExpiryRepository messageExpiryRepository;
+    @Autowired private MessageRollups messageRollups;
+    @Autowired private ChatRepository chatRepository;
+    @Autowired private ChatParticipationRepository chatParticipationRepository;
+    @Autowired private MessageRepository messageRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TestData testData;
+
+    private User alice;
+    private User bob;
+    private User outsider;
+    private Chat chat;
+
+    @BeforeEach
+    void setUp() {
+        alice = testData.saveUser("ttl-alice@example.com", "ttlalice");
+        bob = testData.saveUser("ttl-bob@example.com", "ttlbob");
+        outsider = testData.saveUser("ttl-outsider@example.com", "ttloutsider");
+        chat = chatRepository.save(Chat.builder().name("Disappearing").createdBy(alice).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(alice).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(bob).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        testData.deleteChat(chat.getId());
+        testData.deleteUsers(List.of(alice, bob, outsider));
+    }
+
+    @Test
+    void afterSent_messagesAreReapedWithTombstones() throws Exception {
+        mockMvc.perform(put("/api/chats/{chatId}/ttl", chat.getId()).param("seconds", "3600").with(user(alice.getEmail())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messageTtlSeconds").value(3600))
+                .andExpect(jsonPath("$.messageExpiryMode").value("AFTER_SENT"));
+
+        MessageDTO first = sendAs(alice, "gone soon");
+        sendAs(bob, "me too");
+        assertEquals(2, messageRollups.messageCount(chat.getId()));
+        MessageExpiry entry = messageExpiryRepository.findById(first.getMessageId()).orElseThrow();
+        assertTrue(entry.getExpiresAt().isAfter(LocalDateTime.now().plusMinutes(59)));
+
+        assertEquals(0, messageExpiryReaper.reapBatch(LocalDateTime.now()));
+        assertEquals(2, messageExpiryReaper.reapBatch(LocalDateTime.now().plusHours(2)));
+
+        assertTrue(messageRepository.findByChat_Id(chat.getId()).isEmpty());
+        assertEquals(0, messageExpiryRepository.count(), "index is drained");
+        assertEquals(0, messageRollups.messageCount(chat.getId()));
+        // One tombstone per message for every participant
+        assertEquals(2, tombstones(alice));
+        assertEquals(2, tombstones(bob));
+    }
+
+    @Test
+    void afterRead_clockStartsWhenARecipientReads() throws Exception {
+        mockMvc.perform(put("/api/chats/{chatId}/ttl", chat.getId())
+                        .param("seconds", "60")
+                        .param("mode", "AFTER_READ")
+                        .with(user(bob.getEmail())))
+                .andExpect(status().isOk());
+
+        MessageDTO sent = sendAs(alice, "read me");
+        assertNull(messageExpiryRepository.findById(sent.getMessageId()).orElseThrow().getExpiresAt());
+        assertEquals(0, messageExpiryReaper.reapBatch(LocalDateTime.now().plusYears(1)));
+
+        // The sender reading the chat does not start the clock on their own message
+        messageService.markConversationAsRead(chat.getId(), alice.getId());
+        assertNull(messageExpiryRepository.findById(sent.getMessageId()).orElseThrow().getExpiresAt());
+
+        messageService.markConversationAsRead(chat.getId(), bob.getId());
+        assertNotNull(messageExpiryRepository.findById(sent.getMessageId()).orElseThrow().getExpiresAt());
+        assertEquals(1, messageExpiryReaper.reapBatch(LocalDateTime.now().plusMinutes(2)));
+        assertTrue(messageRepository.findByChat_Id(chat.getId()).isEmpty());
+    }
+
+    @Test
+    void turningTtlOff_dropsMessagesWaitingToBeRead() throws Exception {
+        mockMvc.perform(put("/api/chats/{chatId}/ttl", chat.getId()).param("seconds", "60").param("mode", "AFTER_READ").with(user(alice.getEmail())))
+                .andExpect(status().isOk());
+        sendAs(alice, "stays");
+
+        mockMvc.perform(put("/api/chats/{chatId}/ttl", chat.getId()).with(user(alice.getEmail())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messageTtlSeconds").doesNotExist());
+        assertEquals(0, messageExpiryRepository.count());
+        sendAs(alice, "not indexed");
+        assertEquals(0, messageExpiryRepository.count());
+
+        mockMvc.perform(put("/api/chats/{chatId}/ttl", chat.getId()).param("seconds", "-5").with(user(alice.getEmail())))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/chats/{chatId}/ttl", chat.getId()).param("seconds", "60").with(user(outsider.getEmail())))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void entriesOfDeletedMessages_areDroppedWithoutTombstones() throws Exception {
+        mockMvc.perform(put("/api/chats/{chatId}/ttl", chat.getId()).param("seconds", "3600").with(user(alice.getEmail())))
+                .andExpect(status().isOk());
+        MessageDTO sent = sendAs(alice, "deleted by hand");
+        messageService.deleteMessage(chat.getId(), sent.getMessageId(), alice.getId(), true);
+        long tombstonesBefore = tombstones(bob);
+
+        assertEquals(1, messageExpiryReaper.reapBatch(LocalDateTime.now().plusHours(2)));
+        assertEquals(0, messageExpiryRepository.count());
+        assertEquals(tombstonesBefore, tombstones(bob));
+        assertEquals(0, messageRollups.messageCount(chat.getId()));
+    }
+
+    private long tombstones( User user ) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_events WHERE user_id = ? AND type = 'MESSAGE_DELETED'", Long.class, user.getId());
+    }
+
+    private MessageDTO sendAs( User sender, String content ) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(sender, null, sender.getAuthorities()));
+        try {
+            return messageService.sendMessage(SendMessageRequest.builder().chatId(chat.getId()).content(content).build());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.MessageRepository;
+import com.system.chattalk_serverside.service.Message.MessageArchive;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Streamed chat exports from /api/chats/{chatId}/export, reading archived and hot messages in one pass.
+ * Not @Transactional: the export is written on an async thread.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class MessageExportIntegrationTest {
+    private static final LocalDateTime START = LocalDateTime.now().minusDays(200).withNano(0);
+
+    @TempDir
+    static Path archiveDir;
+
+    @DynamicPropertySource
+    static void archiveProperties( DynamicPropertyRegistry registry ) {
+        registry.add("messages.archive.dir", () -> archiveDir.toString());
+    }
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private ChatRepository chatRepository;
+    @Autowired private ChatParticipationRepository chatParticipationRepository;
+    @Autowired private MessageRepository messageRepository;
+    @Autowired private MessageArchive messageArchive;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TestData testData;
+
+    private User member;
+    private User outsider;
+    private Chat chat;
+
+    @BeforeEach
+    void setUp() {
+        member = testData.saveUser("export-member@example.com", "exportmember");
+        outsider = testData.saveUser("export-outsider@example.com", "exportoutsider");
+        chat = chatRepository.save(Chat.builder().name("Export chat").createdBy(member).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(member).build());
+
+        // Message i is created i days after START; 1 and 2 are moved to the archive
+        List<Message> archived = new ArrayList<>();
+        String[] contents = {"first", "second", "plain", "with, comma", "with \"quotes\"", "two\nlines"};
+        for (int i = 0; i < contents.length; i++) {
+            Message message = messageRepository.save(Message.builder().chat(chat).sender(member).content(contents[i]).build());
+            jdbcTemplate.update("UPDATE messages SET created_at = ? WHERE id = ?", START.plusDays(i + 1), message.getId());
+            message.setCreatedAt(START.plusDays(i + 1));
+            if (i < 2) {
+                archived.add(message);
+            }
+        }
+        messageArchive.append(chat.getId(), archived);
+        messageRepository.deleteAll(archived);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.deleteChat(chat.getId());
+        testData.deleteUsers(List.of(member, outsider));
+    }
+
+    @Test
+    void ndjsonExport_streamsArchivedThenHotMessagesOldestFirst() throws Exception {
+        MvcResult result = export(get("/api/chats/{chatId}/export", chat.getId()), member);
+
+        assertEquals("application/x-ndjson;charset=UTF-8", result.getResponse().getContentType());
+        assertTrue(result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("chat-" + chat.getId() + ".ndjson"));
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            rows.add(objectMapper.readTree(line));
+        }
+        assertEquals(List.of("first", "second", "plain", "with, comma", "with \"quotes\"", "two\nlines"),
+                rows.stream().map(row -> row.get("content").asText()).toList());
+        assertEquals(member.getId(), rows.get(0).get("senderId").asLong());
+        assertEquals(chat.getId(), rows.get(0).get("chatId").asLong());
+    }
+
+    @Test
+    void dateRange_selectsMessagesCreatedInHalfOpenInterval() throws Exception {
+        MvcResult result = export(get("/api/chats/{chatId}/export", chat.getId())
+                .param("from", START.plusDays(2).toString())
+                .param("to", START.plusDays(4).toString()), member);
+
+        List<String> contents = new ArrayList<>();
+        for (String line : result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            contents.add(objectMapper.readTree(line).get("content").asText());
+        }
+        // One archived message and one hot message; the end is exclusive
+        assertEquals(List.of("second", "plain"), contents);
+    }
+
+    @Test
+    void csvExport_quotesFieldsAndIsGzippedWhenAccepted() throws Exception {
+        MvcResult result = export(get("/api/chats/{chatId}/export", chat.getId())
+                .param("format", "csv")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"), member);
+
+        assertEquals("gzip", result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        String csv;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(csv.startsWith("id,chat_id,sender_id,type,created_at,edited,content,attachment_url\n"));
+        assertTrue(csv.contains(",false,\"with, comma\",\n"));
+        assertTrue(csv.contains(",false,\"with \"\"quotes\"\"\",\n"));
+        assertTrue(csv.contains(",false,\"two\nlines\",\n"));
+        assertEquals(1 + 6 + 1, csv.split("\n").length); // header, six rows, and the embedded line break
+    }
+
+    @Test
+    void nonParticipant_isRejectedBeforeStreaming() throws Exception {
+        mockMvc.perform(get("/api/chats/{chatId}/export", chat.getId()).with(authentication(authenticationFor(outsider))))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest());
+    }
+
+    private MvcResult export( MockHttpServletRequestBuilder request, User user ) throws Exception {
+        MvcResult started = mockMvc.perform(request.with(authentication(authenticationFor(user))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    private static UsernamePasswordAuthenticationToken authenticationFor( User user ) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+}
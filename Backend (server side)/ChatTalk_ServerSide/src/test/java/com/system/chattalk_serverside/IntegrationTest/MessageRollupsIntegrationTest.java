@@ -0,0 +1,222 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.system.chattalk_serverside.dto.ChatDto.SendMessageRequest;
+import com.system.chattalk_serverside.dto.Entity.MessageDTO;
+import com.system.chattalk_serverside.dto.StatsDto.ChatStatsDTO;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.MessageRepository;
+import com.system.chattalk_serverside.service.Message.MessageArchive;
+import com.system.chattalk_serverside.service.Message.MessageService;
+import com.system.chattalk_serverside.service.Stats.MessageRollups;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Rolled-up message statistics: seeded once from stored and archived messages, then kept current by the
+ * send and delete paths so reads never count the messages table.
+ * Not @Transactional, since each call must commit or roll back its counters as it does in production.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class MessageRollupsIntegrationTest {
+    private static final LocalDateTime OLD = LocalDateTime.now().minusDays(400).withNano(0);
+
+    @TempDir
+    static Path archiveDir;
+
+    @DynamicPropertySource
+    static void archiveProperties( DynamicPropertyRegistry registry ) {
+        registry.add("messages.archive.dir", () -> archiveDir.toString());
+    }
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private MessageService messageService;
+    @Autowired private MessageRollups messageRollups;
+    @Autowired private MessageArchive messageArchive;
+    @Autowired private ChatRepository chatRepository;
+    @Autowired private ChatParticipationRepository chatParticipationRepository;
+    @Autowired private MessageRepository messageRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private TestData testData;
+
+    private User alice;
+    private User bob;
+    private Chat chat;
+
+    @BeforeEach
+    void setUp() {
+        alice = testData.saveUser("rollup-alice@example.com", "rollupalice");
+        bob = testData.saveUser("rollup-bob@example.com", "rollupbob");
+        chat = chatRepository.save(Chat.builder().name("Rollups").createdBy(alice).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(alice).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(bob).build());
+
+        // History from before rollups existed: one archived message and two stored ones
+        Message archived = messageRepository.save(Message.builder().chat(chat).sender(bob).content("archived").build());
+        jdbcTemplate.update("UPDATE messages SET created_at = ? WHERE id = ?", OLD, archived.getId());
+        archived.setCreatedAt(OLD);
+        messageArchive.append(chat.getId(), List.of(archived));
+        messageRepository.delete(archived);
+        messageRepository.save(Message.builder().chat(chat).sender(alice).content("one").build());
+        messageRepository.save(Message.builder().chat(chat).sender(bob).content("two").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        testData.deleteChat(chat.getId());
+        testData.deleteUsers(List.of(alice, bob));
+    }
+
+    @Test
+    void firstRead_seedsFromStoredAndArchivedMessages() {
+        ChatStatsDTO stats = messageRollups.chatStats(chat.getId());
+
+        assertEquals(3, stats.getMessageCount());
+        assertEquals(1L, stats.getMessagesBySender().get(alice.getId()));
+        assertEquals(2L, stats.getMessagesBySender().get(bob.getId()));
+        assertNotNull(stats.getLastActivityAt());
+        assertTrue(stats.getLastActivityAt().isAfter(OLD));
+    }
+
+    @Test
+    void sendAndDelete_updateCountersWithoutCountingMessages() throws Exception {
+        assertEquals(3, messageRollups.messageCount(chat.getId()));
+        // A row written past the service is not counted: reads come from the rollups only
+        messageRepository.save(Message.builder().chat(chat).sender(alice).content("untracked").build());
+
+        MessageDTO sent = sendAs(alice, "three");
+        sendAs(alice, "four");
+        assertEquals(5, messageRollups.messageCount(chat.getId()));
+        assertEquals(3L, messageRollups.chatStats(chat.getId()).getMessagesBySender().get(alice.getId()));
+
+        messageService.deleteMessage(chat.getId(), sent.getMessageId(), alice.getId(), false);
+        ChatStatsDTO stats = messageRollups.chatStats(chat.getId());
+        assertEquals(4, stats.getMessageCount());
+        assertEquals(2L, stats.getMessagesBySender().get(alice.getId()));
+
+        // Daily counters only see messages sent through the service
+        mockMvc.perform(get("/api/chats/stats/daily").with(user(alice.getEmail())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].date").value(LocalDate.now().toString()))
+                .andExpect(jsonPath("$[0].messagesSent").value(1));
+        mockMvc.perform(get("/api/chats/{chatId}/message-count", chat.getId()).with(user(bob.getEmail())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(4));
+        mockMvc.perform(get("/api/chats/{chatId}/stats", chat.getId()).with(user(bob.getEmail())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messageCount").value(4))
+                .andExpect(jsonPath("$.messagesBySender['" + bob.getId() + "']").value(2));
+    }
+
+    @Test
+    void forgottenChat_isSeededAgainOnNextUse() {
+        messageRollups.chatStats(chat.getId());
+        messageRepository.deleteAll(messageRepository.findBySenderId(bob.getId()));
+        messageRollups.forgetChats(List.of(chat.getId()));
+
+        // Only the archived message and alice's remain
+        ChatStatsDTO stats = messageRollups.chatStats(chat.getId());
+        assertEquals(2, stats.getMessageCount());
+        assertEquals(1L, stats.getMessagesBySender().get(bob.getId()));
+    }
+
+    @Test
+    void rolledBackSend_leavesNoRollupRowsBehind() {
+        transactionTemplate.executeWithoutResult(status -> {
+            messageRollups.recordSent(List.of(Message.builder().chat(chat).sender(alice).content("never sent").build()));
+            assertEquals(4, messageRollups.messageCount(chat.getId()));
+            status.setRollbackOnly();
+        });
+
+        // The seed went with the rest of the transaction, so the next use counts again from the messages
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM chat_stats WHERE chat_id = ?", Integer.class, chat.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_daily_stats WHERE user_id = ?", Integer.class, alice.getId()));
+        assertEquals(3, messageRollups.messageCount(chat.getId()));
+    }
+
+    @Test
+    void concurrentFirstSends_seedOnceAndCountBoth() throws Exception {
+        CountDownLatch seeded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                messageRollups.recordSent(List.of(Message.builder().chat(chat).sender(alice).content("first").build()));
+                seeded.countDown();
+                await(release);
+            }));
+            assertTrue(seeded.await(5, TimeUnit.SECONDS));
+            // Seeds the same chat while the first transaction's seed is not committed yet, then commits after it
+            Future<?> second = executor.submit(() -> transactionTemplate.executeWithoutResult(status ->
+                    messageRollups.recordSent(List.of(Message.builder().chat(chat).sender(bob).content("second").build()))));
+            Thread.sleep(200);
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        ChatStatsDTO stats = messageRollups.chatStats(chat.getId());
+        assertEquals(5, stats.getMessageCount());
+        assertEquals(2L, stats.getMessagesBySender().get(alice.getId()));
+        assertEquals(3L, stats.getMessagesBySender().get(bob.getId()));
+    }
+
+    private static void await( CountDownLatch latch ) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private MessageDTO sendAs( User sender, String content ) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(sender, null, sender.getAuthorities()));
+        try {
+            return messageService.sendMessage(SendMessageRequest.builder().chatId(chat.getId()).content(content).build());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.chattalk_serverside.dto.ChatDto.SendMessageRequest;
+import com.system.chattalk_serverside.dto.Entity.NotificationDTO;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.NotificationRepository;
+import com.system.chattalk_serverside.service.Message.MessageService;
+import com.system.chattalk_serverside.service.RealTimeNotifcation.RealtimeNotification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Keyset-paged notifications, the changes feed and the maintained unread counter.
+ * Not @Transactional, since each call must commit its counter changes as it does in production.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class NotificationInboxIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private RealtimeNotification realtimeNotification;
+    @Autowired private MessageService messageService;
+    @Autowired private ChatRepository chatRepository;
+    @Autowired private ChatParticipationRepository chatParticipationRepository;
+    @Autowired private NotificationRepository notificationRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TestData testData;
+
+    private User alice;
+    private User bob;
+    private Chat chat;
+
+    @BeforeEach
+    void setUp() {
+        alice = testData.saveUser("paging-alice@example.com", "pagingalice");
+        bob = testData.saveUser("paging-bob@example.com", "pagingbob");
+        chat = chatRepository.save(Chat.builder().name("Paging").createdBy(alice).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(alice).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(bob).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.deleteChat(chat.getId());
+        testData.deleteUsers(List.of(alice, bob));
+    }
+
+    @Test
+    void pages_followTheCursorWithoutGapsOrRepeats() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            friendRequestFor(bob);
+        }
+
+        List<Long> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/notifications/page").param("limit", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode page = perform(request, bob);
+            assertEquals(5, page.get("unreadCount").asLong());
+            page.get("notifications").forEach(notification -> seen.add(notification.get("id").asLong()));
+            pageSizes.add(page.get("notifications").size());
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (cursor != null);
+
+        assertEquals(List.of(2, 2, 1), pageSizes);
+        List<Long> expected = notificationRepository.findByUserId(bob.getId()).stream()
+                .map(notification -> notification.getId())
+                .sorted((a, b) -> Long.compare(b, a))
+                .toList();
+        assertEquals(expected, seen);
+
+        mockMvc.perform(get("/api/notifications/page").param("cursor", "not-a-cursor").with(user(bob.getEmail())))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unreadCounter_followsReadsAndDeletes() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            friendRequestFor(bob);
+        }
+        friendRequestFor(alice);
+        List<Long> ids = notificationRepository.findByUserId(bob.getId()).stream().map(notification -> notification.getId()).toList();
+        Long alicesId = notificationRepository.findByUserId(alice.getId()).get(0).getId();
+        assertEquals(4, unread(bob));
+
+        mockMvc.perform(patch("/api/notifications/{id}/read", ids.get(0)).with(user(bob.getEmail()))).andExpect(status().isOk());
+        mockMvc.perform(patch("/api/notifications/{id}/read", ids.get(0)).with(user(bob.getEmail()))).andExpect(status().isOk());
+        assertEquals(3, unread(bob));
+
+        // Someone else's notification is neither read nor deleted
+        mockMvc.perform(patch("/api/notifications/{id}/read", alicesId).with(user(bob.getEmail()))).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/notifications/{id}", alicesId).with(user(bob.getEmail()))).andExpect(status().isNoContent());
+        assertTrue(notificationRepository.existsById(alicesId));
+        assertEquals(1, unread(alice));
+
+        mockMvc.perform(delete("/api/notifications/{id}", ids.get(0)).with(user(bob.getEmail()))).andExpect(status().isNoContent());
+        assertEquals(3, unread(bob));
+        mockMvc.perform(delete("/api/notifications/{id}", ids.get(1)).with(user(bob.getEmail()))).andExpect(status().isNoContent());
+        assertEquals(2, unread(bob));
+
+        mockMvc.perform(patch("/api/notifications/read").with(user(bob.getEmail()))).andExpect(status().isOk());
+        assertEquals(0, unread(bob));
+        friendRequestFor(bob);
+        assertEquals(1, unread(bob));
+
+        mockMvc.perform(delete("/api/notifications").with(user(bob.getEmail()))).andExpect(status().isNoContent());
+        assertEquals(0, unread(bob));
+        assertTrue(notificationRepository.findByUserId(bob.getId()).isEmpty());
+    }
+
+    @Test
+    void missingCounter_isSeededFromTheNotifications() throws Exception {
+        friendRequestFor(bob);
+        friendRequestFor(bob);
+        jdbcTemplate.update("DELETE FROM notification_counters WHERE user_id = ?", bob.getId());
+
+        assertEquals(2, unread(bob));
+        friendRequestFor(bob);
+        assertEquals(3, unread(bob));
+    }
+
+    @Test
+    void changes_includeEntriesUpdatedInPlace() throws Exception {
+        friendRequestFor(bob);
+        String since = perform(get("/api/notifications/page"), bob).get("latestCursor").asText();
+
+        JsonNode nothing = perform(get("/api/notifications/changes").param("since", since), bob);
+        assertEquals(0, nothing.get("notifications").size());
+        assertEquals(since, nothing.get("latestCursor").asText());
+
+        sendAs(alice, "first");
+        JsonNode created = perform(get("/api/notifications/changes").param("since", since), bob);
+        assertEquals(1, created.get("notifications").size());
+        long entryId = created.get("notifications").get(0).get("id").asLong();
+        assertEquals(2, created.get("unreadCount").asLong());
+
+        // The coalesced entry keeps its id, but still shows up as a change
+        sendAs(alice, "second");
+        JsonNode updated = perform(get("/api/notifications/changes").param("since", created.get("latestCursor").asText()), bob);
+        assertEquals(1, updated.get("notifications").size());
+        assertEquals(entryId, updated.get("notifications").get(0).get("id").asLong());
+        assertEquals(2, updated.get("notifications").get(0).get("messageCount").asInt());
+        assertFalse(updated.get("hasMore").asBoolean());
+        assertEquals(2, updated.get("unreadCount").asLong());
+    }
+
+    private long unread( User user ) throws Exception {
+        return Long.parseLong(mockMvc.perform(get("/api/notifications/unread-count").with(user(user.getEmail())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private JsonNode perform( MockHttpServletRequestBuilder request, User as ) throws Exception {
+        String body = mockMvc.perform(request.with(user(as.getEmail())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private void friendRequestFor( User user ) {
+        User from = user == bob ? alice : bob;
+        realtimeNotification.receiveFriendRequestNotification(user, NotificationDTO.builder().senderEmail(from.getEmail()).build());
+    }
+
+    private void sendAs( User sender, String content ) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(sender, null, sender.getAuthorities()));
+        try {
+            messageService.sendMessage(SendMessageRequest.builder().chatId(chat.getId()).content(content).build());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.system.chattalk_serverside.enums.NotificationType;
+import com.system.chattalk_serverside.model.Notification;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.NotificationRepository;
+import com.system.chattalk_serverside.service.Notification.NotificationCounters;
+import com.system.chattalk_serverside.service.Notification.NotificationRetention;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Retention with small batches and a cap of three, built by hand so the shared context keeps its defaults.
+ * Not @Transactional, since the job commits per batch.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class NotificationRetentionIntegrationTest {
+
+    @Autowired private NotificationRepository notificationRepository;
+    @Autowired private NotificationCounters notificationCounters;
+    @Autowired private ResourceVersions resourceVersions;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private TestData testData;
+
+    private NotificationRetention retention;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        retention = retention(60_000);
+        user = testData.saveUser("retention@example.com", "retention");
+        // Seeded while empty, so the rows saved below are counted once
+        assertEquals(0, notificationCounters.unread(user.getId()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.deleteUsers(List.of(user));
+    }
+
+    @Test
+    void oldReadNotifications_arePurgedInBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            save(true, now.minusDays(40 + i));
+        }
+        Notification recentlyRead = save(true, now.minusDays(2));
+        Notification oldUnread = save(false, now.minusDays(90));
+
+        NotificationRetention.Report report = retention.purge(now);
+
+        assertEquals(5, report.readPurged());
+        assertEquals(0, report.overCapPurged());
+        assertTrue(report.finished());
+        assertEquals(List.of(recentlyRead.getId(), oldUnread.getId()), ids());
+    }
+
+    @Test
+    void unreadBeyondTheCap_oldestAreDropped() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 7; i++) {
+            save(false, now.minusHours(i));
+        }
+        Notification read = save(true, now.minusDays(1));
+        assertEquals(7, notificationCounters.unread(user.getId()));
+        List<Long> newest = notificationRepository.findByUserId(user.getId()).stream()
+                .filter(notification -> !notification.getIsRead())
+                .sorted(Comparator.comparing(Notification::getUpdatedAt).reversed())
+                .limit(3)
+                .map(Notification::getId)
+                .sorted()
+                .toList();
+
+        NotificationRetention.Report report = retention.purge(now);
+
+        assertEquals(4, report.overCapPurged());
+        assertEquals(3, notificationCounters.unread(user.getId()));
+        List<Long> kept = new ArrayList<>(newest);
+        kept.add(read.getId());
+        assertEquals(kept.stream().sorted().toList(), ids());
+    }
+
+    @Test
+    void exhaustedTimeBudget_stopsAndReportsUnfinished() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            save(true, now.minusDays(60));
+        }
+
+        NotificationRetention.Report report = retention(0).purge(now);
+
+        assertFalse(report.finished());
+        assertEquals(5, notificationRepository.findByUserId(user.getId()).size());
+        assertEquals(5, retention.purge(now).readPurged());
+    }
+
+    @Test
+    void offPeakWindow_mayWrapPastMidnight() {
+        assertTrue(retention.isOffPeak(LocalTime.of(2, 0)));
+        assertTrue(retention.isOffPeak(LocalTime.of(4, 59)));
+        assertFalse(retention.isOffPeak(LocalTime.of(5, 0)));
+        assertFalse(retention.isOffPeak(LocalTime.of(12, 0)));
+
+        NotificationRetention overnight = new NotificationRetention(notificationRepository, notificationCounters, resourceVersions,
+                jdbcTemplate, transactionTemplate, new SimpleMeterRegistry(), "23:00", "04:00", 30, 3, 2, 0, 60_000);
+        assertTrue(overnight.isOffPeak(LocalTime.of(23, 30)));
+        assertTrue(overnight.isOffPeak(LocalTime.of(1, 0)));
+        assertFalse(overnight.isOffPeak(LocalTime.of(4, 0)));
+        assertFalse(overnight.isOffPeak(LocalTime.of(22, 59)));
+    }
+
+    private NotificationRetention retention( long maxRunMillis ) {
+        return new NotificationRetention(notificationRepository, notificationCounters, resourceVersions,
+                jdbcTemplate, transactionTemplate, new SimpleMeterRegistry(), "02:00", "05:00", 30, 3, 2, 0, maxRunMillis);
+    }
+
+    private List<Long> ids() {
+        return notificationRepository.findByUserId(user.getId()).stream().map(Notification::getId).sorted().toList();
+    }
+
+    private Notification save( boolean read, LocalDateTime updatedAt ) {
+        Notification saved = notificationRepository.save(Notification.builder()
+                .user(user)
+                .title("Friend Request Accepted ✌")
+                .message("accepted")
+                .type(NotificationType.FRIEND_RESPONSE_ACCEPTED)
+                .isRead(read)
+                .updatedAt(updatedAt)
+                .build());
+        if (!read) {
+            notificationCounters.add(user.getId(), 1);
+        }
+        return saved;
+    }
+}
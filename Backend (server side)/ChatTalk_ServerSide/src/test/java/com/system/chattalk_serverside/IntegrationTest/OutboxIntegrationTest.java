@@ -0,0 +1,253 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.system.chattalk_serverside.enums.UserEventType;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.model.UserEvent;
+import com.system.chattalk_serverside.repository.UserEventRepository;
+import com.system.chattalk_serverside.service.Events.OutboxDispatcher;
+import com.system.chattalk_serverside.service.Events.UserEventLog;
+import com.system.chattalk_serverside.dto.EventDto.EventReplayResponse;
+import com.system.chattalk_serverside.dto.EventDto.UserEventDTO;
+import com.system.chattalk_serverside.websocket.PayloadEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * User events are pushed only after their transaction commits, are marked delivered by the dispatcher,
+ * and undelivered leftovers are picked up by the sweep. Sequence numbers are taken in the database and never reused.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class OutboxIntegrationTest {
+    private static final String EMAIL = "outbox-user@example.com";
+
+    @Autowired private UserEventLog userEventLog;
+    @Autowired private OutboxDispatcher outboxDispatcher;
+    @Autowired private PayloadEncoder payloadEncoder;
+    @Autowired private UserEventRepository userEventRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TestData testData;
+    @Autowired @Qualifier("brokerChannel") private SubscribableChannel brokerChannel;
+
+    private final List<Message<?>> pushed = new CopyOnWriteArrayList<>();
+    private final MessageHandler recorder = message -> {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination != null && destination.contains(EMAIL)) {
+            pushed.add(message);
+        }
+    };
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = testData.saveUser(EMAIL, "outboxuser");
+        brokerChannel.subscribe(recorder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        brokerChannel.unsubscribe(recorder);
+        testData.deleteUsers(List.of(user));
+    }
+
+    @Test
+    void rolledBackEvent_isNeverPushed() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            append("phantom");
+            status.setRollbackOnly();
+        });
+        // Give the dispatcher a chance to (wrongly) push it
+        Thread.sleep(300);
+
+        assertTrue(pushed.isEmpty());
+        assertEquals(0, userEventRepository.findByUserIdAndSeqGreaterThanOrderBySeqAsc(user.getId(), 0L, Pageable.unpaged()).size());
+    }
+
+    @Test
+    void committedEvent_isPushedAfterCommitAndMarkedDelivered() {
+        long seq = transactionTemplate.execute(status -> {
+            long appended = append("hello");
+            assertTrue(pushed.isEmpty(), "nothing may be pushed before commit");
+            return appended;
+        });
+
+        await(() -> pushed.size() == 1);
+        assertEquals(String.valueOf(seq), SimpMessageHeaderAccessor.wrap(pushed.get(0)).getFirstNativeHeader("seq"));
+        await(() -> storedEvents().get(0).getDeliveredAt() != null);
+    }
+
+    @Test
+    void sweep_pushesEventsThatWereNeverDelivered() {
+        UserEvent event = userEventRepository.save(UserEvent.builder()
+                .userId(user.getId())
+                .seq(1L)
+                .type(UserEventType.NOTIFICATION)
+                .destination("/queue/notifications")
+                .payload("{\"text\":\"left behind\"}")
+                .build());
+        // Written before a crash: old enough for the sweep, never handed to the dispatcher
+        jdbcTemplate.update("UPDATE user_events SET created_at = ? WHERE id = ?", LocalDateTime.now().minusSeconds(30), event.getId());
+
+        outboxDispatcher.sweepUndelivered();
+
+        await(() -> pushed.size() == 1);
+        assertEquals("{\"text\":\"left behind\"}", new String((byte[]) pushed.get(0).getPayload()));
+        await(() -> storedEvents().get(0).getDeliveredAt() != null);
+    }
+
+    @Test
+    void concurrentAppends_takeSeqsInCommitOrder() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> append("earlier"));
+        CountDownLatch firstAppended = new CountDownLatch(1);
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            long seq = append("first");
+            firstAppended.countDown();
+            sleep(300);
+            return seq;
+        }));
+        assertTrue(firstAppended.await(5, TimeUnit.SECONDS));
+
+        // Waits for the first transaction instead of taking a number it might still roll back
+        long second = transactionTemplate.execute(status -> append("second"));
+
+        assertEquals(2L, first.get(5, TimeUnit.SECONDS));
+        assertEquals(3L, second);
+        assertEquals(List.of(1L, 2L, 3L), storedEvents().stream().map(UserEvent::getSeq).toList());
+    }
+
+    @Test
+    void rolledBackSeq_isTakenAgain() {
+        transactionTemplate.executeWithoutResult(status -> {
+            append("phantom");
+            status.setRollbackOnly();
+        });
+
+        assertEquals(1L, (long) transactionTemplate.execute(status -> append("real")));
+        EventReplayResponse replay = userEventLog.replay(user.getId(), 0, null);
+        assertEquals(List.of("{\"text\":\"real\"}"), replay.getEvents().stream().map(UserEventDTO::getPayload).toList());
+    }
+
+    @Test
+    void uncommittedEvent_isNotReplayed() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> append("committed"));
+
+        EventReplayResponse duringTransaction = transactionTemplate.execute(status -> {
+            append("pending");
+            return CompletableFuture.supplyAsync(() -> userEventLog.replay(user.getId(), 0, null)).join();
+        });
+
+        assertEquals(1L, duringTransaction.getLatestSeq());
+        assertEquals(List.of(1L), duringTransaction.getEvents().stream().map(UserEventDTO::getSeq).toList());
+        assertEquals(List.of(1L, 2L), userEventLog.replay(user.getId(), 0, null).getEvents().stream().map(UserEventDTO::getSeq).toList());
+    }
+
+    @Test
+    void userWithoutSequenceRow_continuesAfterStoredEvents() {
+        userEventRepository.save(UserEvent.builder()
+                .userId(user.getId())
+                .seq(5L)
+                .type(UserEventType.NOTIFICATION)
+                .destination("/queue/notifications")
+                .payload("{\"text\":\"from before\"}")
+                .build());
+
+        assertEquals(6L, (long) transactionTemplate.execute(status -> append("next")));
+    }
+
+    @Test
+    void appendAll_takesOneNumberPerRecipient_andPushesAfterCommit() {
+        User other = testData.saveUser("outbox-other@example.com", "outboxother");
+        try {
+            transactionTemplate.executeWithoutResult(status -> append("earlier"));
+            transactionTemplate.executeWithoutResult(status -> userEventLog.appendAll(List.of(other, user, user),
+                    UserEventType.MESSAGE_CREATED, "/queue/chat", payloadEncoder.encode(Map.of("text", "to both"))));
+
+            assertEquals(List.of(1L, 2L), storedEvents().stream().map(UserEvent::getSeq).toList());
+            assertEquals(1L, jdbcTemplate.queryForObject("SELECT last_seq FROM user_event_sequences WHERE user_id = ?", Long.class, other.getId()));
+            await(() -> pushed.size() == 3); // "earlier", then "to both" on both message queues
+        } finally {
+            testData.deleteUsers(List.of(other));
+        }
+    }
+
+    @Test
+    void appendAllToOverlappingAudiences_inOppositeOrders_neverDeadlocks() throws Exception {
+        User other = testData.saveUser("outbox-other@example.com", "outboxother");
+        try {
+            int rounds = 20;
+            CompletableFuture<Void> forward = CompletableFuture.runAsync(() -> fanOut(List.of(user, other), rounds));
+            CompletableFuture<Void> backward = CompletableFuture.runAsync(() -> fanOut(List.of(other, user), rounds));
+            CompletableFuture.allOf(forward, backward).get(30, TimeUnit.SECONDS);
+
+            assertEquals(2L * rounds, storedEvents().size());
+            assertEquals(2L * rounds, jdbcTemplate.queryForObject("SELECT last_seq FROM user_event_sequences WHERE user_id = ?", Long.class, other.getId()));
+            await(() -> pushed.size() == 2 * rounds);
+        } finally {
+            testData.deleteUsers(List.of(other));
+        }
+    }
+
+    private void fanOut( List<User> recipients, int rounds ) {
+        for (int i = 0; i < rounds; i++) {
+            transactionTemplate.executeWithoutResult(status -> userEventLog.appendAll(recipients,
+                    UserEventType.NOTIFICATION, "/queue/notifications", payloadEncoder.encode(Map.of("text", "fan-out"))));
+        }
+    }
+
+    private long append( String text ) {
+        return userEventLog.append(user, UserEventType.NOTIFICATION, "/queue/notifications", payloadEncoder.encode(Map.of("text", text)));
+    }
+
+    private List<UserEvent> storedEvents() {
+        return userEventRepository.findByUserIdAndSeqGreaterThanOrderBySeqAsc(user.getId(), 0L, Pageable.unpaged());
+    }
+
+    private static void sleep( long millis ) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await( BooleanSupplier condition ) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("condition not met within 5 s");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("interrupted");
+            }
+        }
+    }
+}
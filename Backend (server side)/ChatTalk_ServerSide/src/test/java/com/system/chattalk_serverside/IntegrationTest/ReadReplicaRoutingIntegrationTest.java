@@ -0,0 +1,98 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.system.chattalk_serverside.config.ReadReplicaDataSourceConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica; each holds a row naming itself.
+ */
+class ReadReplicaRoutingIntegrationTest {
+    private static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1";
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        seed(PRIMARY_URL, "primary");
+        seed(REPLICA_URL, "replica");
+
+        DataSourceProperties primaryProperties = new DataSourceProperties();
+        primaryProperties.setUrl(PRIMARY_URL);
+        primaryProperties.setUsername("sa");
+        primaryProperties.setPassword("");
+        DataSource dataSource = new ReadReplicaDataSourceConfig().dataSource(primaryProperties, REPLICA_URL, "sa", "", 2, 60_000);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactions_goToReplica_othersToPrimary() {
+        assertEquals("replica", readOnly.execute(status -> currentDatabase()));
+        assertEquals("primary", readWrite.execute(status -> currentDatabase()));
+        assertEquals("primary", currentDatabase());
+    }
+
+    @Test
+    void userReadsOwnWritesFromPrimary_otherUsersStayOnReplica() {
+        login("a@example.com");
+        assertEquals("replica", readOnly.execute(status -> currentDatabase()));
+
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE marker SET counter = counter + 1"));
+        assertEquals("primary", readOnly.execute(status -> currentDatabase()));
+        Integer counter = readOnly.execute(status -> jdbcTemplate.queryForObject("SELECT counter FROM marker", Integer.class));
+        assertEquals(1, counter);
+
+        login("b@example.com");
+        assertEquals("replica", readOnly.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void rolledBackWrite_doesNotPinUserToPrimary() {
+        login("c@example.com");
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE marker SET counter = counter + 1");
+            status.setRollbackOnly();
+        });
+        assertEquals("replica", readOnly.execute(status -> currentDatabase()));
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static void login( String email ) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(email, null, "USER"));
+    }
+
+    private static void seed( String url, String name ) {
+        JdbcTemplate template = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        template.execute("DROP TABLE IF EXISTS marker");
+        template.execute("CREATE TABLE marker (name VARCHAR(16), counter INT)");
+        template.update("INSERT INTO marker VALUES (?, 0)", name);
+    }
+}
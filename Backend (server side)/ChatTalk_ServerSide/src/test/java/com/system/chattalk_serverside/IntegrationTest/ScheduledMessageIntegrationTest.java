@@ -0,0 +1,230 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.chattalk_serverside.dto.ScheduledDto.ScheduleMessageRequest;
+import com.system.chattalk_serverside.enums.ScheduledMessageStatus;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.ScheduledMessage;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.MessageRepository;
+import com.system.chattalk_serverside.repository.ScheduledMessageRepository;
+import com.system.chattalk_serverside.service.Scheduled.ScheduledMessageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Scheduled messages: stored on request, fired from the timing wheel through the normal send path.
+ * Not @Transactional, since firing happens on the ticker thread.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class ScheduledMessageIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private ScheduledMessageService scheduledMessageService;
+    @Autowired private ScheduledMessageRepository scheduledMessageRepository;
+    @Autowired private ChatRepository chatRepository;
+    @Autowired private ChatParticipationRepository chatParticipationRepository;
+    @Autowired private MessageRepository messageRepository;
+    @Autowired private TestData testData;
+
+    private User sender;
+    private User outsider;
+    private Chat chat;
+
+    @BeforeEach
+    void setUp() {
+        sender = testData.saveUser("scheduled-sender@example.com", "scheduledsender");
+        outsider = testData.saveUser("scheduled-outsider@example.com", "scheduledoutsider");
+        chat = chatRepository.save(Chat.builder().name("Scheduled").createdBy(sender).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(sender).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.deleteChat(chat.getId());
+        testData.deleteUsers(List.of(sender, outsider));
+    }
+
+    @Test
+    void scheduledMessage_isSentWhenDue() throws Exception {
+        Long id = schedule("see you soon", LocalDateTime.now().plusNanos(500_000_000));
+
+        mockMvc.perform(get("/api/chats/{chatId}/messages/scheduled", chat.getId()).with(authentication(authenticationFor(sender))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(id))
+                .andExpect(jsonPath("$[0].status").value("PENDING"));
+
+        ScheduledMessage fired = awaitStatus(id, ScheduledMessageStatus.SENT);
+        Optional<Message> message = messageRepository.findBySender_IdAndClientMessageId(sender.getId(), "scheduled-" + id);
+        assertTrue(message.isPresent());
+        assertEquals("see you soon", message.get().getContent());
+        assertEquals(message.get().getId(), fired.getMessageId());
+        assertFalse(fired.getSentAt().isBefore(fired.getSendAt()));
+
+        mockMvc.perform(get("/api/chats/{chatId}/messages/scheduled", chat.getId()).with(authentication(authenticationFor(sender))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void cancelledMessage_isNeverSent() throws Exception {
+        Long id = schedule("never mind", LocalDateTime.now().plusNanos(500_000_000));
+
+        mockMvc.perform(delete("/api/chats/{chatId}/messages/scheduled/{scheduledId}", chat.getId(), id)
+                        .with(authentication(authenticationFor(outsider))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/chats/{chatId}/messages/scheduled/{scheduledId}", chat.getId(), id)
+                        .with(authentication(authenticationFor(sender))))
+                .andExpect(status().isNoContent());
+
+        Thread.sleep(1500);
+        assertEquals(ScheduledMessageStatus.CANCELLED, scheduledMessageRepository.findById(id).orElseThrow().getStatus());
+        assertTrue(messageRepository.findByChat_Id(chat.getId()).isEmpty());
+        mockMvc.perform(delete("/api/chats/{chatId}/messages/scheduled/{scheduledId}", chat.getId(), id)
+                        .with(authentication(authenticationFor(sender))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void invalidSchedules_areRejected() throws Exception {
+        mockMvc.perform(post("/api/chats/{chatId}/messages/scheduled", chat.getId())
+                        .with(authentication(authenticationFor(sender)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("too late", LocalDateTime.now().minusMinutes(1))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/chats/{chatId}/messages/scheduled", chat.getId())
+                        .with(authentication(authenticationFor(sender)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("too far", LocalDateTime.now().plusYears(5))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/chats/{chatId}/messages/scheduled", chat.getId())
+                        .with(authentication(authenticationFor(outsider)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("not mine", LocalDateTime.now().plusMinutes(5))))
+                .andExpect(status().isBadRequest());
+        assertTrue(scheduledMessageRepository.findBySenderIdAndChatIdAndStatusOrderBySendAtAsc(
+                sender.getId(), chat.getId(), ScheduledMessageStatus.PENDING).isEmpty());
+    }
+
+    @Test
+    void pendingMessagesPerUser_areCapped() throws Exception {
+        // The test profile allows three
+        Long first = schedule("one", LocalDateTime.now().plusMinutes(5));
+        schedule("two", LocalDateTime.now().plusMinutes(5));
+        schedule("three", LocalDateTime.now().plusMinutes(5));
+        mockMvc.perform(post("/api/chats/{chatId}/messages/scheduled", chat.getId())
+                        .with(authentication(authenticationFor(sender)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("four", LocalDateTime.now().plusMinutes(5))))
+                .andExpect(status().isBadRequest());
+
+        // A cancelled one no longer counts
+        scheduledMessageService.cancel(chat.getId(), first, sender.getId());
+        schedule("four", LocalDateTime.now().plusMinutes(5));
+    }
+
+    @Test
+    void schedulingRequests_areRateLimitedAsSends() throws Exception {
+        boolean limited = false;
+        for (int i = 0; i < 40 && !limited; i++) {
+            limited = mockMvc.perform(post("/api/chats/{chatId}/messages/scheduled", chat.getId())
+                            .with(authentication(authenticationFor(outsider)))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body("flood", LocalDateTime.now().plusMinutes(5))))
+                    .andReturn().getResponse().getStatus() == 429;
+        }
+        assertTrue(limited, "the send burst should run out within 40 requests");
+    }
+
+    @Test
+    void rowsLeftByAPreviousRun_areReloadedAndSentOnce() {
+        // An overdue pending row, and one that was claimed when the previous instance stopped
+        ScheduledMessage pending = saveRow("missed while down", ScheduledMessageStatus.PENDING);
+        ScheduledMessage interrupted = saveRow("interrupted", ScheduledMessageStatus.FIRING);
+
+        assertTrue(scheduledMessageService.reload() >= 2);
+
+        awaitStatus(pending.getId(), ScheduledMessageStatus.SENT);
+        awaitStatus(interrupted.getId(), ScheduledMessageStatus.SENT);
+        // Filed twice (at startup and now), sent once
+        scheduledMessageService.reload();
+        assertEquals(2, messageRepository.findByChat_Id(chat.getId()).size());
+    }
+
+    private Long schedule( String content, LocalDateTime sendAt ) throws Exception {
+        String response = mockMvc.perform(post("/api/chats/{chatId}/messages/scheduled", chat.getId())
+                        .with(authentication(authenticationFor(sender)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(content, sendAt)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode json = objectMapper.readTree(response);
+        return json.get("id").asLong();
+    }
+
+    private String body( String content, LocalDateTime sendAt ) throws Exception {
+        return objectMapper.writeValueAsString(ScheduleMessageRequest.builder().content(content).sendAt(sendAt).build());
+    }
+
+    private ScheduledMessage saveRow( String content, ScheduledMessageStatus status ) {
+        LocalDateTime due = LocalDateTime.now().minusMinutes(1);
+        return scheduledMessageRepository.save(ScheduledMessage.builder()
+                .chatId(chat.getId())
+                .senderId(sender.getId())
+                .content(content)
+                .sendAt(due)
+                .status(status)
+                .createdAt(due.minusMinutes(5))
+                .build());
+    }
+
+    private ScheduledMessage awaitStatus( Long id, ScheduledMessageStatus expected ) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        ScheduledMessage scheduled = scheduledMessageRepository.findById(id).orElseThrow();
+        while (scheduled.getStatus() != expected && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            scheduled = scheduledMessageRepository.findById(id).orElseThrow();
+        }
+        assertEquals(expected, scheduled.getStatus(), "error: " + scheduled.getError());
+        return scheduled;
+    }
+
+    private static UsernamePasswordAuthenticationToken authenticationFor( User user ) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+}
@@ -0,0 +1,250 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.system.chattalk_serverside.config.MessageShards;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.service.Message.MessageService;
+import com.system.chattalk_serverside.service.Message.MessageStore;
+import com.system.chattalk_serverside.service.Message.ShardedMessageStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Messages sharded over three in-memory H2 databases: each chat stays on one shard,
+ * per-sender operations gather from all of them.
+ */
+@SpringBootTest(properties = {
+        "messages.sharding.enabled=true",
+        "messages.sharding.urls=jdbc:h2:mem:message-shard-0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:message-shard-1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:message-shard-2;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class ShardedMessageStoreIntegrationTest {
+    private static final long ALICE = 1L;
+    private static final long BOB = 2L;
+
+    @Autowired private MessageStore messageStore;
+    @Autowired private MessageShards messageShards;
+    @Autowired private MessageService messageService;
+    @Autowired private ChatRepository chatRepository;
+    @Autowired private ChatParticipationRepository chatParticipationRepository;
+    @Autowired private TestData testData;
+
+    private final List<Chat> chats = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (int i = 0; i < messageShards.size(); i++) {
+            messageShards.get(i).getJdbcOperations().update("DELETE FROM messages");
+        }
+        testData.deleteChats(chats);
+        chats.clear();
+        testData.deleteUsers(users);
+        users.clear();
+    }
+
+    @Test
+    void shardedStore_isUsedWhenEnabled() {
+        assertInstanceOf(ShardedMessageStore.class, messageStore);
+        assertEquals(3, messageShards.size());
+    }
+
+    @Test
+    void eachChat_isStoredOnItsOwnShardOnly() {
+        for (long chatId = 1; chatId <= 6; chatId++) {
+            save(chatId, ALICE, "hello " + chatId);
+        }
+
+        Set<Integer> usedShards = new HashSet<>();
+        for (long chatId = 1; chatId <= 6; chatId++) {
+            int home = messageShards.indexFor(chatId);
+            usedShards.add(home);
+            for (int i = 0; i < messageShards.size(); i++) {
+                Long rows = messageShards.get(i).getJdbcOperations()
+                        .queryForObject("SELECT COUNT(*) FROM messages WHERE chat_id = ?", Long.class, chatId);
+                assertEquals(i == home ? 1L : 0L, rows, "chat " + chatId + " on shard " + i);
+            }
+        }
+        assertEquals(3, usedShards.size());
+    }
+
+    @Test
+    void perChatQueries_areAnsweredByTheChatsShard() {
+        Chat chat = chat(7L);
+        Message first = save(7L, ALICE, "first");
+        save(7L, BOB, "second");
+        Message third = save(7L, BOB, "third");
+
+        List<Message> history = messageStore.findHistory(chat, PageRequest.of(0, 2));
+        assertEquals(List.of("third", "second"), history.stream().map(Message::getContent).toList());
+        assertSame(chat, history.get(0).getChat());
+        assertEquals("third", messageStore.findLatest(chat).getContent());
+        assertTrue(third.getId() > first.getId(), "ids grow with time");
+
+        assertEquals(2, messageStore.countUnread(7L, ALICE));
+        assertEquals(2, messageStore.markRead(7L, ALICE));
+        assertEquals(0, messageStore.countUnread(7L, ALICE));
+
+        first.setContent("first, edited");
+        first.setVersion(1L);
+        messageStore.save(first);
+        Message reloaded = messageStore.findById(chat, first.getId()).orElseThrow();
+        assertEquals("first, edited", reloaded.getContent());
+        assertEquals(1L, reloaded.getVersion());
+
+        messageStore.delete(chat, first.getId());
+        assertTrue(messageStore.findById(chat, first.getId()).isEmpty());
+    }
+
+    @Test
+    void messageOfAnotherChatOnTheSameShard_isInvisibleThroughThisChat() {
+        Chat chat = chat(40L);
+        Chat neighbour = chat(sameShardAs(40L));
+        Message foreign = save(neighbour.getId(), BOB, "not yours");
+
+        assertTrue(messageStore.findById(chat, foreign.getId()).isEmpty());
+        messageStore.delete(chat, foreign.getId());
+        assertTrue(messageStore.findById(neighbour, foreign.getId()).isPresent());
+    }
+
+    @Test
+    void messageOfAnotherChatOnTheSameShard_cannotBeDeletedOrEdited() {
+        User owner = saveUser("shard-owner@example.com", "shardowner");
+        User member = saveUser("shard-member@example.com", "shardmember");
+        Chat own = saveChat(owner, owner, member);
+        Chat other = saveChat(member, member);
+        while (messageShards.indexFor(other.getId()) != messageShards.indexFor(own.getId())) {
+            other = saveChat(member, member);
+        }
+        Message foreign = save(other.getId(), member.getId(), "elsewhere");
+
+        // The owner of one chat may delete anything in it, but not a message that lives in another chat
+        assertThrows(IllegalArgumentException.class, () -> messageService.deleteMessage(own.getId(), foreign.getId(), owner.getId(), true));
+        // The sender is a participant of both chats, yet cannot edit it through the wrong one
+        assertThrows(IllegalArgumentException.class, () -> messageService.editMessage(own.getId(), foreign.getId(), "hijacked", member.getId()));
+
+        Message untouched = messageStore.findById(chat(other.getId()), foreign.getId()).orElseThrow();
+        assertEquals("elsewhere", untouched.getContent());
+        assertFalse(untouched.getIsEdited());
+    }
+
+    @Test
+    void editOfAnOutdatedVersion_isRejectedOnTheShard() {
+        User sender = saveUser("shard-editor@example.com", "shardeditor");
+        Chat own = saveChat(sender, sender);
+        Message message = save(own.getId(), sender.getId(), "draft");
+
+        messageService.editMessage(own.getId(), message.getId(), "mine", sender.getId(), 0L);
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> messageService.editMessage(own.getId(), message.getId(), "theirs", sender.getId(), 0L));
+
+        Message stored = messageStore.findById(chat(own.getId()), message.getId()).orElseThrow();
+        assertEquals("mine", stored.getContent());
+        assertEquals(1L, stored.getVersion());
+        assertTrue(stored.getIsEdited());
+    }
+
+    @Test
+    void chatBatches_spanShards() {
+        for (long chatId = 10; chatId <= 12; chatId++) {
+            save(chatId, BOB, "older " + chatId);
+            save(chatId, BOB, "newest " + chatId);
+        }
+
+        Map<Long, Long> unread = messageStore.countUnreadByChat(List.of(10L, 11L, 12L), ALICE);
+        assertEquals(Map.of(10L, 2L, 11L, 2L, 12L, 2L), unread);
+
+        Map<Long, MessageStore.LastMessage> last = messageStore.findLastMessages(List.of(10L, 11L, 12L, 99L));
+        assertEquals(3, last.size());
+        assertEquals("newest 11", last.get(11L).content());
+    }
+
+    @Test
+    void senderOperations_gatherFromEveryShard() {
+        for (long chatId = 20; chatId <= 25; chatId++) {
+            save(chatId, ALICE, "from alice " + chatId);
+            save(chatId, BOB, "from bob " + chatId);
+        }
+
+        List<Message> alices = messageStore.findBySender(ALICE);
+        assertEquals(6, alices.size());
+        assertEquals(Set.of(20L, 21L, 22L, 23L, 24L, 25L), alices.stream().map(m -> m.getChat().getId()).collect(Collectors.toSet()));
+
+        assertEquals(6, messageStore.deleteBySender(ALICE));
+        assertTrue(messageStore.findBySender(ALICE).isEmpty());
+        assertEquals(6, messageStore.findBySender(BOB).size());
+    }
+
+    @Test
+    void rangeWalk_visitsEveryMessageOnceAcrossKeysetPages() {
+        // More than two pages; many messages share a creation time, so ties are broken by id
+        List<Long> saved = new ArrayList<>();
+        for (int i = 0; i < 1201; i++) {
+            saved.add(save(30L, ALICE, "bulk " + i).getId());
+        }
+
+        List<Long> visited = new ArrayList<>();
+        messageStore.forEachInRange(chat(30L), LocalDateTime.now().minusDays(1), LocalDateTime.now().plusSeconds(1), m -> visited.add(m.getId()));
+        assertEquals(saved, visited);
+
+        List<Long> none = new ArrayList<>();
+        messageStore.forEachInRange(chat(30L), LocalDateTime.now().plusSeconds(1), LocalDateTime.now().plusDays(1), m -> none.add(m.getId()));
+        assertTrue(none.isEmpty());
+    }
+
+    private Message save( long chatId, long senderId, String content ) {
+        return messageStore.save(Message.builder()
+                .chat(chat(chatId))
+                .sender(User.builder().id(senderId).build())
+                .content(content)
+                .build());
+    }
+
+    private long sameShardAs( long chatId ) {
+        long other = chatId + 1;
+        while (messageShards.indexFor(other) != messageShards.indexFor(chatId)) {
+            other++;
+        }
+        return other;
+    }
+
+    private Chat saveChat( User createdBy, User... participants ) {
+        Chat chat = chatRepository.save(Chat.builder().name("sharded").createdBy(createdBy).build());
+        chats.add(chat);
+        for (User participant : participants) {
+            chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(participant).build());
+        }
+        return chat;
+    }
+
+    private User saveUser( String email, String username ) {
+        User user = testData.saveUser(email, username);
+        users.add(user);
+        return user;
+    }
+
+    private static Chat chat( long id ) {
+        return Chat.builder().id(id).name("chat " + id).build();
+    }
+}
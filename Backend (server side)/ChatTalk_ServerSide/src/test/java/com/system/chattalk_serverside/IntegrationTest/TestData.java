@@ -0,0 +1,78 @@
+package com.system.chattalk_serverside.IntegrationTest;
+
+import com.system.chattalk_serverside.enums.UserStatus;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.MessageRepository;
+import com.system.chattalk_serverside.repository.NotificationRepository;
+import com.system.chattalk_serverside.repository.UserRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+
+/**
+ * Users for integration tests, and the removal of chats and users together with the rows the application wrote for
+ * them (rollups, events, counters, schedules, expiries). The tests share one database, so each removes what it made:
+ * chats first, then users.
+ */
+public class TestData {
+    private final UserRepository userRepository;
+    private final ChatRepository chatRepository;
+    private final ChatParticipationRepository chatParticipationRepository;
+    private final MessageRepository messageRepository;
+    private final NotificationRepository notificationRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public TestData( UserRepository userRepository, ChatRepository chatRepository,
+                     ChatParticipationRepository chatParticipationRepository, MessageRepository messageRepository,
+                     NotificationRepository notificationRepository, JdbcTemplate jdbcTemplate ) {
+        this.userRepository = userRepository;
+        this.chatRepository = chatRepository;
+        this.chatParticipationRepository = chatParticipationRepository;
+        this.messageRepository = messageRepository;
+        this.notificationRepository = notificationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Saves a verified, active user */
+    public User saveUser( String email, String username ) {
+        return userRepository.save(User.builder()
+                .email(email)
+                .username(username)
+                .firstName("Test")
+                .lastName("User")
+                .password("password123")
+                .isVerified(true)
+                .status(UserStatus.ACTIVE)
+                .build());
+    }
+
+    public void deleteChats( Collection<Chat> chats ) {
+        chats.forEach(chat -> deleteChat(chat.getId()));
+    }
+
+    /** Deletes a chat with its messages, participations, schedules, expiries and rollups */
+    public void deleteChat( Long chatId ) {
+        jdbcTemplate.update("DELETE FROM scheduled_messages WHERE chat_id = ?", chatId);
+        jdbcTemplate.update("DELETE FROM message_expiries WHERE chat_id = ?", chatId);
+        jdbcTemplate.update("DELETE FROM chat_sender_stats WHERE chat_id = ?", chatId);
+        jdbcTemplate.update("DELETE FROM chat_stats WHERE chat_id = ?", chatId);
+        messageRepository.deleteAll(messageRepository.findByChat_Id(chatId));
+        chatParticipationRepository.deleteAll(chatParticipationRepository.findByChatId(chatId));
+        chatRepository.deleteById(chatId);
+    }
+
+    /** Deletes users with their notifications, counters, events and daily rollups; their chats must be gone already */
+    public void deleteUsers( Collection<User> users ) {
+        for (User user : users) {
+            jdbcTemplate.update("DELETE FROM user_daily_stats WHERE user_id = ?", user.getId());
+            jdbcTemplate.update("DELETE FROM user_events WHERE user_id = ?", user.getId());
+            jdbcTemplate.update("DELETE FROM user_event_sequences WHERE user_id = ?", user.getId());
+            jdbcTemplate.update("DELETE FROM notification_counters WHERE user_id = ?", user.getId());
+            notificationRepository.deleteAll(notificationRepository.findByUserId(user.getId()));
+        }
+        userRepository.deleteAll(users);
+    }
+}
@@ -0,0 +1,115 @@
+package com.system.chattalk_serverside.PerformanceTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.system.chattalk_serverside.enums.ExportFormat;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.service.Message.MessageArchive;
+import com.system.chattalk_serverside.service.Message.MessageExportService;
+import com.system.chattalk_serverside.service.Message.MessageStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exports a million-message chat in a separate JVM with a 48 MB heap: only possible if messages are written
+ * as they are read and nothing keeps them. The store feeds generated messages one at a time, like a database cursor.
+ */
+public class MessageExportPerformanceTest {
+    private static final int MESSAGES = 1_000_000;
+
+    @TempDir
+    Path archiveDir;
+
+    @Test
+    void millionMessageExport_fitsInSmallHeap() throws Exception {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process process = new ProcessBuilder(java, "-Xmx48m", "-cp", System.getProperty("java.class.path"),
+                MessageExportPerformanceTest.class.getName(), archiveDir.toString())
+                .redirectErrorStream(true)
+                .start();
+        String output;
+        try (var in = process.getInputStream()) {
+            output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(process.waitFor(5, TimeUnit.MINUTES), "export did not finish");
+        System.out.println(output.strip());
+
+        assertEquals(0, process.exitValue(), output);
+        assertTrue(output.contains("ndjson " + MESSAGES + " messages"), output);
+        assertTrue(output.contains("csv+gzip " + MESSAGES + " messages"), output);
+    }
+
+    public static void main( String[] args ) throws IOException {
+        Chat chat = Chat.builder().id(1L).name("Big chat").build();
+        MessageExportService exportService = new MessageExportService(generatingStore(), new MessageArchive(args[0], 64), null,
+                new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS), 1000);
+        MessageExportService.Export export = new MessageExportService.Export(chat, LocalDateTime.of(2020, 1, 1, 0, 0), LocalDateTime.now());
+
+        CountingOutputStream plain = new CountingOutputStream();
+        long start = System.nanoTime();
+        long written = exportService.export(export, ExportFormat.NDJSON, plain);
+        System.out.printf("ndjson %d messages, %d MB in %d ms%n", written, plain.bytes >> 20, (System.nanoTime() - start) / 1_000_000);
+
+        CountingOutputStream compressed = new CountingOutputStream();
+        start = System.nanoTime();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192, true)) {
+            written = exportService.export(export, ExportFormat.CSV, gzip);
+        }
+        System.out.printf("csv+gzip %d messages, %d MB in %d ms%n", written, compressed.bytes >> 20, (System.nanoTime() - start) / 1_000_000);
+        System.out.printf("max heap %d MB%n", Runtime.getRuntime().maxMemory() >> 20);
+    }
+
+    /**
+     * Only forEachInRange is used by the export; each message becomes garbage once the consumer returns
+     */
+    @SuppressWarnings("unchecked")
+    private static MessageStore generatingStore() {
+        User sender = User.builder().id(7L).build();
+        return (MessageStore) Proxy.newProxyInstance(MessageStore.class.getClassLoader(), new Class<?>[]{MessageStore.class}, ( proxy, method, args ) -> {
+            if (!method.getName().equals("forEachInRange")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            Chat chat = (Chat) args[0];
+            LocalDateTime from = (LocalDateTime) args[1];
+            Consumer<Message> action = (Consumer<Message>) args[3];
+            for (long id = 1; id <= MESSAGES; id++) {
+                action.accept(Message.builder()
+                        .id(id)
+                        .chat(chat)
+                        .sender(sender)
+                        .content("Message number " + id + " with some ordinary text, about as long as a chat line")
+                        .createdAt(from.plusSeconds(id))
+                        .build());
+            }
+            return null;
+        });
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write( int b ) {
+            bytes++;
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len ) {
+            bytes += len;
+        }
+    }
+}
@@ -5,19 +5,30 @@ import com.system.chattalk_serverside.dto.Entity.MessageDTO;
 import com.system.chattalk_serverside.model.Chat;
 import com.system.chattalk_serverside.model.Message;
 import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
 import com.system.chattalk_serverside.repository.ChatRepository;
 import com.system.chattalk_serverside.repository.MessageRepository;
 import com.system.chattalk_serverside.repository.UserRepository;
+import com.system.chattalk_serverside.service.Chat.ChatAudience;
+import com.system.chattalk_serverside.service.Message.JpaMessageStore;
+import com.system.chattalk_serverside.service.Message.MessageArchive;
+import com.system.chattalk_serverside.service.Message.MessageExpiries;
+import com.system.chattalk_serverside.service.Message.MessageIdempotencyCache;
 import com.system.chattalk_serverside.service.Message.MessageServiceImpl;
+import com.system.chattalk_serverside.service.RealTimeNotifcation.RealtimeNotificationImpl;
+import com.system.chattalk_serverside.service.Stats.MessageRollups;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
+import com.system.chattalk_serverside.websocket.ChatFocusRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -38,8 +49,23 @@ public class MessageServicePerformanceTest {
     private ChatRepository chatRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ResourceVersions resourceVersions;
+    @Mock
+    private RealtimeNotificationImpl realtimeNotificationImpl;
+    @Mock
+    private MessageArchive messageArchive;
+    @Mock
+    private MessageRollups messageRollups;
+    @Mock
+    private MessageExpiries messageExpiries;
+    @Mock
+    private ChatParticipationRepository chatParticipationRepository;
+    @Mock
+    private ChatFocusRegistry chatFocusRegistry;
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
-    @InjectMocks
     private MessageServiceImpl messageService;
 
     private User authenticatedUser;
@@ -47,6 +73,8 @@ public class MessageServicePerformanceTest {
 
     @BeforeEach
     void setup() {
+        messageService = new MessageServiceImpl(new JpaMessageStore(messageRepository), messageArchive, chatRepository, userRepository, realtimeNotificationImpl, new MessageIdempotencyCache(300, 1000), resourceVersions, messageRollups, messageExpiries, new ChatAudience(chatParticipationRepository), chatFocusRegistry, new TransactionTemplate(transactionManager));
+
         authenticatedUser = new User();
         authenticatedUser.setId(10L);
         authenticatedUser.setEmail("user@example.com");
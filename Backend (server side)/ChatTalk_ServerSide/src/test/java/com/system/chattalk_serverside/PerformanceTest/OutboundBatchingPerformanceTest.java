@@ -0,0 +1,242 @@
+package com.system.chattalk_serverside.PerformanceTest;
+
+import com.system.chattalk_serverside.websocket.OutboundBatchingDecoratorFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Burst of STOMP MESSAGE frames to one session, with and without outbound batching.
+ * Writes to the underlying session stand in for socket writes (one send syscall each).
+ */
+public class OutboundBatchingPerformanceTest {
+
+    private static final int FRAMES = 20_000;
+    private static final String FRAME = "MESSAGE\ndestination:/user/queue/messages\ncontent-type:application/json\nsubscription:sub-0\n"
+            + "message-id:1\ncontent-length:180\n\n"
+            + "{\"messageId\":1,\"chatId\":100,\"chatName\":\"Test Chat\",\"messageType\":\"TEXT\",\"content\":\"hello there\","
+            + "\"isRead\":false,\"senderId\":1,\"timestamp\":\"2024-01-01T10:00:00\"}\0";
+
+    @Test
+    void burstToOneSession_coalescesWrites() throws Exception {
+        Result unbatched = run(factory(false, 20_000));
+        Result batched = run(factory(true, 20_000));
+
+        assertEquals(FRAMES, unbatched.writes);
+        assertTrue(batched.writes <= FRAMES / 50, "expected at least 50 frames per write, got %d writes (avg %d bytes) in %d ms, unbatched took %d ms"
+                .formatted(batched.writes, batched.bytes / Math.max(1, batched.writes), batched.millis, unbatched.millis));
+        assertArrayEquals(unbatched.payload, batched.payload, "batched stream must carry the same frames in order");
+    }
+
+    @Test
+    void singleFrame_isFlushedAfterWindow() throws Exception {
+        CountingSession target = new CountingSession();
+        WebSocketSession session = connect(factory(true, 20_000), target);
+
+        session.sendMessage(new TextMessage(FRAME));
+        assertEquals(0, target.writes);
+
+        awaitUntil(() -> target.writes > 0);
+        assertEquals(1, target.writes);
+        assertEquals(FRAME, target.received.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void slowClient_doesNotHoldUpOtherSessions() throws Exception {
+        OutboundBatchingDecoratorFactory factory = factory(true, 20_000);
+        CountingSession slowTarget = new CountingSession();
+        slowTarget.blockWrites();
+        CountingSession fastTarget = new CountingSession();
+        WebSocketSession slow = connect(factory, slowTarget);
+        WebSocketSession fast = connect(factory, fastTarget);
+        try {
+            slow.sendMessage(new TextMessage(FRAME));
+            awaitUntil(() -> slowTarget.writing);
+
+            // The slow client's window flush is stuck in its write; the next session's flush still goes out
+            fast.sendMessage(new TextMessage(FRAME));
+            awaitUntil(() -> fastTarget.writes > 0);
+            assertEquals(1, fastTarget.writes);
+
+            // So do the slow client's own senders: they queue behind the stuck write instead of waiting for it
+            long start = System.nanoTime();
+            slow.sendMessage(new TextMessage(FRAME));
+            assertTrue((System.nanoTime() - start) / 1_000_000 < 1000, "send blocked on a stuck write");
+        } finally {
+            slowTarget.release();
+            factory.destroy();
+        }
+    }
+
+    @Test
+    void writeStuckPastTheSendTimeLimit_closesTheSession() throws Exception {
+        OutboundBatchingDecoratorFactory factory = factory(true, 50);
+        CountingSession target = new CountingSession();
+        target.blockWrites();
+        WebSocketSession session = connect(factory, target);
+        try {
+            session.sendMessage(new TextMessage(FRAME));
+            awaitUntil(() -> target.writing);
+            Thread.sleep(100);
+
+            session.sendMessage(new TextMessage(FRAME));
+            awaitUntil(() -> !target.isOpen());
+            assertEquals(CloseStatus.SESSION_NOT_RELIABLE, target.closeStatus);
+        } finally {
+            target.release();
+            factory.destroy();
+        }
+    }
+
+    @Test
+    void manySlowClients_doNotHoldUpOtherSessions() throws Exception {
+        OutboundBatchingDecoratorFactory factory = factory(true, 20_000);
+        // More stuck clients than a fixed flush pool (4 threads by default) used to have
+        List<CountingSession> slowTargets = IntStream.range(0, 8).mapToObj(i -> new CountingSession()).toList();
+        CountingSession fastTarget = new CountingSession();
+        try {
+            for (CountingSession slowTarget : slowTargets) {
+                slowTarget.blockWrites();
+                connect(factory, slowTarget).sendMessage(new TextMessage(FRAME));
+            }
+            awaitUntil(() -> slowTargets.stream().allMatch(target -> target.writing));
+
+            WebSocketSession fast = connect(factory, fastTarget);
+            fast.sendMessage(new TextMessage(FRAME));
+            awaitUntil(() -> fastTarget.writes > 0);
+            assertEquals(1, fastTarget.writes);
+        } finally {
+            slowTargets.forEach(CountingSession::release);
+            factory.destroy();
+        }
+    }
+
+    @Test
+    void writeStuckPastTheSendTimeLimit_closesTheSessionWithoutAnotherSend() throws Exception {
+        OutboundBatchingDecoratorFactory factory = factory(true, 50);
+        CountingSession target = new CountingSession();
+        target.blockWrites();
+        WebSocketSession session = connect(factory, target);
+        try {
+            session.sendMessage(new TextMessage(FRAME));
+            awaitUntil(() -> target.writing);
+
+            awaitUntil(() -> !target.isOpen());
+            assertEquals(CloseStatus.SESSION_NOT_RELIABLE, target.closeStatus);
+        } finally {
+            target.release();
+            factory.destroy();
+        }
+    }
+
+    private static OutboundBatchingDecoratorFactory factory( boolean enabled, long sendTimeLimitMillis ) {
+        return new OutboundBatchingDecoratorFactory(enabled, 5, 16384, sendTimeLimitMillis, 512 * 1024);
+    }
+
+    private static void awaitUntil( BooleanSupplier condition ) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(condition.getAsBoolean(), "condition not met within 2 s");
+    }
+
+    private static Result run( OutboundBatchingDecoratorFactory factory ) throws Exception {
+        CountingSession target = new CountingSession();
+        WebSocketSession session = connect(factory, target);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            session.sendMessage(new TextMessage(FRAME));
+        }
+        session.close(CloseStatus.NORMAL);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        factory.destroy();
+        return new Result(target.writes, target.received.size(), millis, target.received.toByteArray());
+    }
+
+    private static WebSocketSession connect( OutboundBatchingDecoratorFactory factory, WebSocketSession target ) throws Exception {
+        AtomicReference<WebSocketSession> decorated = new AtomicReference<>();
+        factory.decorate(new AbstractWebSocketHandler() {
+            @Override
+            public void afterConnectionEstablished( WebSocketSession session ) {
+                decorated.set(session);
+            }
+        }).afterConnectionEstablished(target);
+        return decorated.get();
+    }
+
+    private record Result(int writes, long bytes, long millis, byte[] payload) {
+    }
+
+    private static class CountingSession implements WebSocketSession {
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        private volatile int writes;
+        private volatile boolean open = true;
+        private volatile CloseStatus closeStatus;
+        private volatile CountDownLatch blocked;
+        private volatile boolean writing;
+
+        void blockWrites() {
+            blocked = new CountDownLatch(1);
+        }
+
+        void release() {
+            blocked.countDown();
+        }
+
+        @Override
+        public void sendMessage( WebSocketMessage<?> message ) throws IOException {
+            CountDownLatch latch = blocked;
+            if (latch != null) {
+                writing = true;
+                try {
+                    // A client that stopped reading: the write hangs until the socket is closed
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted", e);
+                }
+            }
+            received.writeBytes(((TextMessage) message).asBytes());
+            writes++;
+        }
+
+        @Override public String getId() { return "session-1"; }
+        @Override public URI getUri() { return URI.create("ws://localhost/ws"); }
+        @Override public HttpHeaders getHandshakeHeaders() { return new HttpHeaders(); }
+        @Override public Map<String, Object> getAttributes() { return Map.of(); }
+        @Override public Principal getPrincipal() { return null; }
+        @Override public InetSocketAddress getLocalAddress() { return null; }
+        @Override public InetSocketAddress getRemoteAddress() { return null; }
+        @Override public String getAcceptedProtocol() { return "v12.stomp"; }
+        @Override public void setTextMessageSizeLimit( int messageSizeLimit ) { }
+        @Override public int getTextMessageSizeLimit() { return 64 * 1024; }
+        @Override public void setBinaryMessageSizeLimit( int messageSizeLimit ) { }
+        @Override public int getBinaryMessageSizeLimit() { return 64 * 1024; }
+        @Override public List<WebSocketExtension> getExtensions() { return List.of(); }
+        @Override public boolean isOpen() { return open; }
+        @Override public void close() { close(CloseStatus.NORMAL); }
+        @Override public void close( CloseStatus status ) { closeStatus = status; open = false; }
+    }
+}
@@ -0,0 +1,118 @@
+package com.system.chattalk_serverside.PerformanceTest;
+
+import com.system.chattalk_serverside.IntegrationTest.TestConfig;
+import com.system.chattalk_serverside.enums.UserStatus;
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
+import com.system.chattalk_serverside.model.FriendRequest;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
+import com.system.chattalk_serverside.repository.ChatRepository;
+import com.system.chattalk_serverside.repository.FriendRequestRepository;
+import com.system.chattalk_serverside.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DB round trips of the lookups a typical chat request performs (user by email several times, chat,
+ * membership check, friends), with the second-level cache cold on every request versus warm.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+public class SecondLevelCachePerformanceTest {
+    private static final String EMAIL = "cache-bench@example.com";
+    private static final int REQUESTS = 200;
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private ChatRepository chatRepository;
+    @Autowired private ChatParticipationRepository chatParticipationRepository;
+    @Autowired private FriendRequestRepository friendRequestRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private Long chatId;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(user(EMAIL, "cachebench"));
+        User friend = userRepository.save(user("cache-bench-friend@example.com", "cachefriend"));
+        Chat chat = chatRepository.save(Chat.builder().name("Cache bench").createdBy(user).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(user).build());
+        chatParticipationRepository.save(ChatParticipation.builder().chat(chat).user(friend).build());
+        friendRequestRepository.save(FriendRequest.builder().sender(friend).receiver(user).status(FriendRequest.RequestStatus.ACCEPTED).build());
+        chatId = chat.getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        friendRequestRepository.deleteAll(friendRequestRepository.findBySenderId(userRepository.findByEmail("cache-bench-friend@example.com").orElseThrow().getId()));
+        chatParticipationRepository.deleteAll(chatParticipationRepository.findByChatId(chatId));
+        chatRepository.deleteById(chatId);
+        userRepository.delete(userRepository.findByEmail(EMAIL).orElseThrow());
+        userRepository.delete(userRepository.findByEmail("cache-bench-friend@example.com").orElseThrow());
+    }
+
+    @Test
+    void typicalRequestLookups_hitTheCacheOnceWarm() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        double cold = statementsPerRequest(statistics, true);
+        double warm = statementsPerRequest(statistics, false);
+
+        System.out.printf("DB statements per request: cold cache %.2f, warm cache %.2f (L2 hit ratio %.0f%%)%n",
+                cold, warm, 100.0 * statistics.getSecondLevelCacheHitCount()
+                        / Math.max(1, statistics.getSecondLevelCacheHitCount() + statistics.getSecondLevelCacheMissCount()));
+        assertTrue(cold >= 4, "cold requests should go to the database, got " + cold);
+        assertTrue(warm < 0.5, "warm requests should be served from the cache, got " + warm);
+    }
+
+    private double statementsPerRequest( Statistics statistics, boolean evictFirst ) {
+        // Prime once so both runs start from the same state
+        simulateRequest();
+        statistics.clear();
+        for (int i = 0; i < REQUESTS; i++) {
+            if (evictFirst) {
+                entityManagerFactory.getCache().evictAll();
+                entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+            }
+            simulateRequest();
+        }
+        return (double) statistics.getPrepareStatementCount() / REQUESTS;
+    }
+
+    private void simulateRequest() {
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findByEmail(EMAIL).orElseThrow();
+            // Services resolve the current user again in helper methods
+            userRepository.findByEmail(EMAIL).orElseThrow();
+            chatRepository.findById(chatId).orElseThrow();
+            assertTrue(chatRepository.isUserInChat(chatId, user.getId()));
+            assertEquals(1, friendRequestRepository.findByReceiverAndStatus(user, FriendRequest.RequestStatus.ACCEPTED).size());
+            user.getRoles().size();
+        });
+    }
+
+    private static User user( String email, String username ) {
+        return User.builder()
+                .email(email)
+                .username(username)
+                .firstName("Cache")
+                .lastName("Bench")
+                .password("password123")
+                .isVerified(true)
+                .status(UserStatus.ACTIVE)
+                .build();
+    }
+}
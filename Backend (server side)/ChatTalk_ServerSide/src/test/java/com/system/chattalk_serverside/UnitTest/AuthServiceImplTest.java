@@ -10,6 +10,7 @@ import com.system.chattalk_serverside.service.VerificationService;
 import com.system.chattalk_serverside.service.auth.AuthServiceImpl;
 import com.system.chattalk_serverside.utils.TokenManager;
 import com.system.chattalk_serverside.mapper.UserMapper;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -49,6 +50,8 @@ class AuthServiceImplTest {
     private VerificationService verificationService;
     @Mock
     private UserMapper userMapper;
+    @Mock
+    private ResourceVersions resourceVersions;
 
     @InjectMocks
     private AuthServiceImpl authService;
@@ -0,0 +1,42 @@
+package com.system.chattalk_serverside.UnitTest;
+
+import com.system.chattalk_serverside.websocket.ChatFocusRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChatFocusRegistryTest {
+
+    @Test
+    void userIsViewing_whileAnySessionHasTheChatOpen() {
+        ChatFocusRegistry registry = new ChatFocusRegistry(false);
+        registry.focus("phone", "ana@example.com", 1L);
+        registry.focus("laptop", "ana@example.com", 2L);
+
+        assertTrue(registry.isViewing("ana@example.com", 1L));
+        assertTrue(registry.isViewing("ana@example.com", 2L));
+        assertFalse(registry.isViewing("ana@example.com", 3L));
+        assertFalse(registry.isViewing("bo@example.com", 1L));
+
+        // Switching chats replaces the session's focus
+        registry.focus("phone", "ana@example.com", 3L);
+        assertFalse(registry.isViewing("ana@example.com", 1L));
+        assertTrue(registry.isViewing("ana@example.com", 3L));
+    }
+
+    @Test
+    void blurAndDisconnect_clearTheSession() {
+        ChatFocusRegistry registry = new ChatFocusRegistry(false);
+        registry.focus("phone", "ana@example.com", 1L);
+        registry.focus("laptop", "ana@example.com", 1L);
+
+        registry.focus("phone", "ana@example.com", null);
+        assertTrue(registry.isViewing("ana@example.com", 1L));
+        registry.blur("laptop");
+        assertFalse(registry.isViewing("ana@example.com", 1L));
+
+        // Unknown sessions are ignored
+        registry.blur("never-focused");
+        assertFalse(registry.isViewing("ana@example.com", 1L));
+    }
+}
@@ -9,6 +9,7 @@ import com.system.chattalk_serverside.repository.FriendRequestRepository;
 import com.system.chattalk_serverside.repository.UserRepository;
 import com.system.chattalk_serverside.service.Connections.ContactServiceImpl;
 import com.system.chattalk_serverside.service.RealTimeNotifcation.RealtimeNotificationImpl;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -27,6 +28,7 @@ class ContactServiceTest {
     @Mock private UserRepository userRepository;
     @Mock private FriendRequestRepository friendRequestRepository;
     @Mock private RealtimeNotificationImpl realtimeNotificationImpl;
+    @Mock private ResourceVersions resourceVersions;
 
     @InjectMocks private ContactServiceImpl contactService;
 
@@ -0,0 +1,141 @@
+package com.system.chattalk_serverside.UnitTest;
+
+import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.Message;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.service.Message.MessageArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageArchiveTest {
+    private static final LocalDateTime JANUARY = LocalDateTime.of(2024, 1, 20, 12, 0);
+
+    @TempDir
+    Path archiveDir;
+
+    private final Chat chat = Chat.builder().id(42L).name("archived").build();
+
+    @Test
+    void pages_areReadNewestFirstAcrossBlocksAndMonths() throws IOException {
+        MessageArchive archive = new MessageArchive(archiveDir.toString(), 8);
+        // 30 messages: ids 1-30, one every day, so they span January and February
+        archive.append(42L, messages(1, 30));
+
+        assertEquals(30, archive.count(42L));
+        assertTrue(Files.exists(archiveDir.resolve("42/2024-01.seg")));
+        assertTrue(Files.exists(archiveDir.resolve("42/2024-02.idx")));
+
+        assertEquals(List.of(30L, 29L, 28L, 27L, 26L), ids(archive.readNewestFirst(chat, 0, 5)));
+        // Crosses a block boundary and the month boundary
+        assertEquals(List.of(14L, 13L, 12L, 11L, 10L, 9L), ids(archive.readNewestFirst(chat, 16, 6)));
+        assertEquals(List.of(2L, 1L), ids(archive.readNewestFirst(chat, 28, 10)));
+        assertTrue(archive.readNewestFirst(chat, 30, 10).isEmpty());
+
+        Message newest = archive.readNewestFirst(chat, 0, 1).get(0);
+        assertEquals("message 30", newest.getContent());
+        assertEquals(7L, newest.getSender().getId());
+        assertEquals(JANUARY.plusDays(29), newest.getCreatedAt());
+        assertSame(chat, newest.getChat());
+    }
+
+    @Test
+    void rerunningABatch_doesNotDuplicateMessages() {
+        MessageArchive archive = new MessageArchive(archiveDir.toString(), 8);
+        archive.append(42L, messages(1, 10));
+        // The delete after the first run was lost, so the same rows come again with newer ones
+        archive.append(42L, messages(1, 12));
+
+        assertEquals(12, archive.count(42L));
+        assertEquals(LongStream.rangeClosed(1, 12).boxed().toList().reversed(), ids(archive.readNewestFirst(chat, 0, 20)));
+    }
+
+    @Test
+    void partialIndexRecord_isIgnoredAndOverwritten() throws IOException {
+        MessageArchive archive = new MessageArchive(archiveDir.toString(), 4);
+        archive.append(42L, messages(1, 4));
+        // Crash while writing the next index record
+        Files.write(archiveDir.resolve("42/2024-01.idx"), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        assertEquals(4, archive.count(42L));
+        archive.append(42L, messages(5, 6));
+        assertEquals(List.of(6L, 5L, 4L, 3L, 2L, 1L), ids(archive.readNewestFirst(chat, 0, 10)));
+    }
+
+    @Test
+    void deletedMessages_leaveReadsCountsAndTheIdWatermark() {
+        MessageArchive archive = new MessageArchive(archiveDir.toString(), 4);
+        archive.append(42L, messages(1, 12));
+
+        // Block 5-8 empties out, block 9-12 loses its newest message
+        assertEquals(6, archive.delete(chat, List.of(2L, 5L, 6L, 7L, 8L, 12L, 99L)));
+
+        assertEquals(6, archive.count(42L));
+        assertEquals(List.of(11L, 10L, 9L, 4L, 3L, 1L), ids(archive.readNewestFirst(chat, 0, 20)));
+        assertEquals(List.of(9L, 4L), ids(archive.readNewestFirst(chat, 2, 2)));
+        List<Long> inRange = new ArrayList<>();
+        archive.forEachInRange(chat, JANUARY, JANUARY.plusDays(30), message -> inRange.add(message.getId()));
+        assertEquals(List.of(1L, 3L, 4L, 9L, 10L, 11L), inRange);
+        assertTrue(archive.findByIds(chat, List.of(2L, 6L, 12L)).isEmpty());
+        assertEquals(0, archive.delete(chat, List.of(2L)));
+
+        // A re-run batch must not bring deleted messages back
+        archive.append(42L, messages(1, 13));
+        assertEquals(List.of(13L, 11L, 10L), ids(archive.readNewestFirst(chat, 0, 3)));
+    }
+
+    @Test
+    void deletedSender_andPurgedChat_leaveNothingBehind() {
+        MessageArchive archive = new MessageArchive(archiveDir.toString(), 4);
+        List<Message> messages = messages(1, 10);
+        messages.subList(3, 7).forEach(message -> message.setSender(User.builder().id(8L).build()));
+        archive.append(42L, messages);
+        archive.append(43L, messages(1, 2));
+
+        archive.deleteBySender(List.of(42L, 43L), 8L);
+
+        assertEquals(List.of(10L, 9L, 8L, 3L, 2L, 1L), ids(archive.readNewestFirst(chat, 0, 20)));
+        assertEquals(2, archive.count(43L));
+
+        archive.purgeChat(42L);
+
+        assertEquals(0, archive.count(42L));
+        assertFalse(Files.exists(archiveDir.resolve("42")));
+        assertEquals(2, archive.count(43L));
+    }
+
+    @Test
+    void chatWithoutArchive_isEmpty() {
+        MessageArchive archive = new MessageArchive(archiveDir.toString(), 8);
+        assertEquals(0, archive.count(7L));
+        assertTrue(archive.readNewestFirst(Chat.builder().id(7L).build(), 0, 10).isEmpty());
+    }
+
+    private static List<Message> messages( long fromId, long toId ) {
+        List<Message> messages = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            messages.add(Message.builder()
+                    .id(id)
+                    .sender(User.builder().id(7L).build())
+                    .content("message " + id)
+                    .isRead(true)
+                    .createdAt(JANUARY.plusDays(id - 1))
+                    .build());
+        }
+        return messages;
+    }
+
+    private static List<Long> ids( List<Message> messages ) {
+        return messages.stream().map(Message::getId).toList();
+    }
+}
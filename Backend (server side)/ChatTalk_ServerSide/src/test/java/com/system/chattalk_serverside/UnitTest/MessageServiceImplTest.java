@@ -1,25 +1,43 @@
 package com.system.chattalk_serverside.UnitTest;
 
+import com.system.chattalk_serverside.dto.ChatDto.MessageDeltaDTO;
 import com.system.chattalk_serverside.dto.ChatDto.SendMessageRequest;
 import com.system.chattalk_serverside.dto.Entity.MessageDTO;
 import com.system.chattalk_serverside.model.Chat;
+import com.system.chattalk_serverside.model.ChatParticipation;
 import com.system.chattalk_serverside.model.Message;
 import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.repository.ChatParticipationRepository;
 import com.system.chattalk_serverside.repository.ChatRepository;
 import com.system.chattalk_serverside.repository.MessageRepository;
 import com.system.chattalk_serverside.repository.UserRepository;
+import com.system.chattalk_serverside.service.Chat.ChatAudience;
+import com.system.chattalk_serverside.service.Message.JpaMessageStore;
+import com.system.chattalk_serverside.service.Message.MessageArchive;
+import com.system.chattalk_serverside.service.Message.MessageExpiries;
+import com.system.chattalk_serverside.service.Message.MessageIdempotencyCache;
 import com.system.chattalk_serverside.service.Message.MessageServiceImpl;
+import com.system.chattalk_serverside.service.RealTimeNotifcation.RealtimeNotificationImpl;
+import com.system.chattalk_serverside.service.Stats.MessageRollups;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
+import com.system.chattalk_serverside.websocket.ChatFocusRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,8 +52,25 @@ public class MessageServiceImplTest {
     private ChatRepository chatRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ResourceVersions resourceVersions;
+    @Mock
+    private RealtimeNotificationImpl realtimeNotificationImpl;
+    @Mock
+    private MessageArchive messageArchive;
+    @Mock
+    private MessageRollups messageRollups;
+    @Mock
+    private MessageExpiries messageExpiries;
+    @Mock
+    private ChatParticipationRepository chatParticipationRepository;
+    @Mock
+    private ChatFocusRegistry chatFocusRegistry;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Spy
+    private MessageIdempotencyCache idempotencyCache = new MessageIdempotencyCache(300, 1000);
 
-    @InjectMocks
     private MessageServiceImpl messageService;
 
     private User authenticatedUser;
@@ -43,6 +78,8 @@ public class MessageServiceImplTest {
 
     @BeforeEach
     void setup() {
+        messageService = new MessageServiceImpl(new JpaMessageStore(messageRepository), messageArchive, chatRepository, userRepository, realtimeNotificationImpl, idempotencyCache, resourceVersions, messageRollups, messageExpiries, new ChatAudience(chatParticipationRepository), chatFocusRegistry, new TransactionTemplate(transactionManager));
+
         authenticatedUser = new User();
         authenticatedUser.setId(10L);
         authenticatedUser.setEmail("user@example.com");
@@ -95,6 +132,160 @@ public class MessageServiceImplTest {
         assertEquals("hi", captor.getValue().getContent());
     }
 
+    @Test
+    void sendMessage_fanOut_skipsLeftAndBanned_andDoesNotNotifyMuted() {
+        when(chatRepository.findById(100L)).thenReturn(Optional.of(chat));
+        when(chatRepository.isUserInChat(100L, 10L)).thenReturn(true);
+        when(userRepository.findById(10L)).thenReturn(Optional.of(authenticatedUser));
+        User active = User.builder().id(20L).email("active@example.com").build();
+        User muted = User.builder().id(21L).email("muted@example.com").build();
+        User left = User.builder().id(22L).email("left@example.com").build();
+        User banned = User.builder().id(23L).email("banned@example.com").build();
+        when(chatParticipationRepository.findAudience(100L)).thenReturn(List.of(
+                participation(authenticatedUser, ChatParticipation.ParticipationStatus.ACTIVE),
+                participation(active, ChatParticipation.ParticipationStatus.ACTIVE),
+                participation(muted, ChatParticipation.ParticipationStatus.MUTED),
+                participation(left, ChatParticipation.ParticipationStatus.LEFT),
+                participation(banned, ChatParticipation.ParticipationStatus.BANNED)));
+        when(messageRepository.save(any(Message.class))).thenAnswer(i -> {
+            Message message = i.getArgument(0);
+            message.setId(1L);
+            return message;
+        });
+
+        messageService.sendMessage(SendMessageRequest.builder().chatId(100L).content("hi").build());
+
+        verify(realtimeNotificationImpl).sendMessageToAllParticipants(eq(List.of(authenticatedUser, active, muted)), any(MessageDTO.class));
+        verify(realtimeNotificationImpl).receiveNewMessageNotification(eq(active), any());
+        verify(realtimeNotificationImpl, times(1)).receiveNewMessageNotification(any(), any());
+    }
+
+    @Test
+    void sendMessage_recipientViewingAGroupChat_getsNoNotification_butMessageStaysUnreadForTheOthers() {
+        ChatFocusRegistry focus = new ChatFocusRegistry(true);
+        messageService = new MessageServiceImpl(new JpaMessageStore(messageRepository), messageArchive, chatRepository, userRepository, realtimeNotificationImpl, idempotencyCache, resourceVersions, messageRollups, messageExpiries, new ChatAudience(chatParticipationRepository), focus, new TransactionTemplate(transactionManager));
+        when(chatRepository.findById(100L)).thenReturn(Optional.of(chat));
+        when(chatRepository.isUserInChat(100L, 10L)).thenReturn(true);
+        when(userRepository.findById(10L)).thenReturn(Optional.of(authenticatedUser));
+        User viewing = User.builder().id(20L).email("viewing@example.com").build();
+        User away = User.builder().id(21L).email("away@example.com").build();
+        when(chatParticipationRepository.findAudience(100L)).thenReturn(List.of(
+                participation(authenticatedUser, ChatParticipation.ParticipationStatus.ACTIVE),
+                participation(viewing, ChatParticipation.ParticipationStatus.ACTIVE),
+                participation(away, ChatParticipation.ParticipationStatus.ACTIVE)));
+        when(messageRepository.save(any(Message.class))).thenAnswer(i -> i.getArgument(0));
+        focus.focus("session-1", "viewing@example.com", 100L);
+        // The sender looking at their own chat does not count
+        focus.focus("session-2", "user@example.com", 100L);
+        focus.focus("session-3", "away@example.com", 555L);
+
+        messageService.sendMessage(SendMessageRequest.builder().chatId(100L).content("hi").build());
+
+        verify(realtimeNotificationImpl).sendMessageToAllParticipants(eq(List.of(authenticatedUser, viewing, away)), any(MessageDTO.class));
+        verify(realtimeNotificationImpl).receiveNewMessageNotification(eq(away), any());
+        verify(realtimeNotificationImpl, times(1)).receiveNewMessageNotification(any(), any());
+        ArgumentCaptor<Message> saved = ArgumentCaptor.forClass(Message.class);
+        verify(messageRepository).save(saved.capture());
+        assertFalse(saved.getValue().getIsRead());
+    }
+
+    @Test
+    void sendMessage_otherPartyOfAOneToOneChatViewingIt_storesTheMessageRead() {
+        ChatFocusRegistry focus = new ChatFocusRegistry(true);
+        messageService = new MessageServiceImpl(new JpaMessageStore(messageRepository), messageArchive, chatRepository, userRepository, realtimeNotificationImpl, idempotencyCache, resourceVersions, messageRollups, messageExpiries, new ChatAudience(chatParticipationRepository), focus, new TransactionTemplate(transactionManager));
+        when(chatRepository.findById(100L)).thenReturn(Optional.of(chat));
+        when(chatRepository.isUserInChat(100L, 10L)).thenReturn(true);
+        when(userRepository.findById(10L)).thenReturn(Optional.of(authenticatedUser));
+        User viewing = User.builder().id(20L).email("viewing@example.com").build();
+        when(chatParticipationRepository.findAudience(100L)).thenReturn(List.of(
+                participation(authenticatedUser, ChatParticipation.ParticipationStatus.ACTIVE),
+                participation(viewing, ChatParticipation.ParticipationStatus.ACTIVE)));
+        when(messageRepository.save(any(Message.class))).thenAnswer(i -> i.getArgument(0));
+        focus.focus("session-1", "viewing@example.com", 100L);
+
+        messageService.sendMessage(SendMessageRequest.builder().chatId(100L).content("hi").build());
+
+        verify(realtimeNotificationImpl, never()).receiveNewMessageNotification(any(), any());
+        ArgumentCaptor<Message> saved = ArgumentCaptor.forClass(Message.class);
+        verify(messageRepository).save(saved.capture());
+        assertTrue(saved.getValue().getIsRead());
+    }
+
+    @Test
+    void sendMessage_retryWithSameClientMessageId_returnsStoredMessage() {
+        when(chatRepository.findById(100L)).thenReturn(Optional.of(chat));
+        when(chatRepository.isUserInChat(100L, 10L)).thenReturn(true);
+        Message stored = Message.builder()
+                .id(7L)
+                .chat(chat)
+                .sender(authenticatedUser)
+                .content("hi")
+                .clientMessageId("c-1")
+                .messageType(com.system.chattalk_serverside.enums.MessageType.TEXT)
+                .build();
+        when(messageRepository.findBySender_IdAndClientMessageId(10L, "c-1")).thenReturn(Optional.of(stored));
+
+        SendMessageRequest dto = SendMessageRequest.builder().chatId(100L).content("hi").clientMessageId("c-1").build();
+        MessageDTO result = messageService.sendMessage(dto);
+
+        assertEquals(7L, result.getMessageId());
+        assertEquals("c-1", result.getClientMessageId());
+        verify(messageRepository, never()).save(any());
+    }
+
+    @Test
+    void sendMessage_retryWithinWindow_isAnsweredFromCache() {
+        when(chatRepository.findById(100L)).thenReturn(Optional.of(chat));
+        when(chatRepository.isUserInChat(100L, 10L)).thenReturn(true);
+        MessageDTO original = MessageDTO.builder().messageId(8L).chatId(100L).content("hi").clientMessageId("c-2").build();
+        idempotencyCache.put(10L, "c-2", original);
+
+        SendMessageRequest dto = SendMessageRequest.builder().chatId(100L).content("hi").clientMessageId("c-2").build();
+
+        assertSame(original, messageService.sendMessage(dto));
+        verify(messageRepository, never()).findBySender_IdAndClientMessageId(anyLong(), anyString());
+        verify(messageRepository, never()).save(any());
+    }
+
+    @Test
+    void sendMessage_losingTheInsertRaceToTheSameClientMessageId_returnsTheWinner() {
+        when(chatRepository.findById(100L)).thenReturn(Optional.of(chat));
+        when(chatRepository.isUserInChat(100L, 10L)).thenReturn(true);
+        when(userRepository.findById(10L)).thenReturn(Optional.of(authenticatedUser));
+        when(chatParticipationRepository.findAudience(100L)).thenReturn(List.of(participation(authenticatedUser, ChatParticipation.ParticipationStatus.ACTIVE)));
+        Message winner = Message.builder()
+                .id(9L)
+                .chat(chat)
+                .sender(authenticatedUser)
+                .content("hi")
+                .clientMessageId("c-3")
+                .messageType(com.system.chattalk_serverside.enums.MessageType.TEXT)
+                .build();
+        // Not there when this send checked; committed by the concurrent send by the time its own insert failed
+        when(messageRepository.findBySender_IdAndClientMessageId(10L, "c-3")).thenReturn(Optional.empty(), Optional.of(winner));
+        when(messageRepository.save(any(Message.class))).thenThrow(new DataIntegrityViolationException("uk_messages_sender_client_id"));
+
+        SendMessageRequest dto = SendMessageRequest.builder().chatId(100L).content("hi").clientMessageId("c-3").build();
+        MessageDTO result = messageService.sendMessage(dto);
+
+        assertEquals(9L, result.getMessageId());
+        verify(realtimeNotificationImpl, never()).sendMessageToAllParticipants(any(), any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void sendMessage_integrityViolationWithoutClientMessageId_isNotSwallowed() {
+        when(chatRepository.findById(100L)).thenReturn(Optional.of(chat));
+        when(chatRepository.isUserInChat(100L, 10L)).thenReturn(true);
+        when(userRepository.findById(10L)).thenReturn(Optional.of(authenticatedUser));
+        when(chatParticipationRepository.findAudience(100L)).thenReturn(List.of(participation(authenticatedUser, ChatParticipation.ParticipationStatus.ACTIVE)));
+        when(messageRepository.save(any(Message.class))).thenThrow(new DataIntegrityViolationException("fk_messages_chat"));
+
+        SendMessageRequest dto = SendMessageRequest.builder().chatId(100L).content("hi").build();
+
+        assertThrows(DataIntegrityViolationException.class, () -> messageService.sendMessage(dto));
+    }
+
     @Test
     void editMessage_shouldValidateChatAndSender() {
         when(chatRepository.findById(100L)).thenReturn(Optional.of(chat));
@@ -108,12 +299,83 @@ public class MessageServiceImplTest {
                 .messageType(com.system.chattalk_serverside.enums.MessageType.TEXT)
                 .build();
         when(messageRepository.findById(5L)).thenReturn(Optional.of(msg));
-        when(messageRepository.save(any(Message.class))).thenAnswer(i -> i.getArgument(0));
+        when(messageRepository.updateContent(eq(5L), eq(100L), eq("new"), eq(0L), any(LocalDateTime.class))).thenReturn(1);
 
         MessageDTO updated = messageService.editMessage(100L, 5L, "new", 10L);
         assertEquals("new", updated.getContent());
     }
 
+    @Test
+    void editMessage_shouldBroadcastDeltaWithNextVersion() {
+        when(chatRepository.findById(100L)).thenReturn(Optional.of(chat));
+        when(chatRepository.isUserInChat(100L, 10L)).thenReturn(true);
+        Message msg = Message.builder()
+                .id(5L)
+                .chat(chat)
+                .sender(authenticatedUser)
+                .content("old")
+                .version(2L)
+                .messageType(com.system.chattalk_serverside.enums.MessageType.TEXT)
+                .build();
+        when(messageRepository.findById(5L)).thenReturn(Optional.of(msg));
+        when(messageRepository.updateContent(eq(5L), eq(100L), eq("new"), eq(2L), any(LocalDateTime.class))).thenReturn(1);
+
+        MessageDTO updated = messageService.editMessage(100L, 5L, "new", 10L);
+
+        ArgumentCaptor<MessageDeltaDTO> delta = ArgumentCaptor.forClass(MessageDeltaDTO.class);
+        verify(realtimeNotificationImpl).sendMessageDeltaToAllParticipants(anyList(), delta.capture());
+        assertEquals(5L, delta.getValue().getMessageId());
+        assertEquals(3L, delta.getValue().getVersion());
+        assertEquals("new", delta.getValue().getContent());
+        assertNull(delta.getValue().getDeleted());
+        assertEquals(3L, updated.getVersion());
+        assertTrue(updated.getIsEdited());
+    }
+
+    @Test
+    void editMessage_shouldRejectAStaleVersion_withoutBroadcasting() {
+        when(chatRepository.findById(100L)).thenReturn(Optional.of(chat));
+        when(chatRepository.isUserInChat(100L, 10L)).thenReturn(true);
+        Message msg = Message.builder()
+                .id(5L)
+                .chat(chat)
+                .sender(authenticatedUser)
+                .content("old")
+                .version(3L)
+                .messageType(com.system.chattalk_serverside.enums.MessageType.TEXT)
+                .build();
+        when(messageRepository.findById(5L)).thenReturn(Optional.of(msg));
+        // Another edit moved the message past version 2 in the meantime
+        when(messageRepository.updateContent(eq(5L), eq(100L), eq("new"), eq(2L), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> messageService.editMessage(100L, 5L, "new", 10L, 2L));
+        verify(messageRepository, never()).save(any());
+        verify(realtimeNotificationImpl, never()).sendMessageDeltaToAllParticipants(anyList(), any());
+    }
+
+    @Test
+    void deleteMessage_shouldBroadcastTombstone() {
+        when(chatRepository.findById(100L)).thenReturn(Optional.of(chat));
+        when(chatRepository.isUserInChat(100L, 10L)).thenReturn(true);
+        Message msg = Message.builder()
+                .id(5L)
+                .chat(chat)
+                .sender(authenticatedUser)
+                .content("bye")
+                .messageType(com.system.chattalk_serverside.enums.MessageType.TEXT)
+                .build();
+        when(messageRepository.findById(5L)).thenReturn(Optional.of(msg));
+
+        messageService.deleteMessage(100L, 5L, 10L, false);
+
+        ArgumentCaptor<MessageDeltaDTO> delta = ArgumentCaptor.forClass(MessageDeltaDTO.class);
+        verify(messageRepository).deleteById(5L);
+        verify(realtimeNotificationImpl).sendMessageDeltaToAllParticipants(anyList(), delta.capture());
+        assertTrue(delta.getValue().getDeleted());
+        assertNull(delta.getValue().getContent());
+        assertEquals(1L, delta.getValue().getVersion());
+    }
+
     @Test
     void editMessage_shouldThrow_whenMessageNotInChat() {
         Chat otherChat = Chat.builder().id(200L).name("Other").build();
@@ -167,6 +429,8 @@ public class MessageServiceImplTest {
                 () -> messageService.markConversationAsRead(100L, 10L));
         verify(messageRepository, never()).markConversationAsReadForUser(anyLong(), anyLong());
     }
-}
-
 
+    private ChatParticipation participation( User user, ChatParticipation.ParticipationStatus status ) {
+        return ChatParticipation.builder().chat(chat).user(user).status(status).build();
+    }
+}
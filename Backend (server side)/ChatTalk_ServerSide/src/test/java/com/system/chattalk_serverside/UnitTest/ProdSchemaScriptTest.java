@@ -0,0 +1,86 @@
+package com.system.chattalk_serverside.UnitTest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs db/schema.sql on H2 in PostgreSQL mode: it must build an empty database, upgrade one created before the
+ * newer tables and columns existed, and change nothing when run again.
+ */
+class ProdSchemaScriptTest {
+    private final ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql"));
+
+    @Test
+    void emptyDatabase_getsTheFullSchema_andARerunIsANoOp() {
+        DataSource dataSource = dataSource("schema-empty");
+        schema.execute(dataSource);
+        schema.execute(dataSource);
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        assertTrue(tables(jdbc).containsAll(List.of("users", "chats", "messages", "notifications", "user_events",
+                "user_event_sequences", "notification_counters", "chat_stats", "chat_sender_stats", "user_daily_stats",
+                "scheduled_messages", "message_expiries", "import_checkpoints", "imported_chats")));
+        assertTrue(indexes(jdbc).containsAll(List.of("uk_notifications_user_chat", "idx_notifications_user_updated",
+                "idx_message_expiries_due", "idx_scheduled_messages_status_id")));
+    }
+
+    @Test
+    void databaseFromBeforeTheNewColumns_isUpgradedAndBackfilled() {
+        DataSource dataSource = dataSource("schema-upgrade");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("""
+                CREATE TABLE users (id BIGSERIAL PRIMARY KEY, username VARCHAR(255), email VARCHAR(255) NOT NULL UNIQUE,
+                password VARCHAR(255) NOT NULL, first_name VARCHAR(255), last_name VARCHAR(255), phone_number VARCHAR(255))""");
+        jdbc.execute("""
+                CREATE TABLE chats (id BIGSERIAL PRIMARY KEY, name VARCHAR(255) NOT NULL, chat_type VARCHAR(255), created_by BIGINT,
+                created_at TIMESTAMP(6), updated_at TIMESTAMP(6))""");
+        jdbc.execute("""
+                CREATE TABLE messages (id BIGSERIAL PRIMARY KEY, chat_id BIGINT NOT NULL, sender_id BIGINT NOT NULL, content TEXT NOT NULL,
+                is_read BOOLEAN, message_type VARCHAR(255), created_at TIMESTAMP(6))""");
+        jdbc.execute("""
+                CREATE TABLE notifications (id BIGSERIAL PRIMARY KEY, user_id BIGINT NOT NULL, title VARCHAR(255) NOT NULL, is_read BOOLEAN,
+                created_at TIMESTAMP(6))""");
+        jdbc.execute("""
+                CREATE TABLE user_events (id BIGSERIAL PRIMARY KEY, user_id BIGINT NOT NULL, seq BIGINT NOT NULL, type VARCHAR(255) NOT NULL,
+                destination VARCHAR(255) NOT NULL, payload TEXT NOT NULL, created_at TIMESTAMP(6))""");
+        jdbc.update("INSERT INTO messages (chat_id, sender_id, content) VALUES (1, 1, 'before')");
+        jdbc.update("INSERT INTO notifications (user_id, title, created_at) VALUES (1, 'before', TIMESTAMP '2024-01-20 12:00:00')");
+
+        schema.execute(dataSource);
+        schema.execute(dataSource);
+
+        assertEquals(0L, jdbc.queryForObject("SELECT version FROM messages", Long.class));
+        assertEquals(1, jdbc.queryForObject("SELECT message_count FROM notifications", Integer.class));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM notifications WHERE updated_at = created_at", Integer.class));
+        assertTrue(columns(jdbc, "chats").containsAll(List.of("message_ttl_seconds", "message_expiry_mode")));
+        assertTrue(columns(jdbc, "messages").contains("client_message_id"));
+        assertTrue(columns(jdbc, "notifications").containsAll(List.of("chat_id", "updated_at")));
+        assertTrue(columns(jdbc, "user_events").contains("delivered_at"));
+        assertTrue(indexes(jdbc).containsAll(List.of("uk_messages_sender_client_id", "uk_notifications_user_chat")));
+        assertTrue(tables(jdbc).containsAll(List.of("user_event_sequences", "notification_counters", "message_expiries")));
+    }
+
+    private static DataSource dataSource( String name ) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static List<String> tables( JdbcTemplate jdbc ) {
+        return jdbc.queryForList("SELECT table_name FROM information_schema.tables WHERE table_schema = 'public'", String.class);
+    }
+
+    private static List<String> columns( JdbcTemplate jdbc, String table ) {
+        return jdbc.queryForList("SELECT column_name FROM information_schema.columns WHERE table_schema = 'public' AND table_name = ?", String.class, table);
+    }
+
+    private static List<String> indexes( JdbcTemplate jdbc ) {
+        return jdbc.queryForList("SELECT index_name FROM information_schema.indexes WHERE table_schema = 'public'", String.class);
+    }
+}
@@ -0,0 +1,78 @@
+package com.system.chattalk_serverside.UnitTest;
+
+import com.system.chattalk_serverside.enums.RateLimitCategory;
+import com.system.chattalk_serverside.security.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 5 sends burst at 1/s; search and auth effectively unlimited
+        rateLimiter = new RateLimiter(meterRegistry, true, 5, 1, 1000, 1000, 1000, 1000);
+    }
+
+    @Test
+    void burstIsAllowed_thenRejectedWithRetryAfter() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(RateLimitCategory.MESSAGE_SEND, "a@example.com"));
+        }
+        long retryAfter = rateLimiter.tryAcquire(RateLimitCategory.MESSAGE_SEND, "a@example.com");
+        assertTrue(retryAfter > 0 && retryAfter <= 1000, "retry after " + retryAfter);
+
+        assertEquals(5.0, counter("message_send", "allowed"));
+        assertEquals(1.0, counter("message_send", "rejected"));
+    }
+
+    @Test
+    void bucketsAreIndependentPerUserAndCategory() {
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire(RateLimitCategory.MESSAGE_SEND, "a@example.com");
+        }
+        assertTrue(rateLimiter.tryAcquire(RateLimitCategory.MESSAGE_SEND, "a@example.com") > 0);
+        assertEquals(0, rateLimiter.tryAcquire(RateLimitCategory.MESSAGE_SEND, "b@example.com"));
+        assertEquals(0, rateLimiter.tryAcquire(RateLimitCategory.SEARCH, "a@example.com"));
+    }
+
+    @Test
+    void concurrentCallersNeverExceedBurst() throws Exception {
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 800; i++) {
+            pool.execute(() -> {
+                if (rateLimiter.tryAcquire(RateLimitCategory.MESSAGE_SEND, "a@example.com") == 0) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        // The burst plus at most one refill while the threads ran
+        assertTrue(granted.get() >= 5 && granted.get() <= 6, "granted " + granted.get());
+    }
+
+    @Test
+    void disabledLimiterAllowsEverything() {
+        RateLimiter disabled = new RateLimiter(meterRegistry, false, 1, 1, 1, 1, 1, 1);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, disabled.tryAcquire(RateLimitCategory.AUTH, "127.0.0.1"));
+        }
+    }
+
+    private double counter( String category, String outcome ) {
+        return meterRegistry.get("chattalk.ratelimit.requests").tag("category", category).tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,208 @@
+package com.system.chattalk_serverside.UnitTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.system.chattalk_serverside.dto.Entity.MessageDTO;
+import com.system.chattalk_serverside.dto.EventDto.EventReplayResponse;
+import com.system.chattalk_serverside.enums.UserEventType;
+import com.system.chattalk_serverside.model.User;
+import com.system.chattalk_serverside.service.Events.OutboxDispatcher;
+import com.system.chattalk_serverside.service.Events.OutboxEvent;
+import com.system.chattalk_serverside.service.Events.UserEventLog;
+import com.system.chattalk_serverside.service.RealTimeNotifcation.RealtimeNotificationImpl;
+import com.system.chattalk_serverside.service.Versions.ResourceVersions;
+import com.system.chattalk_serverside.websocket.EncodedMessagingTemplate;
+import com.system.chattalk_serverside.websocket.EncodedPayload;
+import com.system.chattalk_serverside.websocket.PayloadEncoder;
+import com.system.chattalk_serverside.websocket.PayloadEncodingRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpSubscription;
+import org.springframework.messaging.simp.user.SimpSubscriptionMatcher;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RealtimeNotificationImplTest {
+
+    private final List<Message<?>> sent = new ArrayList<>();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private PayloadEncodingRegistry encodingRegistry;
+    private StubUserRegistry userRegistry;
+    private OutboxDispatcher outboxDispatcher;
+    private RealtimeNotificationImpl realtimeNotification;
+
+    @BeforeEach
+    void setup() {
+        MessageChannel channel = (message, timeout) -> sent.add(message);
+        SimpMessagingTemplate template = new SimpMessagingTemplate(channel);
+        encodingRegistry = new PayloadEncodingRegistry();
+        userRegistry = new StubUserRegistry();
+
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("brokerMessagingTemplate", template);
+        beanFactory.addBean("userRegistry", userRegistry);
+
+        EncodedMessagingTemplate encodedTemplate = new EncodedMessagingTemplate(
+                beanFactory.getBeanProvider(SimpMessagingTemplate.class), beanFactory.getBeanProvider(SimpUserRegistry.class), encodingRegistry);
+        outboxDispatcher = new OutboxDispatcher(encodedTemplate, null, null, new PayloadEncoder(objectMapper), null, new SimpleMeterRegistry(), 1, 100, 100, 10000, 600000);
+        // Message fan-out never touches the notification repository
+        realtimeNotification = new RealtimeNotificationImpl(null, new PayloadEncoder(objectMapper), new DeliveringEventLog(), new ResourceVersions(null, 100), null, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxDispatcher.destroy();
+    }
+
+    @Test
+    void sendMessageToAllParticipants_serializesOnceForEveryDestination() throws Exception {
+        List<User> participants = List.of(user(1L, "a@example.com"), user(2L, "b@example.com"), user(3L, "c@example.com"));
+
+        realtimeNotification.sendMessageToAllParticipants(participants, message());
+
+        assertEquals(6, sent.size());
+        byte[] first = (byte[]) sent.get(0).getPayload();
+        sent.forEach(m -> assertSame(first, m.getPayload()));
+        assertEquals("hello", objectMapper.readValue(first, MessageDTO.class).getContent());
+        assertEquals("/user/a@example.com/queue/messages", SimpMessageHeaderAccessor.getDestination(sent.get(0).getHeaders()));
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, contentType(sent.get(0)));
+    }
+
+    @Test
+    void sendMessageToUser_addressesOptedInSessionsWithCbor() throws Exception {
+        encodingRegistry.register("cbor-session", PayloadEncoder.APPLICATION_CBOR);
+        userRegistry.connect("a@example.com", "cbor-session", "json-session");
+
+        realtimeNotification.sendMessageToUser(user(1L, "a@example.com"), message());
+
+        assertEquals(4, sent.size());
+        for (Message<?> m : sent) {
+            String sessionId = SimpMessageHeaderAccessor.getSessionId(m.getHeaders());
+            if ("cbor-session".equals(sessionId)) {
+                assertEquals(PayloadEncoder.APPLICATION_CBOR, contentType(m));
+                MessageDTO decoded = new ObjectMapper(new CBORFactory()).findAndRegisterModules().readValue((byte[]) m.getPayload(), MessageDTO.class);
+                assertEquals("hello", decoded.getContent());
+            } else {
+                assertEquals("json-session", sessionId);
+                assertEquals(MimeTypeUtils.APPLICATION_JSON, contentType(m));
+            }
+        }
+    }
+
+    @Test
+    void sendMessageToAllParticipants_tagsBothQueuesWithRecipientSequence() {
+        User first = user(1L, "a@example.com");
+        realtimeNotification.sendMessageToAllParticipants(List.of(first), message());
+        realtimeNotification.sendMessageToAllParticipants(List.of(first, user(2L, "b@example.com")), message());
+
+        List<String> seqs = sent.stream()
+                .map(m -> NativeMessageHeaderAccessor.getFirstNativeHeader(EncodedMessagingTemplate.SEQ_HEADER, m.getHeaders()))
+                .toList();
+        // a: 1, 1, 2, 2 - b: 1, 1
+        assertEquals(List.of("1", "1", "2", "2", "1", "1"), seqs);
+    }
+
+    private static MessageDTO message() {
+        return MessageDTO.builder().messageId(1L).chatId(100L).chatName("Test Chat").messageType("TEXT")
+                .timestamp(LocalDateTime.now()).senderId(1L).content("hello").isRead(false).build();
+    }
+
+    private static User user( Long id, String email ) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        return user;
+    }
+
+    private static MimeType contentType( Message<?> message ) {
+        return SimpMessageHeaderAccessor.wrap(message).getContentType();
+    }
+
+    /**
+     * Hands out per-user sequence numbers without storing anything, and pushes at once as the outbox does after commit.
+     */
+    private class DeliveringEventLog implements UserEventLog {
+        private final Map<Long, Long> lastSeq = new HashMap<>();
+
+        @Override
+        public long append( User recipient, UserEventType type, String destination, EncodedPayload payload ) {
+            long seq = lastSeq.merge(recipient.getId(), 1L, Long::sum);
+            outboxDispatcher.deliver(new OutboxEvent(seq, recipient.getId(), recipient.getEmail(), seq, destination, payload, System.currentTimeMillis()));
+            return seq;
+        }
+
+        @Override
+        public EventReplayResponse replay( Long userId, long since, Integer limit ) {
+            return null;
+        }
+
+        @Override
+        public EventReplayResponse replay( String userEmail, long since, Integer limit ) {
+            return null;
+        }
+    }
+
+    /**
+     * In-memory registry with a fixed set of sessions per user.
+     */
+    private static class StubUserRegistry implements SimpUserRegistry {
+        private final Map<String, SimpUser> users = new HashMap<>();
+
+        void connect( String name, String... sessionIds ) {
+            Map<String, SimpSession> sessions = new LinkedHashMap<>();
+            SimpUser user = new SimpUser() {
+                public String getName() { return name; }
+                public Principal getPrincipal() { return () -> name; }
+                public boolean hasSessions() { return !sessions.isEmpty(); }
+                public SimpSession getSession( String sessionId ) { return sessions.get(sessionId); }
+                public Set<SimpSession> getSessions() { return new LinkedHashSet<>(sessions.values()); }
+            };
+            for (String id : sessionIds) {
+                sessions.put(id, new SimpSession() {
+                    public String getId() { return id; }
+                    public SimpUser getUser() { return user; }
+                    public Set<SimpSubscription> getSubscriptions() { return Set.of(); }
+                });
+            }
+            users.put(name, user);
+        }
+
+        @Override
+        public SimpUser getUser( String userName ) {
+            return users.get(userName);
+        }
+
+        @Override
+        public Set<SimpUser> getUsers() {
+            return new HashSet<>(users.values());
+        }
+
+        @Override
+        public int getUserCount() {
+            return users.size();
+        }
+
+        @Override
+        public Set<SimpSubscription> findSubscriptions( SimpSubscriptionMatcher matcher ) {
+            return Set.of();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.system.chattalk_serverside.UnitTest;
+
+import com.system.chattalk_serverside.config.StartupConfig;
+import com.system.chattalk_serverside.security.RateLimiter;
+import com.system.chattalk_serverside.service.Events.UserEventLogImpl;
+import com.system.chattalk_serverside.service.Message.MessageIdempotencyCache;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StartupConfigTest {
+
+    private final LazyInitializationExcludeFilter filter = StartupConfig.eagerStartupBeans();
+
+    @Test
+    void scheduledBeansStayEager() {
+        assertTrue(filter.isExcluded("rateLimiter", null, RateLimiter.class));
+        assertTrue(filter.isExcluded("userEventLogImpl", null, UserEventLogImpl.class));
+    }
+
+    @Test
+    void dataSourceAndPersistenceUnitStayEager() {
+        assertTrue(filter.isExcluded("dataSource", null, HikariDataSource.class));
+        assertTrue(filter.isExcluded("entityManagerFactory", null, LocalContainerEntityManagerFactoryBean.class));
+        assertTrue(filter.isExcluded("dataSourceScriptDatabaseInitializer", null, SqlDataSourceScriptDatabaseInitializer.class));
+    }
+
+    @Test
+    void otherBeansAreLazy() {
+        assertFalse(filter.isExcluded("messageIdempotencyCache", null, MessageIdempotencyCache.class));
+    }
+}
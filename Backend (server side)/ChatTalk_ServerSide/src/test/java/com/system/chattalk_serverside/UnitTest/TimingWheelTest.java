@@ -0,0 +1,101 @@
+package com.system.chattalk_serverside.UnitTest;
+
+import com.system.chattalk_serverside.service.Scheduled.TimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest {
+
+    @Test
+    void itemsExpireOnTheirTick_notBefore() {
+        // 10 ms ticks, 8 slots per level: 80 ms on level 0, 640 ms on level 1
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, 0);
+        wheel.add(35, "level0");
+        wheel.add(500, "level1");
+        wheel.add(3000, "level2");
+
+        List<String> expired = new ArrayList<>();
+        wheel.advanceTo(39, expired);
+        assertTrue(expired.isEmpty());
+        wheel.advanceTo(40, expired);
+        assertEquals(List.of("level0"), expired);
+
+        expired.clear();
+        wheel.advanceTo(499, expired);
+        assertTrue(expired.isEmpty());
+        wheel.advanceTo(500, expired);
+        assertEquals(List.of("level1"), expired);
+
+        expired.clear();
+        wheel.advanceTo(2990, expired);
+        assertTrue(expired.isEmpty());
+        wheel.advanceTo(3000, expired);
+        assertEquals(List.of("level2"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void overdueItems_expireOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, 1000);
+        wheel.add(10, "long overdue");
+        wheel.add(1000, "due now");
+
+        List<String> expired = new ArrayList<>();
+        wheel.advanceTo(1000, expired);
+        assertEquals(List.of("long overdue", "due now"), expired);
+    }
+
+    @Test
+    void deadlinesBeyondTheTopLevel_areParkedAndStillFireOnTime() {
+        // Three levels of 4 slots cover 64 ticks
+        TimingWheel<String> wheel = new TimingWheel<>(1, 4, 3, 0);
+        wheel.add(1000, "far");
+
+        List<String> expired = new ArrayList<>();
+        wheel.advanceTo(999, expired);
+        assertTrue(expired.isEmpty());
+        wheel.advanceTo(1000, expired);
+        assertEquals(List.of("far"), expired);
+    }
+
+    @Test
+    void randomDeadlines_eachFireExactlyOnceAtTheirTick() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 16, 4, 0);
+        Random random = new Random(42);
+        Map<Integer, Long> due = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            long at = random.nextInt(200_000);
+            due.put(i, at);
+            wheel.add(at, i);
+        }
+        assertEquals(20_000, wheel.size());
+
+        List<Integer> expired = new ArrayList<>();
+        Map<Integer, Long> firedAt = new HashMap<>();
+        // Uneven steps, as a real ticker would make
+        for (long now = 0; now <= 200_000; now += 1 + random.nextInt(50)) {
+            wheel.advanceTo(now, expired);
+            for (Integer item : expired) {
+                assertNull(firedAt.put(item, now), "fired twice: " + item);
+            }
+            expired.clear();
+        }
+        wheel.advanceTo(200_000, expired);
+        expired.forEach(item -> firedAt.put(item, 200_000L));
+
+        assertEquals(due.keySet(), firedAt.keySet());
+        // Never early, and late by at most one step
+        due.forEach(( item, at ) -> {
+            long fired = firedAt.get(item);
+            assertTrue(fired >= at && fired - at <= 100, item + " due " + at + " fired " + fired);
+        });
+        assertEquals(0, wheel.size());
+    }
+}
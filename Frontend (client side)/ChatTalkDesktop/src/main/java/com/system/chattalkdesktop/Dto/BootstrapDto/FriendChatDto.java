@@ -0,0 +1,20 @@
+package com.system.chattalkdesktop.Dto.BootstrapDto;
+
+import com.system.chattalkdesktop.Dto.entity.UserDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FriendChatDto {
+    private UserDTO friend;
+    // Null until a private chat with this friend exists
+    private Long chatId;
+    private String lastMessage;
+    private LocalDateTime lastMessageAt;
+    private long unreadCount;
+}
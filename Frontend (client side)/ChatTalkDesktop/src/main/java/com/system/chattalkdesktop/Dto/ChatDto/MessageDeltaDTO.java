@@ -0,0 +1,21 @@
+package com.system.chattalkdesktop.Dto.ChatDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Realtime edit or deletion of a message; {@code content} is null and {@code deleted} true for a deletion
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageDeltaDTO {
+    private Long messageId;
+    private Long chatId;
+    private Long version;
+    private String content;
+    private Boolean deleted;
+}
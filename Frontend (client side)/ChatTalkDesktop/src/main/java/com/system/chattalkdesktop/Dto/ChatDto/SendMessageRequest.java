@@ -17,4 +17,6 @@ public class SendMessageRequest {
     private Long senderId;
     private String MessageType;
     private String timestamp;
+    // Generated once per message; lets the server recognise retries of the same send
+    private String clientMessageId;
 }
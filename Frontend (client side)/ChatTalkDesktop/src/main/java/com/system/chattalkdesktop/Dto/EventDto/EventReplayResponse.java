@@ -0,0 +1,17 @@
+package com.system.chattalkdesktop.Dto.EventDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventReplayResponse {
+    private List<UserEventDTO> events;
+    private long latestSeq;
+    private boolean complete;
+    private boolean hasMore;
+}
@@ -0,0 +1,18 @@
+package com.system.chattalkdesktop.Dto.EventDto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserEventDTO {
+    private long seq;
+    private String type;
+    private String destination;
+    // Same body that was pushed on the destination; decoded once the destination is known
+    private JsonNode payload;
+    private String createdAt;
+}
@@ -0,0 +1,19 @@
+package com.system.chattalkdesktop.Dto.NotificationDto;
+
+import com.system.chattalkdesktop.Dto.entity.NotificationDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPageDTO {
+    private List<NotificationDTO> notifications;
+    private String nextCursor;
+    private String latestCursor;
+    private boolean hasMore;
+    private long unreadCount;
+}
@@ -21,4 +21,7 @@ public class NotificationDTO {
     private String createdAt;
     private Long chatId;
     private Long senderId;
+    // Messages coalesced into a chat's entry
+    private Integer messageCount;
+    private String updatedAt;
 }
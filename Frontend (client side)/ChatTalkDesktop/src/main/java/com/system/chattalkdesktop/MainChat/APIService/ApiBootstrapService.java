@@ -0,0 +1,90 @@
+package com.system.chattalkdesktop.MainChat.APIService;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.chattalkdesktop.Dto.BootstrapDto.FriendChatDto;
+import com.system.chattalkdesktop.Dto.PendingFriendRequestDto;
+import com.system.chattalkdesktop.Dto.entity.NotificationDTO;
+import com.system.chattalkdesktop.Dto.entity.UserDTO;
+import com.system.chattalkdesktop.utils.JacksonConfig;
+import com.system.chattalkdesktop.utils.SessionManager;
+import javafx.concurrent.Task;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Initial state after login in a single streamed request: each section is handed to the listener
+ * as soon as its line arrives, so the UI can render friends before notifications are loaded.
+ */
+public class ApiBootstrapService {
+    private static final String BASE_URL = "http://localhost:8080/api/bootstrap";
+    private static final ObjectMapper mapper = JacksonConfig.getObjectMapper();
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    /**
+     * Called on the loading thread, once per section; use Platform.runLater to touch the UI
+     */
+    public interface BootstrapListener {
+        default void onProfile( UserDTO profile ) {
+        }
+
+        default void onFriends( List<FriendChatDto> friends ) {
+        }
+
+        default void onPendingRequests( List<PendingFriendRequestDto> pendingRequests ) {
+        }
+
+        default void onNotifications( List<NotificationDTO> notifications ) {
+        }
+    }
+
+    public static Task<Void> streamBootstrap( BootstrapListener listener ) {
+        return new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(URI.create(BASE_URL + "/stream"))
+                        .header("Accept", "application/x-ndjson")
+                        .header("Authorization", "Bearer " + SessionManager.getInstance().getToken())
+                        .GET()
+                        .build();
+
+                HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+                try (Stream<String> lines = response.body()) {
+                    if (response.statusCode() != 200) {
+                        throw new IOException("Bootstrap failed with HTTP " + response.statusCode());
+                    }
+                    Iterator<String> iterator = lines.iterator();
+                    while (iterator.hasNext()) {
+                        String line = iterator.next();
+                        if (!line.isBlank()) {
+                            dispatch(mapper.readTree(line), listener);
+                        }
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    private static void dispatch( JsonNode section, BootstrapListener listener ) {
+        JsonNode data = section.get("data");
+        switch (section.get("section").asText()) {
+            case "profile" -> listener.onProfile(mapper.convertValue(data, UserDTO.class));
+            case "friends" -> listener.onFriends(mapper.convertValue(data, new TypeReference<List<FriendChatDto>>() {}));
+            case "pendingRequests" -> listener.onPendingRequests(mapper.convertValue(data, new TypeReference<List<PendingFriendRequestDto>>() {}));
+            case "notifications" -> listener.onNotifications(mapper.convertValue(data, new TypeReference<List<NotificationDTO>>() {}));
+            default -> {
+                // Sections added by newer servers are ignored
+            }
+        }
+    }
+}
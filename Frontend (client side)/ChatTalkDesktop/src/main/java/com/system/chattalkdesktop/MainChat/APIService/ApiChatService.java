@@ -10,16 +10,20 @@ import com.system.chattalkdesktop.utils.JacksonConfig;
 import com.system.chattalkdesktop.utils.SessionManager;
 import javafx.concurrent.Task;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.List;
 
 public class ApiChatService {
     private static final String BASE_URL = "http://localhost:8080/api/chats";
     private static final ObjectMapper mapper = JacksonConfig.getObjectMapper();
     private static final HttpClient client = HttpClient.newHttpClient();
+    private static final Duration SEND_TIMEOUT = Duration.ofSeconds(10);
+    private static final int SEND_ATTEMPTS = 3;
 
     private static String getToken() {
         return "Bearer " + SessionManager.getInstance().getToken();
@@ -90,10 +94,11 @@ public class ApiChatService {
                             .uri(URI.create(BASE_URL + "/" + chatId + "/messages"))
                             .header("Content-Type", "application/json")
                             .header("Authorization", token)
+                            .timeout(SEND_TIMEOUT)
                             .POST(HttpRequest.BodyPublishers.ofString(messageJson))
                             .build();
 
-                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    HttpResponse<String> response = sendWithRetry(request, messageRequest.getClientMessageId() != null);
                     System.out.println("=== Send message API response status: " + response.statusCode() + " ===");
                     System.out.println("=== Response body: " + response.body() + " ===");
 
@@ -116,6 +121,31 @@ public class ApiChatService {
         };
     }
 
+    /**
+     * Retries timeouts, connection failures and rate-limited (429) responses; only safe when the request
+     * carries a clientMessageId, since the server then returns the original message instead of storing it again
+     */
+    private static HttpResponse<String> sendWithRetry(HttpRequest request, boolean idempotent) throws IOException, InterruptedException {
+        int attempts = idempotent ? SEND_ATTEMPTS : 1;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 429 || attempt >= attempts) {
+                    return response;
+                }
+                long retryAfterSeconds = response.headers().firstValueAsLong("Retry-After").orElse(1);
+                System.err.println("Send rate limited, retrying in " + retryAfterSeconds + "s");
+                Thread.sleep(Math.min(retryAfterSeconds, 5) * 1000);
+            } catch (IOException e) {
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                System.err.println("Send attempt " + attempt + " failed, retrying: " + e.getMessage());
+                Thread.sleep(250L * attempt);
+            }
+        }
+    }
+
     public static Task<Integer> getUnreadCount(Long chatId, Long currentUserId) {
         return new Task<>() {
             @Override
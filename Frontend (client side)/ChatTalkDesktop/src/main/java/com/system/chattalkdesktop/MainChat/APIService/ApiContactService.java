@@ -6,6 +6,7 @@ import com.system.chattalkdesktop.Dto.ApiResponse;
 import com.system.chattalkdesktop.Dto.PendingFriendRequestDto;
 import com.system.chattalkdesktop.Dto.entity.UserDTO;
 import com.system.chattalkdesktop.NotificationService.NotificationServiceImpl;
+import com.system.chattalkdesktop.utils.ConditionalGetCache;
 import com.system.chattalkdesktop.utils.JacksonConfig;
 import com.system.chattalkdesktop.utils.SessionManager;
 import javafx.concurrent.Task;
@@ -34,14 +35,7 @@ public class ApiContactService {
                     String token = getToken();
                     System.out.println("=== Getting pending requests with token: " + token.substring(0, Math.min(50, token.length())) + "... ===");
                     
-                    HttpRequest request = HttpRequest.newBuilder()
-                            .uri(URI.create(BASE_URL + "/requests/pending"))
-                            .header("Content-Type", "application/json")
-                            .header("Authorization", token)
-                            .GET()
-                            .build();
-
-                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    ConditionalGetCache.Response response = ConditionalGetCache.get(client, URI.create(BASE_URL + "/requests/pending"), token);
                     System.out.println("=== Pending requests API response status: " + response.statusCode() + " ===");
                     System.out.println("=== Pending requests API response body: " + response.body() + " ===");
 
@@ -76,14 +70,7 @@ public class ApiContactService {
                     String token = getToken();
                     System.out.println("=== Getting friend list with token: " + token.substring(0, Math.min(50, token.length())) + "... ===");
                     
-                    HttpRequest request = HttpRequest.newBuilder()
-                            .uri(URI.create(BASE_URL + "/friends"))
-                            .header("Content-Type", "application/json")
-                            .header("Authorization", token)
-                            .GET()
-                            .build();
-
-                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    ConditionalGetCache.Response response = ConditionalGetCache.get(client, URI.create(BASE_URL + "/friends"), token);
                     System.out.println("=== Friend list API response status: " + response.statusCode() + " ===");
                     System.out.println("=== Friend list API response body: " + response.body() + " ===");
                     
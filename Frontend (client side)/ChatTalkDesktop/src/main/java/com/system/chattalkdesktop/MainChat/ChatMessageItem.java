@@ -108,7 +108,7 @@ public class ChatMessageItem extends HBox {
         messageLabel.setText(message.getContent());
 
         // Set timestamp
-        String timestamp = formatTimestamp(message.getTimestamp());
+        String timestamp = formatTimestamp(message);
         readIndicator.setTimestamp(timestamp);
 
         // Set read status
@@ -136,6 +136,11 @@ public class ChatMessageItem extends HBox {
         messageLabel.setMaxWidth(optimalWidth);
     }
 
+    private String formatTimestamp(MessageDTO message) {
+        String time = formatTimestamp(message.getTimestamp());
+        return Boolean.TRUE.equals(message.getIsEdited()) ? time + " (edited)" : time;
+    }
+
     private String formatTimestamp(LocalDateTime timestamp) {
         if (timestamp == null) {
             return "";
@@ -147,7 +152,7 @@ public class ChatMessageItem extends HBox {
      * Update the read status of the message
      */
     public void updateReadStatus(boolean isRead) {
-        readIndicator.updateStatus(isRead, formatTimestamp(message.getTimestamp()));
+        readIndicator.updateStatus(isRead, formatTimestamp(message));
     }
 
     /**
@@ -156,7 +161,7 @@ public class ChatMessageItem extends HBox {
     public void updateMessage(MessageDTO updatedMessage) {
         this.message = updatedMessage;
         messageLabel.setText(updatedMessage.getContent());
-        readIndicator.updateStatus(updatedMessage.getIsRead(), formatTimestamp(updatedMessage.getTimestamp()));
+        readIndicator.updateStatus(updatedMessage.getIsRead(), formatTimestamp(updatedMessage));
         adjustMessageWidth();
     }
 
@@ -1,6 +1,7 @@
 package com.system.chattalkdesktop.MainChat;
 
 
+import com.system.chattalkdesktop.Dto.ChatDto.MessageDeltaDTO;
 import com.system.chattalkdesktop.Dto.ChatDto.SendMessageRequest;
 import com.system.chattalkdesktop.Dto.entity.MessageDTO;
 import com.system.chattalkdesktop.Dto.entity.UserDTO;
@@ -187,6 +188,9 @@ public class ChatWindowController implements MessageUpdateListener {
                 
                 // Start real-time updates for this chat
                 startRealTimeUpdates();
+
+                // Tell the server this chat is open, so its messages skip the notification
+                notificationManager.focusChat(chatId);
             }
         });
         chatTask.setOnFailed(e -> {
@@ -380,6 +384,7 @@ public class ChatWindowController implements MessageUpdateListener {
                     .senderId(SessionManager.getInstance().getCurrentUser().getId())
                     .MessageType("TEXT")
                     .timestamp(LocalDateTime.now().toString())
+                    .clientMessageId(java.util.UUID.randomUUID().toString())
                     .build();
 
             Task<MessageDTO> sendTask = getMessageDTOTask(messageRequest, tempItem, messageText);
@@ -510,10 +515,55 @@ public class ChatWindowController implements MessageUpdateListener {
         }
     }
 
+    @Override
+    public void onMessageChanged(MessageDeltaDTO delta) {
+        if (currentChatId == null || !currentChatId.equals(delta.getChatId())) {
+            return;
+        }
+        Platform.runLater(() -> {
+            ChatMessageItem item = messages.stream()
+                    .filter(candidate -> delta.getMessageId().equals(candidate.getMessageId()))
+                    .findFirst()
+                    .orElse(null);
+            if (item == null) {
+                return;
+            }
+            // Deltas can arrive twice or out of order (replay after reconnect); only newer versions apply
+            long shownVersion = item.getMessage().getVersion() == null ? 0 : item.getMessage().getVersion();
+            if (delta.getVersion() != null && delta.getVersion() <= shownVersion) {
+                log.debug("Ignoring stale change v{} to message {} (showing v{})", delta.getVersion(), delta.getMessageId(), shownVersion);
+                return;
+            }
+
+            if (Boolean.TRUE.equals(delta.getDeleted())) {
+                messages.remove(item);
+                chatContainer.getChildren().remove(item);
+                log.debug("Message {} deleted", delta.getMessageId());
+            } else {
+                MessageDTO current = item.getMessage();
+                item.updateMessage(MessageDTO.builder()
+                        .messageId(current.getMessageId())
+                        .chatId(current.getChatId())
+                        .chatName(current.getChatName())
+                        .messageType(current.getMessageType())
+                        .timestamp(current.getTimestamp())
+                        .senderId(current.getSenderId())
+                        .isRead(current.getIsRead())
+                        .clientMessageId(current.getClientMessageId())
+                        .content(delta.getContent())
+                        .isEdited(true)
+                        .version(delta.getVersion())
+                        .build());
+                log.debug("Message {} edited (v{})", delta.getMessageId(), delta.getVersion());
+            }
+        });
+    }
+
     @FXML
     public void onBackButtonClick(ActionEvent actionEvent) {
         // Stop real-time updates before navigating back
         stopRealTimeUpdates();
+        notificationManager.blurChat(currentChatId);
         
         if (onBackToFriendList != null) {
             onBackToFriendList.run();
@@ -532,6 +582,7 @@ public class ChatWindowController implements MessageUpdateListener {
         }
         // Stop real-time updates
         stopRealTimeUpdates();
+        notificationManager.blurChat(currentChatId);
     }
 
     /**
@@ -1,9 +1,11 @@
 package com.system.chattalkdesktop.MainChat;
 
 
+import com.system.chattalkdesktop.Dto.BootstrapDto.FriendChatDto;
 import com.system.chattalkdesktop.Dto.PendingFriendRequestDto;
 import com.system.chattalkdesktop.Dto.entity.MessageDTO;
 import com.system.chattalkdesktop.Dto.entity.UserDTO;
+import com.system.chattalkdesktop.MainChat.APIService.ApiBootstrapService;
 import com.system.chattalkdesktop.MainChat.APIService.ApiChatService;
 import com.system.chattalkdesktop.MainChat.APIService.ApiContactService;
 import com.system.chattalkdesktop.MainChat.APIService.ChatServiceApi;
@@ -267,8 +269,43 @@ public class FriendListController {
     }
 
     private void loadData() {
-        loadFriends();
-        loadPendingRequests();
+        // One streamed request instead of friends, pending requests and three calls per friend
+        Task<Void> task = ApiBootstrapService.streamBootstrap(new ApiBootstrapService.BootstrapListener() {
+            @Override
+            public void onFriends( List<FriendChatDto> data ) {
+                Platform.runLater(() -> applyFriends(data));
+            }
+
+            @Override
+            public void onPendingRequests( List<PendingFriendRequestDto> data ) {
+                Platform.runLater(() -> pendingRequests.setAll(data));
+            }
+        });
+        task.setOnFailed(e -> {
+            System.err.println("Bootstrap failed, loading contacts one by one: " + task.getException().getMessage());
+            loadFriends();
+            loadPendingRequests();
+        });
+        new Thread(task).start();
+    }
+
+    private void applyFriends( List<FriendChatDto> data ) {
+        List<UserDTO> loaded = new ArrayList<>(data.size());
+        for (FriendChatDto entry : data) {
+            UserDTO friend = entry.getFriend();
+            loaded.add(friend);
+            if (entry.getChatId() != null) {
+                java.time.LocalDateTime lastMessageAt = entry.getLastMessageAt();
+                chatDataCache.put(friend.getEmail(), new ChatData(
+                        entry.getChatId(),
+                        entry.getLastMessage() != null ? entry.getLastMessage() : "",
+                        formatTimestamp(lastMessageAt),
+                        (int) entry.getUnreadCount(),
+                        lastMessageAt != null ? Date.from(lastMessageAt.atZone(java.time.ZoneId.systemDefault()).toInstant()) : new Date(0)));
+            }
+        }
+        friends.setAll(loaded);
+        updateFriendListDisplay();
     }
 
     private void loadFriends() {
@@ -5,6 +5,7 @@ import com.system.chattalkdesktop.Dto.ApiResponse;
 import com.system.chattalkdesktop.Dto.UpdateProfileRequest;
 import com.system.chattalkdesktop.Dto.entity.UserDTO;
 import com.system.chattalkdesktop.NotificationService.NotificationServiceImpl;
+import com.system.chattalkdesktop.utils.ConditionalGetCache;
 import com.system.chattalkdesktop.utils.JacksonConfig;
 import com.system.chattalkdesktop.utils.SessionManager;
 import javafx.concurrent.Task;
@@ -34,14 +35,7 @@ public class ApiProfileService {
                 try {
                     String token = getToken();
 
-                    HttpRequest request = HttpRequest.newBuilder()
-                            .uri(URI.create(BASE_URL + "/profile/me"))
-                            .header("Content-Type", "application/json")
-                            .header("Authorization", token)
-                            .GET()
-                            .build();
-
-                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    ConditionalGetCache.Response response = ConditionalGetCache.get(client, URI.create(BASE_URL + "/profile/me"), token);
 
                     if (response.statusCode() == 200) {
                         ApiResponse apiResponse = mapper.readValue(response.body(), ApiResponse.class);
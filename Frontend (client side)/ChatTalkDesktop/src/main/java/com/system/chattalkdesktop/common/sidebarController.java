@@ -47,10 +47,7 @@ public class sidebarController {
      */
     private void updateNotificationCount() {
         try {
-            long unreadCount = apiNotification.getNotifications()
-                    .stream()
-                    .filter(notification -> !notification.isRead())
-                    .count();
+            int unreadCount = apiNotification.getNotificationCount();
             Platform.runLater(() ->
                     notificationCountLabel.setText("notify : " + unreadCount)
             );
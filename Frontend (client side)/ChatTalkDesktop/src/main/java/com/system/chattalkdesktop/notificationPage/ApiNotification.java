@@ -1,6 +1,9 @@
 package com.system.chattalkdesktop.notificationPage;
 
+import com.system.chattalkdesktop.Dto.NotificationDto.NotificationPageDTO;
 import com.system.chattalkdesktop.Dto.entity.NotificationDTO;
+import com.system.chattalkdesktop.utils.ConditionalGetCache;
+import com.system.chattalkdesktop.utils.JacksonConfig;
 import com.system.chattalkdesktop.utils.SessionManager;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -9,7 +12,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
@@ -17,11 +23,12 @@ public class ApiNotification {
     private static final String BASE_URL = "http://localhost:8080/api/notifications";
     private static ApiNotification instance;
     private final RestTemplate restTemplate;
+    private final HttpClient httpClient;
 
     // Private constructor to prevent instantiation
     private ApiNotification() {
         // Configure RestTemplate to use Java's HttpClient which supports PATCH
-        HttpClient httpClient = HttpClient.newHttpClient();
+        this.httpClient = HttpClient.newHttpClient();
         JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
         this.restTemplate = new RestTemplate(factory);
     }
@@ -50,17 +57,14 @@ public class ApiNotification {
     // Get all notifications
     public List<NotificationDTO> getNotifications() {
         try {
-            HttpHeaders headers = getAuthHeaders();
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            ResponseEntity<NotificationDTO[]> response = restTemplate.exchange(
-                BASE_URL, 
-                HttpMethod.GET, 
-                entity, 
-                NotificationDTO[].class
-            );
-            
-            NotificationDTO[] notifications = response.getBody();
+            String token = SessionManager.getInstance().getToken();
+            // Conditional GET: an unchanged list comes back as 304 and is served from the last response
+            ConditionalGetCache.Response response = ConditionalGetCache.get(httpClient, URI.create(BASE_URL), "Bearer " + token);
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("HTTP " + response.statusCode());
+            }
+
+            NotificationDTO[] notifications = JacksonConfig.getObjectMapper().readValue(response.body(), NotificationDTO[].class);
             return notifications != null ? Arrays.asList(notifications) : List.of();
         } catch (Exception e) {
             e.printStackTrace();
@@ -68,49 +72,57 @@ public class ApiNotification {
         }
     }
 
-    // Get notifications with pagination
-    public List<NotificationDTO> getNotifications(int page, int size) {
+    // Get a page of notifications, most recent activity first; pass the returned nextCursor for the next page
+    public NotificationPageDTO getPage(String cursor, int limit) {
         try {
-            HttpHeaders headers = getAuthHeaders();
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            String url = BASE_URL + "?page=" + page + "&size=" + size;
-            ResponseEntity<NotificationDTO[]> response = restTemplate.exchange(
-                url, 
-                HttpMethod.GET, 
-                entity, 
-                NotificationDTO[].class
-            );
-            
-            NotificationDTO[] notifications = response.getBody();
-            return notifications != null ? Arrays.asList(notifications) : List.of();
+            String url = BASE_URL + "/page?limit=" + limit
+                    + (cursor != null ? "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8) : "");
+            return exchange(url, HttpMethod.GET, NotificationPageDTO.class);
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to fetch notifications page", e);
+        }
+    }
+
+    // Notifications created or updated after the latestCursor of an earlier response, oldest change first
+    public NotificationPageDTO getChanges(String since) {
+        try {
+            String url = BASE_URL + "/changes"
+                    + (since != null ? "?since=" + URLEncoder.encode(since, StandardCharsets.UTF_8) : "");
+            return exchange(url, HttpMethod.GET, NotificationPageDTO.class);
         } catch (Exception e) {
             e.printStackTrace();
-            throw new RuntimeException("Failed to fetch notifications with pagination", e);
+            throw new RuntimeException("Failed to fetch notification changes", e);
         }
     }
 
-    // Get notification count
+    // Get the unread notification count (kept by the server, no list is transferred)
     public int getNotificationCount() {
         try {
-            HttpHeaders headers = getAuthHeaders();
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            ResponseEntity<NotificationDTO[]> response = restTemplate.exchange(
-                BASE_URL, 
-                HttpMethod.GET, 
-                entity, 
-                NotificationDTO[].class
-            );
-            
-            NotificationDTO[] notifications = response.getBody();
-            return notifications != null ? notifications.length : 0;
+            Long unread = exchange(BASE_URL + "/unread-count", HttpMethod.GET, Long.class);
+            return unread != null ? unread.intValue() : 0;
         } catch (Exception e) {
             e.printStackTrace();
             return 0;
         }
     }
 
+    // Mark every notification as read in one request
+    public void markAllAsRead() {
+        try {
+            exchange(BASE_URL + "/read", HttpMethod.PATCH, Integer.class);
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to mark all notifications as read", e);
+        }
+    }
+
+    private <T> T exchange(String url, HttpMethod method, Class<T> type) {
+        HttpEntity<String> entity = new HttpEntity<>(getAuthHeaders());
+        ResponseEntity<T> response = restTemplate.exchange(url, method, entity, type);
+        return response.getBody();
+    }
+
     // Delete all notifications
     public void deleteAllNotifications() {
         try {
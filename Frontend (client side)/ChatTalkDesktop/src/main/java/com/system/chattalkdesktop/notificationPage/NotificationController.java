@@ -1,5 +1,6 @@
 package com.system.chattalkdesktop.notificationPage;
 
+import com.system.chattalkdesktop.Dto.NotificationDto.NotificationPageDTO;
 import com.system.chattalkdesktop.Dto.entity.NotificationDTO;
 import com.system.chattalkdesktop.service.NotificationManager;
 import javafx.application.Platform;
@@ -30,8 +31,9 @@ public class NotificationController {
     private final ApiNotification apiNotification = ApiNotification.getInstance();
     private final NotificationManager notificationManager = NotificationManager.getInstance();
     
-    // Pagination variables
-    private int currentPage = 0;
+    // Keyset pagination: nextCursor loads older entries, latestCursor asks for changes since the last load
+    private String nextCursor;
+    private String latestCursor;
     private final int pageSize = 20;
     private boolean hasMoreNotifications = true;
     private boolean isLoading = false;
@@ -121,7 +123,7 @@ public class NotificationController {
      * Load more notifications (pagination)
      */
     private void loadMoreNotifications() {
-        if (isLoading || !hasMoreNotifications) {
+        if (isLoading || !hasMoreNotifications || nextCursor == null) {
             return;
         }
         
@@ -129,15 +131,14 @@ public class NotificationController {
         loadMoreButton.setDisable(true);
         
         try {
-            log.debug("Loading more notifications, page: {}", currentPage + 1);
-            List<NotificationDTO> newNotifications = apiNotification.getNotifications(currentPage + 1, pageSize);
-            
-            if (newNotifications.isEmpty()) {
-                hasMoreNotifications = false;
-                loadMoreButton.setVisible(false);
-            } else {
-                currentPage++;
-                
+            log.debug("Loading more notifications after: {}", nextCursor);
+            NotificationPageDTO page = apiNotification.getPage(nextCursor, pageSize);
+            List<NotificationDTO> newNotifications = page.getNotifications();
+            nextCursor = page.getNextCursor();
+            hasMoreNotifications = nextCursor != null;
+            loadMoreButton.setVisible(hasMoreNotifications);
+
+            if (!newNotifications.isEmpty()) {
                 Platform.runLater(() -> {
                     for (NotificationDTO notification : newNotifications) {
                         addNotificationItem(notification);
@@ -165,7 +166,7 @@ public class NotificationController {
             while (!Thread.currentThread().isInterrupted()) {
                 try {
                     Thread.sleep(60000); // Refresh every minute
-                    Platform.runLater(this::refreshNotifications);
+                    refreshChanges();
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     break;
@@ -178,6 +179,32 @@ public class NotificationController {
         refreshThread.start();
     }
 
+    /**
+     * Fetch only what was created or updated since the last load; updated entries move to the top
+     */
+    private void refreshChanges() {
+        if (latestCursor == null) {
+            Platform.runLater(this::refreshNotifications);
+            return;
+        }
+        try {
+            NotificationPageDTO changes;
+            do {
+                changes = apiNotification.getChanges(latestCursor);
+                if (changes.getLatestCursor() != null) {
+                    latestCursor = changes.getLatestCursor();
+                }
+                List<NotificationDTO> changed = changes.getNotifications();
+                Platform.runLater(() -> changed.forEach(notification -> {
+                    removeNotificationItem(notification.getId());
+                    addNotificationItem(notification, 0);
+                }));
+            } while (changes.isHasMore());
+        } catch (Exception e) {
+            log.error("Failed to fetch notification changes: {}", e.getMessage());
+        }
+    }
+
     /**
      * Refresh notifications (reload from first page)
      */
@@ -185,7 +212,7 @@ public class NotificationController {
     private void refreshNotifications() {
         try {
             log.debug("Refreshing notifications...");
-            currentPage = 0;
+            nextCursor = null;
             hasMoreNotifications = true;
             loadNotifications();
         } catch (Exception e) {
@@ -195,15 +222,16 @@ public class NotificationController {
 
     private void loadNotifications() {
         try {
-            log.debug("Loading notifications, page: {}", currentPage);
-            List<NotificationDTO> notifications = apiNotification.getNotifications(currentPage, pageSize);
-            log.debug("Loaded {} notifications", notifications.size());
+            log.debug("Loading first page of notifications");
+            NotificationPageDTO page = apiNotification.getPage(null, pageSize);
+            List<NotificationDTO> notifications = page.getNotifications();
+            nextCursor = page.getNextCursor();
+            latestCursor = page.getLatestCursor();
+            hasMoreNotifications = nextCursor != null;
+            log.debug("Loaded {} notifications, {} unread", notifications.size(), page.getUnreadCount());
             
             Platform.runLater(() -> {
-                if (currentPage == 0) {
-                    // Clear list only on first page load
-                    notificationItems.clear();
-                }
+                notificationItems.clear();
                 
                 for (NotificationDTO notification : notifications) {
                     addNotificationItem(notification);
@@ -211,7 +239,7 @@ public class NotificationController {
                 
                 // Show/hide load more button
                 if (loadMoreButton != null) {
-                    loadMoreButton.setVisible(notifications.size() >= pageSize);
+                    loadMoreButton.setVisible(hasMoreNotifications);
                 }
                 
                 log.debug("Displayed {} notification items", notificationItems.size());
@@ -234,6 +262,7 @@ public class NotificationController {
             HBox item = loader.load();
             NotificationItem controller = loader.getController();
             controller.setData(notification, this);
+            item.getProperties().put("controller", controller);
             
             if (index >= 0) {
                 notificationItems.add(index, item);
@@ -245,6 +274,13 @@ public class NotificationController {
         }
     }
 
+    private void removeNotificationItem(Long notificationId) {
+        notificationItems.removeIf(item -> {
+            NotificationItem controller = (NotificationItem) item.getProperties().get("controller");
+            return controller != null && controller.getNotification().getId().equals(notificationId);
+        });
+    }
+
     private void filterNotifications(String query) {
         if (query == null || query.trim().isEmpty()) {
             refreshNotifications();
@@ -277,8 +313,9 @@ public class NotificationController {
                 try {
                     apiNotification.deleteAllNotifications();
                     notificationItems.clear();
-                    currentPage = 0;
-                    hasMoreNotifications = true;
+                    nextCursor = null;
+                    latestCursor = null;
+                    hasMoreNotifications = false;
                     log.debug("All notifications cleared");
                 } catch (Exception e) {
                     log.error("Failed to clear notifications: {}", e.getMessage());
@@ -1,5 +1,6 @@
 package com.system.chattalkdesktop.service;
 
+import com.system.chattalkdesktop.Dto.ChatDto.MessageDeltaDTO;
 import com.system.chattalkdesktop.Dto.entity.MessageDTO;
 import com.system.chattalkdesktop.event.*;
 
@@ -134,6 +135,25 @@ public class ChatMessageObserver {
         }
     }
 
+    /**
+     * Notify all listeners that a message was edited or deleted
+     */
+    public void notifyMessageChanged(MessageDeltaDTO delta) {
+        if (delta == null || delta.getMessageId() == null) {
+            log.warn("Attempted to notify with null message delta");
+            return;
+        }
+
+        log.debug("Notifying {} listeners of change to message: {}", listeners.size(), delta.getMessageId());
+        listeners.forEach(listener -> {
+            try {
+                listener.onMessageChanged(delta);
+            } catch (Exception e) {
+                log.error("Error notifying listener {}: {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        });
+    }
+
     /**
      * Setup event subscriptions for incoming messages
      */
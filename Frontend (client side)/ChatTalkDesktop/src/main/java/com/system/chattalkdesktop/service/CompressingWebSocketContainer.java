@@ -0,0 +1,130 @@
+package com.system.chattalkdesktop.service;
+
+import jakarta.websocket.ClientEndpointConfig;
+import jakarta.websocket.DeploymentException;
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.Extension;
+import jakarta.websocket.Session;
+import jakarta.websocket.WebSocketContainer;
+import org.glassfish.tyrus.client.ClientManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tyrus container that offers permessage-deflate on every programmatic connection
+ * Spring's StandardWebSocketClient can only send extension names, which Tyrus does not implement on its own,
+ * so the extension instance is added here to the endpoint config before the handshake
+ *
+ * Settings (system properties):
+ * websocket.compression.enabled   - offer compression to the server (default true)
+ * websocket.compression.threshold - frames smaller than this many bytes are sent uncompressed (default 256)
+ */
+public class CompressingWebSocketContainer implements WebSocketContainer {
+
+    public static final boolean COMPRESSION_ENABLED =
+            Boolean.parseBoolean(System.getProperty("websocket.compression.enabled", "true"));
+    public static final int COMPRESSION_THRESHOLD =
+            Integer.getInteger("websocket.compression.threshold", 256);
+
+    private final WebSocketContainer delegate;
+
+    public CompressingWebSocketContainer() {
+        this(ClientManager.createClient());
+    }
+
+    public CompressingWebSocketContainer(WebSocketContainer delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Copy of the given config with the deflate extension appended (unchanged when compression is disabled)
+     */
+    public static ClientEndpointConfig withCompression(ClientEndpointConfig config) {
+        if (!COMPRESSION_ENABLED) {
+            return config;
+        }
+        List<Extension> extensions = new ArrayList<>(config.getExtensions());
+        extensions.add(new ThresholdDeflateExtension(COMPRESSION_THRESHOLD));
+        ClientEndpointConfig compressed = ClientEndpointConfig.Builder.create()
+                .configurator(config.getConfigurator())
+                .preferredSubprotocols(config.getPreferredSubprotocols())
+                .extensions(extensions)
+                .encoders(config.getEncoders())
+                .decoders(config.getDecoders())
+                .sslContext(config.getSSLContext())
+                .build();
+        compressed.getUserProperties().putAll(config.getUserProperties());
+        return compressed;
+    }
+
+    @Override
+    public Session connectToServer(Endpoint endpointInstance, ClientEndpointConfig cec, URI path)
+            throws DeploymentException, IOException {
+        return delegate.connectToServer(endpointInstance, withCompression(cec), path);
+    }
+
+    @Override
+    public Session connectToServer(Class<? extends Endpoint> endpointClass, ClientEndpointConfig cec, URI path)
+            throws DeploymentException, IOException {
+        return delegate.connectToServer(endpointClass, withCompression(cec), path);
+    }
+
+    @Override
+    public Session connectToServer(Object annotatedEndpointInstance, URI path) throws DeploymentException, IOException {
+        return delegate.connectToServer(annotatedEndpointInstance, path);
+    }
+
+    @Override
+    public Session connectToServer(Class<?> annotatedEndpointClass, URI path) throws DeploymentException, IOException {
+        return delegate.connectToServer(annotatedEndpointClass, path);
+    }
+
+    @Override
+    public long getDefaultAsyncSendTimeout() {
+        return delegate.getDefaultAsyncSendTimeout();
+    }
+
+    @Override
+    public void setAsyncSendTimeout(long timeoutmillis) {
+        delegate.setAsyncSendTimeout(timeoutmillis);
+    }
+
+    @Override
+    public long getDefaultMaxSessionIdleTimeout() {
+        return delegate.getDefaultMaxSessionIdleTimeout();
+    }
+
+    @Override
+    public void setDefaultMaxSessionIdleTimeout(long timeout) {
+        delegate.setDefaultMaxSessionIdleTimeout(timeout);
+    }
+
+    @Override
+    public int getDefaultMaxBinaryMessageBufferSize() {
+        return delegate.getDefaultMaxBinaryMessageBufferSize();
+    }
+
+    @Override
+    public void setDefaultMaxBinaryMessageBufferSize(int max) {
+        delegate.setDefaultMaxBinaryMessageBufferSize(max);
+    }
+
+    @Override
+    public int getDefaultMaxTextMessageBufferSize() {
+        return delegate.getDefaultMaxTextMessageBufferSize();
+    }
+
+    @Override
+    public void setDefaultMaxTextMessageBufferSize(int max) {
+        delegate.setDefaultMaxTextMessageBufferSize(max);
+    }
+
+    @Override
+    public Set<Extension> getInstalledExtensions() {
+        return delegate.getInstalledExtensions();
+    }
+}
@@ -1,5 +1,6 @@
 package com.system.chattalkdesktop.service;
 
+import com.system.chattalkdesktop.Dto.ChatDto.MessageDeltaDTO;
 import com.system.chattalkdesktop.Dto.entity.MessageDTO;
 
 /**
@@ -22,4 +23,10 @@ public interface MessageUpdateListener {
      * Called when a message is sent
      */
     void onMessageSent(MessageDTO message);
+
+    /**
+     * Called when a message was edited or deleted
+     */
+    default void onMessageChanged(MessageDeltaDTO delta) {
+    }
 }
\ No newline at end of file
@@ -1,5 +1,9 @@
 package com.system.chattalkdesktop.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.chattalkdesktop.Dto.ChatDto.MessageDeltaDTO;
+import com.system.chattalkdesktop.Dto.EventDto.EventReplayResponse;
+import com.system.chattalkdesktop.Dto.EventDto.UserEventDTO;
 import com.system.chattalkdesktop.Dto.entity.MessageDTO;
 import com.system.chattalkdesktop.Dto.entity.NotificationDTO;
 import com.system.chattalkdesktop.MainChat.FriendListController;
@@ -16,7 +20,9 @@ import org.springframework.web.socket.client.standard.StandardWebSocketClient;
 import org.springframework.web.socket.messaging.WebSocketStompClient;
 
 import java.lang.reflect.Type;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -27,7 +33,8 @@ public class NotificationManager {
     private StompSession stompSession;
     private WebSocketStompClient stompClient;
     private boolean isConnecting = false;
-    private boolean isConnected = false;
+    // Read by RealTimeChatService's polling thread
+    private volatile boolean isConnected = false;
 
     // Reference to FriendListController for updating chat data
     @Setter
@@ -47,6 +54,15 @@ public class NotificationManager {
     private final Set<String> processedNotifications = new HashSet<>();
     private final long NOTIFICATION_DEDUP_WINDOW_MS = 5000; // 5 seconds
 
+    // Highest event sequence number handled; sent back on (re)connect to replay what was missed
+    private long lastEventSeq = 0;
+    // Live frames can overtake a replay batch, so handled numbers are remembered individually
+    private final Set<Long> handledEventSeqs = new HashSet<>();
+    private ObjectMapper eventMapper = new ObjectMapper().findAndRegisterModules();
+
+    // Chat the user has open; the server skips notifications for it. Sent again on every (re)connect.
+    private volatile Long focusedChatId;
+
     private final String websocketUrl = System.getProperty("websocket.url", "ws://localhost:8080/ws");
 
     private NotificationManager() {
@@ -78,13 +94,15 @@ public class NotificationManager {
         }
         isConnecting = true;
 
-        WebSocketClient client = new StandardWebSocketClient();
+        // Offers permessage-deflate; small frames stay uncompressed (see CompressingWebSocketContainer)
+        WebSocketClient client = new StandardWebSocketClient(new CompressingWebSocketContainer());
         stompClient = new WebSocketStompClient(client);
 
         // Configure message converters to handle various payload types
         MappingJackson2MessageConverter jsonConverter = new MappingJackson2MessageConverter();
         // Don't set a specific payload class to allow flexibility
         stompClient.setMessageConverter(jsonConverter);
+        eventMapper = jsonConverter.getObjectMapper();
 
         // Enable automatic message conversion
         stompClient.setAutoStartup(true);
@@ -201,12 +219,27 @@ public class NotificationManager {
                     System.out.println("✅ Connected, subscribing to notifications...");
                 }
 
+                // Events after this one were missed while disconnected
+                long replayFrom;
+                synchronized (this) {
+                    replayFrom = lastEventSeq;
+                }
+
                 // Subscribe to general notifications
                 subscribeToGeneralNotifications();
 
                 // Subscribe to chat messages
                 subscribeToChatMessages();
 
+                // Catch up on events pushed while this client was offline
+                subscribeToEventReplay();
+                requestEventReplay(replayFrom);
+
+                // A new session starts without focus on the server
+                if (focusedChatId != null) {
+                    sendFocus(focusedChatId);
+                }
+
                 if (showDebugNotifications) {
                     System.out.println("📬 Subscribed to notifications and chat messages");
                 }
@@ -243,145 +276,10 @@ public class NotificationManager {
 
             @Override
             public void handleFrame(StompHeaders headers, Object payload) {
-                NotificationDTO notification = (NotificationDTO) payload;
-                if (showDebugNotifications) {
-                    System.out.println("📩 Received notification: " + notification);
-                }
-                
-                // Check for duplicate notifications
-                String notificationKey = createNotificationKey(notification);
-                if (isDuplicateNotification(notificationKey)) {
-                    if (showDebugNotifications) {
-                        System.out.println("🚫 Duplicate notification ignored: " + notificationKey);
-                    }
+                if (!advanceSequence(headers)) {
                     return;
                 }
-                
-                // Mark as processed
-                markNotificationAsProcessed(notificationKey);
-                
-                Platform.runLater(() -> {
-                    try {
-                        // Show desktop notification
-                        switch (notification.getType()) {
-                            case "FRIEND_REQUEST" -> {
-                                NotificationServiceImpl.getInstance().showFriendRequestNotification(
-                                        notification.getSenderEmail() != null ? notification.getSenderEmail() : "Unknown User",
-                                        () -> {
-                                            if (showDebugNotifications) {
-                                                System.out.println("✅ Friend request accepted from " + notification.getSenderEmail());
-                                            }
-                                            // TODO: Call REST API to accept friend request
-                                        },
-                                        () -> {
-                                            if (showDebugNotifications) {
-                                                System.out.println("❌ Friend request rejected from " + notification.getSenderEmail());
-                                            }
-                                            // TODO: Call REST API to reject friend request
-                                        }
-                                );
-                                
-                                // Refresh pending requests list in real-time
-                                if (friendListController != null) {
-                                    Platform.runLater(() -> {
-                                        try {
-                                            friendListController.refreshPendingRequests();
-                                            if (showDebugNotifications) {
-                                                System.out.println("🔄 Pending requests list refreshed due to new friend request");
-                                            }
-                                        } catch (Exception e) {
-                                            System.err.println("⚠️ Error refreshing pending requests: " + e.getMessage());
-                                        }
-                                    });
-                                }
-                            }
-                            case "FRIEND_RESPONSE_ACCEPTED" -> {
-                                NotificationServiceImpl.getInstance().showSuccessNotification(
-                                        notification.getTitle(),
-                                        notification.getMessage()
-                                );
-                                
-                                // Refresh both friends list and pending requests
-                                if (friendListController != null) {
-                                    Platform.runLater(() -> {
-                                        try {
-                                            friendListController.refreshAll();
-                                            if (showDebugNotifications) {
-                                                System.out.println("🔄 Friends list and pending requests refreshed due to accepted friend request");
-                                            }
-                                        } catch (Exception e) {
-                                            System.err.println("⚠️ Error refreshing after friend request acceptance: " + e.getMessage());
-                                        }
-                                    });
-                                }
-                            }
-                            case "FRIEND_RESPONSE_REJECTED" -> {
-                                NotificationServiceImpl.getInstance().showErrorNotification(
-                                        notification.getTitle(),
-                                        notification.getMessage()
-                                );
-                                
-                                // Refresh pending requests (sender's side)
-                                if (friendListController != null) {
-                                    Platform.runLater(() -> {
-                                        try {
-                                            friendListController.refreshPendingRequests();
-                                            if (showDebugNotifications) {
-                                                System.out.println("🔄 Pending requests refreshed due to rejected friend request");
-                                            }
-                                        } catch (Exception e) {
-                                            System.err.println("⚠️ Error refreshing after friend request rejection: " + e.getMessage());
-                                        }
-                                    });
-                                }
-                            }
-                            case "NEW_MESSAGE" -> {
-                                NotificationServiceImpl.getInstance().showMessageNotification(
-                                        notification.getTitle(),
-                                        notification.getMessage()
-                                );
-                                
-                                // Update friend list with new message
-                                if (friendListController != null) {
-                                    Platform.runLater(() -> {
-                                        try {
-                                            // Create a MessageDTO from the notification
-                                            com.system.chattalkdesktop.Dto.entity.MessageDTO messageDTO = 
-                                                com.system.chattalkdesktop.Dto.entity.MessageDTO.builder()
-                                                    .chatId(notification.getChatId())
-                                                    .content(notification.getMessage())
-                                                    .senderId(notification.getSenderId())
-                                                    .timestamp(java.time.LocalDateTime.now())
-                                                    .build();
-                                            
-                                            friendListController.handleNewMessage(messageDTO);
-                                            
-                                            if (showDebugNotifications) {
-                                                System.out.println("🔄 Friend list updated with new message");
-                                            }
-                                        } catch (Exception e) {
-                                            System.err.println("⚠️ Error updating friend list with new message: " + e.getMessage());
-                                        }
-                                    });
-                                }
-                            }
-                            default -> NotificationServiceImpl.getInstance().showInfoNotification(
-                                    notification.getTitle(),
-                                    notification.getMessage()
-                            );
-                        }
-                        
-                        // Update notification list in real-time if controller is available
-                        if (notificationController != null) {
-                            notificationController.addNewNotification(notification);
-                        }
-                    } catch (Exception e) {
-                        System.err.println("⚠️ Error handling notification: " + e.getMessage());
-                        if (showDebugNotifications) {
-                            e.printStackTrace();
-                        }
-                    }
-                });
+                handleNotification((NotificationDTO) payload);
             }
         });
     }
@@ -396,42 +294,26 @@ public class NotificationManager {
 
             @Override
             public void handleFrame(StompHeaders headers, Object payload) {
-                MessageDTO message = (MessageDTO) payload;
-                if (showDebugNotifications) {
-                    System.out.println("💬 Received chat message via WebSocket: " + message);
-                    System.out.println("💬 Message details - ID: " + message.getMessageId() + 
-                                     ", Content: " + message.getContent() + 
-                                     ", Sender: " + message.getSenderId() + 
-                                     ", Chat: " + message.getChatId());
+                if (!advanceSequence(headers)) {
+                    return;
                 }
+                handleChatMessage((MessageDTO) payload);
+            }
+        });
 
-                Platform.runLater(() -> {
-                    try {
-                        // Only show notification for new messages, not for own messages
-                        Long currentUserId = SessionManager.getInstance().getCurrentUser().getId();
-                        if (message.getSenderId() != null && currentUserId != null &&
-                                !message.getSenderId().equals(currentUserId)) {
-                            NotificationServiceImpl.getInstance().showMessageNotification(
-                                    "New Message",
-                                    message.getContent()
-                            );
-                        }
+        // Edits and deletions of messages that were already delivered
+        stompSession.subscribe("/user/queue/message-updates", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return MessageDeltaDTO.class;
+            }
 
-                        // Update friend list with new message if controller is available
-                        if (friendListController != null && message.getSenderId() != null) {
-                            updateChatWithNewMessage(message);
-                        }
-                        
-                        // Also notify ChatMessageObserver for real-time updates
-                        ChatMessageObserver.getInstance().notifyNewMessage(message);
-                        
-                    } catch (Exception e) {
-                        System.err.println("⚠️ Error handling chat message: " + e.getMessage());
-                        if (showDebugNotifications) {
-                            e.printStackTrace();
-                        }
-                    }
-                });
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                if (!advanceSequence(headers)) {
+                    return;
+                }
+                ChatMessageObserver.getInstance().notifyMessageChanged((MessageDeltaDTO) payload);
             }
         });
 
@@ -495,6 +377,278 @@ public class NotificationManager {
         });
     }
 
+    private void subscribeToEventReplay() {
+        stompSession.subscribe("/user/queue/replay", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return EventReplayResponse.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                handleEventReplay((EventReplayResponse) payload);
+            }
+        });
+    }
+
+    private void requestEventReplay(long since) {
+        if (since > 0) {
+            if (showDebugNotifications) {
+                System.out.println("⏪ Requesting events after seq " + since);
+            }
+            stompSession.send("/app/events.replay", Map.of("since", since));
+        }
+    }
+
+    private void handleEventReplay(EventReplayResponse replay) {
+        if (!replay.isComplete()) {
+            // Missed events are no longer retained on the server; reload everything instead
+            if (showDebugNotifications) {
+                System.out.println("⏪ Event log gap too old to replay, refreshing all data");
+            }
+            synchronized (this) {
+                lastEventSeq = Math.max(lastEventSeq, replay.getLatestSeq());
+            }
+            if (friendListController != null) {
+                Platform.runLater(() -> friendListController.refreshAll());
+            }
+            return;
+        }
+
+        long replayedUpTo = 0;
+        if (replay.getEvents() != null) {
+            for (UserEventDTO event : replay.getEvents()) {
+                replayedUpTo = event.getSeq();
+                if (!advanceSequence(event.getSeq())) {
+                    continue;
+                }
+                try {
+                    switch (event.getDestination()) {
+                        case "/queue/notifications" -> handleNotification(eventMapper.treeToValue(event.getPayload(), NotificationDTO.class));
+                        case "/queue/chat" -> handleChatMessage(eventMapper.treeToValue(event.getPayload(), MessageDTO.class));
+                        case "/queue/message-updates" -> ChatMessageObserver.getInstance().notifyMessageChanged(eventMapper.treeToValue(event.getPayload(), MessageDeltaDTO.class));
+                        default -> {
+                            if (showDebugNotifications) {
+                                System.out.println("⏪ Skipping replayed event for " + event.getDestination());
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    System.err.println("⚠️ Error replaying event " + event.getSeq() + ": " + e.getMessage());
+                }
+            }
+        }
+        if (replay.isHasMore()) {
+            requestEventReplay(replayedUpTo);
+        }
+    }
+
+    /**
+     * Records the sequence number of a pushed event; returns false if it was already handled (e.g. via replay)
+     */
+    private boolean advanceSequence(StompHeaders headers) {
+        String seq = headers.getFirst("seq");
+        if (seq == null) {
+            return true;
+        }
+        try {
+            return advanceSequence(Long.parseLong(seq));
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private synchronized boolean advanceSequence(long seq) {
+        if (!handledEventSeqs.add(seq)) {
+            return false;
+        }
+        lastEventSeq = Math.max(lastEventSeq, seq);
+        // Keep only a recent window; anything older than that was handled long ago
+        if (handledEventSeqs.size() > 1000) {
+            handledEventSeqs.removeIf(handled -> handled < lastEventSeq - 500);
+        }
+        return true;
+    }
+
+    private void handleNotification(NotificationDTO notification) {
+        if (showDebugNotifications) {
+            System.out.println("📩 Received notification: " + notification);
+        }
+        
+        // Check for duplicate notifications
+        String notificationKey = createNotificationKey(notification);
+        if (isDuplicateNotification(notificationKey)) {
+            if (showDebugNotifications) {
+                System.out.println("🚫 Duplicate notification ignored: " + notificationKey);
+            }
+            return;
+        }
+        
+        // Mark as processed
+        markNotificationAsProcessed(notificationKey);
+        
+        Platform.runLater(() -> {
+            try {
+                // Show desktop notification
+                switch (notification.getType()) {
+                    case "FRIEND_REQUEST" -> {
+                        NotificationServiceImpl.getInstance().showFriendRequestNotification(
+                                notification.getSenderEmail() != null ? notification.getSenderEmail() : "Unknown User",
+                                () -> {
+                                    if (showDebugNotifications) {
+                                        System.out.println("✅ Friend request accepted from " + notification.getSenderEmail());
+                                    }
+                                    // TODO: Call REST API to accept friend request
+                                },
+                                () -> {
+                                    if (showDebugNotifications) {
+                                        System.out.println("❌ Friend request rejected from " + notification.getSenderEmail());
+                                    }
+                                    // TODO: Call REST API to reject friend request
+                                }
+                        );
+                        
+                        // Refresh pending requests list in real-time
+                        if (friendListController != null) {
+                            Platform.runLater(() -> {
+                                try {
+                                    friendListController.refreshPendingRequests();
+                                    if (showDebugNotifications) {
+                                        System.out.println("🔄 Pending requests list refreshed due to new friend request");
+                                    }
+                                } catch (Exception e) {
+                                    System.err.println("⚠️ Error refreshing pending requests: " + e.getMessage());
+                                }
+                            });
+                        }
+                    }
+                    case "FRIEND_RESPONSE_ACCEPTED" -> {
+                        NotificationServiceImpl.getInstance().showSuccessNotification(
+                                notification.getTitle(),
+                                notification.getMessage()
+                        );
+                        
+                        // Refresh both friends list and pending requests
+                        if (friendListController != null) {
+                            Platform.runLater(() -> {
+                                try {
+                                    friendListController.refreshAll();
+                                    if (showDebugNotifications) {
+                                        System.out.println("🔄 Friends list and pending requests refreshed due to accepted friend request");
+                                    }
+                                } catch (Exception e) {
+                                    System.err.println("⚠️ Error refreshing after friend request acceptance: " + e.getMessage());
+                                }
+                            });
+                        }
+                    }
+                    case "FRIEND_RESPONSE_REJECTED" -> {
+                        NotificationServiceImpl.getInstance().showErrorNotification(
+                                notification.getTitle(),
+                                notification.getMessage()
+                        );
+                        
+                        // Refresh pending requests (sender's side)
+                        if (friendListController != null) {
+                            Platform.runLater(() -> {
+                                try {
+                                    friendListController.refreshPendingRequests();
+                                    if (showDebugNotifications) {
+                                        System.out.println("🔄 Pending requests refreshed due to rejected friend request");
+                                    }
+                                } catch (Exception e) {
+                                    System.err.println("⚠️ Error refreshing after friend request rejection: " + e.getMessage());
+                                }
+                            });
+                        }
+                    }
+                    case "NEW_MESSAGE" -> {
+                        NotificationServiceImpl.getInstance().showMessageNotification(
+                                notification.getTitle(),
+                                notification.getMessage()
+                        );
+                        
+                        // Update friend list with new message
+                        if (friendListController != null) {
+                            Platform.runLater(() -> {
+                                try {
+                                    // Create a MessageDTO from the notification
+                                    com.system.chattalkdesktop.Dto.entity.MessageDTO messageDTO = 
+                                        com.system.chattalkdesktop.Dto.entity.MessageDTO.builder()
+                                            .chatId(notification.getChatId())
+                                            .content(notification.getMessage())
+                                            .senderId(notification.getSenderId())
+                                            .timestamp(java.time.LocalDateTime.now())
+                                            .build();
+                                    
+                                    friendListController.handleNewMessage(messageDTO);
+                                    
+                                    if (showDebugNotifications) {
+                                        System.out.println("🔄 Friend list updated with new message");
+                                    }
+                                } catch (Exception e) {
+                                    System.err.println("⚠️ Error updating friend list with new message: " + e.getMessage());
+                                }
+                            });
+                        }
+                    }
+                    default -> NotificationServiceImpl.getInstance().showInfoNotification(
+                            notification.getTitle(),
+                            notification.getMessage()
+                    );
+                }
+                
+                // Update notification list in real-time if controller is available
+                if (notificationController != null) {
+                    notificationController.addNewNotification(notification);
+                }
+            } catch (Exception e) {
+                System.err.println("⚠️ Error handling notification: " + e.getMessage());
+                if (showDebugNotifications) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    private void handleChatMessage(MessageDTO message) {
+        if (showDebugNotifications) {
+            System.out.println("💬 Received chat message via WebSocket: " + message);
+            System.out.println("💬 Message details - ID: " + message.getMessageId() + 
+                             ", Content: " + message.getContent() + 
+                             ", Sender: " + message.getSenderId() + 
+                             ", Chat: " + message.getChatId());
+        }
+
+        Platform.runLater(() -> {
+            try {
+                // Only show notification for new messages, not for own messages
+                Long currentUserId = SessionManager.getInstance().getCurrentUser().getId();
+                if (message.getSenderId() != null && currentUserId != null &&
+                        !message.getSenderId().equals(currentUserId)) {
+                    NotificationServiceImpl.getInstance().showMessageNotification(
+                            "New Message",
+                            message.getContent()
+                    );
+                }
+
+                // Update friend list with new message if controller is available
+                if (friendListController != null && message.getSenderId() != null) {
+                    updateChatWithNewMessage(message);
+                }
+                
+                // Also notify ChatMessageObserver for real-time updates
+                ChatMessageObserver.getInstance().notifyNewMessage(message);
+                
+            } catch (Exception e) {
+                System.err.println("⚠️ Error handling chat message: " + e.getMessage());
+                if (showDebugNotifications) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
     private void updateChatWithNewMessage(MessageDTO message) {
         if (message == null || friendListController == null) {
             if (showDebugNotifications) {
@@ -633,6 +787,38 @@ public class NotificationManager {
         }
     }
 
+    /**
+     * The user opened a chat; new messages in it arrive without a notification while it stays open
+     */
+    public void focusChat(Long chatId) {
+        focusedChatId = chatId;
+        if (isConnected()) {
+            sendFocus(chatId);
+        }
+    }
+
+    /**
+     * The user left the chat; ignored when another chat has been opened since
+     */
+    public void blurChat(Long chatId) {
+        if (chatId == null || !chatId.equals(focusedChatId)) {
+            return;
+        }
+        focusedChatId = null;
+        if (isConnected()) {
+            sendFocus(null);
+        }
+    }
+
+    private void sendFocus(Long chatId) {
+        try {
+            // A null chat id clears the focus of this session
+            stompSession.send("/app/chat.focus", Collections.singletonMap("chatId", chatId));
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to send chat focus: " + e.getMessage());
+        }
+    }
+
     public void sendMessage(String destination, Object message) {
         if (!isConnected()) {
             connectWebSocket();
@@ -709,8 +895,13 @@ public class NotificationManager {
         @Override
         public void handleTransportError(StompSession session, Throwable ex) {
             System.err.println("⚠️ Transport error: " + ex.getMessage());
+            if (instance != null) {
+                // Next subscribeToNotifications() reconnects and replays from the last seen seq
+                instance.isConnected = false;
+            }
             if (instance != null && instance.showDebugNotifications) {
                 System.err.println("🔍 Session: " + session);
+                System.err.println("📉 Compression: " + WebSocketCompressionStats.getInstance());
                 ex.printStackTrace();
             }
             if (instance != null && instance.showConnectionNotifications) {
@@ -13,7 +13,8 @@ import java.util.function.Consumer;
 import javafx.concurrent.Task;
 
 /**
- * Real-time chat service that provides live updates using polling
+ * Real-time chat service: new messages, edits and deletions are pushed over the WebSocket by NotificationManager,
+ * so the history is polled only while that socket is down.
  * Integrates with the existing API services and observer pattern
  */
 @Slf4j
@@ -24,7 +25,7 @@ public class RealTimeChatService {
     private final ChatMessageObserver messageObserver = ChatMessageObserver.getInstance();
     private final EventBus eventBus = EventBus.getInstance();
     
-    // Polling intervals
+    // Polling intervals (messages: only while the WebSocket is disconnected)
     private static final int MESSAGE_POLL_INTERVAL = 2000; // 2 seconds
     private static final int STATUS_POLL_INTERVAL = 5000; // 5 seconds
     
@@ -100,11 +101,11 @@ public class RealTimeChatService {
     }
 
     /**
-     * Start polling for new messages
+     * Start polling for new messages, as a fallback for when the WebSocket is disconnected
      */
     private void startMessagePolling() {
         messagePollingTask = scheduler.scheduleAtFixedRate(() -> {
-            if (!isRunning.get() || currentChatId == null) {
+            if (!isRunning.get() || currentChatId == null || NotificationManager.getInstance().isConnected()) {
                 return;
             }
 
@@ -0,0 +1,78 @@
+package com.system.chattalkdesktop.service;
+
+import jakarta.websocket.Extension;
+import org.glassfish.tyrus.core.extension.ExtendedExtension;
+import org.glassfish.tyrus.core.frame.Frame;
+import org.glassfish.tyrus.ext.extension.deflate.PerMessageDeflateExtension;
+
+import java.util.List;
+
+/**
+ * permessage-deflate for Tyrus client connections that leaves small frames uncompressed
+ * Frames below the threshold are sent with RSV1 unset, which RFC 7692 allows per message,
+ * so tiny STOMP frames (heart-beats, acks) do not pay the deflate CPU cost
+ */
+public class ThresholdDeflateExtension implements ExtendedExtension {
+
+    private static final byte OPCODE_CONTINUATION = 0x0;
+
+    private final PerMessageDeflateExtension delegate = new PerMessageDeflateExtension();
+    private final WebSocketCompressionStats stats = WebSocketCompressionStats.getInstance();
+    private final int threshold;
+
+    public ThresholdDeflateExtension(int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Frame processOutgoing(ExtensionContext context, Frame frame) {
+        if (frame.isControlFrame()) {
+            return frame;
+        }
+        // Only whole single-frame messages may skip compression; fragments follow the first frame's choice
+        if (frame.isFin() && frame.getOpcode() != OPCODE_CONTINUATION && frame.getPayloadLength() < threshold) {
+            stats.recordSkipped();
+            return frame;
+        }
+        long start = System.nanoTime();
+        Frame compressed = delegate.processOutgoing(context, frame);
+        stats.recordDeflate(frame.getPayloadLength(), compressed.getPayloadLength(), System.nanoTime() - start);
+        return compressed;
+    }
+
+    @Override
+    public Frame processIncoming(ExtensionContext context, Frame frame) {
+        if (!frame.isRsv1()) {
+            return delegate.processIncoming(context, frame);
+        }
+        long start = System.nanoTime();
+        Frame inflated = delegate.processIncoming(context, frame);
+        stats.recordInflate(frame.getPayloadLength(), inflated.getPayloadLength(), System.nanoTime() - start);
+        return inflated;
+    }
+
+    @Override
+    public List<Extension.Parameter> onExtensionNegotiation(ExtensionContext context, List<Extension.Parameter> requestedParameters) {
+        return delegate.onExtensionNegotiation(context, requestedParameters);
+    }
+
+    @Override
+    public void onHandshakeResponse(ExtensionContext context, List<Extension.Parameter> responseParameters) {
+        delegate.onHandshakeResponse(context, responseParameters);
+    }
+
+    @Override
+    public void destroy(ExtensionContext context) {
+        delegate.destroy(context);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public List<Extension.Parameter> getParameters() {
+        return delegate.getParameters();
+    }
+}
@@ -0,0 +1,89 @@
+package com.system.chattalkdesktop.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for permessage-deflate on the desktop WebSocket connections
+ * Used to judge whether compression pays off on a given link (bandwidth saved vs CPU spent)
+ */
+public class WebSocketCompressionStats {
+
+    private static final WebSocketCompressionStats INSTANCE = new WebSocketCompressionStats();
+
+    private final LongAdder compressedFrames = new LongAdder();
+    private final LongAdder skippedFrames = new LongAdder();
+    private final LongAdder outboundPlainBytes = new LongAdder();
+    private final LongAdder outboundCompressedBytes = new LongAdder();
+    private final LongAdder deflateNanos = new LongAdder();
+    private final LongAdder inflatedFrames = new LongAdder();
+    private final LongAdder inboundCompressedBytes = new LongAdder();
+    private final LongAdder inboundPlainBytes = new LongAdder();
+    private final LongAdder inflateNanos = new LongAdder();
+
+    private WebSocketCompressionStats() {}
+
+    public static WebSocketCompressionStats getInstance() {
+        return INSTANCE;
+    }
+
+    void recordDeflate(long plainBytes, long compressedBytes, long nanos) {
+        compressedFrames.increment();
+        outboundPlainBytes.add(plainBytes);
+        outboundCompressedBytes.add(compressedBytes);
+        deflateNanos.add(nanos);
+    }
+
+    void recordSkipped() {
+        skippedFrames.increment();
+    }
+
+    void recordInflate(long compressedBytes, long plainBytes, long nanos) {
+        inflatedFrames.increment();
+        inboundCompressedBytes.add(compressedBytes);
+        inboundPlainBytes.add(plainBytes);
+        inflateNanos.add(nanos);
+    }
+
+    /**
+     * Compressed / uncompressed size over all outbound compressed frames (1.0 when nothing was compressed)
+     */
+    public double getOutboundRatio() {
+        return ratio(outboundCompressedBytes.sum(), outboundPlainBytes.sum());
+    }
+
+    /**
+     * Compressed / uncompressed size over all inbound compressed frames (1.0 when nothing was compressed)
+     */
+    public double getInboundRatio() {
+        return ratio(inboundCompressedBytes.sum(), inboundPlainBytes.sum());
+    }
+
+    public long getAverageDeflateNanos() {
+        long frames = compressedFrames.sum();
+        return frames == 0 ? 0 : deflateNanos.sum() / frames;
+    }
+
+    public long getAverageInflateNanos() {
+        long frames = inflatedFrames.sum();
+        return frames == 0 ? 0 : inflateNanos.sum() / frames;
+    }
+
+    public long getCompressedFrames() {
+        return compressedFrames.sum();
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames.sum();
+    }
+
+    private static double ratio(long compressed, long plain) {
+        return plain == 0 ? 1.0 : (double) compressed / plain;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("out: %d compressed / %d below threshold, ratio %.2f, %d ns/frame; in: %d frames, ratio %.2f, %d ns/frame",
+                getCompressedFrames(), getSkippedFrames(), getOutboundRatio(), getAverageDeflateNanos(),
+                inflatedFrames.sum(), getInboundRatio(), getAverageInflateNanos());
+    }
+}
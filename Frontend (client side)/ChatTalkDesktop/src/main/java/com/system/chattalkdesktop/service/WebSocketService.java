@@ -74,10 +74,27 @@ public class WebSocketService {
                 return future;
             }
 
-            ClientManager client = ClientManager.createClient();
             URI uri = URI.create(WS_URL);
-            
-            client.connectToServer(this, uri);
+
+            // Programmatic endpoint so the permessage-deflate extension can be offered in the handshake
+            ClientEndpointConfig config = CompressingWebSocketContainer.withCompression(ClientEndpointConfig.Builder.create().build());
+            ClientManager.createClient().connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig endpointConfig) {
+                    session.addMessageHandler(String.class, WebSocketService.this::onMessage);
+                    WebSocketService.this.onOpen(session);
+                }
+
+                @Override
+                public void onClose(Session session, CloseReason closeReason) {
+                    WebSocketService.this.onClose(session, closeReason);
+                }
+
+                @Override
+                public void onError(Session session, Throwable throwable) {
+                    WebSocketService.this.onError(session, throwable);
+                }
+            }, config, uri);
             
             // Send STOMP CONNECT frame
             String connectFrame = String.format(STOMP_CONNECT_FRAME, token);
@@ -179,9 +196,28 @@ public class WebSocketService {
 
     @OnMessage
     public void onMessage(String message) {
+        log.debug("Received WebSocket message: {}", message);
+
+        // The server may coalesce several NUL-terminated STOMP frames into one WebSocket message
+        int start = 0;
+        while (start < message.length()) {
+            int end = message.indexOf('\0', start);
+            if (end < 0) {
+                end = message.length();
+            }
+            String frame = message.substring(start, end).stripLeading(); // drop heart-beat EOLs
+            if (!frame.isEmpty()) {
+                handleFrame(frame);
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Handle a single STOMP frame (without its NUL terminator)
+     */
+    private void handleFrame(String message) {
         try {
-            log.debug("Received WebSocket message: {}", message);
-            
             // Handle STOMP frames
             if (message.startsWith("MESSAGE")) {
                 // Extract message body from STOMP frame
@@ -218,6 +254,7 @@ public class WebSocketService {
     @OnClose
     public void onClose(Session session, CloseReason closeReason) {
         log.info("WebSocket session closed: {} - {}", session.getId(), closeReason);
+        log.debug("WebSocket compression: {}", WebSocketCompressionStats.getInstance());
         isConnected.set(false);
         if (connectionStatusHandler != null) {
             connectionStatusHandler.accept("DISCONNECTED");
@@ -0,0 +1,85 @@
+package com.system.chattalkdesktop.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Conditional GETs for list endpoints: remembers the last ETag and body per token and URL,
+ * sends If-None-Match, and answers a 304 from the remembered body.
+ * Also asks for gzip and inflates compressed bodies (the JDK HttpClient does not do this itself).
+ */
+public class ConditionalGetCache {
+    private static final int MAX_ENTRIES = 64;
+
+    private static final Map<String, Response> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<String, Response> eldest ) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public record Response(int statusCode, String body, String etag) {
+    }
+
+    public static Response get( HttpClient client, URI uri, String authorization ) throws IOException, InterruptedException {
+        String key = authorization + " " + uri;
+        Response cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(uri)
+                .header("Content-Type", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .header("Authorization", authorization)
+                .GET();
+        if (cached != null) {
+            builder.header("If-None-Match", cached.etag());
+        }
+
+        HttpResponse<byte[]> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() == 304 && cached != null) {
+            return new Response(200, cached.body(), cached.etag());
+        }
+
+        String body = decode(response);
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        Response result = new Response(response.statusCode(), body, etag);
+        synchronized (cache) {
+            if (response.statusCode() == 200 && etag != null) {
+                cache.put(key, result);
+            } else {
+                cache.remove(key);
+            }
+        }
+        return result;
+    }
+
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private static String decode( HttpResponse<byte[]> response ) throws IOException {
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        if (!gzip) {
+            return new String(response.body(), StandardCharsets.UTF_8);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -28,6 +28,7 @@ public class SessionManager {
         this.authResponse = null;
         this.token = null;
         this.currentUser = null;
+        ConditionalGetCache.clear();
     }
 
     public String getToken() {
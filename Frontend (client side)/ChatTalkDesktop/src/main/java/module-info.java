@@ -19,6 +19,8 @@ module com.system.chattalkdesktop {
     requires spring.beans;
     requires spring.context;
     requires org.glassfish.tyrus.client;
+    requires org.glassfish.tyrus.core;
+    requires org.glassfish.tyrus.ext.extension.deflate;
     requires jakarta.websocket.client;
     requires annotations;
 //    requires jakarta.websocket;
@@ -39,7 +41,10 @@ module com.system.chattalkdesktop {
     exports com.system.chattalkdesktop.MainChat;
     exports com.system.chattalkdesktop.SearchService;
     exports com.system.chattalkdesktop.Dto.AuthDto;
+    exports com.system.chattalkdesktop.Dto.BootstrapDto;
     exports com.system.chattalkdesktop.Dto.ChatDto;
+    exports com.system.chattalkdesktop.Dto.EventDto;
+    exports com.system.chattalkdesktop.Dto.NotificationDto;
     exports com.system.chattalkdesktop.Dto.entity;
     exports com.system.chattalkdesktop.MainChat.APIService;
     exports com.system.chattalkdesktop.service;
@@ -47,7 +52,10 @@ module com.system.chattalkdesktop {
 
     opens com.system.chattalkdesktop.common to javafx.fxml;
     opens com.system.chattalkdesktop.Dto.AuthDto to com.fasterxml.jackson.databind, com.google.gson;
+    opens com.system.chattalkdesktop.Dto.BootstrapDto to com.fasterxml.jackson.databind;
     opens com.system.chattalkdesktop.Dto.ChatDto to com.fasterxml.jackson.databind, com.google.gson;
+    opens com.system.chattalkdesktop.Dto.EventDto to com.fasterxml.jackson.databind;
+    opens com.system.chattalkdesktop.Dto.NotificationDto to com.fasterxml.jackson.databind;
     opens com.system.chattalkdesktop.Dto.entity to com.fasterxml.jackson.databind, com.google.gson;
     opens com.system.chattalkdesktop.MainChat.APIService to com.fasterxml.jackson.databind, javafx.fxml;
     opens com.system.chattalkdesktop.service to com.fasterxml.jackson.databind, javafx.fxml;